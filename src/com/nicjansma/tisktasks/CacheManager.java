@@ -5,6 +5,7 @@ import android.content.Context;
 import com.nicjansma.library.android.SharedPreferencesJsonObjectCache;
 import com.nicjansma.tisktasks.models.TodoistProjects;
 import com.nicjansma.tisktasks.models.TodoistQueryResults;
+import com.nicjansma.tisktasks.models.TodoistSearchIndex;
 import com.nicjansma.tisktasks.models.TodoistUser;
 
 /**
@@ -44,6 +45,11 @@ public final class CacheManager
      */
     private static final String CACHE_CURRENT_USER_KEY = "currentUser";
 
+    /**
+     * Search index key.
+     */
+    private static final String CACHE_SEARCH_INDEX_KEY = "searchIndex";
+
     /**
      * CacheManager constructor.
      *
@@ -60,6 +66,7 @@ public final class CacheManager
         remove(CACHE_START_PAGE_TASKS_KEY);
         remove(CACHE_PROJECTS_KEY);
         remove(CACHE_CURRENT_USER_KEY);
+        remove(CACHE_SEARCH_INDEX_KEY);
     }
 
     @Override
@@ -97,4 +104,16 @@ public final class CacheManager
     {
         set(CACHE_CURRENT_USER_KEY, user);
     }
+
+    @Override
+    public TodoistSearchIndex getSearchIndex()
+    {
+        return getJson(CACHE_SEARCH_INDEX_KEY, TodoistSearchIndex.class);
+    }
+
+    @Override
+    public void setSearchIndex(final TodoistSearchIndex searchIndex)
+    {
+        set(CACHE_SEARCH_INDEX_KEY, searchIndex);
+    }
 }
@@ -3,6 +3,7 @@ package com.nicjansma.tisktasks;
 import com.nicjansma.library.net.IJsonObjectCache;
 import com.nicjansma.tisktasks.models.TodoistProjects;
 import com.nicjansma.tisktasks.models.TodoistQueryResults;
+import com.nicjansma.tisktasks.models.TodoistSearchIndex;
 import com.nicjansma.tisktasks.models.TodoistUser;
 
 /**
@@ -57,4 +58,18 @@ public interface ICacheManager
      * @param user Current user
      */
     void setCurrentUser(TodoistUser user);
+
+    /**
+     * Gets the task search index.
+     *
+     * @return Search index, or null if not available.
+     */
+    TodoistSearchIndex getSearchIndex();
+
+    /**
+     * Sets the task search index.
+     *
+     * @param searchIndex Search index
+     */
+    void setSearchIndex(TodoistSearchIndex searchIndex);
 }
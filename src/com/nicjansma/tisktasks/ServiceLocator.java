@@ -1,11 +1,26 @@
 package com.nicjansma.tisktasks;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
+import java.io.File;
+
+import com.nicjansma.tisktasks.api.ApiLatencyStats;
+import com.nicjansma.tisktasks.api.AsyncTodoistApi;
+import com.nicjansma.tisktasks.api.BatchingTodoistApi;
+import com.nicjansma.tisktasks.api.CoalescingTodoistApi;
 import com.nicjansma.tisktasks.api.ITodoistApi;
+import com.nicjansma.tisktasks.api.JournalingTodoistApi;
+import com.nicjansma.tisktasks.api.MutationJournal;
+import com.nicjansma.tisktasks.api.ProjectPrefetcher;
 import com.nicjansma.tisktasks.api.TodoistApi;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
+import com.nicjansma.tisktasks.models.DayRollover;
 import com.nicjansma.tisktasks.models.IProjectManager;
 import com.nicjansma.tisktasks.models.ProjectManager;
+import com.nicjansma.tisktasks.models.TodoistSearchIndex;
+import com.nicjansma.tisktasks.models.TodoistTaskIndex;
 
 /**
  * Service locator.
@@ -14,6 +29,14 @@ import com.nicjansma.tisktasks.models.ProjectManager;
  */
 public abstract class ServiceLocator
 {
+    //
+    // Constants
+    //
+    /**
+     * Mutation journal file name.
+     */
+    private static final String JOURNAL_FILE_NAME = "journal";
+
     //
     // members
     //
@@ -27,6 +50,36 @@ public abstract class ServiceLocator
      */
     private static ITodoistApi _api = null;
 
+    /**
+     * Latency of each API endpoint.
+     */
+    private static ApiLatencyStats _apiLatency = null;
+
+    /**
+     * Asynchronous API.
+     */
+    private static AsyncTodoistApi _asyncApi = null;
+
+    /**
+     * Executor of API work.
+     */
+    private static TodoistExecutor _executor = null;
+
+    /**
+     * Journal of API changes not yet sent.
+     */
+    private static MutationJournal _journal = null;
+
+    /**
+     * Project Prefetcher.
+     */
+    private static ProjectPrefetcher _prefetcher = null;
+
+    /**
+     * Day rollover.
+     */
+    private static DayRollover _dayRollover = null;
+
     /**
      * User manager.
      */
@@ -37,6 +90,16 @@ public abstract class ServiceLocator
      */
     private static IProjectManager _projectManager = null;
 
+    /**
+     * Index of loaded tasks.
+     */
+    private static TodoistTaskIndex _taskIndex = null;
+
+    /**
+     * Search index of loaded tasks.
+     */
+    private static TodoistSearchIndex _searchIndex = null;
+
     /**
      * Preferences.
      */
@@ -67,11 +130,12 @@ public abstract class ServiceLocator
      *
      * @return Todoist API.
      */
-    public static ITodoistApi todoistApi()
+    public static synchronized ITodoistApi todoistApi()
     {
         if (_api == null)
         {
-            _api = new TodoistApi();
+            _api = new JournalingTodoistApi(new BatchingTodoistApi(new CoalescingTodoistApi(new TodoistApi())),
+                                            journal());
         }
 
         return _api;
@@ -85,6 +149,138 @@ public abstract class ServiceLocator
     public static void setTodoistApi(final ITodoistApi newApi)
     {
         _api = newApi;
+        _asyncApi = null;
+    }
+
+    /**
+     * @return Gets the latency histograms of each API endpoint
+     */
+    public static ApiLatencyStats apiLatency()
+    {
+        if (_apiLatency == null)
+        {
+            setApiLatency(new ApiLatencyStats());
+        }
+
+        return _apiLatency;
+    }
+
+    /**
+     * Sets the API latency stats.
+     *
+     * @param newApiLatency API latency stats
+     */
+    public static void setApiLatency(final ApiLatencyStats newApiLatency)
+    {
+        _apiLatency = newApiLatency;
+    }
+
+    /**
+     * Gets the asynchronous Todoist API.
+     *
+     * @return Asynchronous Todoist API, on the shared executor
+     */
+    public static AsyncTodoistApi asyncTodoistApi()
+    {
+        if (_asyncApi == null)
+        {
+            _asyncApi = new AsyncTodoistApi(todoistApi(), executor());
+        }
+
+        return _asyncApi;
+    }
+
+    /**
+     * @return Gets the shared executor of API work
+     */
+    public static synchronized TodoistExecutor executor()
+    {
+        if (_executor == null)
+        {
+            setExecutor(new TodoistExecutor());
+        }
+
+        return _executor;
+    }
+
+    /**
+     * Sets the executor of API work.
+     *
+     * @param newExecutor Executor
+     */
+    public static void setExecutor(final TodoistExecutor newExecutor)
+    {
+        _executor = newExecutor;
+        _asyncApi = null;
+    }
+
+    /**
+     * @return Gets the journal of API changes not yet sent
+     */
+    public static synchronized MutationJournal journal()
+    {
+        if (_journal == null)
+        {
+            setJournal(new MutationJournal(new File(_context.getFilesDir(), JOURNAL_FILE_NAME)));
+        }
+
+        return _journal;
+    }
+
+    /**
+     * Sets the Mutation Journal.
+     *
+     * @param newJournal Mutation Journal
+     */
+    public static void setJournal(final MutationJournal newJournal)
+    {
+        _journal = newJournal;
+    }
+
+    /**
+     * @return Gets the prefetcher of project task lists
+     */
+    public static synchronized ProjectPrefetcher prefetcher()
+    {
+        if (_prefetcher == null)
+        {
+            setPrefetcher(new ProjectPrefetcher(todoistApi(), executor()));
+        }
+
+        return _prefetcher;
+    }
+
+    /**
+     * Sets the Project Prefetcher.
+     *
+     * @param newPrefetcher Project Prefetcher
+     */
+    public static void setPrefetcher(final ProjectPrefetcher newPrefetcher)
+    {
+        _prefetcher = newPrefetcher;
+    }
+
+    /**
+     * @return Gets the day rollover, which tracks the user's calendar day
+     */
+    public static synchronized DayRollover dayRollover()
+    {
+        if (_dayRollover == null)
+        {
+            setDayRollover(new DayRollover(new Handler(Looper.getMainLooper())));
+        }
+
+        return _dayRollover;
+    }
+
+    /**
+     * Sets the Day Rollover.
+     *
+     * @param newDayRollover Day Rollover
+     */
+    public static void setDayRollover(final DayRollover newDayRollover)
+    {
+        _dayRollover = newDayRollover;
     }
 
     /**
@@ -181,6 +377,74 @@ public abstract class ServiceLocator
         _projectManager = null;
     }
 
+    /**
+     * @return Gets the index of the tasks of all loaded projects
+     */
+    public static synchronized TodoistTaskIndex taskIndex()
+    {
+        if (_taskIndex == null)
+        {
+            setTaskIndex(new TodoistTaskIndex());
+        }
+
+        return _taskIndex;
+    }
+
+    /**
+     * Sets the Task Index.
+     *
+     * @param newTaskIndex Task Index
+     */
+    public static void setTaskIndex(final TodoistTaskIndex newTaskIndex)
+    {
+        _taskIndex = newTaskIndex;
+    }
+
+    /**
+     * Clear the Task Index.
+     */
+    public static void clearTaskIndex()
+    {
+        _taskIndex = null;
+    }
+
+    /**
+     * @return Gets the search index of the tasks of all loaded projects, starting from the cached index
+     */
+    public static synchronized TodoistSearchIndex searchIndex()
+    {
+        if (_searchIndex == null)
+        {
+            TodoistSearchIndex searchIndex = cache().getSearchIndex();
+            if (searchIndex == null)
+            {
+                searchIndex = new TodoistSearchIndex();
+            }
+
+            setSearchIndex(searchIndex);
+        }
+
+        return _searchIndex;
+    }
+
+    /**
+     * Sets the Search Index.
+     *
+     * @param newSearchIndex Search Index
+     */
+    public static void setSearchIndex(final TodoistSearchIndex newSearchIndex)
+    {
+        _searchIndex = newSearchIndex;
+    }
+
+    /**
+     * Clear the Search Index.
+     */
+    public static void clearSearchIndex()
+    {
+        _searchIndex = null;
+    }
+
     /**
      * @return Gets the current Object Cache
      */
@@ -0,0 +1,697 @@
+package com.nicjansma.tisktasks;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.nicjansma.library.net.CacheableJsonObjectBase;
+import com.nicjansma.tisktasks.models.TodoistDueDateParser;
+import com.nicjansma.tisktasks.models.TodoistObjectBase;
+import com.nicjansma.tisktasks.models.TodoistProject;
+import com.nicjansma.tisktasks.models.TodoistProjects;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+import com.nicjansma.tisktasks.models.TodoistQueryResults;
+import com.nicjansma.tisktasks.models.TodoistSearchIndex;
+import com.nicjansma.tisktasks.models.TodoistUser;
+
+/**
+ * Todoist Cache Manager backed by an SQLite database.
+ *
+ * Projects and start page tasks are stored one per row.  Saving a list only writes the rows whose content
+ * hash or position changed, and deletes the rows that are gone, instead of rewriting the whole list.
+ * Other objects are stored as JSON, one per key.
+ *
+ * Every key has a row of metadata with the time it was last saved and how long it stays valid.
+ *
+ * Select it with ServiceLocator.setObjectCache().
+ */
+public final class SqliteCacheManager
+    extends SQLiteOpenHelper
+    implements ICacheManager
+{
+    //
+    // Constants
+    //
+    /**
+     * Database file name.
+     */
+    private static final String DATABASE_NAME = "cache.db";
+
+    /**
+     * Database schema version.
+     */
+    private static final int DATABASE_VERSION = 1;
+
+    /**
+     * Start page tasks age: 2 hours.
+     */
+    private static final long CACHE_START_PAGE_TASKS_AGE = 7200000;
+
+    /**
+     * Start page tasks key.
+     */
+    private static final String CACHE_START_PAGE_TASKS_KEY = "startPageTasks";
+
+    /**
+     * Projects age: 1 day.
+     */
+    private static final long CACHE_PROJECTS_AGE = 86400000;
+
+    /**
+     * Projects key.
+     */
+    private static final String CACHE_PROJECTS_KEY = "projects";
+
+    /**
+     * Current user key.
+     */
+    private static final String CACHE_CURRENT_USER_KEY = "currentUser";
+
+    /**
+     * Search index key.
+     */
+    private static final String CACHE_SEARCH_INDEX_KEY = "searchIndex";
+
+    /**
+     * Age of keys that don't expire.
+     */
+    private static final long NO_EXPIRY = 0;
+
+    /**
+     * Metadata table: the time each key was saved, and how long it's valid.
+     */
+    private static final String TABLE_META = "meta";
+
+    /**
+     * JSON objects table.
+     */
+    private static final String TABLE_OBJECTS = "objects";
+
+    /**
+     * Projects table (all in scope 0).
+     */
+    private static final String TABLE_PROJECTS = "projects";
+
+    /**
+     * Start page queries table.
+     */
+    private static final String TABLE_QUERIES = "queries";
+
+    /**
+     * Start page tasks table (scoped by query position).
+     */
+    private static final String TABLE_QUERY_ITEMS = "query_items";
+
+    /**
+     * All tables.
+     */
+    private static final String[] TABLES = {
+        TABLE_META, TABLE_OBJECTS, TABLE_PROJECTS, TABLE_QUERIES, TABLE_QUERY_ITEMS
+    };
+
+    /**
+     * SqliteCacheManager constructor.
+     *
+     * @param context Application context
+     */
+    public SqliteCacheManager(final Context context)
+    {
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * SqliteCacheManager constructor.
+     *
+     * @param context Application context
+     * @param name Database file name, or null for an in-memory database
+     */
+    public SqliteCacheManager(final Context context, final String name)
+    {
+        super(context, name, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(final SQLiteDatabase db)
+    {
+        db.execSQL("CREATE TABLE " + TABLE_META
+                   + " (key TEXT PRIMARY KEY, updated INTEGER NOT NULL, ttl INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE " + TABLE_OBJECTS + " (key TEXT PRIMARY KEY, json TEXT NOT NULL)");
+        db.execSQL("CREATE TABLE " + TABLE_PROJECTS
+                   + " (scope INTEGER NOT NULL, id INTEGER NOT NULL, position INTEGER NOT NULL,"
+                   + " hash INTEGER NOT NULL, json TEXT NOT NULL, PRIMARY KEY (scope, id))");
+        db.execSQL("CREATE TABLE " + TABLE_QUERIES
+                   + " (position INTEGER PRIMARY KEY, type TEXT, query TEXT)");
+        db.execSQL("CREATE TABLE " + TABLE_QUERY_ITEMS
+                   + " (scope INTEGER NOT NULL, id INTEGER NOT NULL, position INTEGER NOT NULL,"
+                   + " hash INTEGER NOT NULL, json TEXT NOT NULL, PRIMARY KEY (scope, id))");
+    }
+
+    @Override
+    public void onUpgrade(final SQLiteDatabase db, final int oldVersion, final int newVersion)
+    {
+        // it's only a cache, start over
+        for (int i = 0; i < TABLES.length; i++)
+        {
+            db.execSQL("DROP TABLE IF EXISTS " + TABLES[i]);
+        }
+
+        onCreate(db);
+    }
+
+    //
+    // Metadata
+    //
+    /**
+     * Records that a key was saved.
+     *
+     * @param db Database
+     * @param key Key
+     * @param ttl How long the key is valid (milliseconds), or NO_EXPIRY
+     */
+    private static void touch(final SQLiteDatabase db, final String key, final long ttl)
+    {
+        ContentValues values = new ContentValues();
+        values.put("key", key);
+        values.put("updated", System.currentTimeMillis());
+        values.put("ttl", ttl);
+
+        db.replace(TABLE_META, null, values);
+    }
+
+    /**
+     * Determines whether or not a key was saved and hasn't expired.
+     *
+     * @param db Database
+     * @param key Key
+     * @param maxAge Maximum age (milliseconds), or -1 to use the key's own TTL
+     *
+     * @return True if the key is valid
+     */
+    private static boolean isFresh(final SQLiteDatabase db, final String key, final long maxAge)
+    {
+        Cursor cursor = db.query(TABLE_META, new String[] {"updated", "ttl"}, "key = ?", new String[] {key},
+                                 null, null, null);
+        try
+        {
+            if (!cursor.moveToFirst())
+            {
+                return false;
+            }
+
+            long ttl = (maxAge >= 0) ? maxAge : cursor.getLong(1);
+            return ttl == NO_EXPIRY || System.currentTimeMillis() - cursor.getLong(0) <= ttl;
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Removes a key's metadata.
+     *
+     * @param db Database
+     * @param key Key
+     */
+    private static void untouch(final SQLiteDatabase db, final String key)
+    {
+        db.delete(TABLE_META, "key = ?", new String[] {key});
+    }
+
+    //
+    // Rows
+    //
+    /**
+     * Saves a list of objects as rows, only writing the rows that changed.
+     *
+     * @param db Database
+     * @param table Table
+     * @param scope Scope of the rows within the table
+     * @param objects Objects, in order
+     */
+    private static void saveRows(
+        final SQLiteDatabase db,
+        final String table,
+        final long scope,
+        final List<? extends TodoistObjectBase> objects)
+    {
+        String[] scopeArgs = new String[] {Long.toString(scope)};
+
+        // the position and hash of each saved row
+        HashMap<Long, long[]> saved = new HashMap<Long, long[]>();
+        Cursor cursor = db.query(table, new String[] {"id", "position", "hash"}, "scope = ?", scopeArgs,
+                                 null, null, null);
+        try
+        {
+            while (cursor.moveToNext())
+            {
+                saved.put(cursor.getLong(0), new long[] {cursor.getLong(1), cursor.getLong(2)});
+            }
+        }
+        finally
+        {
+            cursor.close();
+        }
+
+        ContentValues values = new ContentValues();
+        for (int i = 0; i < objects.size(); i++)
+        {
+            TodoistObjectBase obj = objects.get(i);
+            long[] row = saved.remove(obj.getId());
+
+            values.clear();
+            values.put("position", (long) i);
+
+            // a hash match is confirmed against the saved JSON, so a collision can't keep a stale row
+            String json = null;
+            boolean changed = row == null || row[1] != obj.getContentHash();
+            if (!changed)
+            {
+                json = obj.toJson().toString();
+                changed = !json.equals(loadRow(db, table, scope, obj.getId()));
+            }
+
+            if (changed)
+            {
+                values.put("scope", scope);
+                values.put("id", obj.getId());
+                values.put("hash", (long) obj.getContentHash());
+                values.put("json", (json != null) ? json : obj.toJson().toString());
+
+                db.replace(table, null, values);
+            }
+            else if (row[0] != i)
+            {
+                db.update(table, values, "scope = ? AND id = ?",
+                          new String[] {Long.toString(scope), Long.toString(obj.getId())});
+            }
+        }
+
+        // anything left wasn't in the list
+        for (Long id : saved.keySet())
+        {
+            db.delete(table, "scope = ? AND id = ?", new String[] {Long.toString(scope), id.toString()});
+        }
+    }
+
+    /**
+     * Loads the JSON of one row.
+     *
+     * @param db Database
+     * @param table Table
+     * @param scope Scope of the row within the table
+     * @param id Object ID
+     *
+     * @return JSON of the row, or null if there isn't one
+     */
+    private static String loadRow(final SQLiteDatabase db, final String table, final long scope, final long id)
+    {
+        Cursor cursor = db.query(table, new String[] {"json"}, "scope = ? AND id = ?",
+                                 new String[] {Long.toString(scope), Long.toString(id)}, null, null, null);
+        try
+        {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+        finally
+        {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Loads the JSON of rows, in order.
+     *
+     * @param db Database
+     * @param table Table
+     * @param scope Scope of the rows within the table
+     *
+     * @return JSON of each row
+     */
+    private static ArrayList<String> loadRows(final SQLiteDatabase db, final String table, final long scope)
+    {
+        ArrayList<String> rows = new ArrayList<String>();
+
+        Cursor cursor = db.query(table, new String[] {"json"}, "scope = ?", new String[] {Long.toString(scope)},
+                                 null, null, "position");
+        try
+        {
+            while (cursor.moveToNext())
+            {
+                rows.add(cursor.getString(0));
+            }
+        }
+        finally
+        {
+            cursor.close();
+        }
+
+        return rows;
+    }
+
+    //
+    // IJsonObjectCache
+    //
+    @Override
+    public synchronized <T extends CacheableJsonObjectBase> T getJson(final String key, final Class<T> c)
+    {
+        return getJson(key, c, -1);
+    }
+
+    @Override
+    public synchronized <T extends CacheableJsonObjectBase> T getJson(
+        final String key,
+        final Class<T> c,
+        final long age)
+    {
+        SQLiteDatabase db = getReadableDatabase();
+        if (!isFresh(db, key, age))
+        {
+            return null;
+        }
+
+        Cursor cursor = db.query(TABLE_OBJECTS, new String[] {"json"}, "key = ?", new String[] {key},
+                                 null, null, null);
+        try
+        {
+            if (!cursor.moveToFirst())
+            {
+                return null;
+            }
+
+            // any due dates use the time zones as of now
+            TodoistDueDateParser.beginBatch();
+
+            T obj = c.newInstance();
+            if (!obj.initialize(new JSONObject(cursor.getString(0))))
+            {
+                return null;
+            }
+
+            return obj;
+        }
+        catch (final JSONException e)
+        {
+            e.printStackTrace();
+        }
+        catch (final InstantiationException e)
+        {
+            e.printStackTrace();
+        }
+        catch (final IllegalAccessException e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            cursor.close();
+        }
+
+        return null;
+    }
+
+    @Override
+    public synchronized void set(final String key, final CacheableJsonObjectBase obj)
+    {
+        SQLiteDatabase db = getWritableDatabase();
+
+        db.beginTransaction();
+        try
+        {
+            ContentValues values = new ContentValues();
+            values.put("key", key);
+            values.put("json", obj.toJson().toString());
+            db.replace(TABLE_OBJECTS, null, values);
+
+            touch(db, key, NO_EXPIRY);
+
+            db.setTransactionSuccessful();
+        }
+        finally
+        {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public synchronized void remove(final String key)
+    {
+        SQLiteDatabase db = getWritableDatabase();
+
+        db.beginTransaction();
+        try
+        {
+            db.delete(TABLE_OBJECTS, "key = ?", new String[] {key});
+            untouch(db, key);
+
+            db.setTransactionSuccessful();
+        }
+        finally
+        {
+            db.endTransaction();
+        }
+    }
+
+    //
+    // Migration
+    //
+    /**
+     * Moves a logged-in user's objects from another cache into this one, then clears the other cache.
+     *
+     * Does nothing once the other cache is empty, so it's cheap to call on every start.
+     *
+     * @param oldCache Cache to move from
+     */
+    public synchronized void importFrom(final ICacheManager oldCache)
+    {
+        TodoistUser user = oldCache.getCurrentUser();
+        if (user == null)
+        {
+            return;
+        }
+
+        setCurrentUser(user);
+
+        TodoistProjects projects = oldCache.getProjectsCache();
+        if (projects != null)
+        {
+            setProjectCache(projects);
+        }
+
+        TodoistQueryResults results = oldCache.getStartPageQueries();
+        if (results != null)
+        {
+            setStartPageQueries(results);
+        }
+
+        TodoistSearchIndex searchIndex = oldCache.getSearchIndex();
+        if (searchIndex != null)
+        {
+            setSearchIndex(searchIndex);
+        }
+
+        oldCache.clearAll();
+    }
+
+    //
+    // ICacheManager
+    //
+    @Override
+    public synchronized void clearAll()
+    {
+        SQLiteDatabase db = getWritableDatabase();
+
+        db.beginTransaction();
+        try
+        {
+            for (int i = 0; i < TABLES.length; i++)
+            {
+                db.delete(TABLES[i], null, null);
+            }
+
+            db.setTransactionSuccessful();
+        }
+        finally
+        {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public synchronized TodoistProjects getProjectsCache()
+    {
+        SQLiteDatabase db = getReadableDatabase();
+        if (!isFresh(db, CACHE_PROJECTS_KEY, -1))
+        {
+            return null;
+        }
+
+        ArrayList<String> rows = loadRows(db, TABLE_PROJECTS, 0);
+
+        ArrayList<TodoistProject> projects = new ArrayList<TodoistProject>(rows.size());
+        for (int i = 0; i < rows.size(); i++)
+        {
+            try
+            {
+                TodoistProject project = new TodoistProject();
+                if (project.initialize(new JSONObject(rows.get(i))))
+                {
+                    projects.add(project);
+                }
+            }
+            catch (final JSONException e)
+            {
+                e.printStackTrace();
+            }
+        }
+
+        return new TodoistProjects(projects);
+    }
+
+    @Override
+    public synchronized void setProjectCache(final TodoistProjects projects)
+    {
+        SQLiteDatabase db = getWritableDatabase();
+
+        db.beginTransaction();
+        try
+        {
+            saveRows(db, TABLE_PROJECTS, 0, projects.getArray());
+            touch(db, CACHE_PROJECTS_KEY, CACHE_PROJECTS_AGE);
+
+            db.setTransactionSuccessful();
+        }
+        finally
+        {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public synchronized TodoistQueryResults getStartPageQueries()
+    {
+        SQLiteDatabase db = getReadableDatabase();
+        if (!isFresh(db, CACHE_START_PAGE_TASKS_KEY, -1))
+        {
+            return null;
+        }
+
+        ArrayList<TodoistQueryResult> results = new ArrayList<TodoistQueryResult>();
+
+        Cursor cursor = db.query(TABLE_QUERIES, new String[] {"position", "type", "query"}, null, null,
+                                 null, null, "position");
+        try
+        {
+            while (cursor.moveToNext())
+            {
+                // the tasks are already JSON, so join them into the array a result is read from
+                ArrayList<String> rows = loadRows(db, TABLE_QUERY_ITEMS, cursor.getLong(0));
+
+                StringBuilder data = new StringBuilder("[");
+                for (int i = 0; i < rows.size(); i++)
+                {
+                    if (i > 0)
+                    {
+                        data.append(',');
+                    }
+
+                    data.append(rows.get(i));
+                }
+
+                data.append(']');
+
+                JSONObject json = new JSONObject();
+                json.put("type", cursor.getString(1));
+                json.put("query", cursor.getString(2));
+                json.put("data", data.toString());
+
+                TodoistQueryResult result = new TodoistQueryResult();
+                if (result.initialize(json))
+                {
+                    results.add(result);
+                }
+            }
+        }
+        catch (final JSONException e)
+        {
+            e.printStackTrace();
+            return null;
+        }
+        finally
+        {
+            cursor.close();
+        }
+
+        return new TodoistQueryResults(results);
+    }
+
+    @Override
+    public synchronized void setStartPageQueries(final TodoistQueryResults results)
+    {
+        SQLiteDatabase db = getWritableDatabase();
+
+        ArrayList<TodoistQueryResult> queries = results.getArray();
+
+        db.beginTransaction();
+        try
+        {
+            ContentValues values = new ContentValues();
+            for (int i = 0; i < queries.size(); i++)
+            {
+                TodoistQueryResult result = queries.get(i);
+
+                values.clear();
+                values.put("position", (long) i);
+                values.put("type", result.getQueryTypeString());
+                values.put("query", result.getQueryString());
+                db.replace(TABLE_QUERIES, null, values);
+
+                saveRows(db, TABLE_QUERY_ITEMS, i, result.getTaskManager().getSnapshot());
+            }
+
+            String[] countArgs = new String[] {Integer.toString(queries.size())};
+            db.delete(TABLE_QUERIES, "position >= ?", countArgs);
+            db.delete(TABLE_QUERY_ITEMS, "scope >= ?", countArgs);
+
+            touch(db, CACHE_START_PAGE_TASKS_KEY, CACHE_START_PAGE_TASKS_AGE);
+
+            db.setTransactionSuccessful();
+        }
+        finally
+        {
+            db.endTransaction();
+        }
+    }
+
+    @Override
+    public TodoistUser getCurrentUser()
+    {
+        return getJson(CACHE_CURRENT_USER_KEY, TodoistUser.class);
+    }
+
+    @Override
+    public void setCurrentUser(final TodoistUser user)
+    {
+        set(CACHE_CURRENT_USER_KEY, user);
+    }
+
+    @Override
+    public TodoistSearchIndex getSearchIndex()
+    {
+        return getJson(CACHE_SEARCH_INDEX_KEY, TodoistSearchIndex.class);
+    }
+
+    @Override
+    public void setSearchIndex(final TodoistSearchIndex searchIndex)
+    {
+        set(CACHE_SEARCH_INDEX_KEY, searchIndex);
+    }
+}
@@ -1,8 +1,22 @@
 package com.nicjansma.tisktasks;
 
 import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+
+import java.util.TimeZone;
+
+import org.joda.time.DateTimeZone;
 
 import com.nicjansma.library.android.AndroidUtils;
+import com.nicjansma.tisktasks.api.ITodoistApi;
+import com.nicjansma.tisktasks.api.JournalingTodoistApi;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
+import com.nicjansma.tisktasks.models.TodoistDueDateParser;
 
 /**
  * TiskTasksApplication application.
@@ -21,6 +35,14 @@ public class TiskTasksApplication extends Application
         //
         ServiceLocator.initialize(this.getApplicationContext());
 
+        // keep the cache in SQLite, so saves only write what changed
+        SqliteCacheManager cache = new SqliteCacheManager(this.getApplicationContext());
+
+        // earlier versions cached in shared preferences; move that over so updating doesn't log users out
+        cache.importFrom(new CacheManager(this.getApplicationContext()));
+
+        ServiceLocator.setObjectCache(cache);
+
         //
         // If Keep Logged In is false, clear the API Token and require them to log in again
         //
@@ -36,6 +58,66 @@ public class TiskTasksApplication extends Application
             ServiceLocator.tracker().init(this.getApplicationContext(), R.xml.google_analytics_tracker);
         }
 
+        // send changes made while offline once we're back online
+        registerReceiver(new BroadcastReceiver()
+        {
+            @Override
+            public void onReceive(final Context context, final Intent intent)
+            {
+                ConnectivityManager connectivity
+                    = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+                NetworkInfo network = connectivity.getActiveNetworkInfo();
+
+                if (network != null && network.isConnected())
+                {
+                    replayJournal();
+                }
+            }
+        }, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+
+        // labels cached for the day are stale if the clock or time zone changes
+        IntentFilter timeChanged = new IntentFilter(Intent.ACTION_TIME_CHANGED);
+        timeChanged.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        timeChanged.addAction(Intent.ACTION_DATE_CHANGED);
+
+        registerReceiver(new BroadcastReceiver()
+        {
+            @Override
+            public void onReceive(final Context context, final Intent intent)
+            {
+                if (Intent.ACTION_TIMEZONE_CHANGED.equals(intent.getAction()))
+                {
+                    DateTimeZone.setDefault(DateTimeZone.forTimeZone(TimeZone.getDefault()));
+                    TodoistDueDateParser.beginBatch();
+                }
+
+                ServiceLocator.dayRollover().invalidate();
+                ServiceLocator.dayRollover().check();
+            }
+        }, timeChanged);
+
         ServiceLocator.tracker().trackUserTiming("App", System.currentTimeMillis() - startTime, "onCreate", "");
     }
+
+    /**
+     * Sends the changes in the API journal, in the background.
+     */
+    private static void replayJournal()
+    {
+        final ITodoistApi api = ServiceLocator.todoistApi();
+        if (!(api instanceof JournalingTodoistApi) || ((JournalingTodoistApi) api).getPendingCount() == 0)
+        {
+            return;
+        }
+
+        // no owner: the application outlives every activity
+        ServiceLocator.executor().submit(null, TodoistExecutor.Priority.BACKGROUND, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                ((JournalingTodoistApi) api).replay();
+            }
+        });
+    }
 }
@@ -4,6 +4,7 @@ import android.app.Activity;
 import android.content.Intent;
 
 import com.nicjansma.tisktasks.activities.AccountActivity;
+import com.nicjansma.tisktasks.models.TodoistDueDateParser;
 import com.nicjansma.tisktasks.models.TodoistUser;
 
 /**
@@ -45,6 +46,13 @@ public final class UserManager
 
         // clear the cache
         ServiceLocator.cache().clearAll();
+
+        // drop changes not yet sent
+        ServiceLocator.journal().clear();
+
+        // forget the user's tasks
+        ServiceLocator.taskIndex().clear();
+        ServiceLocator.searchIndex().clear();
     }
 
     @Override
@@ -85,6 +93,12 @@ public final class UserManager
     {
         _user = user;
 
+        // due dates decoded from now on use the new user's time zone
+        TodoistDueDateParser.beginBatch();
+
+        // and so do due date labels
+        ServiceLocator.dayRollover().invalidate();
+
         if (_user != null)
         {
             ServiceLocator.cache().setCurrentUser(user);
@@ -6,8 +6,6 @@ import android.app.Dialog;
 import android.app.ProgressDialog;
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Message;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
@@ -17,7 +15,11 @@ import android.widget.TextView;
 
 import com.nicjansma.tisktasks.R;
 import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.api.ITodoistApi;
+import com.nicjansma.tisktasks.api.ITodoistApiCall;
+import com.nicjansma.tisktasks.api.ITodoistApiCallback;
 import com.nicjansma.tisktasks.api.TodoistApiResultObject;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
 import com.nicjansma.tisktasks.models.TodoistUser;
 
 /**
@@ -104,16 +106,6 @@ public final class AccountActivity
     //
     // Components
     //
-    /**
-     * Login thread.
-     */
-    private Thread _threadLogin;
-
-    /**
-     * Login message handler.
-     */
-    private Handler _handlerLogin;
-
     /**
      * Progress dialog.
      */
@@ -125,7 +117,15 @@ public final class AccountActivity
         super.onCreate(savedInstanceState);
 
         setupView();
-        setupHandler();
+    }
+
+    @Override
+    protected void onDestroy()
+    {
+        // nothing left to show the login result on
+        ServiceLocator.executor().cancelAll(this);
+
+        super.onDestroy();
     }
 
     /**
@@ -212,62 +212,53 @@ public final class AccountActivity
     };
 
     /**
-     * Sets up the login handler.
+     * Shows the result of logging in.
+     *
+     * @param result Login result
      */
-    private void setupHandler()
+    private void showLoginResult(final int result)
     {
-        if (_handlerLogin != null)
+        // dismiss the progress dialog
+        try
         {
-            return;
+            if (_progressDialog != null)
+            {
+                _progressDialog.dismiss();
+                _progressDialog = null;
+            }
+        }
+        catch (final Exception e)
+        {
+            // might have occurred if the activity is being canceled, ignore this error.
+            Log.w(TAG, e);
         }
 
-        _handlerLogin = new Handler() {
-            @Override
-            public void handleMessage(final Message message)
-            {
-                // dismiss the progress dialog
-                try
-                {
-                    if (_progressDialog != null)
-                    {
-                        _progressDialog.dismiss();
-                        _progressDialog = null;
-                    }
-                }
-                catch (final Exception e)
-                {
-                    // might have occurred if the activity is being canceled, ignore this error.
-                    Log.w(TAG, e);
-                }
+        setProgressBarIndeterminateVisibility(false);
+
+        switch (result)
+        {
+            case RESULT_INCORRECT_PASSWORD:
+                showDialog(DIALOG_LOGIN_FAILED_INCORRECT_PASSWORD);
+                break;
 
-                setProgressBarIndeterminateVisibility(false);
+            case RESULT_CONNECTION_FAILURE:
+                showDialog(DIALOG_LOGIN_FAILED_CONNECTION_FAILURE);
+                break;
 
-                switch (message.what)
+            default:
+            case RESULT_OK:
+                // show login result
+                if (ServiceLocator.userManager().isLoggedIn())
                 {
-                    case RESULT_INCORRECT_PASSWORD:
-                        showDialog(DIALOG_LOGIN_FAILED_INCORRECT_PASSWORD);
-                        break;
-
-                    case RESULT_CONNECTION_FAILURE:
-                        showDialog(DIALOG_LOGIN_FAILED_CONNECTION_FAILURE);
-                        break;
-
-                    default:
-                    case RESULT_OK:
-                        // show login result
-                        if (ServiceLocator.userManager().isLoggedIn())
-                        {
-                            Intent intent = new Intent(MainActivity.INTENT);
-                            startActivity(intent);
-                        }
-                        else
-                        {
-                            showDialog(DIALOG_LOGIN_FAILED_INCORRECT_PASSWORD);
-                        }
-                        break;
+                    Intent intent = new Intent(MainActivity.INTENT);
+                    startActivity(intent);
                 }
-            }
-        };
+                else
+                {
+                    showDialog(DIALOG_LOGIN_FAILED_INCORRECT_PASSWORD);
+                }
+                break;
+        }
     }
 
     /**
@@ -296,20 +287,20 @@ public final class AccountActivity
 
         _progressDialog.setCancelable(true);
 
-        // create login thread
-        _threadLogin = new Thread() {
+        final String email = _loginEmail.getText().toString();
+        final String password = _loginPassword.getText().toString();
+        final boolean keepUserLoggedIn = _loginKeepLoggedIn.isChecked();
+
+        // log in on the shared executor, and show the result back on the main thread
+        ServiceLocator.asyncTodoistApi().call(this, TodoistExecutor.Priority.USER, new ITodoistApiCall<Integer>()
+        {
             @Override
-            public void run()
+            public Integer call(final ITodoistApi api)
             {
-                String email = _loginEmail.getText().toString();
-                String password = _loginPassword.getText().toString();
-                boolean keepUserLoggedIn = _loginKeepLoggedIn.isChecked();
-
-                int message = RESULT_OK;
+                int result = RESULT_OK;
 
                 // try to log the user in
-                TodoistApiResultObject<TodoistUser> userResult
-                    = ServiceLocator.todoistApi().login(email, password);
+                TodoistApiResultObject<TodoistUser> userResult = api.login(email, password);
 
                 // log the user in if successful
                 if (userResult.successful())
@@ -321,16 +312,16 @@ public final class AccountActivity
                 {
                     if (userResult.hadConnectionFailure())
                     {
-                        message = RESULT_CONNECTION_FAILURE;
+                        result = RESULT_CONNECTION_FAILURE;
                     }
                     else if (userResult.getError() != null
                             && userResult.getError().equals(R.string.api_login_error))
                     {
-                        message = RESULT_INCORRECT_PASSWORD;
+                        result = RESULT_INCORRECT_PASSWORD;
                     }
                     else
                     {
-                        message = RESULT_INCORRECT_PASSWORD;
+                        result = RESULT_INCORRECT_PASSWORD;
                     }
 
                     // TODO part of TodoistApi.apiUrl
@@ -338,11 +329,16 @@ public final class AccountActivity
                     ServiceLocator.tracker().trackEvent("API-Error", "login", "", 0);
                 }
 
-                _handlerLogin.sendEmptyMessage(message);
-            };
-        };
-
-        _threadLogin.start();
+                return result;
+            }
+        }, new ITodoistApiCallback<Integer>()
+        {
+            @Override
+            public void onResult(final Integer result)
+            {
+                showLoginResult(result);
+            }
+        });
     }
 
     /**
@@ -6,16 +6,22 @@ import android.view.MenuItem;
 import android.view.View;
 
 import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
 
 import com.nicjansma.tisktasks.R;
 import com.nicjansma.tisktasks.ServiceLocator;
 import com.nicjansma.tisktasks.api.TodoistApiResultArray;
 import com.nicjansma.tisktasks.api.TodoistApiResultSimple;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
 import com.nicjansma.tisktasks.models.ITodoistBaseObjectManager;
 import com.nicjansma.tisktasks.models.TaskManager;
 import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistQueryEvaluator;
 import com.nicjansma.tisktasks.models.TodoistQueryResult;
 import com.nicjansma.tisktasks.models.TodoistQueryResults;
+import com.nicjansma.tisktasks.models.TodoistTaskIndex;
 import com.nicjansma.tisktasks.views.TaskListAdapter;
 
 /**
@@ -36,9 +42,9 @@ public final class MainActivity
     // UI
     //
     /**
-     * Current query results.
+     * Current query results (set on the UI thread or the loader threads).
      */
-    private TodoistQueryResults _queryResults;
+    private volatile TodoistQueryResults _queryResults;
 
     @Override
     public void onCreateInternalPre(final Bundle savedInstanceState)
@@ -63,7 +69,7 @@ public final class MainActivity
         {
             loadFromTodoist();
         }
-        else
+        else if (!showLocalResults(ServiceLocator.userManager().getCurrentUser().getStartPageQueries()))
         {
             refreshList();
         }
@@ -75,6 +81,17 @@ public final class MainActivity
         // NOP
     }
 
+    @Override
+    protected void onDayRollover()
+    {
+        // "today", "overdue" and the like mean different tasks now
+        ArrayList<String> queries = ServiceLocator.userManager().getCurrentUser().getStartPageQueries();
+
+        showLocalResults(queries);
+
+        runInBackground(TodoistExecutor.Priority.BACKGROUND, createQueryLoad(queries));
+    }
+
     @Override
     protected void addObj(final TodoistItem nearObj, final String newName, final Boolean addBefore)
     {
@@ -90,7 +107,7 @@ public final class MainActivity
     @Override
     protected void deleteObj(final TodoistItem task)
     {
-        showProgressDialog(R.string.deleting_task, new Thread() {
+        showProgressDialog(R.string.deleting_task, TodoistExecutor.Priority.USER, new Runnable() {
             @Override
             public void run()
             {
@@ -168,15 +185,88 @@ public final class MainActivity
         return R.string.loading_today;
     }
 
-    @Override
-    protected void loadFromTodoist()
+    /**
+     * Evaluates the start page queries against tasks that are already loaded.
+     *
+     * @param queries Start page queries
+     *
+     * @return Query results, or null if no tasks are loaded or a query has to go to the server
+     */
+    private ArrayList<TodoistQueryResult> queryLocally(final ArrayList<String> queries)
+    {
+        // tasks of projects that have been opened
+        TodoistTaskIndex index = ServiceLocator.taskIndex();
+
+        // tasks from the last start page results, for projects that haven't been opened
+        ArrayList<TodoistItem> uncovered = new ArrayList<TodoistItem>();
+        if (_queryResults != null)
+        {
+            List<TodoistItem> tasks = _queryResults.getTaskManager().getSnapshot();
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                if (!index.hasProject(tasks.get(i).getProjectId()))
+                {
+                    uncovered.add(tasks.get(i));
+                }
+            }
+        }
+
+        if (uncovered.size() > 0)
+        {
+            uncovered.addAll(index.getAll());
+            index = new TodoistTaskIndex(uncovered);
+        }
+
+        if (index.getCount() == 0)
+        {
+            return null;
+        }
+
+        return new TodoistQueryEvaluator(index).evaluate(queries, new DateTime());
+    }
+
+    /**
+     * Shows start page results evaluated from already-loaded tasks.
+     *
+     * @param queries Start page queries
+     *
+     * @return True if the results were shown
+     */
+    private boolean showLocalResults(final ArrayList<String> queries)
+    {
+        ArrayList<TodoistQueryResult> results = queryLocally(queries);
+        if (results == null)
+        {
+            return false;
+        }
+
+        if (_queryResults == null)
+        {
+            _queryResults = new TodoistQueryResults(results);
+        }
+        else
+        {
+            _queryResults.importNewQueries(results);
+        }
+
+        refreshList();
+
+        return true;
+    }
+
+    /**
+     * Creates the work that queries the server for the start page results, and saves them.
+     *
+     * @param queries Start page queries
+     *
+     * @return Work to run in the background
+     */
+    private Runnable createQueryLoad(final ArrayList<String> queries)
     {
-        showProgressDialog(R.string.loading_start_tasks, new Thread() {
+        return new Runnable() {
             @Override
             public void run()
             {
-                ArrayList<String> queries = ServiceLocator.userManager().getCurrentUser().getStartPageQueries();
-
                 TodoistApiResultArray<TodoistQueryResult> result = null;
                 try
                 {
@@ -189,6 +279,7 @@ public final class MainActivity
 
                 checkTodoistApiResult(result, "query");
 
+                boolean changed = true;
                 if (result != null && result.successful())
                 {
                     // If we haven't seen results before, create a new TodoistQueryResults.
@@ -200,16 +291,33 @@ public final class MainActivity
                     }
                     else
                     {
-                        _queryResults.importNewQueries(result.getArray());
+                        changed = _queryResults.importNewQueries(result.getArray());
                     }
 
                     // save these results to the cache
                     ServiceLocator.cache().setStartPageQueries(_queryResults);
                 }
 
-                notifyLoadingHandlerRefresh();
+                notifyLoadingHandlerRefresh(changed);
             }
-        });
+        };
+    }
+
+    @Override
+    protected void loadFromTodoist()
+    {
+        ArrayList<String> queries = ServiceLocator.userManager().getCurrentUser().getStartPageQueries();
+        Runnable load = createQueryLoad(queries);
+
+        // show what we can right away, and reconcile with the server in the background
+        if (showLocalResults(queries))
+        {
+            runInBackground(TodoistExecutor.Priority.LOAD, load);
+        }
+        else
+        {
+            showProgressDialog(R.string.loading_start_tasks, TodoistExecutor.Priority.LOAD, load);
+        }
     }
 
     @Override
@@ -263,7 +371,7 @@ public final class MainActivity
         // if it's not yet checked, check it
         if (!task.isChecked())
         {
-            showProgressDialog(R.string.completing_task, new Thread() {
+            runInBackground(TodoistExecutor.Priority.USER, new Runnable() {
                 @Override
                 public void run()
                 {
@@ -305,7 +413,15 @@ public final class MainActivity
                         }
                     }
 
-                    notifyLoadingHandlerRefresh();
+                    if (task.isRecurring() || task.isChild())
+                    {
+                        // the tasks stay in the list, so only their rows change
+                        notifyLoadingHandlerRefreshObjects(itemIds);
+                    }
+                    else
+                    {
+                        notifyLoadingHandlerRefresh();
+                    }
                 };
             });
         }
@@ -14,6 +14,7 @@ import android.widget.Toast;
 
 import com.nicjansma.tisktasks.R;
 import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
 import com.nicjansma.tisktasks.models.TodoistObjectBase;
 
 /**
@@ -73,11 +74,6 @@ public abstract class PopupDialogBase<T extends TodoistObjectBase>
     //
     // Components
     //
-    /**
-     * Updating thread.
-     */
-    private Thread _threadUpdating;
-
     /**
      * Progress dialog.
      */
@@ -349,12 +345,20 @@ public abstract class PopupDialogBase<T extends TodoistObjectBase>
 
             _progressDialog.setCancelable(true);
 
-            // create a thread to make changes
-            _threadUpdating = new Thread() {
+            // make the changes on the shared executor, with no owner, so closing the popup doesn't cut them off
+            ServiceLocator.executor().submit(null, TodoistExecutor.Priority.USER, new Runnable() {
                 @Override
                 public void run()
                 {
-                    boolean successful = makeChanges();
+                    boolean successful = false;
+                    try
+                    {
+                        successful = makeChanges();
+                    }
+                    catch (final RuntimeException e)
+                    {
+                        Log.w(TAG, e);
+                    }
 
                     if (successful)
                     {
@@ -381,9 +385,7 @@ public abstract class PopupDialogBase<T extends TodoistObjectBase>
                         _handler.sendEmptyMessage(MESSAGE_API_ERROR);
                     }
                 };
-            };
-
-            _threadUpdating.start();
+            });
         }
     };
 
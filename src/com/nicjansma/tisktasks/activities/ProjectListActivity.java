@@ -10,6 +10,7 @@ import com.nicjansma.tisktasks.api.ITodoistApi;
 import com.nicjansma.tisktasks.api.TodoistApiResultArray;
 import com.nicjansma.tisktasks.api.TodoistApiResultObject;
 import com.nicjansma.tisktasks.api.TodoistApiResultSimple;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
 import com.nicjansma.tisktasks.models.ITodoistBaseObjectManager;
 import com.nicjansma.tisktasks.models.ProjectManager;
 import com.nicjansma.tisktasks.models.TodoistColor;
@@ -44,6 +45,12 @@ public final class ProjectListActivity
         notifyLoadingHandlerRefresh();
     }
 
+    @Override
+    protected void onDayRollover()
+    {
+        // NOP
+    }
+
     @Override
     protected void startClickActivity(final View view)
     {
@@ -54,6 +61,8 @@ public final class ProjectListActivity
     @Override
     protected void startClickActivity(final TodoistProject project)
     {
+        ServiceLocator.prefetcher().recordOpen(project.getId());
+
         startActivityForResult(TaskListActivity.getIntent(project), START_ACTIVITY_TASK_LIST);
     }
 
@@ -66,7 +75,7 @@ public final class ProjectListActivity
     @Override
     protected void loadFromTodoist()
     {
-        showProgressDialog(R.string.loading_projects, new Thread() {
+        showProgressDialog(R.string.loading_projects, TodoistExecutor.Priority.LOAD, new Runnable() {
             @Override
             public void run()
             {
@@ -74,12 +83,16 @@ public final class ProjectListActivity
 
                 checkTodoistApiResult(result, "getProjects");
 
+                boolean changed = true;
                 if (result.successful())
                 {
-                    getProjectManager().importArray(result.getArray());
+                    changed = getProjectManager().importArray(result.getArray());
+
+                    // warm the projects likely to be opened next
+                    ServiceLocator.prefetcher().prefetch(getObjectManager().getSnapshot());
                 }
 
-                notifyLoadingHandlerRefresh();
+                notifyLoadingHandlerRefresh(changed);
             };
         });
     }
@@ -96,7 +109,7 @@ public final class ProjectListActivity
         // cache interfaces
         final ITodoistApi todoist = ServiceLocator.todoistApi();
 
-        showProgressDialog(R.string.adding_project, new Thread() {
+        showProgressDialog(R.string.adding_project, TodoistExecutor.Priority.USER, new Runnable() {
             @Override
             public void run()
             {
@@ -116,12 +129,22 @@ public final class ProjectListActivity
 
                 if (result.successful())
                 {
-                    // add project to our DB
-                    getProjectManager().add(result.getObject(), nearProject, addBefore);
+                    ProjectManager projectManager = getProjectManager();
+
+                    // add project to our DB, saving it to the cache once
+                    projectManager.beginBatch();
+                    try
+                    {
+                        projectManager.add(result.getObject(), nearProject, addBefore);
+                        projectManager.updateOrders();
+                    }
+                    finally
+                    {
+                        projectManager.commitBatch();
+                    }
 
                     // send updated order to Todoist
-                    getProjectManager().updateOrders();
-                    todoist.updateProjectOrders(getProjectManager().getOrders());
+                    todoist.updateProjectOrders(projectManager.getOrders());
                 }
 
                 notifyLoadingHandlerRefresh();
@@ -143,7 +166,7 @@ public final class ProjectListActivity
             final Integer newColorIndex,
             final Integer newIndent)
     {
-        showProgressDialog(R.string.updating_project, new Thread() {
+        showProgressDialog(R.string.updating_project, TodoistExecutor.Priority.USER, new Runnable() {
             @Override
             public void run()
             {
@@ -169,7 +192,7 @@ public final class ProjectListActivity
     @Override
     protected void deleteObj(final TodoistProject project)
     {
-        showProgressDialog(R.string.deleting_project, new Thread() {
+        showProgressDialog(R.string.deleting_project, TodoistExecutor.Priority.USER, new Runnable() {
             @Override
             public void run()
             {
@@ -262,6 +285,8 @@ public final class ProjectListActivity
         {
             getObjectManager().importArray(projects.getArray());
             refreshList();
+
+            ServiceLocator.prefetcher().prefetch(getObjectManager().getSnapshot());
         }
     }
 
@@ -13,10 +13,12 @@ import com.nicjansma.tisktasks.ServiceLocator;
 import com.nicjansma.tisktasks.api.TodoistApiResultArray;
 import com.nicjansma.tisktasks.api.TodoistApiResultObject;
 import com.nicjansma.tisktasks.api.TodoistApiResultSimple;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
 import com.nicjansma.tisktasks.models.ITodoistBaseObjectManager;
 import com.nicjansma.tisktasks.models.TaskManager;
 import com.nicjansma.tisktasks.models.TodoistItem;
 import com.nicjansma.tisktasks.models.TodoistProject;
+import com.nicjansma.tisktasks.models.TodoistSearchIndex;
 import com.nicjansma.tisktasks.views.TaskListAdapter;
 import com.nicjansma.tisktasks.views.TaskListRow;
 
@@ -79,7 +81,17 @@ public final class TaskListActivity
     @Override
     protected void loadFromTodoist()
     {
-        showProgressDialog(R.string.loading_tasks, new Thread() {
+        showProgressDialog(R.string.loading_tasks, TodoistExecutor.Priority.LOAD, createLoad());
+    }
+
+    /**
+     * Creates the work that loads the project's uncompleted tasks from the server.
+     *
+     * @return Work to run in the background
+     */
+    private Runnable createLoad()
+    {
+        return new Runnable() {
             @Override
             public void run()
             {
@@ -96,14 +108,24 @@ public final class TaskListActivity
 
                 checkTodoistApiResult(result, "getUncompletedItems");
 
+                boolean changed = true;
                 if (result != null && result.successful())
                 {
-                    getObjectManager().importArray(result.getArray());
+                    changed = getObjectManager().importArray(result.getArray());
+
+                    ServiceLocator.prefetcher().recordFetched(_project.getTaskManager());
+
+                    // cache the search index off the UI thread, so it doesn't need rebuilding next launch
+                    TodoistSearchIndex searchIndex = ServiceLocator.searchIndex();
+                    if (searchIndex.isDirty())
+                    {
+                        ServiceLocator.cache().setSearchIndex(searchIndex);
+                    }
                 }
 
-                notifyLoadingHandlerRefresh();
+                notifyLoadingHandlerRefresh(changed);
             };
-        });
+        };
     }
 
     @Override
@@ -147,7 +169,7 @@ public final class TaskListActivity
         final Integer itemOrder,
         final Integer collapsed)
     {
-        showProgressDialog(R.string.updating_task, new Thread() {
+        showProgressDialog(R.string.updating_task, TodoistExecutor.Priority.USER, new Runnable() {
             @Override
             public void run()
             {
@@ -177,7 +199,7 @@ public final class TaskListActivity
     @Override
     protected void deleteObj(final TodoistItem task)
     {
-        showProgressDialog(R.string.deleting_task, new Thread() {
+        showProgressDialog(R.string.deleting_task, TodoistExecutor.Priority.USER, new Runnable() {
             @Override
             public void run()
             {
@@ -298,6 +320,14 @@ public final class TaskListActivity
             {
                 actionBar.setTitle(_project.getName());
             }
+
+            // prefetched tasks can be shown right away, and reconciled with the server in the background
+            if (ServiceLocator.prefetcher().isFresh(_project.getTaskManager()))
+            {
+                refreshList();
+                runInBackground(TodoistExecutor.Priority.LOAD, createLoad());
+                return;
+            }
         }
 
         loadFromTodoist();
@@ -328,7 +358,7 @@ public final class TaskListActivity
 
         if (!task.isChecked())
         {
-            showProgressDialog(R.string.completing_task, new Thread() {
+            runInBackground(TodoistExecutor.Priority.USER, new Runnable() {
                 @Override
                 public void run()
                 {
@@ -360,13 +390,22 @@ public final class TaskListActivity
                         {
                             TaskManager taskManager = (TaskManager) getObjectManager();
 
-                            if (moveToHistory)
+                            // complete or delete the task and its children, publishing and saving them once
+                            taskManager.beginBatch();
+                            try
                             {
-                                taskManager.delete(task);
+                                if (moveToHistory)
+                                {
+                                    taskManager.delete(task);
+                                }
+                                else
+                                {
+                                    taskManager.completeItems(itemIds);
+                                }
                             }
-                            else
+                            finally
                             {
-                                taskManager.completeItems(itemIds);
+                                taskManager.commitBatch();
                             }
 
                             // either way, the count should be updated
@@ -376,13 +415,21 @@ public final class TaskListActivity
                         }
                     }
 
-                    notifyLoadingHandlerRefresh();
+                    if (task.isRecurring() || task.isChild())
+                    {
+                        // the tasks stay in the list, so only their rows change
+                        notifyLoadingHandlerRefreshObjects(itemIds);
+                    }
+                    else
+                    {
+                        notifyLoadingHandlerRefresh();
+                    }
                 };
             });
         }
         else
         {
-            showProgressDialog(R.string.uncompleting_task, new Thread() {
+            runInBackground(TodoistExecutor.Priority.USER, new Runnable() {
                 @Override
                 public void run()
                 {
@@ -430,6 +477,12 @@ public final class TaskListActivity
         // NOP
     }
 
+    @Override
+    protected void onDayRollover()
+    {
+        // NOP
+    }
+
     @Override
     protected String getStringScreenName()
     {
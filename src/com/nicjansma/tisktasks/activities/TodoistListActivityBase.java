@@ -8,6 +8,7 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.os.Bundle;
 import android.os.Handler;
+import android.os.Looper;
 import android.os.Message;
 import android.support.v7.app.ActionBarActivity;
 import android.text.InputType;
@@ -28,12 +29,16 @@ import android.widget.ListView;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import java.util.List;
+
 import com.nicjansma.tisktasks.AppOptionsMenu;
 import com.nicjansma.tisktasks.R;
 import com.nicjansma.tisktasks.ServiceLocator;
 import com.nicjansma.tisktasks.api.TodoistApiResult;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
 import com.nicjansma.tisktasks.models.ITodoistBaseObjectManager;
 import com.nicjansma.tisktasks.models.TodoistObjectBase;
+import com.nicjansma.tisktasks.views.TodoistListAdapterBase;
 
 /**
  * A ListActivity for Todoist tasks and projects.
@@ -61,10 +66,20 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
      */
     protected static final int MESSAGE_API_ERROR = 1;
 
+    /**
+     * Message: Redraw the rows of objects.
+     */
+    protected static final int MESSAGE_REFRESH_OBJECTS = 2;
+
+    /**
+     * Message: Reload the list from Todoist.
+     */
+    protected static final int MESSAGE_RELOAD = 3;
+
     /**
      * Max message number.
      */
-    protected static final int MESSAGE_MAX = 1;
+    protected static final int MESSAGE_MAX = 3;
 
     /**
      * Dialog: Delete.
@@ -124,11 +139,6 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
     //
     // Components
     //
-    /**
-     * Loading thread.
-     */
-    private Thread _threadLoading;
-
     /**
      * Loading handler.
      */
@@ -139,6 +149,21 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
      */
     private ProgressDialog _progressDialog;
 
+    /**
+     * Redraws the list, and lets the activity update, when the day changes.
+     */
+    private final Runnable _dayRolloverListener = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            // due date labels are recomputed for the new day as they're rebound
+            refreshList();
+
+            onDayRollover();
+        }
+    };
+
     //
     // UI
     //
@@ -162,6 +187,11 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
      */
     private Button _refreshButton;
 
+    /**
+     * Row adapter, kept for loader threads, which can't ask the list view for it.
+     */
+    private volatile TodoistListAdapterBase<T, ?, ?> _rowAdapter;
+
     /**
      * Main object.
      */
@@ -180,6 +210,11 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
      */
     protected abstract void onResumeInternal();
 
+    /**
+     * Called on the main thread when the user's day changes, after the list is redrawn.
+     */
+    protected abstract void onDayRollover();
+
     /**
      * Called at the beginning of onCreate in the base class.
      *
@@ -402,6 +437,8 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
 
         setupHandler();
 
+        ServiceLocator.dayRollover().addListener(_dayRolloverListener);
+
         loadAdditionalLayout();
 
         loadInitial();
@@ -430,9 +467,12 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
      *
      * @param adapter List adapter
      */
+    @SuppressWarnings("unchecked")
     protected final void setListAdapter(final ListAdapter adapter)
     {
         getListView().setAdapter(adapter);
+
+        _rowAdapter = (adapter instanceof TodoistListAdapterBase) ? (TodoistListAdapterBase<T, ?, ?>) adapter : null;
     }
 
     /**
@@ -513,34 +553,35 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
 
         _handlerLoading = new Handler() {
             @Override
+            @SuppressWarnings("unchecked")
             public void handleMessage(final Message message)
             {
                 switch (message.what)
                 {
                     case MESSAGE_REFRESH_LIST:
-                        try
-                        {
-                            if (_progressDialog != null)
-                            {
-                                _progressDialog.dismiss();
-                                _progressDialog = null;
-                            }
-                        }
-                        catch (final Exception e)
+                        hideProgress();
+
+                        // nothing to rebind if an import didn't change anything
+                        if (!Boolean.FALSE.equals(message.obj))
                         {
-                            // might have occurred if the activity is being canceled, ignore this error.
-                            Log.w(TAG, e);
+                            refreshList();
                         }
+                        break;
 
-                        setProgressBarIndeterminateVisibility(false);
+                    case MESSAGE_REFRESH_OBJECTS:
+                        hideProgress();
 
-                        refreshList();
+                        refreshObjects((List<Long>) message.obj);
                         break;
 
                     case MESSAGE_API_ERROR:
                         showApiError();
                         break;
 
+                    case MESSAGE_RELOAD:
+                        loadFromTodoist();
+                        break;
+
                     default:
                         break;
                 }
@@ -548,6 +589,28 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
         };
     }
 
+    /**
+     * Hides the progress dialog and title bar progress indicator.
+     */
+    private void hideProgress()
+    {
+        try
+        {
+            if (_progressDialog != null)
+            {
+                _progressDialog.dismiss();
+                _progressDialog = null;
+            }
+        }
+        catch (final Exception e)
+        {
+            // might have occurred if the activity is being canceled, ignore this error.
+            Log.w(TAG, e);
+        }
+
+        setProgressBarIndeterminateVisibility(false);
+    }
+
     /**
      * Loads objects from the manager.
      */
@@ -563,7 +626,7 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
             createListAdapter();
         }
 
-        if (getObjectManager().getArray().size() == 0)
+        if (getObjectManager().getSnapshot().isEmpty())
         {
             _statusTextView.setVisibility(View.VISIBLE);
 
@@ -583,9 +646,12 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
      * Shows a progress dialog.
      *
      * @param titleResId Progress dialog text
-     * @param startThread Thread to run
+     * @param priority Priority
+     * @param work Work to run on the shared executor
      */
-    protected final void showProgressDialog(final int titleResId, final Thread startThread)
+    protected final void showProgressDialog(final int titleResId,
+                                            final TodoistExecutor.Priority priority,
+                                            final Runnable work)
     {
         if (_progressDialog != null)
         {
@@ -601,8 +667,68 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
 
         _progressDialog.setCancelable(true);
 
-        _threadLoading = startThread;
-        _threadLoading.start();
+        submit(priority, work);
+    }
+
+    /**
+     * Runs work without blocking the UI, showing only the title bar progress indicator.
+     *
+     * The work should notify the handler to refresh the list when it's done.
+     *
+     * @param priority Priority
+     * @param work Work to run on the shared executor
+     */
+    protected final void runInBackground(final TodoistExecutor.Priority priority, final Runnable work)
+    {
+        setProgressBarIndeterminateVisibility(true);
+
+        submit(priority, work);
+    }
+
+    /**
+     * Submits work to the shared executor.
+     *
+     * Loads belong to the activity, and are cancelled when it's destroyed.  Changes the user made (USER
+     * priority) have no owner, so leaving the activity doesn't cut them off part-way.  If the work throws, the
+     * list is still refreshed, which hides the progress indicators.
+     *
+     * @param priority Priority
+     * @param work Work
+     */
+    private void submit(final TodoistExecutor.Priority priority, final Runnable work)
+    {
+        Object owner = (priority == TodoistExecutor.Priority.USER) ? null : this;
+
+        ServiceLocator.executor().submit(owner, priority, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    work.run();
+                }
+                catch (final RuntimeException e)
+                {
+                    Log.w(TAG, e);
+
+                    notifyLoadingHandlerRefresh();
+                }
+            }
+        });
+    }
+
+    /**
+     * Builds the list's row models on the calling (loader) thread, so the refresh only binds them.
+     */
+    private void prepareRows()
+    {
+        // on the UI thread, rows are better built as they're shown
+        TodoistListAdapterBase<T, ?, ?> adapter = _rowAdapter;
+        if (adapter != null && Looper.myLooper() != Looper.getMainLooper())
+        {
+            adapter.prepare();
+        }
     }
 
     /**
@@ -610,12 +736,46 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
      */
     protected final void notifyLoadingHandlerRefresh()
     {
+        prepareRows();
+
         if (_handlerLoading != null)
         {
             _handlerLoading.sendEmptyMessage(MESSAGE_REFRESH_LIST);
         }
     }
 
+    /**
+     * Notifies the handler that loading finished, refreshing the list only if the import changed it.
+     *
+     * @param changed False if the import didn't change anything
+     */
+    protected final void notifyLoadingHandlerRefresh(final boolean changed)
+    {
+        // nothing to rebind if an import didn't change anything
+        if (changed)
+        {
+            prepareRows();
+        }
+
+        if (_handlerLoading != null)
+        {
+            _handlerLoading.sendMessage(_handlerLoading.obtainMessage(MESSAGE_REFRESH_LIST, changed));
+        }
+    }
+
+    /**
+     * Notifies the handler to redraw the rows of objects that changed in place, rather than the whole list.
+     *
+     * @param ids IDs of the objects that changed
+     */
+    protected final void notifyLoadingHandlerRefreshObjects(final List<Long> ids)
+    {
+        if (_handlerLoading != null)
+        {
+            _handlerLoading.sendMessage(_handlerLoading.obtainMessage(MESSAGE_REFRESH_OBJECTS, ids));
+        }
+    }
+
     /**
      * Indents and object.
      *
@@ -649,9 +809,23 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
             finish();
         }
 
+        // the midnight timer doesn't run while the device sleeps
+        ServiceLocator.dayRollover().check();
+
         onResumeInternal();
     }
 
+    @Override
+    protected final void onDestroy()
+    {
+        // nothing left to show the loads of (changes aren't owned, so they finish)
+        ServiceLocator.executor().cancelAll(this);
+
+        ServiceLocator.dayRollover().removeListener(_dayRolloverListener);
+
+        super.onDestroy();
+    }
+
     @Override
     public final boolean onOptionsItemSelected(final MenuItem item)
     {
@@ -903,6 +1077,31 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
         notifyListAdapterChanged();
     }
 
+    /**
+     * Redraws the rows of objects that changed in place, refreshing the whole list if the list itself changed.
+     *
+     * @param ids IDs of the objects that changed
+     */
+    protected final void refreshObjects(final List<Long> ids)
+    {
+        TodoistListAdapterBase<T, ?, ?> adapter = _rowAdapter;
+        if (adapter == null || getObjectManager() == null)
+        {
+            refreshList();
+            return;
+        }
+
+        for (int i = 0; i < ids.size(); i++)
+        {
+            T obj = getObjectManager().get(ids.get(i));
+            if (obj == null || !adapter.notifyObjectChanged(getListView(), obj))
+            {
+                refreshList();
+                return;
+            }
+        }
+    }
+
     /**
      * Expands or collapses an item.
      *
@@ -912,14 +1111,7 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
     {
         if (obj.isParent())
         {
-            if (obj.isCollapsed())
-            {
-                obj.setCollapsed(false);
-            }
-            else
-            {
-                obj.setCollapsed(true);
-            }
+            getObjectManager().setCollapsed(obj, !obj.isCollapsed());
 
             refreshList();
         }
@@ -956,6 +1148,12 @@ public abstract class TodoistListActivityBase<T extends TodoistObjectBase>
         {
             _handlerLoading.sendEmptyMessage(MESSAGE_API_ERROR);
         }
+
+        if (result != null && result.wasPartlyApplied())
+        {
+            // part of a long ID list went through before the call failed, so catch up with the server
+            _handlerLoading.sendEmptyMessage(MESSAGE_RELOAD);
+        }
     }
 
     /**
@@ -0,0 +1,304 @@
+package com.nicjansma.tisktasks.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+
+import com.nicjansma.tisktasks.ITiskTasksAnalyticsTracker;
+import com.nicjansma.tisktasks.ServiceLocator;
+
+/**
+ * Latency histograms of each API endpoint, split into the phases of a call.
+ *
+ * Percentiles can be dumped at any time, and are reported to the analytics tracker as user timings after every
+ * batch of calls, after which the histograms start over.
+ */
+public final class ApiLatencyStats
+{
+    //
+    // Constants
+    //
+    /**
+     * Default number of calls between reports.
+     */
+    public static final int DEFAULT_REPORT_EVERY = 50;
+
+    /**
+     * Tracker category of reported timings.
+     */
+    public static final String CATEGORY = "API-Latency";
+
+    /**
+     * Reported percentiles.
+     */
+    private static final int[] PERCENTILES = { 50, 95, 99 };
+
+    /**
+     * Microseconds per millisecond.
+     */
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    /**
+     * Phase of an API call.
+     */
+    public enum Phase
+    {
+        /**
+         * Building the URL.
+         */
+        URL,
+
+        /**
+         * Waiting for the response to start: connecting, sending the request and the server's time.
+         */
+        WAIT,
+
+        /**
+         * Reading the response body.
+         */
+        READ,
+
+        /**
+         * Decoding the response body.
+         */
+        DECODE,
+
+        /**
+         * The whole call, from building the URL to decoding the response.
+         */
+        TOTAL
+    }
+
+    //
+    // Privates
+    //
+    /**
+     * Histograms of each phase, by endpoint.
+     */
+    private final HashMap<String, LatencyHistogram[]> _endpoints = new HashMap<String, LatencyHistogram[]>();
+
+    /**
+     * Number of calls between reports, or 0 to only report on demand.
+     */
+    private final int _reportEvery;
+
+    /**
+     * Number of calls since the last report.
+     */
+    private int _calls;
+
+    /**
+     * Constructor, reporting every DEFAULT_REPORT_EVERY calls.
+     */
+    public ApiLatencyStats()
+    {
+        this(DEFAULT_REPORT_EVERY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param reportEvery Number of calls between reports to the tracker, or 0 to only report on demand
+     */
+    public ApiLatencyStats(final int reportEvery)
+    {
+        _reportEvery = reportEvery;
+    }
+
+    /**
+     * Records the latency of a phase of a call.
+     *
+     * Recording the TOTAL phase ends the call, and reports the batch if it's full.
+     *
+     * @param endpoint API method name
+     * @param phase Phase
+     * @param nanos Latency (nanoseconds)
+     */
+    public void record(final String endpoint, final Phase phase, final long nanos)
+    {
+        boolean report = false;
+
+        synchronized (_endpoints)
+        {
+            LatencyHistogram[] histograms = _endpoints.get(endpoint);
+            if (histograms == null)
+            {
+                histograms = new LatencyHistogram[Phase.values().length];
+                for (int i = 0; i < histograms.length; i++)
+                {
+                    histograms[i] = new LatencyHistogram();
+                }
+
+                _endpoints.put(endpoint, histograms);
+            }
+
+            histograms[phase.ordinal()].record(nanos);
+
+            if (phase == Phase.TOTAL && _reportEvery > 0)
+            {
+                _calls++;
+                report = _calls >= _reportEvery;
+            }
+        }
+
+        if (report)
+        {
+            report(ServiceLocator.tracker());
+        }
+    }
+
+    /**
+     * Gets a percentile of a phase of an endpoint.
+     *
+     * @param endpoint API method name
+     * @param phase Phase
+     * @param percent Percent, eg. 95
+     *
+     * @return Percentile (microseconds), or 0 if nothing was recorded
+     */
+    public long getPercentile(final String endpoint, final Phase phase, final double percent)
+    {
+        synchronized (_endpoints)
+        {
+            LatencyHistogram[] histograms = _endpoints.get(endpoint);
+            return (histograms == null) ? 0 : histograms[phase.ordinal()].getPercentile(percent);
+        }
+    }
+
+    /**
+     * Gets the number of calls recorded for an endpoint since the last report.
+     *
+     * @param endpoint API method name
+     *
+     * @return Number of calls
+     */
+    public int getCount(final String endpoint)
+    {
+        synchronized (_endpoints)
+        {
+            LatencyHistogram[] histograms = _endpoints.get(endpoint);
+            return (histograms == null) ? 0 : histograms[Phase.TOTAL.ordinal()].getCount();
+        }
+    }
+
+    /**
+     * Gets the endpoints with recorded calls, in name order.
+     *
+     * @return Endpoints
+     */
+    private ArrayList<String> endpoints()
+    {
+        ArrayList<String> endpoints = new ArrayList<String>(_endpoints.keySet());
+        Collections.sort(endpoints);
+        return endpoints;
+    }
+
+    /**
+     * Dumps the percentiles of every endpoint and phase since the last report.
+     *
+     * @return One line per endpoint and phase, eg. "getProjects WAIT: n=12 p50=80.0ms p95=160.0ms ..."
+     */
+    public String dump()
+    {
+        StringBuilder dump = new StringBuilder();
+
+        synchronized (_endpoints)
+        {
+            ArrayList<String> endpoints = endpoints();
+            for (int i = 0; i < endpoints.size(); i++)
+            {
+                LatencyHistogram[] histograms = _endpoints.get(endpoints.get(i));
+
+                for (int phase = 0; phase < histograms.length; phase++)
+                {
+                    LatencyHistogram histogram = histograms[phase];
+                    if (histogram.getCount() == 0)
+                    {
+                        continue;
+                    }
+
+                    dump.append(endpoints.get(i)).append(' ').append(Phase.values()[phase].name())
+                        .append(": n=").append(histogram.getCount());
+
+                    for (int p = 0; p < PERCENTILES.length; p++)
+                    {
+                        dump.append(" p").append(PERCENTILES[p]).append('=')
+                            .append(millis(histogram.getPercentile(PERCENTILES[p])));
+                    }
+
+                    dump.append(" max=").append(millis(histogram.getMax())).append('\n');
+                }
+            }
+        }
+
+        return dump.toString();
+    }
+
+    /**
+     * Formats microseconds as milliseconds.
+     *
+     * @param micros Microseconds
+     *
+     * @return Milliseconds, eg. "1.5ms"
+     */
+    private static String millis(final long micros)
+    {
+        return String.format(Locale.US, "%.1fms", micros / MICROS_PER_MILLI);
+    }
+
+    /**
+     * Reports the percentiles of every endpoint and phase since the last report as user timings, and starts
+     * over.
+     *
+     * Each timing is named "endpoint PHASE" (eg. "getProjects WAIT"), and labelled with its percentile (eg.
+     * "p95").
+     *
+     * @param tracker Analytics tracker
+     */
+    public void report(final ITiskTasksAnalyticsTracker tracker)
+    {
+        ArrayList<String> names = new ArrayList<String>();
+        ArrayList<long[]> percentiles = new ArrayList<long[]>();
+
+        // take the batch, then report it without holding up calls
+        synchronized (_endpoints)
+        {
+            ArrayList<String> endpoints = endpoints();
+            for (int i = 0; i < endpoints.size(); i++)
+            {
+                LatencyHistogram[] histograms = _endpoints.get(endpoints.get(i));
+
+                for (int phase = 0; phase < histograms.length; phase++)
+                {
+                    LatencyHistogram histogram = histograms[phase];
+                    if (histogram.getCount() == 0)
+                    {
+                        continue;
+                    }
+
+                    long[] values = new long[PERCENTILES.length];
+                    for (int p = 0; p < PERCENTILES.length; p++)
+                    {
+                        values[p] = Math.round(histogram.getPercentile(PERCENTILES[p]) / MICROS_PER_MILLI);
+                    }
+
+                    names.add(endpoints.get(i) + " " + Phase.values()[phase].name());
+                    percentiles.add(values);
+
+                    histogram.reset();
+                }
+            }
+
+            _calls = 0;
+        }
+
+        for (int i = 0; i < names.size(); i++)
+        {
+            for (int p = 0; p < PERCENTILES.length; p++)
+            {
+                tracker.trackUserTiming(CATEGORY, percentiles.get(i)[p], names.get(i), "p" + PERCENTILES[p]);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.nicjansma.tisktasks.api;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Asynchronous variant of ITodoistApi.
+ *
+ * Calls are made on the shared TodoistExecutor, at a priority, on behalf of an owner that cancels them when it
+ * goes away.  Results are returned as futures, and delivered to callbacks on the main thread.
+ */
+public final class AsyncTodoistApi
+{
+    //
+    // Privates
+    //
+    /**
+     * Decorated API.
+     */
+    private final ITodoistApi _api;
+
+    /**
+     * Executor.
+     */
+    private final TodoistExecutor _executor;
+
+    /**
+     * Constructor.
+     *
+     * @param api Decorated API
+     * @param executor Executor
+     */
+    public AsyncTodoistApi(final ITodoistApi api, final TodoistExecutor executor)
+    {
+        _api = api;
+        _executor = executor;
+    }
+
+    /**
+     * Makes API calls asynchronously.
+     *
+     * @param <R> Result type
+     * @param owner Owner that cancels the calls when it goes away (e.g. an activity)
+     * @param priority Priority
+     * @param call API calls
+     * @param callback Called with the result, or null
+     *
+     * @return Future result
+     */
+    public <R> FutureTask<R> call(final Object owner,
+                                  final TodoistExecutor.Priority priority,
+                                  final ITodoistApiCall<R> call,
+                                  final ITodoistApiCallback<R> callback)
+    {
+        return _executor.submit(owner, priority, new Callable<R>()
+        {
+            @Override
+            public R call()
+            {
+                return call.call(_api);
+            }
+        }, callback);
+    }
+}
@@ -0,0 +1,543 @@
+package com.nicjansma.tisktasks.api;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistProject;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+import com.nicjansma.tisktasks.models.TodoistUser;
+
+/**
+ * Todoist API that batches item completes, un-completes, recurring date updates and deletes.
+ *
+ * These calls all take a list of item IDs, so instead of sending each one right away, the first call waits
+ * a short window for others to queue up behind it, and then sends each run of queued calls of the same kind
+ * as one call with all of their IDs.  Calls are sent in the order they were made, and each caller still
+ * blocks until its own call has been sent, getting the batch's result (or, for recurring date updates, just
+ * its own items).  Everything else is forwarded right away.
+ */
+public final class BatchingTodoistApi
+    implements ITodoistApi
+{
+    //
+    // Privates
+    //
+    /**
+     * Decorated API.
+     */
+    private final ITodoistApi _api;
+
+    /**
+     * Default batching window (milliseconds).
+     */
+    public static final int DEFAULT_WINDOW = 100;
+
+    /**
+     * Batching window (milliseconds).
+     */
+    private final int _window;
+
+    /**
+     * Queued mutations, in order.
+     */
+    private final ArrayList<Mutation> _queue = new ArrayList<Mutation>();
+
+    /**
+     * Whether or not a caller is waiting out the window to send the queue.
+     */
+    private boolean _flushScheduled;
+
+    /**
+     * Held while sending, so batches are sent in order.
+     */
+    private final Object _sendLock = new Object();
+
+    /**
+     * Kinds of mutations.
+     */
+    private enum Kind
+    {
+        /**
+         * completeItems(), moving the items to history.
+         */
+        COMPLETE_IN_HISTORY,
+
+        /**
+         * completeItems(), not moving the items to history.
+         */
+        COMPLETE,
+
+        /**
+         * uncompleteItems().
+         */
+        UNCOMPLETE,
+
+        /**
+         * updateRecurringDate().
+         */
+        UPDATE_RECURRING_DATE,
+
+        /**
+         * deleteItems().
+         */
+        DELETE
+    }
+
+    /**
+     * A queued mutation.
+     */
+    private static final class Mutation
+    {
+        /**
+         * Kind of mutation.
+         */
+        private final Kind _kind;
+
+        /**
+         * Item IDs.
+         */
+        private final ArrayList<Long> _items;
+
+        /**
+         * Signalled once the mutation is sent.
+         */
+        private final CountDownLatch _done = new CountDownLatch(1);
+
+        /**
+         * Result, for all kinds but UPDATE_RECURRING_DATE.
+         */
+        private TodoistApiResultSimple _simpleResult;
+
+        /**
+         * Result, for UPDATE_RECURRING_DATE.
+         */
+        private TodoistApiResultArray<TodoistItem> _arrayResult;
+
+        /**
+         * Exception sending the mutation threw.
+         */
+        private RuntimeException _exception;
+
+        /**
+         * Constructor.
+         *
+         * @param kind Kind of mutation
+         * @param items Item IDs
+         */
+        private Mutation(final Kind kind, final ArrayList<Long> items)
+        {
+            _kind = kind;
+            _items = new ArrayList<Long>(items);
+        }
+    }
+
+    /**
+     * Constructor, with the default window.
+     *
+     * @param api Decorated API
+     */
+    public BatchingTodoistApi(final ITodoistApi api)
+    {
+        this(api, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param api Decorated API
+     * @param window Batching window (milliseconds)
+     */
+    public BatchingTodoistApi(final ITodoistApi api, final int window)
+    {
+        _api = api;
+        _window = window;
+    }
+
+    /**
+     * Queues a mutation, and waits until it's sent.
+     *
+     * @param mutation Mutation
+     *
+     * @return The mutation, once sent
+     */
+    private Mutation submit(final Mutation mutation)
+    {
+        boolean flush;
+        synchronized (_queue)
+        {
+            _queue.add(mutation);
+
+            flush = !_flushScheduled;
+            _flushScheduled = true;
+        }
+
+        if (flush)
+        {
+            flush();
+        }
+
+        boolean interrupted = false;
+        while (true)
+        {
+            try
+            {
+                mutation._done.await();
+                break;
+            }
+            catch (final InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        if (mutation._exception != null)
+        {
+            throw mutation._exception;
+        }
+
+        return mutation;
+    }
+
+    /**
+     * Waits out the window, then sends everything queued.
+     */
+    private void flush()
+    {
+        try
+        {
+            Thread.sleep(_window);
+        }
+        catch (final InterruptedException e)
+        {
+            // send now
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (_sendLock)
+        {
+            ArrayList<Mutation> batch;
+            synchronized (_queue)
+            {
+                batch = new ArrayList<Mutation>(_queue);
+                _queue.clear();
+                _flushScheduled = false;
+            }
+
+            // send each run of the same kind as one call
+            int start = 0;
+            while (start < batch.size())
+            {
+                int end = start + 1;
+                while (end < batch.size() && batch.get(end)._kind == batch.get(start)._kind)
+                {
+                    end++;
+                }
+
+                send(batch.subList(start, end));
+
+                start = end;
+            }
+        }
+    }
+
+    /**
+     * Sends a run of mutations of the same kind as one call.
+     *
+     * @param run Mutations
+     */
+    private void send(final List<Mutation> run)
+    {
+        Kind kind = run.get(0)._kind;
+
+        // combine the IDs, in order, without duplicates
+        ArrayList<Long> items = new ArrayList<Long>();
+        HashSet<Long> seen = new HashSet<Long>();
+        for (int i = 0; i < run.size(); i++)
+        {
+            for (int j = 0; j < run.get(i)._items.size(); j++)
+            {
+                if (seen.add(run.get(i)._items.get(j)))
+                {
+                    items.add(run.get(i)._items.get(j));
+                }
+            }
+        }
+
+        try
+        {
+            if (kind == Kind.UPDATE_RECURRING_DATE)
+            {
+                TodoistApiResultArray<TodoistItem> result = _api.updateRecurringDate(items);
+                for (int i = 0; i < run.size(); i++)
+                {
+                    run.get(i)._arrayResult = itemsOf(result, run.get(i)._items);
+                }
+            }
+            else
+            {
+                TodoistApiResultSimple result;
+                if (kind == Kind.COMPLETE_IN_HISTORY || kind == Kind.COMPLETE)
+                {
+                    result = _api.completeItems(items, kind == Kind.COMPLETE_IN_HISTORY);
+                }
+                else if (kind == Kind.UNCOMPLETE)
+                {
+                    result = _api.uncompleteItems(items);
+                }
+                else
+                {
+                    result = _api.deleteItems(items);
+                }
+
+                for (int i = 0; i < run.size(); i++)
+                {
+                    run.get(i)._simpleResult = result;
+                }
+            }
+        }
+        catch (final RuntimeException e)
+        {
+            for (int i = 0; i < run.size(); i++)
+            {
+                run.get(i)._exception = e;
+            }
+        }
+        finally
+        {
+            for (int i = 0; i < run.size(); i++)
+            {
+                run.get(i)._done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Gets the part of a batch's updated items that one caller asked for.
+     *
+     * @param result Batch result
+     * @param items Caller's item IDs
+     *
+     * @return Caller's result
+     */
+    private static TodoistApiResultArray<TodoistItem> itemsOf(
+        final TodoistApiResultArray<TodoistItem> result,
+        final ArrayList<Long> items)
+    {
+        if (result == null || result.getArray() == null)
+        {
+            return result;
+        }
+
+        HashSet<Long> ids = new HashSet<Long>(items);
+
+        ArrayList<TodoistItem> array = new ArrayList<TodoistItem>();
+        for (int i = 0; i < result.getArray().size(); i++)
+        {
+            if (ids.contains(result.getArray().get(i).getId()))
+            {
+                array.add(result.getArray().get(i));
+            }
+        }
+
+        return new TodoistApiResultArray<TodoistItem>(result.getResponse(), array);
+    }
+
+    @Override
+    public void setToken(final String token)
+    {
+        _api.setToken(token);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> login(final String email, final String password)
+    {
+        return _api.login(email, password);
+    }
+
+    @Override
+    public TodoistApiResultArray<String> getTimezones()
+    {
+        return _api.getTimezones();
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> register(
+        final String email,
+        final String fullName,
+        final String password,
+        final String timeZone)
+    {
+        return _api.register(email, fullName, password, timeZone);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> updateUser(
+        final String email,
+        final String fullName,
+        final String password,
+        final String timeZone)
+    {
+        return _api.updateUser(email, fullName, password, timeZone);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistProject> getProjects()
+    {
+        return _api.getProjects();
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> getProject(final long projectId)
+    {
+        return _api.getProject(projectId);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> addProject(
+        final String name,
+        final int color,
+        final int indent,
+        final int order)
+    {
+        return _api.addProject(name, color, indent, order);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> updateProject(
+        final long projectId,
+        final String name,
+        final Integer color,
+        final Integer indent)
+    {
+        return _api.updateProject(projectId, name, color, indent);
+    }
+
+    @Override
+    public TodoistApiResultSimple updateProjectOrders(final ArrayList<Long> orders)
+    {
+        return _api.updateProjectOrders(orders);
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteProject(final long projectId)
+    {
+        return _api.deleteProject(projectId);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getUncompletedItems(final long projectId)
+    {
+        return _api.getUncompletedItems(projectId);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getCompletedItems(final long projectId)
+    {
+        return _api.getCompletedItems(projectId);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getItemsById(final ArrayList<Long> items)
+    {
+        return _api.getItemsById(items);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistItem> addItem(
+        final long projectId,
+        final String content,
+        final String dateString,
+        final int priority)
+    {
+        return _api.addItem(projectId, content, dateString, priority);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistItem> updateItem(
+        final long itemId,
+        final String content,
+        final String dateString,
+        final Integer priority,
+        final Integer indent,
+        final Integer itemOrder,
+        final Integer collapsed)
+    {
+        return _api.updateItem(itemId, content, dateString, priority, indent, itemOrder, collapsed);
+    }
+
+    @Override
+    public TodoistApiResultSimple updateOrders(final long projectId, final ArrayList<Long> orders)
+    {
+        return _api.updateOrders(projectId, orders);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> updateRecurringDate(final ArrayList<Long> items)
+    {
+        return submit(new Mutation(Kind.UPDATE_RECURRING_DATE, items))._arrayResult;
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteItem(final long itemId)
+    {
+        ArrayList<Long> items = new ArrayList<Long>();
+        items.add(itemId);
+        return deleteItems(items);
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteItems(final ArrayList<Long> items)
+    {
+        return submit(new Mutation(Kind.DELETE, items))._simpleResult;
+    }
+
+    @Override
+    public TodoistApiResultSimple completeItem(final long itemId, final boolean inHistory)
+    {
+        ArrayList<Long> items = new ArrayList<Long>();
+        items.add(itemId);
+        return completeItems(items, inHistory);
+    }
+
+    @Override
+    public TodoistApiResultSimple completeItems(final ArrayList<Long> items, final boolean inHistory)
+    {
+        Kind kind = inHistory ? Kind.COMPLETE_IN_HISTORY : Kind.COMPLETE;
+
+        return submit(new Mutation(kind, items))._simpleResult;
+    }
+
+    @Override
+    public TodoistApiResultSimple uncompleteItem(final long itemId)
+    {
+        ArrayList<Long> items = new ArrayList<Long>();
+        items.add(itemId);
+        return uncompleteItems(items);
+    }
+
+    @Override
+    public TodoistApiResultSimple uncompleteItems(final ArrayList<Long> items)
+    {
+        return submit(new Mutation(Kind.UNCOMPLETE, items))._simpleResult;
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistQueryResult> query(final ArrayList<String> queries)
+    {
+        return _api.query(queries);
+    }
+
+    @Override
+    public TodoistApiResultArray<Long> queryCount(final ArrayList<String> queries)
+    {
+        return _api.queryCount(queries);
+    }
+}
@@ -0,0 +1,418 @@
+package com.nicjansma.tisktasks.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+
+import com.nicjansma.library.net.JsonUtils;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistProject;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+import com.nicjansma.tisktasks.models.TodoistUser;
+
+/**
+ * Todoist API that coalesces concurrent identical reads.
+ *
+ * A read (keyed by its method and arguments) that's already in flight isn't sent again: the later callers
+ * wait for the first call and get its result, so they share one network call and one parsed result.  Only
+ * calls that overlap are coalesced; nothing is cached once a call returns.  Writes are always forwarded.
+ *
+ * Waiters get the very same result object, so callers mustn't modify it.
+ */
+public final class CoalescingTodoistApi
+    implements ITodoistApi
+{
+    //
+    // Privates
+    //
+    /**
+     * Decorated API.
+     */
+    private final ITodoistApi _api;
+
+    /**
+     * Key of each read in flight to its call.
+     */
+    private final HashMap<String, Call<?>> _calls = new HashMap<String, Call<?>>();
+
+    /**
+     * A read.
+     *
+     * @param <R> Result type
+     */
+    private abstract static class Call<R>
+    {
+        /**
+         * Signalled once the call returns.
+         */
+        private final CountDownLatch _done = new CountDownLatch(1);
+
+        /**
+         * Result.
+         */
+        private R _result;
+
+        /**
+         * Exception the call threw.
+         */
+        private RuntimeException _exception;
+
+        /**
+         * Calls the decorated API.
+         *
+         * @return Result
+         */
+        protected abstract R call();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param api Decorated API
+     */
+    public CoalescingTodoistApi(final ITodoistApi api)
+    {
+        _api = api;
+    }
+
+    /**
+     * Gets the number of reads in flight.
+     *
+     * @return Number of reads in flight
+     */
+    public int getInFlightCount()
+    {
+        synchronized (_calls)
+        {
+            return _calls.size();
+        }
+    }
+
+    /**
+     * Makes a read, or waits for the identical read in flight.
+     *
+     * @param <R> Result type
+     * @param key Method and arguments
+     * @param call Read
+     *
+     * @return Result
+     */
+    @SuppressWarnings("unchecked")
+    private <R> R coalesce(final String key, final Call<R> call)
+    {
+        Call<R> inFlight;
+        synchronized (_calls)
+        {
+            inFlight = (Call<R>) _calls.get(key);
+            if (inFlight == null)
+            {
+                _calls.put(key, call);
+            }
+        }
+
+        if (inFlight == null)
+        {
+            try
+            {
+                call._result = call.call();
+            }
+            catch (final RuntimeException e)
+            {
+                call._exception = e;
+            }
+            finally
+            {
+                synchronized (_calls)
+                {
+                    _calls.remove(key);
+                }
+
+                call._done.countDown();
+            }
+
+            return result(call);
+        }
+
+        boolean interrupted = false;
+        while (true)
+        {
+            try
+            {
+                inFlight._done.await();
+                break;
+            }
+            catch (final InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        return result(inFlight);
+    }
+
+    /**
+     * Gets the result of a finished call.
+     *
+     * @param <R> Result type
+     * @param call Call
+     *
+     * @return Result
+     */
+    private static <R> R result(final Call<R> call)
+    {
+        if (call._exception != null)
+        {
+            throw call._exception;
+        }
+
+        return call._result;
+    }
+
+    @Override
+    public void setToken(final String token)
+    {
+        _api.setToken(token);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> login(final String email, final String password)
+    {
+        return _api.login(email, password);
+    }
+
+    @Override
+    public TodoistApiResultArray<String> getTimezones()
+    {
+        return coalesce("getTimezones", new Call<TodoistApiResultArray<String>>()
+        {
+            @Override
+            protected TodoistApiResultArray<String> call()
+            {
+                return _api.getTimezones();
+            }
+        });
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> register(
+        final String email,
+        final String fullName,
+        final String password,
+        final String timeZone)
+    {
+        return _api.register(email, fullName, password, timeZone);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> updateUser(
+        final String email,
+        final String fullName,
+        final String password,
+        final String timeZone)
+    {
+        return _api.updateUser(email, fullName, password, timeZone);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistProject> getProjects()
+    {
+        return coalesce("getProjects", new Call<TodoistApiResultArray<TodoistProject>>()
+        {
+            @Override
+            protected TodoistApiResultArray<TodoistProject> call()
+            {
+                return _api.getProjects();
+            }
+        });
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> getProject(final long projectId)
+    {
+        return coalesce("getProject/" + projectId, new Call<TodoistApiResultObject<TodoistProject>>()
+        {
+            @Override
+            protected TodoistApiResultObject<TodoistProject> call()
+            {
+                return _api.getProject(projectId);
+            }
+        });
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> addProject(
+        final String name,
+        final int color,
+        final int indent,
+        final int order)
+    {
+        return _api.addProject(name, color, indent, order);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> updateProject(
+        final long projectId,
+        final String name,
+        final Integer color,
+        final Integer indent)
+    {
+        return _api.updateProject(projectId, name, color, indent);
+    }
+
+    @Override
+    public TodoistApiResultSimple updateProjectOrders(final ArrayList<Long> orders)
+    {
+        return _api.updateProjectOrders(orders);
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteProject(final long projectId)
+    {
+        return _api.deleteProject(projectId);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getUncompletedItems(final long projectId)
+    {
+        return coalesce("getUncompletedItems/" + projectId, new Call<TodoistApiResultArray<TodoistItem>>()
+        {
+            @Override
+            protected TodoistApiResultArray<TodoistItem> call()
+            {
+                return _api.getUncompletedItems(projectId);
+            }
+        });
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getCompletedItems(final long projectId)
+    {
+        return coalesce("getCompletedItems/" + projectId, new Call<TodoistApiResultArray<TodoistItem>>()
+        {
+            @Override
+            protected TodoistApiResultArray<TodoistItem> call()
+            {
+                return _api.getCompletedItems(projectId);
+            }
+        });
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getItemsById(final ArrayList<Long> items)
+    {
+        return coalesce("getItemsById/" + items, new Call<TodoistApiResultArray<TodoistItem>>()
+        {
+            @Override
+            protected TodoistApiResultArray<TodoistItem> call()
+            {
+                return _api.getItemsById(items);
+            }
+        });
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistItem> addItem(
+        final long projectId,
+        final String content,
+        final String dateString,
+        final int priority)
+    {
+        return _api.addItem(projectId, content, dateString, priority);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistItem> updateItem(
+        final long itemId,
+        final String content,
+        final String dateString,
+        final Integer priority,
+        final Integer indent,
+        final Integer itemOrder,
+        final Integer collapsed)
+    {
+        return _api.updateItem(itemId, content, dateString, priority, indent, itemOrder, collapsed);
+    }
+
+    @Override
+    public TodoistApiResultSimple updateOrders(final long projectId, final ArrayList<Long> orders)
+    {
+        return _api.updateOrders(projectId, orders);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> updateRecurringDate(final ArrayList<Long> items)
+    {
+        return _api.updateRecurringDate(items);
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteItem(final long itemId)
+    {
+        return _api.deleteItem(itemId);
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteItems(final ArrayList<Long> items)
+    {
+        return _api.deleteItems(items);
+    }
+
+    @Override
+    public TodoistApiResultSimple completeItem(final long itemId, final boolean inHistory)
+    {
+        return _api.completeItem(itemId, inHistory);
+    }
+
+    @Override
+    public TodoistApiResultSimple completeItems(final ArrayList<Long> items, final boolean inHistory)
+    {
+        return _api.completeItems(items, inHistory);
+    }
+
+    @Override
+    public TodoistApiResultSimple uncompleteItem(final long itemId)
+    {
+        return _api.uncompleteItem(itemId);
+    }
+
+    @Override
+    public TodoistApiResultSimple uncompleteItems(final ArrayList<Long> items)
+    {
+        return _api.uncompleteItems(items);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistQueryResult> query(final ArrayList<String> queries)
+    {
+        String key = "query/" + JsonUtils.convertStringArrayToJsonArray(queries);
+
+        return coalesce(key, new Call<TodoistApiResultArray<TodoistQueryResult>>()
+        {
+            @Override
+            protected TodoistApiResultArray<TodoistQueryResult> call()
+            {
+                return _api.query(queries);
+            }
+        });
+    }
+
+    @Override
+    public TodoistApiResultArray<Long> queryCount(final ArrayList<String> queries)
+    {
+        String key = "queryCount/" + JsonUtils.convertStringArrayToJsonArray(queries);
+
+        return coalesce(key, new Call<TodoistApiResultArray<Long>>()
+        {
+            @Override
+            protected TodoistApiResultArray<Long> call()
+            {
+                return _api.queryCount(queries);
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.nicjansma.tisktasks.api;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import com.nicjansma.library.net.HttpUtils;
+import com.nicjansma.library.net.JsonResult;
+
+/**
+ * HTTP transport on the library's HttpUtils, so its pluggable fetcher (eg. MockHttpFetcher in tests) sees
+ * every request.
+ */
+public final class HttpUtilsTransport
+    implements IHttpTransport
+{
+    @Override
+    public TodoistHttpResponse get(final String url)
+    {
+        JsonResult result = HttpUtils.getJson(url);
+        if (result == null || result.getHttpResponse() == null)
+        {
+            return new TodoistHttpResponse(TodoistHttpResponse.CONNECTION_FAILURE, "");
+        }
+
+        return new TodoistHttpResponse(result.getHttpResponse().getHttpCode(), result.getHttpResponse().getResponse());
+    }
+
+    @Override
+    public TodoistHttpResponse get(final String url, final IResponseDecoder decoder)
+    {
+        TodoistHttpResponse response = get(url);
+        if (!response.successful() || response.getBody() == null)
+        {
+            return response;
+        }
+
+        try
+        {
+            String body = decoder.decode(new StringReader(response.getBody()));
+            return new TodoistHttpResponse(response.getHttpCode(), body);
+        }
+        catch (final IOException e)
+        {
+            return new TodoistHttpResponse(TodoistHttpResponse.CONNECTION_FAILURE, "");
+        }
+    }
+
+    @Override
+    public TodoistHttpResponse post(final String url, final String form, final IResponseDecoder decoder)
+    {
+        // HttpUtils can only get, so the form is sent in the query string
+        return get(url + (url.indexOf('?') == -1 ? '?' : '&') + form, decoder);
+    }
+}
@@ -0,0 +1,40 @@
+package com.nicjansma.tisktasks.api;
+
+/**
+ * Sends the HTTP requests of TodoistApi.
+ */
+public interface IHttpTransport
+{
+    /**
+     * Gets a URL.
+     *
+     * @param url URL
+     *
+     * @return Response, with a CONNECTION_FAILURE code if there was no response, or NOT_SENT if the request
+     *         never left the device
+     */
+    TodoistHttpResponse get(String url);
+
+    /**
+     * Gets a URL, decoding a successful response's body as it's read.
+     *
+     * @param url URL
+     * @param decoder Decoder of the body
+     *
+     * @return Response, with the body the decoder didn't decode (if any), a CONNECTION_FAILURE code if there
+     *         was no response, or NOT_SENT if the request never left the device
+     */
+    TodoistHttpResponse get(String url, IResponseDecoder decoder);
+
+    /**
+     * Posts a form to a URL, decoding a successful response's body as it's read.
+     *
+     * @param url URL
+     * @param form Form body, application/x-www-form-urlencoded
+     * @param decoder Decoder of the body
+     *
+     * @return Response, with the body the decoder didn't decode (if any), a CONNECTION_FAILURE code if there
+     *         was no response, or NOT_SENT if the request never left the device
+     */
+    TodoistHttpResponse post(String url, String form, IResponseDecoder decoder);
+}
@@ -0,0 +1,22 @@
+package com.nicjansma.tisktasks.api;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Decodes a response body as it's read, instead of reading it into a string first.
+ */
+public interface IResponseDecoder
+{
+    /**
+     * Decodes a successful response's body.
+     *
+     * @param body Response body
+     *
+     * @return The body's text if it isn't in the expected format (eg. an error string), or null if it was decoded
+     *
+     * @throws IOException If the body couldn't be read
+     */
+    String decode(Reader body)
+        throws IOException;
+}
@@ -0,0 +1,18 @@
+package com.nicjansma.tisktasks.api;
+
+/**
+ * One or more API calls, made asynchronously by AsyncTodoistApi.
+ *
+ * @param <R> Result type
+ */
+public interface ITodoistApiCall<R>
+{
+    /**
+     * Makes the calls, on an executor thread.
+     *
+     * @param api API
+     *
+     * @return Result
+     */
+    R call(ITodoistApi api);
+}
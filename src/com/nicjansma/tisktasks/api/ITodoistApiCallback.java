@@ -0,0 +1,16 @@
+package com.nicjansma.tisktasks.api;
+
+/**
+ * Gets the result of an asynchronous API call.
+ *
+ * @param <R> Result type
+ */
+public interface ITodoistApiCallback<R>
+{
+    /**
+     * Called with the result, unless the call failed or its owner cancelled it.
+     *
+     * @param result Result
+     */
+    void onResult(R result);
+}
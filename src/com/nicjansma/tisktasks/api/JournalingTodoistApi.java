@@ -0,0 +1,637 @@
+package com.nicjansma.tisktasks.api;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.models.TodoistDueDateParser;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistObjectBase;
+import com.nicjansma.tisktasks.models.TodoistProject;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+import com.nicjansma.tisktasks.models.TodoistUser;
+
+/**
+ * Todoist API that journals changes it can't send, so they aren't lost while offline.
+ *
+ * A change that never left the device (it couldn't connect) is appended to a durable MutationJournal, and the
+ * caller gets a successful result (HTTP 202 Accepted) with the project or task as the change will leave it, so
+ * the change is applied to the object managers right away.  Projects and tasks added this way get a temporary
+ * (negative) ID.  A change that may have reached Todoist (eg. its response timed out) is only journaled if
+ * sending it again is harmless; adds and recurring date updates get the failure instead, so they aren't
+ * applied twice.  While anything is journaled, later changes are journaled behind it instead of being sent,
+ * and changes are sent one at a time, so they're sent in order.
+ *
+ * The journal is compacted and replayed by replay(): when connectivity returns, and before any read, so reads
+ * see the journaled changes.
+ */
+public final class JournalingTodoistApi
+    implements ITodoistApi
+{
+    //
+    // Privates
+    //
+    /**
+     * Decorated API.
+     */
+    private final ITodoistApi _api;
+
+    /**
+     * Journal of changes not yet sent.
+     */
+    private final MutationJournal _journal;
+
+    /**
+     * Held while sending or journaling changes, so they go out one at a time, in order.
+     */
+    private final Object _sendLock = new Object();
+
+    /**
+     * Next temporary ID (counting down from the negative start time, so IDs of different runs don't overlap).
+     */
+    private long _nextTempId = -System.currentTimeMillis();
+
+    /**
+     * Constructor.
+     *
+     * @param api Decorated API
+     * @param journal Journal of changes not yet sent
+     */
+    public JournalingTodoistApi(final ITodoistApi api, final MutationJournal journal)
+    {
+        _api = api;
+        _journal = journal;
+    }
+
+    /**
+     * Gets the number of changes not yet sent.
+     *
+     * @return Number of journaled changes
+     */
+    public int getPendingCount()
+    {
+        return _journal.size();
+    }
+
+    /**
+     * Compacts the journal, and sends its changes in order, until it's empty or Todoist can't be reached.
+     *
+     * Changes Todoist rejects are dropped, and so are adds and recurring date updates that may have reached
+     * Todoist without a response, since sending them again could apply them twice.
+     *
+     * @return True if the journal is empty
+     */
+    public boolean replay()
+    {
+        synchronized (_sendLock)
+        {
+            _journal.compact();
+
+            TodoistMutation mutation = _journal.peek();
+            while (mutation != null)
+            {
+                TodoistApiResult result = mutation.send(_api);
+                if (result != null
+                    && result.hadConnectionFailure()
+                    && (result.wasNotSent() || mutation.isIdempotent()))
+                {
+                    // send it again later
+                    return false;
+                }
+
+                _journal.removeFirst();
+
+                if (result == null || !result.successful())
+                {
+                    ServiceLocator.tracker().trackEvent("Journal", "Dropped", mutation.getKind().name(), 0);
+                }
+                else if (mutation.getTempId() != 0)
+                {
+                    long realId = ((TodoistObjectBase) ((TodoistApiResultObject<?>) result).getObject()).getId();
+
+                    _journal.remap(mutation.getTempId(), realId);
+                }
+
+                mutation = _journal.peek();
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Replays the journal, if anything's journaled.
+     */
+    private void replayPending()
+    {
+        if (!_journal.isEmpty())
+        {
+            replay();
+        }
+    }
+
+    /**
+     * Gets a new temporary ID.
+     *
+     * @return Temporary ID
+     */
+    private synchronized long nextTempId()
+    {
+        return _nextTempId--;
+    }
+
+    /**
+     * Sends a change, or journals it if it can't be sent yet.
+     *
+     * @param mutation Change
+     *
+     * @return Result, or null if the change was journaled
+     */
+    private TodoistApiResult mutate(final TodoistMutation mutation)
+    {
+        synchronized (_sendLock)
+        {
+            _journal.remapSent(mutation);
+
+            if (!_journal.isEmpty())
+            {
+                // keep changes in order
+                queue(mutation);
+                return null;
+            }
+
+            TodoistApiResult result = mutation.send(_api);
+            if (result == null)
+            {
+                // refers to a project or task whose add was dropped
+                return notFound(mutation);
+            }
+
+            if (result.wasNotSent() || (result.hadConnectionFailure() && mutation.isIdempotent()))
+            {
+                queue(mutation);
+                return null;
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Gets the failed result of a change to a project or task that was never added.
+     *
+     * @param mutation Change
+     *
+     * @return Result, of the type the change's API call returns
+     */
+    private static TodoistApiResult notFound(final TodoistMutation mutation)
+    {
+        TodoistHttpResponse response = new TodoistHttpResponse(HttpURLConnection.HTTP_NOT_FOUND, "Not found");
+
+        switch (mutation.getKind())
+        {
+            case ADD_PROJECT:
+            case UPDATE_PROJECT:
+                return new TodoistApiResultObject<TodoistProject>(response, null);
+            case ADD_ITEM:
+            case UPDATE_ITEM:
+                return new TodoistApiResultObject<TodoistItem>(response, null);
+            case UPDATE_RECURRING_DATE:
+                return new TodoistApiResultArray<TodoistItem>(response, new ArrayList<TodoistItem>());
+            default:
+                return new TodoistApiResultSimple(response);
+        }
+    }
+
+    /**
+     * Journals a change.
+     *
+     * @param mutation Change
+     */
+    private void queue(final TodoistMutation mutation)
+    {
+        _journal.append(mutation);
+
+        ServiceLocator.tracker().trackEvent("Journal", "Queued", mutation.getKind().name(), 0);
+    }
+
+    /**
+     * Gets the response of a journaled change.
+     *
+     * @param body Response body
+     *
+     * @return Response
+     */
+    private static TodoistHttpResponse queuedResponse(final String body)
+    {
+        return new TodoistHttpResponse(HttpURLConnection.HTTP_ACCEPTED, body);
+    }
+
+    /**
+     * Gets the result of a journaled change with a simple result.
+     *
+     * @return Result
+     */
+    private static TodoistApiResultSimple queuedSimple()
+    {
+        return new TodoistApiResultSimple(queuedResponse("ok"));
+    }
+
+    /**
+     * Gets the JSON of a project or task, as a journaled add or update will leave it.
+     *
+     * @param existing Project or task, or null if it's new or isn't loaded
+     * @param id ID
+     * @param mutation Change
+     *
+     * @return JSON
+     *
+     * @throws JSONException On JSON errors
+     */
+    private static JSONObject queuedJson(
+        final TodoistObjectBase existing,
+        final long id,
+        final TodoistMutation mutation)
+        throws JSONException
+    {
+        JSONObject json = (existing != null) ? existing.toJson() : new JSONObject();
+        json.put("id", id);
+
+        // toJson() writes booleans, which are read back as numbers
+        json.put("collapsed", (existing != null && existing.isCollapsed()) ? 1 : 0);
+        json.putOpt("collapsed", mutation.getCollapsed());
+
+        json.putOpt("indent", mutation.getIndent());
+        json.putOpt("item_order", mutation.getOrder());
+
+        return json;
+    }
+
+    /**
+     * Gets a task, as a journaled add or update will leave it.
+     *
+     * @param existing Task, or null if it's new or isn't loaded
+     * @param id Task ID
+     * @param mutation Change
+     *
+     * @return Task
+     */
+    private static TodoistItem queuedItem(final TodoistItem existing, final long id, final TodoistMutation mutation)
+    {
+        TodoistItem item = new TodoistItem();
+
+        try
+        {
+            JSONObject json = queuedJson(existing, id, mutation);
+
+            if (mutation.getKind() == TodoistMutation.Kind.ADD_ITEM)
+            {
+                json.put("project_id", mutation.getProjectId());
+                json.put("indent", 1);
+            }
+            else if (existing != null)
+            {
+                json.put("in_history", existing.isInHistory() ? 1 : 0);
+                json.put("checked", existing.isChecked() ? 1 : 0);
+            }
+
+            json.putOpt("content", mutation.getText());
+            json.putOpt("priority", mutation.getPriority());
+
+            if (mutation.getDateString() != null && !mutation.getDateString().equals(json.optString("date_string")))
+            {
+                // Todoist works out the due date
+                json.put("date_string", mutation.getDateString());
+                json.remove("due_date");
+            }
+
+            TodoistDueDateParser.beginBatch();
+            item.initialize(json);
+        }
+        catch (final JSONException e)
+        {
+            e.printStackTrace();
+        }
+
+        return item;
+    }
+
+    /**
+     * Gets a project, as a journaled add or update will leave it.
+     *
+     * @param existing Project, or null if it's new or isn't loaded
+     * @param id Project ID
+     * @param mutation Change
+     *
+     * @return Project
+     */
+    private static TodoistProject queuedProject(
+        final TodoistProject existing,
+        final long id,
+        final TodoistMutation mutation)
+    {
+        TodoistProject project = new TodoistProject();
+
+        try
+        {
+            JSONObject json = queuedJson(existing, id, mutation);
+            json.putOpt("name", mutation.getText());
+
+            if (mutation.getColor() != null)
+            {
+                json.put("color", mutation.getColor().toString());
+            }
+
+            project.initialize(json);
+        }
+        catch (final JSONException e)
+        {
+            e.printStackTrace();
+        }
+
+        return project;
+    }
+
+    @Override
+    public void setToken(final String token)
+    {
+        _api.setToken(token);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> login(final String email, final String password)
+    {
+        return _api.login(email, password);
+    }
+
+    @Override
+    public TodoistApiResultArray<String> getTimezones()
+    {
+        return _api.getTimezones();
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> register(
+        final String email,
+        final String fullName,
+        final String password,
+        final String timeZone)
+    {
+        return _api.register(email, fullName, password, timeZone);
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> updateUser(
+        final String email,
+        final String fullName,
+        final String password,
+        final String timeZone)
+    {
+        return _api.updateUser(email, fullName, password, timeZone);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistProject> getProjects()
+    {
+        replayPending();
+
+        return _api.getProjects();
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> getProject(final long projectId)
+    {
+        replayPending();
+
+        return _api.getProject(projectId);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TodoistApiResultObject<TodoistProject> addProject(
+        final String name,
+        final int color,
+        final int indent,
+        final int order)
+    {
+        TodoistMutation mutation = TodoistMutation.addProject(nextTempId(), name, color, indent, order);
+
+        TodoistApiResult result = mutate(mutation);
+        if (result != null)
+        {
+            return (TodoistApiResultObject<TodoistProject>) result;
+        }
+
+        return new TodoistApiResultObject<TodoistProject>(queuedResponse(""),
+                                                          queuedProject(null, mutation.getTempId(), mutation));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TodoistApiResultObject<TodoistProject> updateProject(
+        final long projectId,
+        final String name,
+        final Integer color,
+        final Integer indent)
+    {
+        TodoistMutation mutation = TodoistMutation.updateProject(projectId, name, color, indent);
+
+        TodoistApiResult result = mutate(mutation);
+        if (result != null)
+        {
+            return (TodoistApiResultObject<TodoistProject>) result;
+        }
+
+        TodoistProject existing = ServiceLocator.projectManager().get(projectId);
+
+        return new TodoistApiResultObject<TodoistProject>(queuedResponse(""),
+                                                          queuedProject(existing, projectId, mutation));
+    }
+
+    @Override
+    public TodoistApiResultSimple updateProjectOrders(final ArrayList<Long> orders)
+    {
+        TodoistApiResult result = mutate(TodoistMutation.updateProjectOrders(orders));
+
+        return (result != null) ? (TodoistApiResultSimple) result : queuedSimple();
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteProject(final long projectId)
+    {
+        TodoistApiResult result = mutate(TodoistMutation.deleteProject(projectId));
+
+        return (result != null) ? (TodoistApiResultSimple) result : queuedSimple();
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getUncompletedItems(final long projectId)
+    {
+        replayPending();
+
+        return _api.getUncompletedItems(projectId);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getCompletedItems(final long projectId)
+    {
+        replayPending();
+
+        return _api.getCompletedItems(projectId);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getItemsById(final ArrayList<Long> items)
+    {
+        replayPending();
+
+        return _api.getItemsById(items);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TodoistApiResultObject<TodoistItem> addItem(
+        final long projectId,
+        final String content,
+        final String dateString,
+        final int priority)
+    {
+        TodoistMutation mutation = TodoistMutation.addItem(nextTempId(), projectId, content, dateString, priority);
+
+        TodoistApiResult result = mutate(mutation);
+        if (result != null)
+        {
+            return (TodoistApiResultObject<TodoistItem>) result;
+        }
+
+        return new TodoistApiResultObject<TodoistItem>(queuedResponse(""),
+                                                       queuedItem(null, mutation.getTempId(), mutation));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TodoistApiResultObject<TodoistItem> updateItem(
+        final long itemId,
+        final String content,
+        final String dateString,
+        final Integer priority,
+        final Integer indent,
+        final Integer itemOrder,
+        final Integer collapsed)
+    {
+        TodoistMutation mutation
+            = TodoistMutation.updateItem(itemId, content, dateString, priority, indent, itemOrder, collapsed);
+
+        TodoistApiResult result = mutate(mutation);
+        if (result != null)
+        {
+            return (TodoistApiResultObject<TodoistItem>) result;
+        }
+
+        TodoistItem existing = ServiceLocator.taskIndex().get(itemId);
+
+        return new TodoistApiResultObject<TodoistItem>(queuedResponse(""), queuedItem(existing, itemId, mutation));
+    }
+
+    @Override
+    public TodoistApiResultSimple updateOrders(final long projectId, final ArrayList<Long> orders)
+    {
+        TodoistApiResult result = mutate(TodoistMutation.updateOrders(projectId, orders));
+
+        return (result != null) ? (TodoistApiResultSimple) result : queuedSimple();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TodoistApiResultArray<TodoistItem> updateRecurringDate(final ArrayList<Long> items)
+    {
+        TodoistApiResult result = mutate(TodoistMutation.updateRecurringDate(items));
+        if (result != null)
+        {
+            return (TodoistApiResultArray<TodoistItem>) result;
+        }
+
+        // Todoist works out the next due dates, so leave the tasks as they are until then
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        for (int i = 0; i < items.size(); i++)
+        {
+            TodoistItem task = ServiceLocator.taskIndex().get(items.get(i));
+            if (task != null)
+            {
+                tasks.add(task);
+            }
+        }
+
+        return new TodoistApiResultArray<TodoistItem>(queuedResponse(""), tasks);
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteItem(final long itemId)
+    {
+        ArrayList<Long> items = new ArrayList<Long>();
+        items.add(itemId);
+
+        return deleteItems(items);
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteItems(final ArrayList<Long> items)
+    {
+        TodoistApiResult result = mutate(TodoistMutation.deleteItems(items));
+
+        return (result != null) ? (TodoistApiResultSimple) result : queuedSimple();
+    }
+
+    @Override
+    public TodoistApiResultSimple completeItem(final long itemId, final boolean inHistory)
+    {
+        ArrayList<Long> items = new ArrayList<Long>();
+        items.add(itemId);
+
+        return completeItems(items, inHistory);
+    }
+
+    @Override
+    public TodoistApiResultSimple completeItems(final ArrayList<Long> items, final boolean inHistory)
+    {
+        TodoistApiResult result = mutate(TodoistMutation.completeItems(items, inHistory));
+
+        return (result != null) ? (TodoistApiResultSimple) result : queuedSimple();
+    }
+
+    @Override
+    public TodoistApiResultSimple uncompleteItem(final long itemId)
+    {
+        ArrayList<Long> items = new ArrayList<Long>();
+        items.add(itemId);
+
+        return uncompleteItems(items);
+    }
+
+    @Override
+    public TodoistApiResultSimple uncompleteItems(final ArrayList<Long> items)
+    {
+        TodoistApiResult result = mutate(TodoistMutation.uncompleteItems(items));
+
+        return (result != null) ? (TodoistApiResultSimple) result : queuedSimple();
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistQueryResult> query(final ArrayList<String> queries)
+    {
+        replayPending();
+
+        return _api.query(queries);
+    }
+
+    @Override
+    public TodoistApiResultArray<Long> queryCount(final ArrayList<String> queries)
+    {
+        replayPending();
+
+        return _api.queryCount(queries);
+    }
+}
@@ -0,0 +1,103 @@
+package com.nicjansma.tisktasks.api;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+import org.json.JSONException;
+
+import com.nicjansma.tisktasks.models.IJsonPullDecodable;
+import com.nicjansma.tisktasks.models.JsonPullParser;
+import com.nicjansma.tisktasks.models.TodoistDueDateParser;
+
+/**
+ * Decodes a JSON array of objects straight from a response stream.
+ *
+ * @param <T> Object type
+ */
+public final class JsonArrayDecoder<T extends IJsonPullDecodable>
+    implements IResponseDecoder
+{
+    //
+    // Privates
+    //
+    /**
+     * Object class.
+     */
+    private final Class<T> _type;
+
+    /**
+     * Decoded objects, or null if the body wasn't an array of objects.
+     */
+    private ArrayList<T> _array;
+
+    /**
+     * Constructor.
+     *
+     * @param type Object class
+     */
+    public JsonArrayDecoder(final Class<T> type)
+    {
+        _type = type;
+    }
+
+    /**
+     * Gets the decoded objects.
+     *
+     * @return Decoded objects, or null if the body wasn't an array of objects
+     */
+    public ArrayList<T> getArray()
+    {
+        return _array;
+    }
+
+    @Override
+    public String decode(final Reader body)
+        throws IOException
+    {
+        _array = null;
+
+        JsonPullParser parser = new JsonPullParser(body);
+        try
+        {
+            if (parser.peek() != JsonPullParser.Token.BEGIN_ARRAY)
+            {
+                // eg. an error string
+                return parser.nextString("");
+            }
+
+            ArrayList<T> array = new ArrayList<T>();
+
+            // the objects' due dates share one look-up of the time zones
+            TodoistDueDateParser.beginBatch();
+
+            parser.beginArray();
+
+            while (parser.hasNext())
+            {
+                T obj = _type.newInstance();
+                obj.initialize(parser);
+                array.add(obj);
+            }
+
+            parser.endArray();
+
+            _array = array;
+            return null;
+        }
+        catch (final JSONException e)
+        {
+            return "";
+        }
+        catch (final InstantiationException e)
+        {
+            e.printStackTrace();
+            return "";
+        }
+        catch (final IllegalAccessException e)
+        {
+            e.printStackTrace();
+            return "";
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.nicjansma.tisktasks.api;
+
+/**
+ * Fixed-size histogram of latencies, for percentiles without keeping every sample.
+ *
+ * Latencies are counted in microsecond buckets that split each power of two into four, so a percentile is
+ * within 25% of the true value, and recording one is a few shifts and an increment.  Latencies over about four
+ * minutes all go in the last bucket.
+ *
+ * Not thread-safe.
+ */
+public final class LatencyHistogram
+{
+    //
+    // Constants
+    //
+    /**
+     * Buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 4;
+
+    /**
+     * Bits of a value that pick its sub-bucket.
+     */
+    private static final int SUB_BUCKET_BITS = 2;
+
+    /**
+     * Number of buckets.
+     */
+    private static final int BUCKETS = 108;
+
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final long NANOS_PER_MICRO = 1000;
+
+    /**
+     * Percent of all samples.
+     */
+    private static final double ALL = 100.0;
+
+    //
+    // Privates
+    //
+    /**
+     * Samples per bucket.
+     */
+    private final int[] _counts = new int[BUCKETS];
+
+    /**
+     * Number of samples.
+     */
+    private int _count;
+
+    /**
+     * Largest sample (microseconds).
+     */
+    private long _max;
+
+    /**
+     * Gets the bucket of a latency.
+     *
+     * @param micros Latency (microseconds)
+     *
+     * @return Bucket
+     */
+    private static int bucket(final long micros)
+    {
+        if (micros < SUB_BUCKETS)
+        {
+            return (int) Math.max(micros, 0);
+        }
+
+        int octave = (Long.SIZE - 1) - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return Math.min((octave - 1) * SUB_BUCKETS + sub, BUCKETS - 1);
+    }
+
+    /**
+     * Gets the smallest latency in a bucket.
+     *
+     * @param bucket Bucket
+     *
+     * @return Smallest latency (microseconds)
+     */
+    private static long lowest(final int bucket)
+    {
+        if (bucket < SUB_BUCKETS)
+        {
+            return bucket;
+        }
+
+        int octave = bucket / SUB_BUCKETS + 1;
+
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (octave - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos Latency (nanoseconds)
+     */
+    public void record(final long nanos)
+    {
+        long micros = nanos / NANOS_PER_MICRO;
+
+        _counts[bucket(micros)]++;
+        _count++;
+        _max = Math.max(_max, micros);
+    }
+
+    /**
+     * Gets the number of recorded latencies.
+     *
+     * @return Number of latencies
+     */
+    public int getCount()
+    {
+        return _count;
+    }
+
+    /**
+     * Gets the largest recorded latency.
+     *
+     * @return Largest latency (microseconds)
+     */
+    public long getMax()
+    {
+        return _max;
+    }
+
+    /**
+     * Gets a percentile.
+     *
+     * @param percent Percent of latencies at or below the percentile, eg. 95
+     *
+     * @return The percentile (microseconds), rounded up to its bucket, or 0 if nothing was recorded
+     */
+    public long getPercentile(final double percent)
+    {
+        if (_count == 0)
+        {
+            return 0;
+        }
+
+        long rank = Math.max((long) Math.ceil(percent / ALL * _count), 1);
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS - 1; i++)
+        {
+            seen += _counts[i];
+            if (seen >= rank)
+            {
+                return Math.min(lowest(i + 1) - 1, _max);
+            }
+        }
+
+        return _max;
+    }
+
+    /**
+     * Forgets all recorded latencies.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            _counts[i] = 0;
+        }
+
+        _count = 0;
+        _max = 0;
+    }
+}
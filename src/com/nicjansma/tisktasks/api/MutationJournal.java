@@ -0,0 +1,416 @@
+package com.nicjansma.tisktasks.api;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Durable, append-only journal of mutations that haven't been sent to Todoist yet.
+ *
+ * Each mutation is appended to the journal file as a line of JSON, and synced to disk before append()
+ * returns.  Removing, compacting or remapping mutations rewrites the journal to a temporary file and renames
+ * it over the journal, so a crash leaves either the old or the new journal.  A partly written last line
+ * (from a crash during an append) is skipped when the journal is loaded.
+ *
+ * The real ID of each project or task added from the journal is appended to a second file, so changes made
+ * later (even after a restart) to objects still known by their temporary ID go to the real one.
+ */
+public final class MutationJournal
+{
+    //
+    // Constants
+    //
+    /**
+     * Journal file encoding.
+     */
+    private static final String ENCODING = "UTF-8";
+
+    /**
+     * Suffix of the real IDs file, after the journal file's name.
+     */
+    private static final String REAL_IDS_SUFFIX = ".ids";
+
+    //
+    // Privates
+    //
+    /**
+     * Journal file.
+     */
+    private final File _file;
+
+    /**
+     * Mutations, in order.
+     */
+    private final ArrayList<TodoistMutation> _mutations = new ArrayList<TodoistMutation>();
+
+    /**
+     * Real IDs file.
+     */
+    private final File _realIdsFile;
+
+    /**
+     * Real ID of each temporary ID whose add has been sent.
+     */
+    private final HashMap<Long, Long> _realIds = new HashMap<Long, Long>();
+
+    /**
+     * Constructor, loading the journal.
+     *
+     * @param file Journal file
+     */
+    public MutationJournal(final File file)
+    {
+        _file = file;
+        _realIdsFile = new File(file.getPath() + REAL_IDS_SUFFIX);
+
+        load();
+    }
+
+    /**
+     * Loads the journal and real IDs files.
+     */
+    private void load()
+    {
+        ArrayList<String> lines = readLines(_file);
+        for (int i = 0; i < lines.size(); i++)
+        {
+            try
+            {
+                _mutations.add(TodoistMutation.fromJson(new JSONObject(lines.get(i))));
+            }
+            catch (final JSONException e)
+            {
+                // partly written
+                e.printStackTrace();
+            }
+        }
+
+        lines = readLines(_realIdsFile);
+        for (int i = 0; i < lines.size(); i++)
+        {
+            try
+            {
+                JSONObject json = new JSONObject(lines.get(i));
+                _realIds.put(json.getLong("temp_id"), json.getLong("real_id"));
+            }
+            catch (final JSONException e)
+            {
+                // partly written
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of a file.
+     *
+     * @param file File
+     *
+     * @return Lines, or none if the file doesn't exist
+     */
+    private static ArrayList<String> readLines(final File file)
+    {
+        ArrayList<String> lines = new ArrayList<String>();
+
+        BufferedReader reader;
+        try
+        {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+        }
+        catch (final FileNotFoundException e)
+        {
+            // nothing written yet
+            return lines;
+        }
+        catch (final IOException e)
+        {
+            e.printStackTrace();
+            return lines;
+        }
+
+        try
+        {
+            String line = reader.readLine();
+            while (line != null)
+            {
+                lines.add(line);
+                line = reader.readLine();
+            }
+        }
+        catch (final IOException e)
+        {
+            e.printStackTrace();
+        }
+        finally
+        {
+            close(reader);
+        }
+
+        return lines;
+    }
+
+    /**
+     * Closes a reader, ignoring errors.
+     *
+     * @param reader Reader
+     */
+    private static void close(final BufferedReader reader)
+    {
+        try
+        {
+            reader.close();
+        }
+        catch (final IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes mutations to a file, and syncs it to disk.
+     *
+     * @param file File
+     * @param append Append to the file, instead of replacing it
+     * @param mutations Mutations
+     *
+     * @throws IOException If the file couldn't be written
+     */
+    private static void write(final File file, final boolean append, final ArrayList<TodoistMutation> mutations)
+        throws IOException
+    {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < mutations.size(); i++)
+        {
+            lines.append(mutations.get(i).toJson().toString()).append('\n');
+        }
+
+        write(file, append, lines.toString());
+    }
+
+    /**
+     * Writes lines to a file, and syncs it to disk.
+     *
+     * @param file File
+     * @param append Append to the file, instead of replacing it
+     * @param lines Lines, each ending in a newline
+     *
+     * @throws IOException If the file couldn't be written
+     */
+    private static void write(final File file, final boolean append, final String lines)
+        throws IOException
+    {
+        FileOutputStream out = new FileOutputStream(file, append);
+        try
+        {
+            out.write(lines.getBytes(ENCODING));
+            out.flush();
+            out.getFD().sync();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Rewrites the journal file with the current mutations.
+     */
+    private void rewrite()
+    {
+        File temp = new File(_file.getPath() + ".tmp");
+
+        try
+        {
+            write(temp, false, _mutations);
+
+            if (!temp.renameTo(_file))
+            {
+                throw new IOException("Couldn't rename " + temp + " to " + _file);
+            }
+        }
+        catch (final IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Appends a mutation.
+     *
+     * @param mutation Mutation
+     */
+    public synchronized void append(final TodoistMutation mutation)
+    {
+        _mutations.add(mutation);
+
+        ArrayList<TodoistMutation> appended = new ArrayList<TodoistMutation>();
+        appended.add(mutation);
+
+        try
+        {
+            write(_file, true, appended);
+        }
+        catch (final IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the first mutation.
+     *
+     * @return First mutation, or null if the journal is empty
+     */
+    public synchronized TodoistMutation peek()
+    {
+        return _mutations.isEmpty() ? null : _mutations.get(0);
+    }
+
+    /**
+     * Removes the first mutation, once it's been sent.
+     */
+    public synchronized void removeFirst()
+    {
+        if (!_mutations.isEmpty())
+        {
+            _mutations.remove(0);
+            rewrite();
+        }
+    }
+
+    /**
+     * Gets the mutations.
+     *
+     * @return Mutations, in order
+     */
+    public synchronized ArrayList<TodoistMutation> getMutations()
+    {
+        return new ArrayList<TodoistMutation>(_mutations);
+    }
+
+    /**
+     * Gets the number of mutations.
+     *
+     * @return Number of mutations
+     */
+    public synchronized int size()
+    {
+        return _mutations.size();
+    }
+
+    /**
+     * Determines whether or not the journal is empty.
+     *
+     * @return True if there's nothing to send
+     */
+    public synchronized boolean isEmpty()
+    {
+        return _mutations.isEmpty();
+    }
+
+    /**
+     * Compacts the journal.
+     *
+     * @see TodoistMutation#compact(java.util.List)
+     */
+    public synchronized void compact()
+    {
+        ArrayList<TodoistMutation> compacted = TodoistMutation.compact(_mutations);
+        if (compacted.size() != _mutations.size())
+        {
+            _mutations.clear();
+            _mutations.addAll(compacted);
+            rewrite();
+        }
+    }
+
+    /**
+     * Replaces the temporary ID of an added project or task with its real ID, once the add is sent.
+     *
+     * The real ID is kept, for changes made later by the temporary ID.
+     *
+     * @param tempId Temporary ID
+     * @param realId Real ID
+     */
+    public synchronized void remap(final long tempId, final long realId)
+    {
+        _realIds.put(tempId, realId);
+
+        try
+        {
+            JSONObject json = new JSONObject();
+            json.put("temp_id", tempId);
+            json.put("real_id", realId);
+
+            write(_realIdsFile, true, json.toString() + '\n');
+        }
+        catch (final JSONException e)
+        {
+            e.printStackTrace();
+        }
+        catch (final IOException e)
+        {
+            e.printStackTrace();
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < _mutations.size(); i++)
+        {
+            changed |= _mutations.get(i).remap(tempId, realId);
+        }
+
+        if (changed)
+        {
+            rewrite();
+        }
+    }
+
+    /**
+     * Replaces the temporary IDs a new mutation refers to with the real IDs of adds already sent.
+     *
+     * @param mutation Mutation
+     */
+    public synchronized void remapSent(final TodoistMutation mutation)
+    {
+        for (Long tempId : _realIds.keySet())
+        {
+            mutation.remap(tempId, _realIds.get(tempId));
+        }
+    }
+
+    /**
+     * Removes all mutations, and the real IDs of sent adds.
+     */
+    public synchronized void clear()
+    {
+        _mutations.clear();
+
+        if (_file.exists() && !_file.delete())
+        {
+            rewrite();
+        }
+
+        _realIds.clear();
+
+        if (_realIdsFile.exists() && !_realIdsFile.delete())
+        {
+            try
+            {
+                write(_realIdsFile, false, "");
+            }
+            catch (final IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+}
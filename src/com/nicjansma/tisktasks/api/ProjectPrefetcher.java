@@ -0,0 +1,344 @@
+package com.nicjansma.tisktasks.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import com.nicjansma.tisktasks.models.ITaskManager;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistProject;
+
+/**
+ * Warms the task lists of the projects the user is most likely to open, after the projects are loaded.
+ *
+ * Projects are ranked by how often they've been opened, then by their order in the list.  Their uncompleted
+ * tasks are fetched in the background, a few at a time, until the byte budget (estimated from each project's
+ * task count) is spent.  Opening a project fetched recently then shows its tasks right away, while they're
+ * loaded again in the background.
+ *
+ * Freshness belongs to the Task Manager the tasks were fetched into, not the project ID, as a project replaced
+ * by a newer copy (eg. with a new task count) starts with a new, empty Task Manager.
+ */
+public final class ProjectPrefetcher
+{
+    //
+    // Constants
+    //
+    /**
+     * Default number of projects to prefetch.
+     */
+    public static final int DEFAULT_PROJECTS = 5;
+
+    /**
+     * Default number of prefetches at once.
+     */
+    public static final int DEFAULT_CONCURRENCY = 2;
+
+    /**
+     * Default byte budget of a prefetch.
+     */
+    public static final long DEFAULT_BYTE_BUDGET = 256 * 1024;
+
+    /**
+     * Estimated size of a task in a response (bytes).
+     */
+    public static final int ESTIMATED_TASK_BYTES = 400;
+
+    /**
+     * How long prefetched tasks are fresh enough to show, and not prefetch again (milliseconds).
+     */
+    public static final long FRESH_TIME = 5 * 60 * 1000;
+
+    //
+    // Privates
+    //
+    /**
+     * Todoist API.
+     */
+    private final ITodoistApi _api;
+
+    /**
+     * Executor.
+     */
+    private final TodoistExecutor _executor;
+
+    /**
+     * Most projects to prefetch.
+     */
+    private final int _maxProjects;
+
+    /**
+     * Most prefetches at once.
+     */
+    private final int _maxConcurrent;
+
+    /**
+     * Byte budget of a prefetch.
+     */
+    private final long _byteBudget;
+
+    /**
+     * Number of times each project was opened, by project ID.
+     */
+    private final HashMap<Long, Integer> _opens = new HashMap<Long, Integer>();
+
+    /**
+     * When each Task Manager's tasks were last fetched (System.currentTimeMillis()).
+     */
+    private final HashMap<ITaskManager, Long> _fetched = new HashMap<ITaskManager, Long>();
+
+    /**
+     * Projects waiting to be prefetched, in rank order.
+     */
+    private final ArrayList<TodoistProject> _queue = new ArrayList<TodoistProject>();
+
+    /**
+     * Number of prefetches running.
+     */
+    private int _running;
+
+    /**
+     * Incremented on cancel(), so prefetches from before then don't count as running.
+     */
+    private int _generation;
+
+    /**
+     * Constructor, with the default limits.
+     *
+     * @param api Todoist API
+     * @param executor Executor
+     */
+    public ProjectPrefetcher(final ITodoistApi api, final TodoistExecutor executor)
+    {
+        this(api, executor, DEFAULT_PROJECTS, DEFAULT_CONCURRENCY, DEFAULT_BYTE_BUDGET);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param api Todoist API
+     * @param executor Executor
+     * @param maxProjects Most projects to prefetch
+     * @param maxConcurrent Most prefetches at once
+     * @param byteBudget Byte budget of a prefetch
+     */
+    public ProjectPrefetcher(
+        final ITodoistApi api,
+        final TodoistExecutor executor,
+        final int maxProjects,
+        final int maxConcurrent,
+        final long byteBudget)
+    {
+        _api = api;
+        _executor = executor;
+        _maxProjects = maxProjects;
+        _maxConcurrent = maxConcurrent;
+        _byteBudget = byteBudget;
+    }
+
+    /**
+     * Records that the user opened a project, so it ranks higher next time.
+     *
+     * @param projectId Project ID
+     */
+    public synchronized void recordOpen(final long projectId)
+    {
+        Integer opens = _opens.get(projectId);
+        _opens.put(projectId, (opens == null) ? 1 : opens + 1);
+    }
+
+    /**
+     * Records that a project's tasks were just fetched into its Task Manager.
+     *
+     * @param taskManager Project's Task Manager
+     */
+    public synchronized void recordFetched(final ITaskManager taskManager)
+    {
+        _fetched.put(taskManager, System.currentTimeMillis());
+    }
+
+    /**
+     * Determines whether or not a Task Manager's tasks were fetched recently enough to show before loading them.
+     *
+     * @param taskManager Project's Task Manager
+     *
+     * @return True if the tasks are fresh
+     */
+    public synchronized boolean isFresh(final ITaskManager taskManager)
+    {
+        Long fetched = _fetched.get(taskManager);
+        return fetched != null && System.currentTimeMillis() - fetched < FRESH_TIME;
+    }
+
+    /**
+     * Forgets a Task Manager whose project was removed or replaced.
+     *
+     * @param taskManager Project's Task Manager
+     */
+    public synchronized void forget(final ITaskManager taskManager)
+    {
+        _fetched.remove(taskManager);
+    }
+
+    /**
+     * Gets the number of projects waiting to be prefetched or being prefetched.
+     *
+     * @return Number of projects
+     */
+    public synchronized int getPendingCount()
+    {
+        return _queue.size() + _running;
+    }
+
+    /**
+     * Prefetches the tasks of the top projects, replacing any prefetch that hasn't started.
+     *
+     * @param projects Projects, in list order
+     */
+    public synchronized void prefetch(final List<TodoistProject> projects)
+    {
+        _queue.clear();
+        _queue.addAll(rank(projects));
+
+        startNext();
+    }
+
+    /**
+     * Cancels prefetches that haven't finished.
+     */
+    public synchronized void cancel()
+    {
+        _queue.clear();
+        _executor.cancelAll(this);
+
+        // cancelled prefetches that never ran won't finish
+        _generation++;
+        _running = 0;
+    }
+
+    /**
+     * Picks the projects to prefetch.
+     *
+     * @param projects Projects, in list order
+     *
+     * @return Projects to prefetch, most likely to be opened first
+     */
+    private ArrayList<TodoistProject> rank(final List<TodoistProject> projects)
+    {
+        ArrayList<TodoistProject> candidates = new ArrayList<TodoistProject>();
+        for (int i = 0; i < projects.size(); i++)
+        {
+            TodoistProject project = projects.get(i);
+
+            // empty projects have nothing to show, and fresh ones are already warm
+            if (project.getCacheCount() > 0 && !isFresh(project.getTaskManager()))
+            {
+                candidates.add(project);
+            }
+        }
+
+        // stable, so ties keep their list order
+        Collections.sort(candidates, new Comparator<TodoistProject>()
+        {
+            @Override
+            public int compare(final TodoistProject lhs, final TodoistProject rhs)
+            {
+                return opens(rhs.getId()) - opens(lhs.getId());
+            }
+        });
+
+        ArrayList<TodoistProject> picked = new ArrayList<TodoistProject>();
+        long bytes = 0;
+
+        for (int i = 0; i < candidates.size() && picked.size() < _maxProjects; i++)
+        {
+            long estimate = (long) candidates.get(i).getCacheCount() * ESTIMATED_TASK_BYTES;
+
+            // a project too big for what's left is skipped, but smaller ones may still fit
+            if (bytes + estimate <= _byteBudget)
+            {
+                picked.add(candidates.get(i));
+                bytes += estimate;
+            }
+        }
+
+        return picked;
+    }
+
+    /**
+     * Gets the number of times a project was opened.
+     *
+     * @param projectId Project ID
+     *
+     * @return Number of opens
+     */
+    private int opens(final long projectId)
+    {
+        Integer opens = _opens.get(projectId);
+        return (opens == null) ? 0 : opens;
+    }
+
+    /**
+     * Starts prefetches until the concurrency limit is reached.
+     */
+    private synchronized void startNext()
+    {
+        while (_running < _maxConcurrent && !_queue.isEmpty())
+        {
+            final TodoistProject project = _queue.remove(0);
+            final int generation = _generation;
+            _running++;
+
+            _executor.submit(this, TodoistExecutor.Priority.BACKGROUND, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        fetch(project);
+                    }
+                    finally
+                    {
+                        finished(generation);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Ends a prefetch, and starts the next one.
+     *
+     * @param generation Generation the prefetch was started in
+     */
+    private synchronized void finished(final int generation)
+    {
+        if (generation == _generation)
+        {
+            _running--;
+            startNext();
+        }
+    }
+
+    /**
+     * Fetches a project's uncompleted tasks into its task manager.
+     *
+     * @param project Project
+     */
+    private void fetch(final TodoistProject project)
+    {
+        ITaskManager taskManager = project.getTaskManager();
+
+        TodoistApiResultArray<TodoistItem> result = _api.getUncompletedItems(project.getId());
+
+        if (result.successful())
+        {
+            taskManager.importArray(result.getArray());
+
+            recordFetched(taskManager);
+        }
+    }
+}
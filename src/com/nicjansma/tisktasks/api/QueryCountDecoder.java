@@ -0,0 +1,121 @@
+package com.nicjansma.tisktasks.api;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+import org.json.JSONException;
+
+import com.nicjansma.tisktasks.models.JsonPullParser;
+
+/**
+ * Counts the tasks of each result of a query, straight from a response stream.
+ *
+ * Tasks in each result's "data" array are skipped over and counted, without decoding them into items, parsing
+ * their due dates or building a task hierarchy.
+ */
+public final class QueryCountDecoder
+    implements IResponseDecoder
+{
+    //
+    // Privates
+    //
+    /**
+     * Number of tasks of each result, or null if the body wasn't an array of results.
+     */
+    private ArrayList<Long> _counts;
+
+    /**
+     * Gets the number of tasks of each result.
+     *
+     * @return Counts, in query order, or null if the body wasn't an array of results
+     */
+    public ArrayList<Long> getCounts()
+    {
+        return _counts;
+    }
+
+    @Override
+    public String decode(final Reader body)
+        throws IOException
+    {
+        _counts = null;
+
+        JsonPullParser parser = new JsonPullParser(body);
+        try
+        {
+            if (parser.peek() != JsonPullParser.Token.BEGIN_ARRAY)
+            {
+                // eg. an error string
+                return parser.nextString("");
+            }
+
+            ArrayList<Long> counts = new ArrayList<Long>();
+
+            parser.beginArray();
+
+            while (parser.hasNext())
+            {
+                counts.add(countResult(parser));
+            }
+
+            parser.endArray();
+
+            _counts = counts;
+            return null;
+        }
+        catch (final JSONException e)
+        {
+            return "";
+        }
+    }
+
+    /**
+     * Counts the tasks of a result.
+     *
+     * @param parser Parser, positioned before the result object
+     *
+     * @return Number of tasks
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    private static long countResult(final JsonPullParser parser)
+        throws IOException, JSONException
+    {
+        long count = 0;
+
+        parser.beginObject();
+
+        while (parser.hasNext())
+        {
+            String name = parser.nextName();
+
+            if (name.equals("data") && parser.peek() == JsonPullParser.Token.BEGIN_ARRAY)
+            {
+                parser.beginArray();
+
+                while (parser.hasNext())
+                {
+                    // only objects are tasks, as in TodoistQueryResult
+                    if (parser.peek() == JsonPullParser.Token.BEGIN_OBJECT)
+                    {
+                        count++;
+                    }
+
+                    parser.skipValue();
+                }
+
+                parser.endArray();
+            }
+            else
+            {
+                parser.skipValue();
+            }
+        }
+
+        parser.endObject();
+
+        return count;
+    }
+}
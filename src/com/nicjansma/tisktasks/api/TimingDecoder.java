@@ -0,0 +1,174 @@
+package com.nicjansma.tisktasks.api;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Times how a response body is read and decoded.
+ *
+ * Wraps another decoder, or reads the body as text if there isn't one.  The transport calls decode() once the
+ * response has started, so the time until then is spent waiting on the network.  Within decode(), time spent
+ * in the body's read() calls is reading, and the rest is decoding.
+ */
+public final class TimingDecoder
+    implements IResponseDecoder
+{
+    //
+    // Constants
+    //
+    /**
+     * Read buffer size (characters).
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    //
+    // Privates
+    //
+    /**
+     * Wrapped decoder, or null to read the body as text.
+     */
+    private final IResponseDecoder _decoder;
+
+    /**
+     * Whether or not decode() was called.
+     */
+    private boolean _started;
+
+    /**
+     * When decode() was called (System.nanoTime()).
+     */
+    private long _startNanos;
+
+    /**
+     * Time spent reading the body (nanoseconds).
+     */
+    private long _readNanos;
+
+    /**
+     * Time spent decoding the body (nanoseconds).
+     */
+    private long _decodeNanos;
+
+    /**
+     * A reader that adds the time spent in read() to the read time.
+     */
+    private final class TimedReader
+        extends FilterReader
+    {
+        /**
+         * Constructor.
+         *
+         * @param reader Body
+         */
+        public TimedReader(final Reader reader)
+        {
+            super(reader);
+        }
+
+        @Override
+        public int read()
+            throws IOException
+        {
+            long start = System.nanoTime();
+            try
+            {
+                return super.read();
+            }
+            finally
+            {
+                _readNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length)
+            throws IOException
+        {
+            long start = System.nanoTime();
+            try
+            {
+                return super.read(buffer, offset, length);
+            }
+            finally
+            {
+                _readNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param decoder Decoder to time, or null to read the body as text
+     */
+    public TimingDecoder(final IResponseDecoder decoder)
+    {
+        _decoder = decoder;
+    }
+
+    @Override
+    public String decode(final Reader body)
+        throws IOException
+    {
+        _started = true;
+        _startNanos = System.nanoTime();
+
+        Reader reader = new TimedReader(body);
+        try
+        {
+            if (_decoder != null)
+            {
+                return _decoder.decode(reader);
+            }
+
+            StringBuilder builder = new StringBuilder();
+            char[] buffer = new char[BUFFER_SIZE];
+            int read = reader.read(buffer);
+            while (read != -1)
+            {
+                builder.append(buffer, 0, read);
+                read = reader.read(buffer);
+            }
+
+            return builder.toString();
+        }
+        finally
+        {
+            _decodeNanos = Math.max(System.nanoTime() - _startNanos - _readNanos, 0);
+        }
+    }
+
+    /**
+     * Gets how long the response took to start.
+     *
+     * @param callStartNanos When the call started (System.nanoTime())
+     * @param callEndNanos When the call ended (System.nanoTime())
+     *
+     * @return Time spent waiting (nanoseconds); the whole call if the body was never decoded (eg. an error)
+     */
+    public long getWaitNanos(final long callStartNanos, final long callEndNanos)
+    {
+        return !_started ? callEndNanos - callStartNanos : _startNanos - callStartNanos;
+    }
+
+    /**
+     * Gets the time spent reading the body.
+     *
+     * @return Read time (nanoseconds)
+     */
+    public long getReadNanos()
+    {
+        return _readNanos;
+    }
+
+    /**
+     * Gets the time spent decoding the body.
+     *
+     * @return Decode time (nanoseconds)
+     */
+    public long getDecodeNanos()
+    {
+        return _decodeNanos;
+    }
+}
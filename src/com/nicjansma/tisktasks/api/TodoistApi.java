@@ -7,13 +7,14 @@ import java.util.ArrayList;
 import java.util.HashMap;
 
 import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
-import com.nicjansma.library.net.HttpUtils;
-import com.nicjansma.library.net.JsonResult;
-import com.nicjansma.library.net.JsonResultArray;
-import com.nicjansma.library.net.JsonResultObject;
+import com.nicjansma.library.net.CacheableJsonObjectBase;
 import com.nicjansma.library.net.JsonUtils;
 import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.models.IJsonPullDecodable;
+import com.nicjansma.tisktasks.models.TodoistDueDateParser;
 import com.nicjansma.tisktasks.models.TodoistItem;
 import com.nicjansma.tisktasks.models.TodoistProject;
 import com.nicjansma.tisktasks.models.TodoistQueryResult;
@@ -38,6 +39,33 @@ public final class TodoistApi
      */
     public static final String BASE_SECURE_URL = "https://todoist.com/API/";
 
+    /**
+     * Most IDs sent in one call; longer ID lists are split into chunks that are sent one after another.
+     */
+    public static final int MAX_IDS_PER_CALL = 200;
+
+    /**
+     * Longest encoded arguments sent in a URL; longer ones are posted as a form instead.
+     */
+    public static final int MAX_URL_ARGS_LENGTH = 1024;
+
+    /**
+     * A call of an API method on one chunk of IDs.
+     *
+     * @param <R> Result type
+     */
+    private interface IChunkCall<R>
+    {
+        /**
+         * Calls the API method.
+         *
+         * @param ids Chunk of IDs
+         *
+         * @return Result
+         */
+        R call(ArrayList<Long> ids);
+    }
+
     //
     // Privates
     //
@@ -46,6 +74,46 @@ public final class TodoistApi
      */
     private String _apiToken;
 
+    /**
+     * HTTP transport.
+     */
+    private final IHttpTransport _transport;
+
+    /**
+     * Latency of each endpoint.
+     */
+    private final ApiLatencyStats _latency;
+
+    /**
+     * Constructor, using a keep-alive HttpURLConnection transport.
+     */
+    public TodoistApi()
+    {
+        this(new UrlConnectionTransport());
+    }
+
+    /**
+     * Constructor, recording latencies in the shared stats.
+     *
+     * @param transport HTTP transport
+     */
+    public TodoistApi(final IHttpTransport transport)
+    {
+        this(transport, ServiceLocator.apiLatency());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param transport HTTP transport
+     * @param latency Latency stats
+     */
+    public TodoistApi(final IHttpTransport transport, final ApiLatencyStats latency)
+    {
+        _transport = transport;
+        _latency = latency;
+    }
+
     @Override
     public void setToken(final String token)
     {
@@ -53,21 +121,41 @@ public final class TodoistApi
     }
 
     /**
-     * Gets the URL for an API call.
+     * Gets the API token, loading it from the preferences if it isn't set.
+     *
+     * @return API token, or "" if the user isn't logged in
+     */
+    private String token()
+    {
+        if (_apiToken == null || _apiToken.compareTo("") == 0)
+        {
+            _apiToken = ServiceLocator.prefs().apiToken();
+        }
+
+        return _apiToken;
+    }
+
+    /**
+     * Gets the request for an API call.
+     *
+     * Arguments are sent in the URL, unless they're too long for one (eg. long ID lists or content), in which case
+     * they're posted as a form.
      *
      * @param methodName Method name
      * @param args Hash map of arguments to their values
      * @param useToken Use the API token
      * @param secureRequired Use a secure connection
      *
-     * @return URL for the API call
+     * @return Request for the API call
      */
-    private String apiUrl(
+    private TodoistHttpRequest apiRequest(
         final String methodName,
         final HashMap<String, String> args,
         final boolean useToken,
         final boolean secureRequired)
     {
+        long start = System.nanoTime();
+
         Builder apiUrl = new Uri.Builder();
         apiUrl.scheme(secureRequired ? "https" : "http");
         apiUrl.authority("todoist.com");
@@ -75,95 +163,365 @@ public final class TodoistApi
 
         apiUrl.appendPath(methodName);
 
-        if (useToken)
+        // encoded arguments, eg. "token=abc&ids=%5B1%2C2%5D"
+        StringBuilder form = new StringBuilder();
+
+        if (useToken && token().compareTo("") != 0)
+        {
+            appendFormParameter(form, "token", token());
+        }
+
+        if (args != null)
         {
-            if (_apiToken == null || _apiToken.compareTo("") == 0)
+            for (String key : args.keySet())
             {
-                _apiToken = ServiceLocator.prefs().apiToken();
+                appendFormParameter(form, key, args.get(key));
             }
+        }
 
-            if (_apiToken.compareTo("") != 0)
+        TodoistHttpRequest request;
+        if (form.length() > MAX_URL_ARGS_LENGTH)
+        {
+            request = new TodoistHttpRequest(apiUrl.build().toString(), form.toString(), start);
+        }
+        else
+        {
+            if (form.length() > 0)
             {
-                apiUrl.appendQueryParameter("token", _apiToken);
+                apiUrl.encodedQuery(form.toString());
             }
+
+            request = new TodoistHttpRequest(apiUrl.build().toString(), null, start);
         }
 
-        if (args != null)
+        _latency.record(methodName, ApiLatencyStats.Phase.URL, System.nanoTime() - start);
+
+        return request;
+    }
+
+    /**
+     * Appends an encoded parameter to a form.
+     *
+     * @param form Form
+     * @param key Key
+     * @param value Value
+     */
+    private static void appendFormParameter(final StringBuilder form, final String key, final String value)
+    {
+        if (form.length() > 0)
         {
-            for (String key : args.keySet())
-            {
-                String value = args.get(key);
+            form.append('&');
+        }
 
-                apiUrl.appendQueryParameter(key, value);
-            }
+        form.append(Uri.encode(key)).append('=').append(Uri.encode(value));
+    }
+
+    /**
+     * Sends a request, and tracks the API call.
+     *
+     * @param request Request
+     * @param methodName Method name
+     *
+     * @return HTTP response
+     */
+    private TodoistHttpResponse get(final TodoistHttpRequest request, final String methodName)
+    {
+        return get(request, null, methodName);
+    }
+
+    /**
+     * Sends a request, decoding the response as it's read, and tracks the API call and its latency.
+     *
+     * @param request Request
+     * @param decoder Decoder of a successful response, or null to read it as text
+     * @param methodName Method name
+     *
+     * @return HTTP response
+     */
+    private TodoistHttpResponse get(
+        final TodoistHttpRequest request,
+        final IResponseDecoder decoder,
+        final String methodName)
+    {
+        // track API calls
+        ServiceLocator.tracker().trackEvent("API", "Call", methodName, 0);
+
+        // text is read through a decoder too, to tell waiting from reading
+        TimingDecoder timing = new TimingDecoder(decoder);
+
+        long start = System.nanoTime();
+        TodoistHttpResponse response = request.send(_transport, timing);
+        long end = System.nanoTime();
+
+        _latency.record(methodName, ApiLatencyStats.Phase.WAIT, timing.getWaitNanos(start, end));
+        _latency.record(methodName, ApiLatencyStats.Phase.READ, timing.getReadNanos());
+
+        if (decoder != null)
+        {
+            recordDecode(methodName, timing.getDecodeNanos(), request.getStartNanos());
         }
 
-        return apiUrl.build().toString();
+        return response;
     }
 
     /**
-     * Tracks API calls for JsonResultObjects.
+     * Records the time spent decoding a response, which ends the call.
      *
-     * @param <T> JsonResultObjectType
-     * @param result Result
      * @param methodName Method name
+     * @param decodeNanos Decode time (nanoseconds)
+     * @param start When the call started, before its URL was built (System.nanoTime())
+     */
+    private void recordDecode(final String methodName, final long decodeNanos, final long start)
+    {
+        _latency.record(methodName, ApiLatencyStats.Phase.DECODE, decodeNanos);
+        _latency.record(methodName, ApiLatencyStats.Phase.TOTAL, System.nanoTime() - start);
+    }
+
+    /**
+     * Calls an API method that returns an object.
+     *
+     * @param <T> Object type
+     * @param request Request
+     * @param type Object class
+     * @param methodName Method name
+     *
      * @return Result
      */
-    private static <T> JsonResultObject<T> track(final JsonResultObject<T> result, final String methodName)
+    private <T extends CacheableJsonObjectBase> TodoistApiResultObject<T> getObject(
+        final TodoistHttpRequest request,
+        final Class<T> type,
+        final String methodName)
     {
-        checkApiResult(result, methodName);
-        return result;
+        TodoistHttpResponse response = get(request, methodName);
+        long decodeStart = System.nanoTime();
+
+        T obj = null;
+        if (response.successful())
+        {
+            try
+            {
+                // any due dates use the time zones as of now
+                TodoistDueDateParser.beginBatch();
+
+                T candidate = type.newInstance();
+                if (candidate.initialize(new JSONObject(response.getBody())))
+                {
+                    obj = candidate;
+                }
+            }
+            catch (final JSONException e)
+            {
+                // not an object, eg. an error string
+                obj = null;
+            }
+            catch (final InstantiationException e)
+            {
+                e.printStackTrace();
+            }
+            catch (final IllegalAccessException e)
+            {
+                e.printStackTrace();
+            }
+        }
+
+        recordDecode(methodName, System.nanoTime() - decodeStart, request.getStartNanos());
+
+        return checkApiResult(new TodoistApiResultObject<T>(response, obj), methodName);
     }
 
     /**
-     * Tracks API calls for JsonResults.
+     * Calls an API method that returns an array of objects.
      *
-     * @param result Result
+     * @param <T> Object type
+     * @param request Request
+     * @param type Object class
      * @param methodName Method name
+     *
      * @return Result
      */
-    private static JsonResult track(final JsonResult result, final String methodName)
+    private <T extends IJsonPullDecodable> TodoistApiResultArray<T> getArray(
+        final TodoistHttpRequest request,
+        final Class<T> type,
+        final String methodName)
     {
-        checkApiResult(result, methodName);
-        return result;
+        // objects are decoded as the response streams in, without a JSONArray of the whole body
+        JsonArrayDecoder<T> decoder = new JsonArrayDecoder<T>(type);
+
+        TodoistHttpResponse response = get(request, decoder, methodName);
+
+        return checkApiResult(new TodoistApiResultArray<T>(response, decoder.getArray()), methodName);
     }
 
     /**
-     * Tracks API calls for JsonResultArrays.
+     * Calls an API method that returns an array of strings.
      *
-     * @param <T> JsonResultObjectType
-     * @param result Result
+     * @param request Request
      * @param methodName Method name
+     *
      * @return Result
      */
-    private static <T> JsonResultArray<T> track(final JsonResultArray<T> result, final String methodName)
+    private TodoistApiResultArray<String> getStrings(final TodoistHttpRequest request, final String methodName)
     {
-        checkApiResult(result, methodName);
-        return result;
+        TodoistHttpResponse response = get(request, methodName);
+        long decodeStart = System.nanoTime();
+
+        ArrayList<String> array = null;
+        if (response.successful())
+        {
+            try
+            {
+                JSONArray jsonArray = new JSONArray(response.getBody());
+
+                array = new ArrayList<String>(jsonArray.length());
+                for (int i = 0; i < jsonArray.length(); i++)
+                {
+                    array.add(jsonArray.getString(i));
+                }
+            }
+            catch (final JSONException e)
+            {
+                array = null;
+            }
+        }
+
+        recordDecode(methodName, System.nanoTime() - decodeStart, request.getStartNanos());
+
+        return checkApiResult(new TodoistApiResultArray<String>(response, array), methodName);
     }
 
     /**
-     * Checks an API result.
+     * Calls an API method that returns "ok".
      *
-     * @param result Result
+     * @param request Request
      * @param methodName Method name
+     *
+     * @return Result
      */
-    private static void checkApiResult(final JsonResult result, final String methodName)
+    private TodoistApiResultSimple getSimple(final TodoistHttpRequest request, final String methodName)
     {
-        // track API calls and errors
-        ServiceLocator.tracker().trackEvent("API", "Call", methodName, 0);
-        if (result == null || !result.successful())
+        TodoistHttpResponse response = get(request, methodName);
+
+        // "ok" has nothing to decode
+        recordDecode(methodName, 0, request.getStartNanos());
+
+        return checkApiResult(new TodoistApiResultSimple(response), methodName);
+    }
+
+    /**
+     * Splits an ID list into chunks of at most MAX_IDS_PER_CALL IDs.
+     *
+     * @param ids IDs
+     *
+     * @return Chunks, in order (one empty chunk if there are no IDs)
+     */
+    private static ArrayList<ArrayList<Long>> chunk(final ArrayList<Long> ids)
+    {
+        ArrayList<ArrayList<Long>> chunks = new ArrayList<ArrayList<Long>>();
+
+        int start = 0;
+        do
         {
-            // track HTTP response code if available
-            int resultCode = 0;
-            if (result != null
-                && result.getHttpResponse() != null)
+            int end = Math.min(start + MAX_IDS_PER_CALL, ids.size());
+            chunks.add(new ArrayList<Long>(ids.subList(start, end)));
+            start = end;
+        }
+        while (start < ids.size());
+
+        return chunks;
+    }
+
+    /**
+     * Calls an API method on each chunk of an ID list, on the calling thread, one chunk after another.
+     *
+     * Sending stops at the first failed chunk, so no later chunk is applied; the failed chunk's result carries the
+     * IDs of the earlier chunks, which were.
+     *
+     * @param <R> Result type
+     * @param ids IDs
+     * @param chunkCall Call of the API method on a chunk
+     *
+     * @return Result of each chunk sent, in order (the last one failed if any did)
+     */
+    private <R extends TodoistApiResult> ArrayList<R> callInChunks(
+        final ArrayList<Long> ids,
+        final IChunkCall<R> chunkCall)
+    {
+        ArrayList<ArrayList<Long>> chunks = chunk(ids);
+        ArrayList<R> results = new ArrayList<R>(chunks.size());
+
+        ArrayList<Long> applied = new ArrayList<Long>();
+        for (int i = 0; i < chunks.size(); i++)
+        {
+            R result = chunkCall.call(chunks.get(i));
+            results.add(result);
+
+            if (!result.successful())
             {
-                resultCode = result.getHttpResponse().getHttpCode();
+                result.setAppliedIds(applied);
+                break;
             }
 
-            ServiceLocator.tracker().trackEvent("API", "Error", methodName, resultCode);
+            applied.addAll(chunks.get(i));
         }
+
+        return results;
+    }
+
+    /**
+     * Merges the results of a chunked call that returns "ok".
+     *
+     * @param results Result of each chunk sent
+     *
+     * @return The failed chunk's result (see getAppliedIds()), or the last chunk's if they all succeeded
+     */
+    private static TodoistApiResultSimple mergeSimple(final ArrayList<TodoistApiResultSimple> results)
+    {
+        return results.get(results.size() - 1);
+    }
+
+    /**
+     * Merges the results of a chunked call that returns an array of objects.
+     *
+     * @param <T> Object type
+     * @param results Result of each chunk sent
+     *
+     * @return The failed chunk's result (see getAppliedIds()), or the chunks' objects in order if they all succeeded
+     */
+    private static <T> TodoistApiResultArray<T> mergeArrays(final ArrayList<TodoistApiResultArray<T>> results)
+    {
+        TodoistApiResultArray<T> last = results.get(results.size() - 1);
+        if (results.size() == 1 || !last.successful())
+        {
+            return last;
+        }
+
+        ArrayList<T> array = new ArrayList<T>();
+        for (int i = 0; i < results.size(); i++)
+        {
+            array.addAll(results.get(i).getArray());
+        }
+
+        return new TodoistApiResultArray<T>(last.getResponse(), array);
+    }
+
+    /**
+     * Checks an API result, and tracks errors.
+     *
+     * @param <R> Result type
+     * @param result Result
+     * @param methodName Method name
+     *
+     * @return Result
+     */
+    private static <R extends TodoistApiResult> R checkApiResult(final R result, final String methodName)
+    {
+        if (!result.successful())
+        {
+            // track HTTP response code if available
+            ServiceLocator.tracker().trackEvent("API", "Error", methodName, result.getResponse().getHttpCode());
+        }
+
+        return result;
     }
 
     @Override
@@ -175,18 +533,17 @@ public final class TodoistApi
         args.put("email", email);
         args.put("password", password);
 
-        String url = apiUrl("login", args, false, true);
+        TodoistHttpRequest request = apiRequest("login", args, false, true);
 
-        return new TodoistApiResultObject<TodoistUser>(
-                track(HttpUtils.getJsonAsObjectOf(url, TodoistUser.class), "login"));
+        return getObject(request, TodoistUser.class, "login");
     }
 
     @Override
     public TodoistApiResultArray<String> getTimezones()
     {
-        String url = apiUrl("getTimezones", null, false, true);
+        TodoistHttpRequest request = apiRequest("getTimezones", null, false, true);
 
-        return new TodoistApiResultArray<String>(track(HttpUtils.getJsonAsArrayOfStrings(url), "getTimezones"));
+        return getStrings(request, "getTimezones");
     }
 
     @Override
@@ -202,10 +559,9 @@ public final class TodoistApi
         args.put("password", password);
         args.put("timezone", timeZone);
 
-        String url = apiUrl("register", args, false, true);
+        TodoistHttpRequest request = apiRequest("register", args, false, true);
 
-        return new TodoistApiResultObject<TodoistUser>(
-                track(HttpUtils.getJsonAsObjectOf(url, TodoistUser.class), "register"));
+        return getObject(request, TodoistUser.class, "register");
     }
 
     @Override
@@ -221,19 +577,17 @@ public final class TodoistApi
         args.put("password", password);
         args.put("timezone", timeZone);
 
-        String url = apiUrl("updateUser", args, false, true);
+        TodoistHttpRequest request = apiRequest("updateUser", args, false, true);
 
-        return new TodoistApiResultObject<TodoistUser>(
-                track(HttpUtils.getJsonAsObjectOf(url, TodoistUser.class), "updateUser"));
+        return getObject(request, TodoistUser.class, "updateUser");
     }
 
     @Override
     public TodoistApiResultArray<TodoistProject> getProjects()
     {
-        String url = apiUrl("getProjects", null, true, false);
+        TodoistHttpRequest request = apiRequest("getProjects", null, true, false);
 
-        return new TodoistApiResultArray<TodoistProject>(
-                track(HttpUtils.getJsonAsArrayOf(url, TodoistProject.class), "getProjects"));
+        return getArray(request, TodoistProject.class, "getProjects");
     }
 
     @Override
@@ -242,10 +596,9 @@ public final class TodoistApi
         HashMap<String, String> args = new HashMap<String, String>();
         args.put("project_id", String.valueOf(projectId));
 
-        String url = apiUrl("getProject", args, true, false);
+        TodoistHttpRequest request = apiRequest("getProject", args, true, false);
 
-        return new TodoistApiResultObject<TodoistProject>(
-                track(HttpUtils.getJsonAsObjectOf(url, TodoistProject.class), "getProject"));
+        return getObject(request, TodoistProject.class, "getProject");
     }
 
     @Override
@@ -261,10 +614,9 @@ public final class TodoistApi
         args.put("indent", String.valueOf(indent));
         args.put("order", String.valueOf(order));
 
-        String url = apiUrl("addProject", args, true, false);
+        TodoistHttpRequest request = apiRequest("addProject", args, true, false);
 
-        return new TodoistApiResultObject<TodoistProject>(
-                track(HttpUtils.getJsonAsObjectOf(url, TodoistProject.class), "addProject"));
+        return getObject(request, TodoistProject.class, "addProject");
     }
 
     @Override
@@ -292,10 +644,9 @@ public final class TodoistApi
             args.put("indent", String.valueOf(indent));
         }
 
-        String url = apiUrl("updateProject", args, true, false);
+        TodoistHttpRequest request = apiRequest("updateProject", args, true, false);
 
-        return new TodoistApiResultObject<TodoistProject>(
-                track(HttpUtils.getJsonAsObjectOf(url, TodoistProject.class), "updateProject"));
+        return getObject(request, TodoistProject.class, "updateProject");
     }
 
     @Override
@@ -306,9 +657,9 @@ public final class TodoistApi
         HashMap<String, String> args = new HashMap<String, String>();
         args.put("item_id_list", jsonArray.toString());
 
-        String url = apiUrl("updateProjectOrders", args, true, false);
+        TodoistHttpRequest request = apiRequest("updateProjectOrders", args, true, false);
 
-        return new TodoistApiResultSimple(track(HttpUtils.getJson(url), "updateProjectOrders"));
+        return getSimple(request, "updateProjectOrders");
     }
 
     @Override
@@ -317,9 +668,9 @@ public final class TodoistApi
         HashMap<String, String> args = new HashMap<String, String>();
         args.put("project_id", String.valueOf(projectId));
 
-        String url = apiUrl("deleteProject", args, true, false);
+        TodoistHttpRequest request = apiRequest("deleteProject", args, true, false);
 
-        return new TodoistApiResultSimple(track(HttpUtils.getJson(url), "deleteProject"));
+        return getSimple(request, "deleteProject");
     }
 
     @Override
@@ -328,10 +679,9 @@ public final class TodoistApi
         HashMap<String, String> args = new HashMap<String, String>();
         args.put("project_id", String.valueOf(projectId));
 
-        String url = apiUrl("getUncompletedItems", args, true, false);
+        TodoistHttpRequest request = apiRequest("getUncompletedItems", args, true, false);
 
-        return new TodoistApiResultArray<TodoistItem>(
-                track(HttpUtils.getJsonAsArrayOf(url, TodoistItem.class), "getUncompletedItems"));
+        return getArray(request, TodoistItem.class, "getUncompletedItems");
     }
 
     @Override
@@ -340,24 +690,27 @@ public final class TodoistApi
         HashMap<String, String> args = new HashMap<String, String>();
         args.put("project_id", String.valueOf(projectId));
 
-        String url = apiUrl("getCompletedItems", args, true, false);
+        TodoistHttpRequest request = apiRequest("getCompletedItems", args, true, false);
 
-        return new TodoistApiResultArray<TodoistItem>(
-                track(HttpUtils.getJsonAsArrayOf(url, TodoistItem.class), "getCompletedItems"));
+        return getArray(request, TodoistItem.class, "getCompletedItems");
     }
 
     @Override
     public TodoistApiResultArray<TodoistItem> getItemsById(final ArrayList<Long> items)
     {
-        JSONArray jsonArray = JsonUtils.convertLongArrayToJsonArray(items);
-
-        HashMap<String, String> args = new HashMap<String, String>();
-        args.put("ids", jsonArray.toString());
+        return mergeArrays(callInChunks(items, new IChunkCall<TodoistApiResultArray<TodoistItem>>()
+        {
+            @Override
+            public TodoistApiResultArray<TodoistItem> call(final ArrayList<Long> ids)
+            {
+                HashMap<String, String> args = new HashMap<String, String>();
+                args.put("ids", JsonUtils.convertLongArrayToJsonArray(ids).toString());
 
-        String url = apiUrl("getItemsById", args, true, false);
+                TodoistHttpRequest request = apiRequest("getItemsById", args, true, false);
 
-        return new TodoistApiResultArray<TodoistItem>(
-                track(HttpUtils.getJsonAsArrayOf(url, TodoistItem.class), "getItemsById"));
+                return getArray(request, TodoistItem.class, "getItemsById");
+            }
+        }));
     }
 
     @Override
@@ -378,10 +731,9 @@ public final class TodoistApi
 
         args.put("priority", String.valueOf(priority));
 
-        String url = apiUrl("addItem", args, true, false);
+        TodoistHttpRequest request = apiRequest("addItem", args, true, false);
 
-        return new TodoistApiResultObject<TodoistItem>(
-                track(HttpUtils.getJsonAsObjectOf(url, TodoistItem.class), "addItem"));
+        return getObject(request, TodoistItem.class, "addItem");
     }
 
     @Override
@@ -422,10 +774,9 @@ public final class TodoistApi
             args.put("item_order", String.valueOf(itemOrder));
         }
 
-        String url = apiUrl("updateItem", args, true, false);
+        TodoistHttpRequest request = apiRequest("updateItem", args, true, false);
 
-        return new TodoistApiResultObject<TodoistItem>(
-                track(HttpUtils.getJsonAsObjectOf(url, TodoistItem.class), "updateItem"));
+        return getObject(request, TodoistItem.class, "updateItem");
     }
 
     @Override
@@ -439,63 +790,82 @@ public final class TodoistApi
         args.put("project_id", String.valueOf(projectId));
         args.put("item_id_list", jsonArray.toString());
 
-        String url = apiUrl("updateOrders", args, true, false);
+        TodoistHttpRequest request = apiRequest("updateOrders", args, true, false);
 
-        return new TodoistApiResultSimple(track(HttpUtils.getJson(url), "updateOrders"));
+        return getSimple(request, "updateOrders");
     }
 
     @Override
     public TodoistApiResultArray<TodoistItem> updateRecurringDate(final ArrayList<Long> items)
     {
-        JSONArray jsonArray = JsonUtils.convertLongArrayToJsonArray(items);
-
-        HashMap<String, String> args = new HashMap<String, String>();
-        args.put("ids", jsonArray.toString());
+        return mergeArrays(callInChunks(items, new IChunkCall<TodoistApiResultArray<TodoistItem>>()
+        {
+            @Override
+            public TodoistApiResultArray<TodoistItem> call(final ArrayList<Long> ids)
+            {
+                HashMap<String, String> args = new HashMap<String, String>();
+                args.put("ids", JsonUtils.convertLongArrayToJsonArray(ids).toString());
 
-        String url = apiUrl("updateRecurringDate", args, true, false);
+                TodoistHttpRequest request = apiRequest("updateRecurringDate", args, true, false);
 
-        return new TodoistApiResultArray<TodoistItem>(
-                track(HttpUtils.getJsonAsArrayOf(url, TodoistItem.class), "updateRecurringDate"));
+                return getArray(request, TodoistItem.class, "updateRecurringDate");
+            }
+        }));
     }
 
     @Override
     public TodoistApiResultSimple deleteItems(final ArrayList<Long> items)
     {
-        JSONArray jsonArray = JsonUtils.convertLongArrayToJsonArray(items);
-
-        HashMap<String, String> args = new HashMap<String, String>();
-        args.put("ids", jsonArray.toString());
+        return mergeSimple(callInChunks(items, new IChunkCall<TodoistApiResultSimple>()
+        {
+            @Override
+            public TodoistApiResultSimple call(final ArrayList<Long> ids)
+            {
+                HashMap<String, String> args = new HashMap<String, String>();
+                args.put("ids", JsonUtils.convertLongArrayToJsonArray(ids).toString());
 
-        String url = apiUrl("deleteItems", args, true, false);
+                TodoistHttpRequest request = apiRequest("deleteItems", args, true, false);
 
-        return new TodoistApiResultSimple(track(HttpUtils.getJson(url), "deleteItems"));
+                return getSimple(request, "deleteItems");
+            }
+        }));
     }
 
     @Override
     public TodoistApiResultSimple completeItems(final ArrayList<Long> items, final boolean inHistory)
     {
-        JSONArray jsonArray = JsonUtils.convertLongArrayToJsonArray(items);
-
-        HashMap<String, String> args = new HashMap<String, String>();
-        args.put("ids", jsonArray.toString());
-        args.put("in_history", inHistory ? String.valueOf(1) : String.valueOf(0));
+        return mergeSimple(callInChunks(items, new IChunkCall<TodoistApiResultSimple>()
+        {
+            @Override
+            public TodoistApiResultSimple call(final ArrayList<Long> ids)
+            {
+                HashMap<String, String> args = new HashMap<String, String>();
+                args.put("ids", JsonUtils.convertLongArrayToJsonArray(ids).toString());
+                args.put("in_history", inHistory ? String.valueOf(1) : String.valueOf(0));
 
-        String url = apiUrl("completeItems", args, true, false);
+                TodoistHttpRequest request = apiRequest("completeItems", args, true, false);
 
-        return new TodoistApiResultSimple(track(HttpUtils.getJson(url), "completeItems"));
+                return getSimple(request, "completeItems");
+            }
+        }));
     }
 
     @Override
     public TodoistApiResultSimple uncompleteItems(final ArrayList<Long> items)
     {
-        JSONArray jsonArray = JsonUtils.convertLongArrayToJsonArray(items);
-
-        HashMap<String, String> args = new HashMap<String, String>();
-        args.put("ids", jsonArray.toString());
+        return mergeSimple(callInChunks(items, new IChunkCall<TodoistApiResultSimple>()
+        {
+            @Override
+            public TodoistApiResultSimple call(final ArrayList<Long> ids)
+            {
+                HashMap<String, String> args = new HashMap<String, String>();
+                args.put("ids", JsonUtils.convertLongArrayToJsonArray(ids).toString());
 
-        String url = apiUrl("uncompleteItems", args, true, false);
+                TodoistHttpRequest request = apiRequest("uncompleteItems", args, true, false);
 
-        return new TodoistApiResultSimple(track(HttpUtils.getJson(url), "uncompleteItems"));
+                return getSimple(request, "uncompleteItems");
+            }
+        }));
     }
 
     @Override
@@ -505,30 +875,26 @@ public final class TodoistApi
 
         args.put("queries", JsonUtils.convertStringArrayToJsonArray(queries).toString());
 
-        String url = apiUrl("query", args, true, false);
+        TodoistHttpRequest request = apiRequest("query", args, true, false);
 
-        return new TodoistApiResultArray<TodoistQueryResult>(
-                track(HttpUtils.getJsonAsArrayOf(url, TodoistQueryResult.class), "query"));
+        return getArray(request, TodoistQueryResult.class, "query");
     }
 
     @Override
     public TodoistApiResultArray<Long> queryCount(final ArrayList<String> queries)
     {
-        TodoistApiResultArray<TodoistQueryResult> results = query(queries);
+        HashMap<String, String> args = new HashMap<String, String>();
 
-        ArrayList<Long> counts = new ArrayList<Long>();
+        args.put("queries", JsonUtils.convertStringArrayToJsonArray(queries).toString());
 
-        // count each result
-        for (int i = 0; i < results.getArray().size(); i++)
-        {
-            Long queryCount = Long.valueOf(results.getArray().get(i).getTaskManager().getCount());
-            counts.add(queryCount);
-        }
+        TodoistHttpRequest request = apiRequest("query", args, true, false);
+
+        // the tasks are only counted, not decoded
+        QueryCountDecoder decoder = new QueryCountDecoder();
 
-        // convert to an API result
-        TodoistApiResultArray<Long> resultCounts = new TodoistApiResultArray<Long>(counts);
+        TodoistHttpResponse response = get(request, decoder, "query");
 
-        return resultCounts;
+        return checkApiResult(new TodoistApiResultArray<Long>(response, decoder.getCounts()), "query");
     }
 
     @Override
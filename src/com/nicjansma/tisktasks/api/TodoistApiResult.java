@@ -1,10 +1,9 @@
 package com.nicjansma.tisktasks.api;
 
-import com.nicjansma.library.net.HttpSimpleResponse;
-import com.nicjansma.library.net.JsonResult;
+import java.util.ArrayList;
 
 /**
- * Simple wrapper class for JsonResult, for other TodoistApi classes to inherit from.
+ * Simple wrapper class for an HTTP response, for other TodoistApi classes to inherit from.
  */
 public abstract class TodoistApiResult
 {
@@ -12,9 +11,14 @@ public abstract class TodoistApiResult
     // Privates
     //
     /**
-     * JSON result.
+     * HTTP response.
      */
-    private final JsonResult _json;
+    private final TodoistHttpResponse _response;
+
+    /**
+     * IDs a chunked call applied before one of its chunks failed.
+     */
+    private ArrayList<Long> _appliedIds = new ArrayList<Long>();
 
     //
     // Inheritance
@@ -29,43 +33,43 @@ public abstract class TodoistApiResult
     /**
      * Constructor.
      *
-     * @param json JSON result
+     * @param response HTTP response
      */
-    public TodoistApiResult(final JsonResult json)
+    public TodoistApiResult(final TodoistHttpResponse response)
     {
-        _json = json;
+        _response = response;
     }
 
     /**
-     * Gets the JSON result.
+     * Gets the HTTP response.
      *
-     * @return JSON result
+     * @return HTTP response
      */
-    public final JsonResult getJson()
+    public final TodoistHttpResponse getResponse()
     {
-        return _json;
+        return _response;
     }
 
     /**
-     * Determines if the JSON result was successful.
+     * Determines if the HTTP response was successful.
      *
-     * @return True if the JSON result is successful
+     * @return True if the HTTP response is successful
      */
     public final Boolean successful()
     {
-        return _json != null && _json.successful() && successfulInternal();
+        return _response != null && _response.successful() && successfulInternal();
     }
 
     /**
-     * Gets the error string if the JSON result was not successful.
+     * Gets the error string if the HTTP response was not successful.
      *
-     * @return The error string if the JSON result was not successful, the empty string otherwise
+     * @return The error string if the HTTP response was not successful, the empty string otherwise
      */
     public final String getError()
     {
-        if (!successful())
+        if (!successful() && _response != null)
         {
-            return _json.getJsonString();
+            return _response.getBody();
         }
 
         // no error
@@ -79,19 +83,50 @@ public abstract class TodoistApiResult
      */
     public final boolean hadConnectionFailure()
     {
-        if (_json != null)
-        {
-            // grab the HTTP response object
-            HttpSimpleResponse response = _json.getHttpResponse();
-            if (response != null)
-            {
-                if (response.getHttpCode() == 0)
-                {
-                    return true;
-                }
-            }
-        }
+        return _response != null
+               && (_response.getHttpCode() == TodoistHttpResponse.CONNECTION_FAILURE || wasNotSent());
+    }
 
-        return false;
+    /**
+     * Determines if the API call never left the device, so it's safe to send again.
+     *
+     * @return True if the call wasn't sent
+     */
+    public final boolean wasNotSent()
+    {
+        return _response != null && _response.getHttpCode() == TodoistHttpResponse.NOT_SENT;
+    }
+
+    /**
+     * Gets the IDs a failed call applied anyway.
+     *
+     * Long ID lists are sent in chunks, one after another, and sending stops at the first failed chunk, so the
+     * earlier chunks' IDs are already applied on the server even though the call failed.
+     *
+     * @return IDs that were applied (empty if the call succeeded, or failed before applying anything)
+     */
+    public final ArrayList<Long> getAppliedIds()
+    {
+        return _appliedIds;
+    }
+
+    /**
+     * Determines if a failed call was partly applied, so local state no longer matches the server.
+     *
+     * @return True if some of the call's IDs were applied
+     */
+    public final boolean wasPartlyApplied()
+    {
+        return !successful() && !_appliedIds.isEmpty();
+    }
+
+    /**
+     * Sets the IDs a failed call applied anyway.
+     *
+     * @param appliedIds IDs that were applied
+     */
+    final void setAppliedIds(final ArrayList<Long> appliedIds)
+    {
+        _appliedIds = appliedIds;
     }
 }
@@ -21,15 +21,20 @@ public final class TodoistApiResultArray<T>
     private final JsonResultArray<T> _array;
 
     /**
-     * Constructor taking a JsonResultArray.
+     * Constructor taking an HTTP response.
      *
-     * @param json JSON result array
+     * @param response HTTP response
+     * @param array Array decoded from the response, or null if it couldn't be decoded
      */
-    public TodoistApiResultArray(final JsonResultArray<T> json)
+    public TodoistApiResultArray(final TodoistHttpResponse response, final ArrayList<T> array)
     {
-        super(json);
+        super(response);
 
-        _array = json;
+        _array = (array != null) ? new JsonResultArray<T>() : null;
+        if (_array != null)
+        {
+            _array.setArray(array);
+        }
     }
 
     /**
@@ -62,7 +67,7 @@ public final class TodoistApiResultArray<T>
      */
     public ArrayList<T> getArray()
     {
-        return _array.getArray();
+        return (_array != null) ? _array.getArray() : null;
     }
 
     @Override
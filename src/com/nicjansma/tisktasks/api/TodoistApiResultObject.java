@@ -1,8 +1,5 @@
 package com.nicjansma.tisktasks.api;
 
-import com.nicjansma.library.net.JsonResultObject;
-
-
 /**
  * JSON result containing a single object.
  *
@@ -22,13 +19,14 @@ public final class TodoistApiResultObject<T>
     /**
      * Constructor.
      *
-     * @param json JSON result object
+     * @param response HTTP response
+     * @param obj Object decoded from the response, or null if it couldn't be decoded
      */
-    public TodoistApiResultObject(final JsonResultObject<T> json)
+    public TodoistApiResultObject(final TodoistHttpResponse response, final T obj)
     {
-        super(json);
+        super(response);
 
-        _obj = json.getObject();
+        _obj = obj;
     }
 
     @Override
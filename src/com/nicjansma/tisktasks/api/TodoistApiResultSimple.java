@@ -1,8 +1,5 @@
 package com.nicjansma.tisktasks.api;
 
-import com.nicjansma.library.net.JsonResult;
-
-
 /**
  * Simple Todoist API result (eg. 'OK')
  */
@@ -20,16 +17,16 @@ public final class TodoistApiResultSimple
     /**
      * Constructor.
      *
-     * @param json JSON result
+     * @param response HTTP response
      */
-    public TodoistApiResultSimple(final JsonResult json)
+    public TodoistApiResultSimple(final TodoistHttpResponse response)
     {
-        super(json);
+        super(response);
 
         // set the successful bit
-        _successful = getJson() != null
-                      && getJson().getJsonString() != null
-                      && getJson().getJsonString().equals("ok");
+        _successful = getResponse() != null
+                      && getResponse().getBody() != null
+                      && getResponse().getBody().equals("ok");
     }
 
     /**
@@ -0,0 +1,403 @@
+package com.nicjansma.tisktasks.api;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared, bounded executor for work that talks to Todoist.
+ *
+ * A fixed number of threads run requests in priority order (and in submission order within a priority).
+ * A request can belong to an owner, usually the activity that started a load, and cancelAll() cancels the
+ * owner's queued requests and interrupts its running ones, so nothing finishes against an activity that's
+ * gone.  Changes the user made should have no owner, so they always run to completion.  Results can be
+ * delivered to a callback, which runs on the main thread by default.
+ */
+public final class TodoistExecutor
+{
+    //
+    // Constants
+    //
+    /**
+     * Class tag (for debugging).
+     */
+    private static final String TAG = TodoistExecutor.class.getSimpleName();
+
+    /**
+     * Default number of threads.
+     */
+    public static final int DEFAULT_THREADS = 4;
+
+    /**
+     * Request priority.
+     */
+    public enum Priority
+    {
+        /**
+         * A change or action the user is waiting on.
+         */
+        USER,
+
+        /**
+         * Loading what the user is looking at.
+         */
+        LOAD,
+
+        /**
+         * Work nobody's waiting on.
+         */
+        BACKGROUND
+    }
+
+    //
+    // Privates
+    //
+    /**
+     * Thread pool.
+     */
+    private final ThreadPoolExecutor _executor;
+
+    /**
+     * Runs result callbacks.
+     */
+    private final Executor _callbackExecutor;
+
+    /**
+     * Unfinished requests, by owner.
+     */
+    private final HashMap<Object, ArrayList<Request<?>>> _requests = new HashMap<Object, ArrayList<Request<?>>>();
+
+    /**
+     * Next request sequence number.
+     */
+    private final AtomicLong _sequence = new AtomicLong();
+
+    /**
+     * A prioritized, owned request.
+     *
+     * @param <R> Result type
+     */
+    private final class Request<R>
+        extends FutureTask<R>
+        implements Comparable<Request<?>>
+    {
+        /**
+         * Owner.
+         */
+        private final Object _owner;
+
+        /**
+         * Priority.
+         */
+        private final Priority _priority;
+
+        /**
+         * Sequence number.
+         */
+        private final long _order;
+
+        /**
+         * Result callback, or null.
+         */
+        private final ITodoistApiCallback<R> _callback;
+
+        /**
+         * Whether or not the owner cancelled the request, even after it finished.
+         */
+        private volatile boolean _cancelled;
+
+        /**
+         * Constructor.
+         *
+         * @param owner Owner
+         * @param priority Priority
+         * @param work Work
+         * @param callback Result callback, or null
+         */
+        public Request(final Object owner,
+                       final Priority priority,
+                       final Callable<R> work,
+                       final ITodoistApiCallback<R> callback)
+        {
+            super(work);
+
+            _owner = owner;
+            _priority = priority;
+            _order = _sequence.getAndIncrement();
+            _callback = callback;
+        }
+
+        /**
+         * Cancels the request, interrupting it if it's running, and drops its callback.
+         */
+        public void cancelRequest()
+        {
+            _cancelled = true;
+            cancel(true);
+        }
+
+        @Override
+        public int compareTo(final Request<?> other)
+        {
+            if (_priority != other._priority)
+            {
+                return _priority.compareTo(other._priority);
+            }
+
+            return (_order < other._order) ? -1 : ((_order == other._order) ? 0 : 1);
+        }
+
+        @Override
+        protected void set(final R result)
+        {
+            // forget the request before anyone waiting on it sees it's done
+            finished(this);
+            super.set(result);
+        }
+
+        @Override
+        protected void setException(final Throwable t)
+        {
+            finished(this);
+            super.setException(t);
+        }
+
+        @Override
+        protected void done()
+        {
+            if (isCancelled())
+            {
+                return;
+            }
+
+            final R result;
+            try
+            {
+                result = get();
+            }
+            catch (final Exception e)
+            {
+                // the work failed, and has nothing to deliver
+                Log.w(TAG, "Request failed", e);
+                return;
+            }
+
+            if (_callback == null)
+            {
+                return;
+            }
+
+            _callbackExecutor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if (!_cancelled)
+                    {
+                        _callback.onResult(result);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Constructor, with the default number of threads and callbacks on the main thread.
+     */
+    public TodoistExecutor()
+    {
+        this(DEFAULT_THREADS, new Executor()
+        {
+            /**
+             * Main thread handler.
+             */
+            private final Handler _handler = new Handler(Looper.getMainLooper());
+
+            @Override
+            public void execute(final Runnable command)
+            {
+                _handler.post(command);
+            }
+        });
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threads Number of threads
+     * @param callbackExecutor Runs result callbacks
+     */
+    public TodoistExecutor(final int threads, final Executor callbackExecutor)
+    {
+        _callbackExecutor = callbackExecutor;
+
+        _executor = new ThreadPoolExecutor(threads,
+                                           threads,
+                                           0,
+                                           TimeUnit.MILLISECONDS,
+                                           new PriorityBlockingQueue<Runnable>(),
+                                           new ThreadFactory()
+                                           {
+                                               /**
+                                                * Next thread number.
+                                                */
+                                               private final AtomicLong _threadNumber = new AtomicLong();
+
+                                               @Override
+                                               public Thread newThread(final Runnable r)
+                                               {
+                                                   Thread thread = new Thread(r, "Todoist #"
+                                                                                 + _threadNumber.incrementAndGet());
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                               }
+                                           });
+    }
+
+    /**
+     * Submits work.
+     *
+     * @param <R> Result type
+     * @param owner Owner that can cancel the work, or null if only the executor's shutdown can
+     * @param priority Priority
+     * @param work Work
+     * @param callback Called with the result unless the work fails or is cancelled, or null
+     *
+     * @return Future result
+     */
+    public <R> FutureTask<R> submit(final Object owner,
+                                    final Priority priority,
+                                    final Callable<R> work,
+                                    final ITodoistApiCallback<R> callback)
+    {
+        Request<R> request = new Request<R>(owner, priority, work, callback);
+
+        if (owner != null)
+        {
+            synchronized (_requests)
+            {
+                ArrayList<Request<?>> requests = _requests.get(owner);
+                if (requests == null)
+                {
+                    requests = new ArrayList<Request<?>>();
+                    _requests.put(owner, requests);
+                }
+
+                requests.add(request);
+            }
+        }
+
+        _executor.execute(request);
+
+        return request;
+    }
+
+    /**
+     * Submits work that has no result.
+     *
+     * @param owner Owner that can cancel the work, or null if only the executor's shutdown can
+     * @param priority Priority
+     * @param work Work
+     *
+     * @return Future completion
+     */
+    public FutureTask<Void> submit(final Object owner, final Priority priority, final Runnable work)
+    {
+        return submit(owner, priority, new Callable<Void>()
+        {
+            @Override
+            public Void call()
+            {
+                work.run();
+                return null;
+            }
+        }, null);
+    }
+
+    /**
+     * Forgets a finished request.
+     *
+     * @param request Request
+     */
+    private void finished(final Request<?> request)
+    {
+        if (request._owner == null)
+        {
+            return;
+        }
+
+        synchronized (_requests)
+        {
+            ArrayList<Request<?>> requests = _requests.get(request._owner);
+            if (requests != null)
+            {
+                requests.remove(request);
+                if (requests.isEmpty())
+                {
+                    _requests.remove(request._owner);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels an owner's requests: queued ones never run, running ones are interrupted, and none of their
+     * callbacks are called.
+     *
+     * @param owner Owner
+     */
+    public void cancelAll(final Object owner)
+    {
+        ArrayList<Request<?>> requests;
+        synchronized (_requests)
+        {
+            requests = _requests.remove(owner);
+        }
+
+        if (requests == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i < requests.size(); i++)
+        {
+            requests.get(i).cancelRequest();
+            _executor.remove(requests.get(i));
+        }
+    }
+
+    /**
+     * Gets the number of an owner's unfinished requests.
+     *
+     * @param owner Owner
+     *
+     * @return Number of queued or running requests
+     */
+    public int getPendingCount(final Object owner)
+    {
+        synchronized (_requests)
+        {
+            ArrayList<Request<?>> requests = _requests.get(owner);
+            return (requests == null) ? 0 : requests.size();
+        }
+    }
+
+    /**
+     * Stops the executor, interrupting running work.  Queued work never runs.
+     */
+    public void shutdown()
+    {
+        _executor.shutdownNow();
+    }
+}
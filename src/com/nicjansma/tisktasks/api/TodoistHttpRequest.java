@@ -0,0 +1,92 @@
+package com.nicjansma.tisktasks.api;
+
+/**
+ * HTTP request for an IHttpTransport: a URL to get, or a URL and a form to post to it.
+ */
+public final class TodoistHttpRequest
+{
+    //
+    // Privates
+    //
+    /**
+     * URL.
+     */
+    private final String _url;
+
+    /**
+     * Form body, or null to get the URL.
+     */
+    private final String _form;
+
+    /**
+     * When the call started, before its URL was built (System.nanoTime()).
+     */
+    private final long _startNanos;
+
+    /**
+     * Constructor.
+     *
+     * @param url URL
+     * @param form Form body, application/x-www-form-urlencoded, or null to get the URL
+     * @param startNanos When the call started, before its URL was built (System.nanoTime())
+     */
+    public TodoistHttpRequest(final String url, final String form, final long startNanos)
+    {
+        _url = url;
+        _form = form;
+        _startNanos = startNanos;
+    }
+
+    /**
+     * Gets the URL.
+     *
+     * @return URL
+     */
+    public String getUrl()
+    {
+        return _url;
+    }
+
+    /**
+     * Gets the form body.
+     *
+     * @return Form body, or null if the URL is fetched with a GET
+     */
+    public String getForm()
+    {
+        return _form;
+    }
+
+    /**
+     * Gets when the call started.
+     *
+     * @return When the call started, before its URL was built (System.nanoTime())
+     */
+    public long getStartNanos()
+    {
+        return _startNanos;
+    }
+
+    /**
+     * Determines whether or not the request is a POST.
+     *
+     * @return True if there's a form to post
+     */
+    public boolean isPost()
+    {
+        return _form != null;
+    }
+
+    /**
+     * Makes the request.
+     *
+     * @param transport Transport
+     * @param decoder Decoder of a successful response's body
+     *
+     * @return Response
+     */
+    public TodoistHttpResponse send(final IHttpTransport transport, final IResponseDecoder decoder)
+    {
+        return isPost() ? transport.post(_url, _form, decoder) : transport.get(_url, decoder);
+    }
+}
@@ -0,0 +1,89 @@
+package com.nicjansma.tisktasks.api;
+
+import java.net.HttpURLConnection;
+
+/**
+ * HTTP response from an IHttpTransport.
+ */
+public final class TodoistHttpResponse
+{
+    //
+    // Constants
+    //
+    /**
+     * HTTP code of a request that never got a response.  It may have reached the server.
+     */
+    public static final int CONNECTION_FAILURE = 0;
+
+    /**
+     * HTTP code of a request that never left the device (eg. it couldn't connect), so it can be sent again.
+     */
+    public static final int NOT_SENT = -1;
+
+    //
+    // Privates
+    //
+    /**
+     * HTTP code.
+     */
+    private final int _httpCode;
+
+    /**
+     * Response body.
+     */
+    private final String _body;
+
+    /**
+     * Constructor.
+     *
+     * @param httpCode HTTP code, CONNECTION_FAILURE or NOT_SENT
+     * @param body Response body
+     */
+    public TodoistHttpResponse(final int httpCode, final String body)
+    {
+        _httpCode = httpCode;
+        _body = body;
+    }
+
+    /**
+     * Gets the HTTP code.
+     *
+     * @return HTTP code, CONNECTION_FAILURE or NOT_SENT
+     */
+    public int getHttpCode()
+    {
+        return _httpCode;
+    }
+
+    /**
+     * Gets the response body.
+     *
+     * @return Response body
+     */
+    public String getBody()
+    {
+        return _body;
+    }
+
+    /**
+     * Determines if the request got a 2xx response.
+     *
+     * @return True if the request was successful
+     */
+    public boolean successful()
+    {
+        return isSuccessful(_httpCode);
+    }
+
+    /**
+     * Determines if an HTTP code is a 2xx code.
+     *
+     * @param httpCode HTTP code
+     *
+     * @return True if the code is successful
+     */
+    public static boolean isSuccessful(final int httpCode)
+    {
+        return httpCode >= HttpURLConnection.HTTP_OK && httpCode < HttpURLConnection.HTTP_MULT_CHOICE;
+    }
+}
@@ -0,0 +1,1012 @@
+package com.nicjansma.tisktasks.api;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A Todoist API call that changes something, as kept in the mutation journal.
+ *
+ * Projects and tasks added while offline get a temporary (negative) ID, which later mutations refer to them
+ * by until the add is sent and remap() swaps in the real ID.
+ */
+public final class TodoistMutation
+{
+    /**
+     * Kinds of mutations.
+     */
+    public enum Kind
+    {
+        /**
+         * addProject().
+         */
+        ADD_PROJECT,
+
+        /**
+         * updateProject().
+         */
+        UPDATE_PROJECT,
+
+        /**
+         * updateProjectOrders().
+         */
+        UPDATE_PROJECT_ORDERS,
+
+        /**
+         * deleteProject().
+         */
+        DELETE_PROJECT,
+
+        /**
+         * addItem().
+         */
+        ADD_ITEM,
+
+        /**
+         * updateItem().
+         */
+        UPDATE_ITEM,
+
+        /**
+         * updateOrders().
+         */
+        UPDATE_ORDERS,
+
+        /**
+         * updateRecurringDate().
+         */
+        UPDATE_RECURRING_DATE,
+
+        /**
+         * deleteItems().
+         */
+        DELETE_ITEMS,
+
+        /**
+         * completeItems().
+         */
+        COMPLETE_ITEMS,
+
+        /**
+         * uncompleteItems().
+         */
+        UNCOMPLETE_ITEMS
+    }
+
+    //
+    // Privates
+    //
+    /**
+     * Kind of mutation.
+     */
+    private final Kind _kind;
+
+    /**
+     * Project or task ID: the temporary ID of an add, or the ID of the object updated or deleted.
+     */
+    private long _id;
+
+    /**
+     * Project ID, of a task add or task order update.
+     */
+    private long _projectId;
+
+    /**
+     * Task or project IDs, in order.
+     */
+    private ArrayList<Long> _ids;
+
+    /**
+     * Whether or not completed tasks move to history.
+     */
+    private boolean _inHistory;
+
+    /**
+     * Project name or task content.
+     */
+    private String _text;
+
+    /**
+     * Due date string.
+     */
+    private String _dateString;
+
+    /**
+     * Project color index.
+     */
+    private Integer _color;
+
+    /**
+     * Task priority.
+     */
+    private Integer _priority;
+
+    /**
+     * Indent.
+     */
+    private Integer _indent;
+
+    /**
+     * Project or task order.
+     */
+    private Integer _order;
+
+    /**
+     * Task collapsed (1) or not (0).
+     */
+    private Integer _collapsed;
+
+    /**
+     * Constructor.
+     *
+     * @param kind Kind of mutation
+     */
+    private TodoistMutation(final Kind kind)
+    {
+        _kind = kind;
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param other Mutation to copy
+     */
+    private TodoistMutation(final TodoistMutation other)
+    {
+        _kind = other._kind;
+        _id = other._id;
+        _projectId = other._projectId;
+        _ids = (other._ids != null) ? new ArrayList<Long>(other._ids) : null;
+        _inHistory = other._inHistory;
+        _text = other._text;
+        _dateString = other._dateString;
+        _color = other._color;
+        _priority = other._priority;
+        _indent = other._indent;
+        _order = other._order;
+        _collapsed = other._collapsed;
+    }
+
+    /**
+     * Creates a mutation of a list of IDs.
+     *
+     * @param kind Kind of mutation
+     * @param ids IDs
+     *
+     * @return Mutation
+     */
+    private static TodoistMutation ofIds(final Kind kind, final ArrayList<Long> ids)
+    {
+        TodoistMutation mutation = new TodoistMutation(kind);
+        mutation._ids = new ArrayList<Long>(ids);
+
+        return mutation;
+    }
+
+    //
+    // Mutations
+    //
+    /**
+     * Adds a project.
+     *
+     * @param tempId Temporary project ID
+     * @param name Project name
+     * @param color Color index
+     * @param indent Project indent
+     * @param order Project order
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation addProject(
+        final long tempId,
+        final String name,
+        final int color,
+        final int indent,
+        final int order)
+    {
+        TodoistMutation mutation = new TodoistMutation(Kind.ADD_PROJECT);
+        mutation._id = tempId;
+        mutation._text = name;
+        mutation._color = color;
+        mutation._indent = indent;
+        mutation._order = order;
+
+        return mutation;
+    }
+
+    /**
+     * Updates a project.
+     *
+     * @param projectId Project ID
+     * @param name Project name, or null to leave it
+     * @param color Color index, or null to leave it
+     * @param indent Project indent, or null to leave it
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation updateProject(
+        final long projectId,
+        final String name,
+        final Integer color,
+        final Integer indent)
+    {
+        TodoistMutation mutation = new TodoistMutation(Kind.UPDATE_PROJECT);
+        mutation._id = projectId;
+        mutation._text = name;
+        mutation._color = color;
+        mutation._indent = indent;
+
+        return mutation;
+    }
+
+    /**
+     * Updates project orders.
+     *
+     * @param orders Project IDs, in order
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation updateProjectOrders(final ArrayList<Long> orders)
+    {
+        return ofIds(Kind.UPDATE_PROJECT_ORDERS, orders);
+    }
+
+    /**
+     * Deletes a project.
+     *
+     * @param projectId Project ID
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation deleteProject(final long projectId)
+    {
+        TodoistMutation mutation = new TodoistMutation(Kind.DELETE_PROJECT);
+        mutation._id = projectId;
+
+        return mutation;
+    }
+
+    /**
+     * Adds a task.
+     *
+     * @param tempId Temporary task ID
+     * @param projectId Project ID
+     * @param content Content
+     * @param dateString Due date string
+     * @param priority Priority
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation addItem(
+        final long tempId,
+        final long projectId,
+        final String content,
+        final String dateString,
+        final int priority)
+    {
+        TodoistMutation mutation = new TodoistMutation(Kind.ADD_ITEM);
+        mutation._id = tempId;
+        mutation._projectId = projectId;
+        mutation._text = content;
+        mutation._dateString = dateString;
+        mutation._priority = priority;
+
+        return mutation;
+    }
+
+    /**
+     * Updates a task.
+     *
+     * @param itemId Task ID
+     * @param content Content, or null to leave it
+     * @param dateString Due date string, or null to leave it
+     * @param priority Priority, or null to leave it
+     * @param indent Indent, or null to leave it
+     * @param itemOrder Order, or null to leave it
+     * @param collapsed Collapsed (1) or not (0), or null to leave it
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation updateItem(
+        final long itemId,
+        final String content,
+        final String dateString,
+        final Integer priority,
+        final Integer indent,
+        final Integer itemOrder,
+        final Integer collapsed)
+    {
+        TodoistMutation mutation = new TodoistMutation(Kind.UPDATE_ITEM);
+        mutation._id = itemId;
+        mutation._text = content;
+        mutation._dateString = dateString;
+        mutation._priority = priority;
+        mutation._indent = indent;
+        mutation._order = itemOrder;
+        mutation._collapsed = collapsed;
+
+        return mutation;
+    }
+
+    /**
+     * Updates the task orders of a project.
+     *
+     * @param projectId Project ID
+     * @param orders Task IDs, in order
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation updateOrders(final long projectId, final ArrayList<Long> orders)
+    {
+        TodoistMutation mutation = ofIds(Kind.UPDATE_ORDERS, orders);
+        mutation._projectId = projectId;
+
+        return mutation;
+    }
+
+    /**
+     * Moves recurring tasks to their next due date.
+     *
+     * @param items Task IDs
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation updateRecurringDate(final ArrayList<Long> items)
+    {
+        return ofIds(Kind.UPDATE_RECURRING_DATE, items);
+    }
+
+    /**
+     * Deletes tasks.
+     *
+     * @param items Task IDs
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation deleteItems(final ArrayList<Long> items)
+    {
+        return ofIds(Kind.DELETE_ITEMS, items);
+    }
+
+    /**
+     * Completes tasks.
+     *
+     * @param items Task IDs
+     * @param inHistory Move the tasks to history
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation completeItems(final ArrayList<Long> items, final boolean inHistory)
+    {
+        TodoistMutation mutation = ofIds(Kind.COMPLETE_ITEMS, items);
+        mutation._inHistory = inHistory;
+
+        return mutation;
+    }
+
+    /**
+     * Un-completes tasks.
+     *
+     * @param items Task IDs
+     *
+     * @return Mutation
+     */
+    public static TodoistMutation uncompleteItems(final ArrayList<Long> items)
+    {
+        return ofIds(Kind.UNCOMPLETE_ITEMS, items);
+    }
+
+    //
+    // Accessors
+    //
+    /**
+     * Gets the kind of mutation.
+     *
+     * @return Kind of mutation
+     */
+    public Kind getKind()
+    {
+        return _kind;
+    }
+
+    /**
+     * Gets the temporary ID of an added project or task.
+     *
+     * @return Temporary ID, or 0 if this isn't an add
+     */
+    public long getTempId()
+    {
+        return (_kind == Kind.ADD_PROJECT || _kind == Kind.ADD_ITEM) ? _id : 0;
+    }
+
+    /**
+     * Gets the project or task ID this updates or deletes.
+     *
+     * @return ID, or 0 if this isn't a project or task update or delete
+     */
+    public long getObjectId()
+    {
+        return (getTempId() == 0) ? _id : 0;
+    }
+
+    /**
+     * Gets the project ID of a task add or task order update.
+     *
+     * @return Project ID, or 0
+     */
+    public long getProjectId()
+    {
+        return _projectId;
+    }
+
+    /**
+     * Gets the IDs of a mutation of a list of IDs.
+     *
+     * @return IDs, or null if this isn't a mutation of a list of IDs
+     */
+    public ArrayList<Long> getIds()
+    {
+        return _ids;
+    }
+
+    /**
+     * Gets the project name or task content.
+     *
+     * @return Project name or task content, or null
+     */
+    public String getText()
+    {
+        return _text;
+    }
+
+    /**
+     * Gets the due date string.
+     *
+     * @return Due date string, or null
+     */
+    public String getDateString()
+    {
+        return _dateString;
+    }
+
+    /**
+     * Gets the project color index.
+     *
+     * @return Color index, or null
+     */
+    public Integer getColor()
+    {
+        return _color;
+    }
+
+    /**
+     * Gets the task priority.
+     *
+     * @return Priority, or null
+     */
+    public Integer getPriority()
+    {
+        return _priority;
+    }
+
+    /**
+     * Gets the indent.
+     *
+     * @return Indent, or null
+     */
+    public Integer getIndent()
+    {
+        return _indent;
+    }
+
+    /**
+     * Gets the project or task order.
+     *
+     * @return Order, or null
+     */
+    public Integer getOrder()
+    {
+        return _order;
+    }
+
+    /**
+     * Gets whether or not the task is collapsed.
+     *
+     * @return Collapsed (1) or not (0), or null
+     */
+    public Integer getCollapsed()
+    {
+        return _collapsed;
+    }
+
+    /**
+     * Determines whether or not this refers to a project or task, other than by adding it.
+     *
+     * @param id Project or task ID
+     *
+     * @return True if this refers to it
+     */
+    public boolean refersTo(final long id)
+    {
+        return getObjectId() == id
+               || ((_kind == Kind.ADD_ITEM || _kind == Kind.UPDATE_ORDERS) && _projectId == id)
+               || (_ids != null && _ids.contains(id));
+    }
+
+    /**
+     * Replaces the temporary ID of an added project or task with its real ID.
+     *
+     * @param tempId Temporary ID
+     * @param realId Real ID
+     *
+     * @return True if this referred to the temporary ID
+     */
+    public boolean remap(final long tempId, final long realId)
+    {
+        boolean changed = false;
+
+        if (getObjectId() == tempId)
+        {
+            _id = realId;
+            changed = true;
+        }
+
+        if (_projectId == tempId)
+        {
+            _projectId = realId;
+            changed = true;
+        }
+
+        if (_ids != null)
+        {
+            for (int i = 0; i < _ids.size(); i++)
+            {
+                if (_ids.get(i) == tempId)
+                {
+                    _ids.set(i, realId);
+                    changed = true;
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Determines whether or not sending this again has the same outcome as sending it once.
+     *
+     * Adds create another project or task, and recurring date updates move the due date again, so they're only
+     * sent again if they provably never reached Todoist.
+     *
+     * @return True if the mutation can be sent again
+     */
+    public boolean isIdempotent()
+    {
+        return _kind != Kind.ADD_PROJECT && _kind != Kind.ADD_ITEM && _kind != Kind.UPDATE_RECURRING_DATE;
+    }
+
+    //
+    // Sending
+    //
+    /**
+     * Sends the mutation.
+     *
+     * Temporary IDs still left are of adds that were never sent, so they're dropped from lists of IDs, and a
+     * mutation that needs one isn't sent at all.
+     *
+     * @param api Todoist API
+     *
+     * @return Result, or null if the mutation can't be sent
+     */
+    public TodoistApiResult send(final ITodoistApi api)
+    {
+        if (getObjectId() < 0 || _projectId < 0)
+        {
+            return null;
+        }
+
+        ArrayList<Long> ids = null;
+        if (_ids != null)
+        {
+            ids = new ArrayList<Long>();
+            for (int i = 0; i < _ids.size(); i++)
+            {
+                if (_ids.get(i) >= 0)
+                {
+                    ids.add(_ids.get(i));
+                }
+            }
+
+            if (ids.isEmpty())
+            {
+                return null;
+            }
+        }
+
+        switch (_kind)
+        {
+            case ADD_PROJECT:
+                return api.addProject(_text, _color, _indent, _order);
+            case UPDATE_PROJECT:
+                return api.updateProject(_id, _text, _color, _indent);
+            case UPDATE_PROJECT_ORDERS:
+                return api.updateProjectOrders(ids);
+            case DELETE_PROJECT:
+                return api.deleteProject(_id);
+            case ADD_ITEM:
+                return api.addItem(_projectId, _text, _dateString, _priority);
+            case UPDATE_ITEM:
+                return api.updateItem(_id, _text, _dateString, _priority, _indent, _order, _collapsed);
+            case UPDATE_ORDERS:
+                return api.updateOrders(_projectId, ids);
+            case UPDATE_RECURRING_DATE:
+                return api.updateRecurringDate(ids);
+            case DELETE_ITEMS:
+                return api.deleteItems(ids);
+            case COMPLETE_ITEMS:
+                return api.completeItems(ids, _inHistory);
+            default:
+                return api.uncompleteItems(ids);
+        }
+    }
+
+    //
+    // Compaction
+    //
+    /**
+     * Compacts a journal of mutations, so replaying it sends fewer calls with the same outcome.
+     *
+     * - Mutations of something deleted later are dropped, and so is the add and delete of something added
+     *   while offline.
+     * - Order updates are dropped if the same orders are updated again later.
+     * - Updates of the same project or task are merged into the last one, unless something else refers to it
+     *   in between.
+     * - Runs of completes, un-completes, recurring date updates or deletes are merged into one.
+     *
+     * @param mutations Mutations, in order
+     *
+     * @return Compacted mutations, in order (copies; the mutations given aren't changed)
+     */
+    public static ArrayList<TodoistMutation> compact(final List<TodoistMutation> mutations)
+    {
+        ArrayList<TodoistMutation> list = new ArrayList<TodoistMutation>();
+        for (int i = 0; i < mutations.size(); i++)
+        {
+            list.add(new TodoistMutation(mutations.get(i)));
+        }
+
+        dropDeleted(list);
+        dropSupersededOrders(list);
+        mergeUpdates(list);
+        mergeRuns(list);
+
+        ArrayList<TodoistMutation> compacted = new ArrayList<TodoistMutation>();
+        for (int i = 0; i < list.size(); i++)
+        {
+            if (list.get(i) != null)
+            {
+                compacted.add(list.get(i));
+            }
+        }
+
+        return compacted;
+    }
+
+    /**
+     * Drops mutations of projects and tasks that are deleted later.
+     *
+     * @param list Mutations (dropped ones are set to null)
+     */
+    private static void dropDeleted(final ArrayList<TodoistMutation> list)
+    {
+        for (int d = 0; d < list.size(); d++)
+        {
+            TodoistMutation delete = list.get(d);
+            if (delete == null)
+            {
+                continue;
+            }
+
+            if (delete._kind == Kind.DELETE_ITEMS)
+            {
+                for (int k = delete._ids.size() - 1; k >= 0; k--)
+                {
+                    if (dropBefore(list, d, delete._ids.get(k), Kind.ADD_ITEM, Kind.UPDATE_ITEM))
+                    {
+                        // added while offline, so there's nothing to delete
+                        delete._ids.remove(k);
+                    }
+                }
+
+                if (delete._ids.isEmpty())
+                {
+                    list.set(d, null);
+                }
+            }
+            else if (delete._kind == Kind.DELETE_PROJECT)
+            {
+                if (dropBefore(list, d, delete._id, Kind.ADD_PROJECT, Kind.UPDATE_PROJECT))
+                {
+                    list.set(d, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the mutations of a project or task before it's deleted.
+     *
+     * @param list Mutations (dropped ones are set to null)
+     * @param end Index of the delete
+     * @param id Project or task ID
+     * @param add Kind of mutation that adds it
+     * @param update Kind of mutation that updates it
+     *
+     * @return True if it was added before the delete
+     */
+    private static boolean dropBefore(
+        final ArrayList<TodoistMutation> list,
+        final int end,
+        final long id,
+        final Kind add,
+        final Kind update)
+    {
+        boolean added = false;
+
+        for (int i = 0; i < end; i++)
+        {
+            TodoistMutation mutation = list.get(i);
+            if (mutation == null)
+            {
+                continue;
+            }
+
+            if (mutation._kind == add && mutation._id == id)
+            {
+                list.set(i, null);
+                added = true;
+            }
+            else if (mutation._kind == update && mutation._id == id)
+            {
+                list.set(i, null);
+            }
+            else if (update == Kind.UPDATE_ITEM
+                     && (mutation._kind == Kind.COMPLETE_ITEMS
+                         || mutation._kind == Kind.UNCOMPLETE_ITEMS
+                         || mutation._kind == Kind.UPDATE_RECURRING_DATE))
+            {
+                mutation._ids.remove(Long.valueOf(id));
+                if (mutation._ids.isEmpty())
+                {
+                    list.set(i, null);
+                }
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Drops order updates that are updated again later.
+     *
+     * @param list Mutations (dropped ones are set to null)
+     */
+    private static void dropSupersededOrders(final ArrayList<TodoistMutation> list)
+    {
+        for (int i = 0; i < list.size(); i++)
+        {
+            TodoistMutation mutation = list.get(i);
+            if (mutation == null
+                || (mutation._kind != Kind.UPDATE_ORDERS && mutation._kind != Kind.UPDATE_PROJECT_ORDERS))
+            {
+                continue;
+            }
+
+            for (int j = i + 1; j < list.size(); j++)
+            {
+                TodoistMutation later = list.get(j);
+                if (later != null && later._kind == mutation._kind && later._projectId == mutation._projectId)
+                {
+                    list.set(i, null);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges updates of the same project or task into the last one.
+     *
+     * @param list Mutations (merged ones are set to null)
+     */
+    private static void mergeUpdates(final ArrayList<TodoistMutation> list)
+    {
+        for (int i = 0; i < list.size(); i++)
+        {
+            TodoistMutation mutation = list.get(i);
+            if (mutation == null || (mutation._kind != Kind.UPDATE_ITEM && mutation._kind != Kind.UPDATE_PROJECT))
+            {
+                continue;
+            }
+
+            for (int j = i + 1; j < list.size(); j++)
+            {
+                TodoistMutation later = list.get(j);
+                if (later == null)
+                {
+                    continue;
+                }
+
+                if (later._kind == mutation._kind && later._id == mutation._id)
+                {
+                    later.mergeEarlier(mutation);
+                    list.set(i, null);
+                    break;
+                }
+
+                if (later.refersTo(mutation._id))
+                {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills in the fields of an update that an earlier update of the same object set.
+     *
+     * @param earlier Earlier update
+     */
+    private void mergeEarlier(final TodoistMutation earlier)
+    {
+        _text = (_text != null) ? _text : earlier._text;
+        _dateString = (_dateString != null) ? _dateString : earlier._dateString;
+        _color = (_color != null) ? _color : earlier._color;
+        _priority = (_priority != null) ? _priority : earlier._priority;
+        _indent = (_indent != null) ? _indent : earlier._indent;
+        _order = (_order != null) ? _order : earlier._order;
+        _collapsed = (_collapsed != null) ? _collapsed : earlier._collapsed;
+    }
+
+    /**
+     * Merges runs of the same mutation of lists of task IDs into one.
+     *
+     * @param list Mutations (merged ones are set to null)
+     */
+    private static void mergeRuns(final ArrayList<TodoistMutation> list)
+    {
+        TodoistMutation run = null;
+        HashSet<Long> runIds = new HashSet<Long>();
+
+        for (int i = 0; i < list.size(); i++)
+        {
+            TodoistMutation mutation = list.get(i);
+            if (mutation == null)
+            {
+                continue;
+            }
+
+            boolean mergeable = mutation._kind == Kind.COMPLETE_ITEMS
+                                || mutation._kind == Kind.UNCOMPLETE_ITEMS
+                                || mutation._kind == Kind.UPDATE_RECURRING_DATE
+                                || mutation._kind == Kind.DELETE_ITEMS;
+
+            if (mergeable && run != null && run._kind == mutation._kind && run._inHistory == mutation._inHistory)
+            {
+                for (int k = 0; k < mutation._ids.size(); k++)
+                {
+                    if (runIds.add(mutation._ids.get(k)))
+                    {
+                        run._ids.add(mutation._ids.get(k));
+                    }
+                }
+
+                list.set(i, null);
+            }
+            else
+            {
+                run = mergeable ? mutation : null;
+                runIds.clear();
+                if (run != null)
+                {
+                    runIds.addAll(run._ids);
+                }
+            }
+        }
+    }
+
+    //
+    // JSON
+    //
+    /**
+     * Converts the mutation to JSON.
+     *
+     * @return JSON
+     */
+    public JSONObject toJson()
+    {
+        JSONObject json = new JSONObject();
+
+        try
+        {
+            json.put("kind", _kind.name());
+            json.put("id", _id);
+            json.put("project_id", _projectId);
+            json.put("in_history", _inHistory);
+            json.putOpt("text", _text);
+            json.putOpt("date_string", _dateString);
+            json.putOpt("color", _color);
+            json.putOpt("priority", _priority);
+            json.putOpt("indent", _indent);
+            json.putOpt("order", _order);
+            json.putOpt("collapsed", _collapsed);
+
+            if (_ids != null)
+            {
+                JSONArray ids = new JSONArray();
+                for (int i = 0; i < _ids.size(); i++)
+                {
+                    ids.put(_ids.get(i).longValue());
+                }
+
+                json.put("ids", ids);
+            }
+        }
+        catch (final JSONException e)
+        {
+            e.printStackTrace();
+        }
+
+        return json;
+    }
+
+    /**
+     * Reads a mutation from JSON.
+     *
+     * @param json JSON
+     *
+     * @return Mutation
+     *
+     * @throws JSONException If the JSON isn't a mutation
+     */
+    public static TodoistMutation fromJson(final JSONObject json)
+        throws JSONException
+    {
+        TodoistMutation mutation;
+        try
+        {
+            mutation = new TodoistMutation(Kind.valueOf(json.getString("kind")));
+        }
+        catch (final IllegalArgumentException e)
+        {
+            throw new JSONException("Unknown mutation: " + json.optString("kind"));
+        }
+
+        mutation._id = json.getLong("id");
+        mutation._projectId = json.getLong("project_id");
+        mutation._inHistory = json.getBoolean("in_history");
+        mutation._text = json.has("text") ? json.getString("text") : null;
+        mutation._dateString = json.has("date_string") ? json.getString("date_string") : null;
+        mutation._color = json.has("color") ? json.getInt("color") : null;
+        mutation._priority = json.has("priority") ? json.getInt("priority") : null;
+        mutation._indent = json.has("indent") ? json.getInt("indent") : null;
+        mutation._order = json.has("order") ? json.getInt("order") : null;
+        mutation._collapsed = json.has("collapsed") ? json.getInt("collapsed") : null;
+
+        JSONArray ids = json.optJSONArray("ids");
+        if (ids != null)
+        {
+            mutation._ids = new ArrayList<Long>();
+            for (int i = 0; i < ids.length(); i++)
+            {
+                mutation._ids.add(ids.getLong(i));
+            }
+        }
+
+        return mutation;
+    }
+}
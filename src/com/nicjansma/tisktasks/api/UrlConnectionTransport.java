@@ -0,0 +1,332 @@
+package com.nicjansma.tisktasks.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * HTTP transport on HttpURLConnection.
+ *
+ * Responses are gzip-compressed when the server supports it, and are decompressed as they're read.
+ *
+ * Connections are kept alive and reused by later requests to the same host, which saves a TCP (and TLS)
+ * handshake per call.  A connection only goes back to the pool once its response has been read to the end
+ * and closed, so every response (including errors) is read fully, and the connection is only disconnected
+ * when a request fails.
+ *
+ * A request that fails before its connection is made never left the device, and gets a NOT_SENT code, so
+ * callers can tell it apart from one the server may have acted on.
+ */
+public final class UrlConnectionTransport
+    implements IHttpTransport
+{
+    //
+    // Constants
+    //
+    /**
+     * Default connect timeout (milliseconds).
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 15000;
+
+    /**
+     * Default read timeout (milliseconds).
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+    /**
+     * Charset of responses that don't name one.
+     */
+    private static final String DEFAULT_CHARSET = "UTF-8";
+
+    /**
+     * Charset of posted forms.
+     */
+    private static final String FORM_CHARSET = "UTF-8";
+
+    /**
+     * Read buffer size (characters).
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    //
+    // Privates
+    //
+    /**
+     * Connect timeout (milliseconds).
+     */
+    private volatile int _connectTimeout;
+
+    /**
+     * Read timeout (milliseconds).
+     */
+    private volatile int _readTimeout;
+
+    /**
+     * Whether or not to keep connections alive.
+     */
+    private final boolean _keepAlive;
+
+    /**
+     * Constructor, with the default timeouts and keep-alive.
+     */
+    public UrlConnectionTransport()
+    {
+        this(DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connectTimeout Connect timeout (milliseconds)
+     * @param readTimeout Read timeout (milliseconds)
+     * @param keepAlive Whether or not to keep connections alive
+     */
+    public UrlConnectionTransport(final int connectTimeout, final int readTimeout, final boolean keepAlive)
+    {
+        _connectTimeout = connectTimeout;
+        _readTimeout = readTimeout;
+        _keepAlive = keepAlive;
+    }
+
+    /**
+     * Sets the connect timeout.
+     *
+     * @param connectTimeout Connect timeout (milliseconds)
+     */
+    public void setConnectTimeout(final int connectTimeout)
+    {
+        _connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Sets the read timeout.
+     *
+     * @param readTimeout Read timeout (milliseconds)
+     */
+    public void setReadTimeout(final int readTimeout)
+    {
+        _readTimeout = readTimeout;
+    }
+
+    @Override
+    public TodoistHttpResponse get(final String url)
+    {
+        return get(url, null);
+    }
+
+    @Override
+    public TodoistHttpResponse get(final String url, final IResponseDecoder decoder)
+    {
+        return request(url, null, decoder);
+    }
+
+    @Override
+    public TodoistHttpResponse post(final String url, final String form, final IResponseDecoder decoder)
+    {
+        return request(url, form, decoder);
+    }
+
+    /**
+     * Makes a request.
+     *
+     * @param url URL
+     * @param form Form body to post, or null to get the URL
+     * @param decoder Decoder of a successful response's body, or null to read it as text
+     *
+     * @return Response
+     */
+    private TodoistHttpResponse request(final String url, final String form, final IResponseDecoder decoder)
+    {
+        HttpURLConnection connection = null;
+        try
+        {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(_connectTimeout);
+            connection.setReadTimeout(_readTimeout);
+            connection.setUseCaches(false);
+            connection.setRequestProperty("Accept-Encoding", "gzip");
+
+            if (!_keepAlive)
+            {
+                connection.setRequestProperty("Connection", "close");
+            }
+
+            byte[] body = (form != null) ? prepareForm(connection, form) : null;
+
+            try
+            {
+                connection.connect();
+            }
+            catch (final IOException e)
+            {
+                connection.disconnect();
+
+                return new TodoistHttpResponse(TodoistHttpResponse.NOT_SENT, "");
+            }
+
+            if (body != null)
+            {
+                writeBody(connection, body);
+            }
+
+            int httpCode = connection.getResponseCode();
+
+            InputStream stream = (httpCode >= HttpURLConnection.HTTP_BAD_REQUEST)
+                ? connection.getErrorStream()
+                : connection.getInputStream();
+
+            // only successful bodies are decoded, errors are kept as text
+            IResponseDecoder bodyDecoder = TodoistHttpResponse.isSuccessful(httpCode) ? decoder : null;
+
+            return new TodoistHttpResponse(httpCode, readBody(connection, stream, bodyDecoder));
+        }
+        catch (final IOException e)
+        {
+            if (connection == null)
+            {
+                return new TodoistHttpResponse(TodoistHttpResponse.NOT_SENT, "");
+            }
+
+            connection.disconnect();
+
+            return new TodoistHttpResponse(TodoistHttpResponse.CONNECTION_FAILURE, "");
+        }
+    }
+
+    /**
+     * Sets a connection up to post a form body.
+     *
+     * @param connection Connection, not yet connected
+     * @param form Form body, application/x-www-form-urlencoded
+     *
+     * @return Encoded body, to write once connected
+     *
+     * @throws IOException If the body couldn't be encoded
+     */
+    private static byte[] prepareForm(final HttpURLConnection connection, final String form)
+        throws IOException
+    {
+        byte[] body = form.getBytes(FORM_CHARSET);
+
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=" + FORM_CHARSET);
+        connection.setFixedLengthStreamingMode(body.length);
+
+        return body;
+    }
+
+    /**
+     * Writes a posted body.
+     *
+     * @param connection Connection, connected
+     * @param body Body
+     *
+     * @throws IOException If the body couldn't be sent
+     */
+    private static void writeBody(final HttpURLConnection connection, final byte[] body)
+        throws IOException
+    {
+        OutputStream out = connection.getOutputStream();
+        try
+        {
+            out.write(body);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a response body to the end, and closes it.
+     *
+     * @param connection Connection
+     * @param stream Response stream, or null if there's no body
+     * @param decoder Decoder of the body, or null to read it as text
+     *
+     * @return Response body, or what the decoder returned
+     *
+     * @throws IOException If the body couldn't be read
+     */
+    private static String readBody(
+        final HttpURLConnection connection,
+        final InputStream stream,
+        final IResponseDecoder decoder)
+        throws IOException
+    {
+        if (stream == null)
+        {
+            return "";
+        }
+
+        InputStream body = stream;
+        try
+        {
+            if ("gzip".equalsIgnoreCase(connection.getContentEncoding()))
+            {
+                body = new GZIPInputStream(stream);
+            }
+
+            Reader reader = new InputStreamReader(body, charset(connection.getContentType()));
+
+            String text = null;
+            if (decoder != null)
+            {
+                text = decoder.decode(reader);
+            }
+
+            // read the rest (or all) of the body, so the connection can be reused
+            StringBuilder builder = new StringBuilder();
+            char[] buffer = new char[BUFFER_SIZE];
+            int read = reader.read(buffer);
+            while (read != -1)
+            {
+                builder.append(buffer, 0, read);
+                read = reader.read(buffer);
+            }
+
+            return (decoder != null) ? text : builder.toString();
+        }
+        finally
+        {
+            body.close();
+        }
+    }
+
+    /**
+     * Gets the charset of a content type.
+     *
+     * @param contentType Content type, eg. "application/json; charset=utf-8"
+     *
+     * @return Charset
+     */
+    private static String charset(final String contentType)
+    {
+        if (contentType == null)
+        {
+            return DEFAULT_CHARSET;
+        }
+
+        int index = contentType.toLowerCase().indexOf("charset=");
+        if (index == -1)
+        {
+            return DEFAULT_CHARSET;
+        }
+
+        String charset = contentType.substring(index + "charset=".length()).trim();
+
+        int end = charset.indexOf(';');
+        if (end != -1)
+        {
+            charset = charset.substring(0, end).trim();
+        }
+
+        return charset.replace("\"", "");
+    }
+}
@@ -0,0 +1,183 @@
+package com.nicjansma.tisktasks.models;
+
+import android.os.Handler;
+
+import java.util.ArrayList;
+
+import org.joda.time.DateMidnight;
+import org.joda.time.DateTime;
+
+/**
+ * Tracks the user's calendar day, so things computed for the day (like due date labels) can be cached until
+ * midnight.
+ *
+ * A single timer fires at the next midnight in the user's time zone.  The day is also checked when an activity
+ * resumes, since the timer doesn't run while the device sleeps.  When the day changes, the generation is
+ * incremented, invalidating anything cached against the old one, and the listeners are run.
+ *
+ * Checks run on the main thread, so listeners can update the UI.
+ */
+public final class DayRollover
+{
+    //
+    // Constants
+    //
+    /**
+     * Start of the day before the first check.
+     */
+    private static final long NO_DAY = Long.MIN_VALUE;
+
+    //
+    // Privates
+    //
+    /**
+     * Handler the midnight timer is posted to, or null to not schedule one.
+     */
+    private final Handler _handler;
+
+    /**
+     * Listeners, run when the day changes.
+     */
+    private final ArrayList<Runnable> _listeners = new ArrayList<Runnable>();
+
+    /**
+     * Incremented when the day changes, or the user's time zone does.
+     */
+    private volatile int _generation;
+
+    /**
+     * Start of the current day (epoch milliseconds).
+     */
+    private long _dayStart = NO_DAY;
+
+    /**
+     * Start of the next day (epoch milliseconds).
+     */
+    private long _nextDayStart = NO_DAY;
+
+    /**
+     * Checks the day when the midnight timer fires.
+     */
+    private final Runnable _timer = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            check();
+        }
+    };
+
+    /**
+     * Constructor.
+     *
+     * @param handler Handler of the main thread, for the midnight timer, or null to not schedule one
+     */
+    public DayRollover(final Handler handler)
+    {
+        _handler = handler;
+    }
+
+    /**
+     * Gets the generation of the current day.
+     *
+     * Something cached with an older generation was computed for another day.
+     *
+     * @return Generation
+     */
+    public int getGeneration()
+    {
+        return _generation;
+    }
+
+    /**
+     * Adds a listener, run on the main thread when the day changes.
+     *
+     * @param listener Listener
+     */
+    public synchronized void addListener(final Runnable listener)
+    {
+        _listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener Listener
+     */
+    public synchronized void removeListener(final Runnable listener)
+    {
+        _listeners.remove(listener);
+    }
+
+    /**
+     * Invalidates the current day, because the clock or the user's time zone changed.
+     *
+     * Anything cached for the day is recomputed, and the day is found again on the next check.
+     */
+    public synchronized void invalidate()
+    {
+        _generation++;
+        _nextDayStart = _dayStart;
+    }
+
+    /**
+     * Checks whether or not the day has changed, running the listeners if it has.
+     *
+     * @return True if the day changed
+     */
+    public boolean check()
+    {
+        return check(System.currentTimeMillis(), TodoistDueDateParser.lookUpUserOffset());
+    }
+
+    /**
+     * Checks whether or not the day has changed, running the listeners if it has.
+     *
+     * The first check only finds the day.
+     *
+     * @param now Current time (epoch milliseconds)
+     * @param userOffset User's time zone offset (milliseconds)
+     *
+     * @return True if the day changed
+     */
+    public boolean check(final long now, final long userOffset)
+    {
+        ArrayList<Runnable> listeners;
+
+        synchronized (this)
+        {
+            if (now >= _dayStart && now < _nextDayStart)
+            {
+                return false;
+            }
+
+            // the user's day, as due dates are labelled
+            DateMidnight midnight = new DateTime(now + userOffset).toDateMidnight();
+
+            long previousDayStart = _dayStart;
+            _dayStart = midnight.getMillis() - userOffset;
+            _nextDayStart = midnight.plusDays(1).getMillis() - userOffset;
+
+            if (_handler != null)
+            {
+                _handler.removeCallbacks(_timer);
+                _handler.postDelayed(_timer, _nextDayStart - now);
+            }
+
+            if (previousDayStart == NO_DAY || previousDayStart == _dayStart)
+            {
+                return false;
+            }
+
+            _generation++;
+            listeners = new ArrayList<Runnable>(_listeners);
+        }
+
+        for (int i = 0; i < listeners.size(); i++)
+        {
+            listeners.get(i).run();
+        }
+
+        return true;
+    }
+}
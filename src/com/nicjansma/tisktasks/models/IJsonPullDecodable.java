@@ -0,0 +1,24 @@
+package com.nicjansma.tisktasks.models;
+
+import java.io.IOException;
+
+import org.json.JSONException;
+
+/**
+ * Object that can decode itself from a JSON stream, without a JSONObject.
+ */
+public interface IJsonPullDecodable
+{
+    /**
+     * Initializes this object from the next object of a JSON stream.
+     *
+     * Gives the same result as initializing it from the equivalent JSONObject.
+     *
+     * @param parser Parser, positioned before the object
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    void initialize(JsonPullParser parser)
+        throws IOException, JSONException;
+}
@@ -0,0 +1,36 @@
+package com.nicjansma.tisktasks.models;
+
+/**
+ * Task index, kept up to date by Task Managers.
+ */
+public interface ITaskIndex
+{
+    /**
+     * Adds a task, replacing any task with the same ID.
+     *
+     * @param task Task
+     */
+    void add(TodoistItem task);
+
+    /**
+     * Removes a task, if it is the task indexed for its ID.
+     *
+     * A task moved between managers may be added again before it's removed, so removing the old instance
+     * leaves the new one alone.
+     *
+     * @param task Task
+     */
+    void remove(TodoistItem task);
+
+    /**
+     * Removes all of a project's tasks.
+     *
+     * @param projectId Project ID
+     */
+    void removeProject(long projectId);
+
+    /**
+     * Removes all tasks.
+     */
+    void clear();
+}
@@ -1,6 +1,7 @@
 package com.nicjansma.tisktasks.models;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Object manager interface.
@@ -17,12 +18,42 @@ public interface ITodoistBaseObjectManager<T extends TodoistObjectBase>
     int getCount();
 
     /**
-     * Gets the array of objects.
+     * Gets the working array of objects.
+     *
+     * Only for the thread making changes; within a batch, includes uncommitted changes.
+     * Other threads (e.g. list adapters) should use getSnapshot().
      *
      * @return Array of objects.
      */
     ArrayList<T> getArray();
 
+    /**
+     * Gets the most recently published snapshot of the objects.
+     *
+     * The snapshot never changes, so it can be read from any thread without locking.  A new
+     * snapshot is published after each change, or when a batch is committed.
+     *
+     * @return Immutable list of objects
+     */
+    List<T> getSnapshot();
+
+    /**
+     * Gets the most recently published snapshot of the visible objects.
+     *
+     * Objects under a collapsed parent aren't visible.  Like getSnapshot(), the list never changes.
+     *
+     * @return Immutable list of visible objects
+     */
+    List<T> getVisibleSnapshot();
+
+    /**
+     * Expands or collapses an object, updating the visible objects.
+     *
+     * @param obj Object
+     * @param collapsed Whether or not the object is collapsed
+     */
+    void setCollapsed(T obj, boolean collapsed);
+
     /**
      * Gets the specified object.
      *
@@ -33,11 +64,16 @@ public interface ITodoistBaseObjectManager<T extends TodoistObjectBase>
     T get(long id);
 
     /**
-     * Imports the items, clearing any existing objects first.
+     * Imports the items, replacing any existing objects.
+     *
+     * Existing objects whose ID and content are unchanged are kept, so importing the same
+     * objects again changes nothing.
      *
      * @param items Array of objects to import
+     *
+     * @return True if any objects were inserted, removed or changed
      */
-    void importArray(ArrayList<T> items);
+    boolean importArray(ArrayList<T> items);
 
     /**
      * Appends the items to the current list.
@@ -102,4 +138,20 @@ public interface ITodoistBaseObjectManager<T extends TodoistObjectBase>
      */
     void clearArray();
 
+    /**
+     * Starts a batch of changes.
+     *
+     * Until the matching commitBatch(), changes (add, update, delete, updateOrders, etc) don't update
+     * the hierarchy or run the post-change hook.  Batches may be nested.
+     */
+    void beginBatch();
+
+    /**
+     * Commits a batch of changes.
+     *
+     * When the outermost batch is committed, the hierarchy is updated and the post-change hook
+     * is run once if anything changed.
+     */
+    void commitBatch();
+
 }
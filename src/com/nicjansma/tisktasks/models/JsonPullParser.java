@@ -0,0 +1,868 @@
+package com.nicjansma.tisktasks.models;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+import org.json.JSONException;
+
+/**
+ * Pull parser over a stream of JSON text.
+ *
+ * Values are read one token at a time, so objects can be decoded straight from a response stream without
+ * reading the whole body into a string or building a JSONObject tree first.  The accessors coerce values
+ * the same way JSONObject's opt*() methods do, so objects decode to the same fields either way.
+ *
+ * Malformed JSON throws a JSONException; failures of the underlying reader throw an IOException.
+ */
+public final class JsonPullParser
+{
+    /**
+     * Token types.
+     */
+    public enum Token
+    {
+        /**
+         * Start of an array.
+         */
+        BEGIN_ARRAY,
+
+        /**
+         * End of an array.
+         */
+        END_ARRAY,
+
+        /**
+         * Start of an object.
+         */
+        BEGIN_OBJECT,
+
+        /**
+         * End of an object.
+         */
+        END_OBJECT,
+
+        /**
+         * Name of an object's value.
+         */
+        NAME,
+
+        /**
+         * String.
+         */
+        STRING,
+
+        /**
+         * Number, or any other unquoted literal.
+         */
+        NUMBER,
+
+        /**
+         * true or false.
+         */
+        BOOLEAN,
+
+        /**
+         * null.
+         */
+        NULL,
+
+        /**
+         * End of the stream.
+         */
+        END_DOCUMENT
+    }
+
+    //
+    // Constants
+    //
+    /**
+     * Read buffer size (characters).
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Radix of \\u escapes.
+     */
+    private static final int HEX_RADIX = 16;
+
+    /**
+     * Number of digits of \\u escapes.
+     */
+    private static final int HEX_DIGITS = 4;
+
+    /**
+     * Scope: before the top-level value.
+     */
+    private static final int EMPTY_DOCUMENT = 0;
+
+    /**
+     * Scope: after the top-level value.
+     */
+    private static final int NONEMPTY_DOCUMENT = 1;
+
+    /**
+     * Scope: array with no values read yet.
+     */
+    private static final int EMPTY_ARRAY = 2;
+
+    /**
+     * Scope: array with values read.
+     */
+    private static final int NONEMPTY_ARRAY = 3;
+
+    /**
+     * Scope: object with no names read yet.
+     */
+    private static final int EMPTY_OBJECT = 4;
+
+    /**
+     * Scope: object with a name read, waiting for its value.
+     */
+    private static final int DANGLING_NAME = 5;
+
+    /**
+     * Scope: object with values read.
+     */
+    private static final int NONEMPTY_OBJECT = 6;
+
+    //
+    // Privates
+    //
+    /**
+     * Reader.
+     */
+    private final Reader _reader;
+
+    /**
+     * Read buffer.
+     */
+    private final char[] _buffer = new char[BUFFER_SIZE];
+
+    /**
+     * Position of the next character in the buffer.
+     */
+    private int _pos;
+
+    /**
+     * Number of characters in the buffer.
+     */
+    private int _limit;
+
+    /**
+     * Scopes, innermost last.
+     */
+    private final ArrayList<Integer> _scopes = new ArrayList<Integer>();
+
+    /**
+     * Next token, or null if it hasn't been peeked yet.
+     */
+    private Token _peeked;
+
+    /**
+     * Text of the next token, for names and scalars.
+     */
+    private String _peekedText;
+
+    /**
+     * Builder reused for strings and literals.
+     */
+    private final StringBuilder _text = new StringBuilder();
+
+    /**
+     * Constructor.
+     *
+     * @param reader Reader of JSON text
+     */
+    public JsonPullParser(final Reader reader)
+    {
+        _reader = reader;
+        _scopes.add(EMPTY_DOCUMENT);
+    }
+
+    /**
+     * Gets the type of the next token, without consuming it.
+     *
+     * @return Next token
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    public Token peek()
+        throws IOException, JSONException
+    {
+        if (_peeked == null)
+        {
+            _peeked = doPeek();
+        }
+
+        return _peeked;
+    }
+
+    /**
+     * Determines whether or not the current array or object has another element.
+     *
+     * @return True if there's another element
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    public boolean hasNext()
+        throws IOException, JSONException
+    {
+        Token token = peek();
+        return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the start of an array.
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the next token isn't the start of an array
+     */
+    public void beginArray()
+        throws IOException, JSONException
+    {
+        expect(Token.BEGIN_ARRAY);
+        _scopes.add(EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the end of an array.
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the next token isn't the end of an array
+     */
+    public void endArray()
+        throws IOException, JSONException
+    {
+        expect(Token.END_ARRAY);
+        _scopes.remove(_scopes.size() - 1);
+    }
+
+    /**
+     * Consumes the start of an object.
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the next token isn't the start of an object
+     */
+    public void beginObject()
+        throws IOException, JSONException
+    {
+        expect(Token.BEGIN_OBJECT);
+        _scopes.add(EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the end of an object.
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the next token isn't the end of an object
+     */
+    public void endObject()
+        throws IOException, JSONException
+    {
+        expect(Token.END_OBJECT);
+        _scopes.remove(_scopes.size() - 1);
+    }
+
+    /**
+     * Consumes the name of an object's next value.
+     *
+     * @return Name
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the next token isn't a name
+     */
+    public String nextName()
+        throws IOException, JSONException
+    {
+        peek();
+
+        String name = _peekedText;
+        expect(Token.NAME);
+        return name;
+    }
+
+    /**
+     * Consumes the next value as a string, like JSONObject.optString().
+     *
+     * Numbers and booleans are returned as their text, null as "null", and arrays and objects are skipped.
+     *
+     * @param fallback Value for arrays and objects
+     *
+     * @return String
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    public String nextString(final String fallback)
+        throws IOException, JSONException
+    {
+        Token token = peek();
+        if (token == Token.BEGIN_ARRAY || token == Token.BEGIN_OBJECT)
+        {
+            skipValue();
+            return fallback;
+        }
+
+        String text = _peekedText;
+        expectScalar();
+        return text;
+    }
+
+    /**
+     * Consumes the next value as a long, like JSONObject.optLong().
+     *
+     * @param fallback Value for anything that isn't a number or a numeric string
+     *
+     * @return Long value
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    public long nextLong(final long fallback)
+        throws IOException, JSONException
+    {
+        Token token = peek();
+        if (token != Token.NUMBER && token != Token.STRING)
+        {
+            skipValue();
+            return fallback;
+        }
+
+        String text = _peekedText;
+        expectScalar();
+
+        try
+        {
+            return Long.parseLong(text);
+        }
+        catch (final NumberFormatException e)
+        {
+            try
+            {
+                return (long) Double.parseDouble(text);
+            }
+            catch (final NumberFormatException e2)
+            {
+                return fallback;
+            }
+        }
+    }
+
+    /**
+     * Consumes the next value as an int, like JSONObject.optInt().
+     *
+     * @param fallback Value for anything that isn't a number or a numeric string
+     *
+     * @return Int value
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    public int nextInt(final int fallback)
+        throws IOException, JSONException
+    {
+        return (int) nextLong(fallback);
+    }
+
+    /**
+     * Consumes the next value, including all of its elements.
+     *
+     * Arrays and objects are skimmed to their closing bracket without reading their names and values, so only
+     * their brackets and strings have to be well-formed.
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    public void skipValue()
+        throws IOException, JSONException
+    {
+        Token token = peek();
+        if (token == Token.BEGIN_ARRAY || token == Token.BEGIN_OBJECT)
+        {
+            // the opening bracket has been read, and the enclosing scope already counts the value
+            _peeked = null;
+            _peekedText = null;
+
+            skipContainer();
+        }
+        else if (token == Token.END_ARRAY)
+        {
+            endArray();
+        }
+        else if (token == Token.END_OBJECT)
+        {
+            endObject();
+        }
+        else if (token == Token.END_DOCUMENT)
+        {
+            throw new JSONException("Unexpected end of input");
+        }
+        else
+        {
+            _peeked = null;
+            _peekedText = null;
+        }
+    }
+
+    //
+    // Privates
+    //
+    /**
+     * Consumes the next token.
+     *
+     * @param token Expected token
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the next token is different
+     */
+    private void expect(final Token token)
+        throws IOException, JSONException
+    {
+        if (peek() != token)
+        {
+            throw new JSONException("Expected " + token + " but was " + _peeked);
+        }
+
+        _peeked = null;
+        _peekedText = null;
+    }
+
+    /**
+     * Consumes the next token, which has to be a string or a literal.
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the next token isn't a value
+     */
+    private void expectScalar()
+        throws IOException, JSONException
+    {
+        Token token = peek();
+        if (token != Token.STRING && token != Token.NUMBER && token != Token.BOOLEAN && token != Token.NULL)
+        {
+            throw new JSONException("Expected a value but was " + token);
+        }
+
+        _peeked = null;
+        _peekedText = null;
+    }
+
+    /**
+     * Reads the next token.
+     *
+     * @return Next token
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    private Token doPeek()
+        throws IOException, JSONException
+    {
+        int top = _scopes.size() - 1;
+        int scope = _scopes.get(top);
+
+        if (scope == EMPTY_ARRAY || scope == NONEMPTY_ARRAY)
+        {
+            _scopes.set(top, NONEMPTY_ARRAY);
+
+            int c = nextNonWhitespace();
+            if (c == ']')
+            {
+                return Token.END_ARRAY;
+            }
+
+            if (scope == NONEMPTY_ARRAY)
+            {
+                if (c != ',')
+                {
+                    throw new JSONException("Unterminated array");
+                }
+            }
+            else if (c == -1)
+            {
+                throw new JSONException("Unterminated array");
+            }
+            else
+            {
+                _pos--;
+            }
+        }
+        else if (scope == EMPTY_OBJECT || scope == NONEMPTY_OBJECT)
+        {
+            _scopes.set(top, DANGLING_NAME);
+
+            int c = nextNonWhitespace();
+            if (c == '}')
+            {
+                return Token.END_OBJECT;
+            }
+
+            if (scope == NONEMPTY_OBJECT)
+            {
+                if (c != ',')
+                {
+                    throw new JSONException("Unterminated object");
+                }
+
+                c = nextNonWhitespace();
+            }
+
+            if (c != '"')
+            {
+                throw new JSONException("Expected a name");
+            }
+
+            _peekedText = readString();
+            return Token.NAME;
+        }
+        else if (scope == DANGLING_NAME)
+        {
+            _scopes.set(top, NONEMPTY_OBJECT);
+
+            if (nextNonWhitespace() != ':')
+            {
+                throw new JSONException("Expected ':'");
+            }
+        }
+        else if (scope == EMPTY_DOCUMENT)
+        {
+            _scopes.set(top, NONEMPTY_DOCUMENT);
+        }
+        else
+        {
+            if (nextNonWhitespace() == -1)
+            {
+                return Token.END_DOCUMENT;
+            }
+
+            throw new JSONException("Expected the end of input");
+        }
+
+        return readValue();
+    }
+
+    /**
+     * Reads the start of the next value.
+     *
+     * @return Value's token
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    private Token readValue()
+        throws IOException, JSONException
+    {
+        int c = nextNonWhitespace();
+        if (c == -1)
+        {
+            return Token.END_DOCUMENT;
+        }
+        else if (c == '[')
+        {
+            return Token.BEGIN_ARRAY;
+        }
+        else if (c == '{')
+        {
+            return Token.BEGIN_OBJECT;
+        }
+        else if (c == '"')
+        {
+            _peekedText = readString();
+            return Token.STRING;
+        }
+
+        _pos--;
+        _peekedText = readLiteral();
+
+        if (_peekedText.length() == 0)
+        {
+            throw new JSONException("Expected a value");
+        }
+        else if (_peekedText.equals("true") || _peekedText.equals("false"))
+        {
+            return Token.BOOLEAN;
+        }
+        else if (_peekedText.equals("null"))
+        {
+            return Token.NULL;
+        }
+
+        return Token.NUMBER;
+    }
+
+    /**
+     * Reads a string, after its opening quote.
+     *
+     * @return String
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the string is malformed
+     */
+    private String readString()
+        throws IOException, JSONException
+    {
+        _text.setLength(0);
+
+        while (true)
+        {
+            // copy runs of plain characters straight from the buffer
+            int start = _pos;
+            while (_pos < _limit && _buffer[_pos] != '"' && _buffer[_pos] != '\\')
+            {
+                _pos++;
+            }
+
+            _text.append(_buffer, start, _pos - start);
+
+            int c = nextChar();
+            if (c == '"')
+            {
+                return _text.toString();
+            }
+            else if (c == '\\')
+            {
+                _text.append(readEscape());
+            }
+            else if (c == -1)
+            {
+                throw new JSONException("Unterminated string");
+            }
+            else
+            {
+                // the buffer ran out mid-run
+                _text.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Skips to the end of an array or object, after its opening bracket.
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the stream ends first
+     */
+    private void skipContainer()
+        throws IOException, JSONException
+    {
+        int depth = 1;
+        while (depth > 0)
+        {
+            int c = (_pos < _limit) ? _buffer[_pos++] : nextChar();
+            switch (c)
+            {
+                case '"':
+                    skipString();
+                    break;
+                case '[':
+                case '{':
+                    depth++;
+                    break;
+                case ']':
+                case '}':
+                    depth--;
+                    break;
+                case -1:
+                    throw new JSONException("Unterminated value");
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Skips a string, after its opening quote.
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the string is unterminated
+     */
+    private void skipString()
+        throws IOException, JSONException
+    {
+        while (true)
+        {
+            // skip runs of plain characters straight through the buffer
+            while (_pos < _limit && _buffer[_pos] != '"' && _buffer[_pos] != '\\')
+            {
+                _pos++;
+            }
+
+            int c = nextChar();
+            if (c == '"')
+            {
+                return;
+            }
+            else if (c == '\\')
+            {
+                // the escaped character can't end the string (a \\u escape's digits can't either)
+                if (nextChar() == -1)
+                {
+                    throw new JSONException("Unterminated escape");
+                }
+            }
+            else if (c == -1)
+            {
+                throw new JSONException("Unterminated string");
+            }
+        }
+    }
+
+    /**
+     * Reads an escape sequence, after its backslash.
+     *
+     * @return Escaped character
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the escape is malformed
+     */
+    private char readEscape()
+        throws IOException, JSONException
+    {
+        int c = nextChar();
+        switch (c)
+        {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                char[] hex = new char[HEX_DIGITS];
+                for (int i = 0; i < HEX_DIGITS; i++)
+                {
+                    int digit = nextChar();
+                    if (digit == -1)
+                    {
+                        throw new JSONException("Unterminated escape");
+                    }
+
+                    hex[i] = (char) digit;
+                }
+
+                try
+                {
+                    return (char) Integer.parseInt(new String(hex), HEX_RADIX);
+                }
+                catch (final NumberFormatException e)
+                {
+                    throw new JSONException("Invalid escape");
+                }
+            case -1:
+                throw new JSONException("Unterminated escape");
+            default:
+                return (char) c;
+        }
+    }
+
+    /**
+     * Reads an unquoted literal.
+     *
+     * @return Literal
+     *
+     * @throws IOException If the stream couldn't be read
+     */
+    private String readLiteral()
+        throws IOException
+    {
+        _text.setLength(0);
+
+        int c = nextChar();
+        while (c != -1 && !isDelimiter(c))
+        {
+            _text.append((char) c);
+            c = nextChar();
+        }
+
+        if (c != -1)
+        {
+            _pos--;
+        }
+
+        return _text.toString();
+    }
+
+    /**
+     * Determines whether or not a character ends a literal.
+     *
+     * @param c Character
+     *
+     * @return True if it ends a literal
+     */
+    private static boolean isDelimiter(final int c)
+    {
+        switch (c)
+        {
+            case ',':
+            case ':':
+            case '[':
+            case ']':
+            case '{':
+            case '}':
+            case '"':
+            case ' ':
+            case '\t':
+            case '\r':
+            case '\n':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Reads the next character that isn't whitespace.
+     *
+     * @return Character, or -1 at the end of the stream
+     *
+     * @throws IOException If the stream couldn't be read
+     */
+    private int nextNonWhitespace()
+        throws IOException
+    {
+        int c = nextChar();
+        while (c == ' ' || c == '\t' || c == '\r' || c == '\n')
+        {
+            c = nextChar();
+        }
+
+        return c;
+    }
+
+    /**
+     * Reads the next character.
+     *
+     * @return Character, or -1 at the end of the stream
+     *
+     * @throws IOException If the stream couldn't be read
+     */
+    private int nextChar()
+        throws IOException
+    {
+        if (_pos == _limit)
+        {
+            // keep the last character, so it can be pushed back
+            if (_limit > 0)
+            {
+                _buffer[0] = _buffer[_limit - 1];
+                _pos = 1;
+                _limit = 1;
+            }
+
+            int read = _reader.read(_buffer, _limit, _buffer.length - _limit);
+            if (read == -1)
+            {
+                return -1;
+            }
+
+            _limit += read;
+        }
+
+        return _buffer[_pos++];
+    }
+}
@@ -0,0 +1,353 @@
+package com.nicjansma.tisktasks.models;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive longs to primitive ints.
+ *
+ * Used to index objects by ID without boxing keys (LongSparseArray requires API 16).
+ */
+public final class LongIntHashMap
+{
+    //
+    // Constants
+    //
+    /**
+     * Value returned when a key is not found.
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * Default capacity (must be a power of two).
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Maximum load factor, as a numerator over LOAD_FACTOR_DENOMINATOR.
+     */
+    private static final int LOAD_FACTOR_NUMERATOR = 3;
+
+    /**
+     * Load factor denominator.
+     */
+    private static final int LOAD_FACTOR_DENOMINATOR = 4;
+
+    /**
+     * Multiplier for mixing key bits (64-bit golden ratio).
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * Shift used to fold the upper bits of the mixed hash.
+     */
+    private static final int HASH_SHIFT = 32;
+
+    //
+    // Privates
+    //
+    /**
+     * Keys.
+     */
+    private long[] _keys;
+
+    /**
+     * Values.
+     */
+    private int[] _values;
+
+    /**
+     * Whether or not each slot is used.
+     */
+    private boolean[] _used;
+
+    /**
+     * Number of entries.
+     */
+    private int _size;
+
+    /**
+     * Constructor.
+     */
+    public LongIntHashMap()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor with an expected number of entries.
+     *
+     * @param expectedSize Expected number of entries
+     */
+    public LongIntHashMap(final int expectedSize)
+    {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Gets the table capacity needed to hold the specified number of entries.
+     *
+     * @param size Number of entries
+     *
+     * @return Table capacity (a power of two)
+     */
+    private static int capacityFor(final int size)
+    {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * LOAD_FACTOR_NUMERATOR / LOAD_FACTOR_DENOMINATOR <= size)
+        {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    /**
+     * Allocates empty tables.
+     *
+     * @param capacity Table capacity
+     */
+    private void allocate(final int capacity)
+    {
+        _keys = new long[capacity];
+        _values = new int[capacity];
+        _used = new boolean[capacity];
+        _size = 0;
+    }
+
+    /**
+     * Gets the starting slot for a key.
+     *
+     * @param key Key
+     *
+     * @return Slot index
+     */
+    private int slot(final long key)
+    {
+        long hash = key * HASH_MULTIPLIER;
+        return (int) (hash ^ (hash >>> HASH_SHIFT)) & (_keys.length - 1);
+    }
+
+    /**
+     * Finds the slot holding the key.
+     *
+     * @param key Key
+     *
+     * @return Slot index, or -1 if the key isn't in the map
+     */
+    private int find(final long key)
+    {
+        int mask = _keys.length - 1;
+        int i = slot(key);
+
+        while (_used[i])
+        {
+            if (_keys[i] == key)
+            {
+                return i;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the value for a key.
+     *
+     * @param key Key
+     *
+     * @return Value, or NOT_FOUND if the key isn't in the map
+     */
+    public int get(final long key)
+    {
+        int i = find(key);
+        if (i == -1)
+        {
+            return NOT_FOUND;
+        }
+
+        return _values[i];
+    }
+
+    /**
+     * Determines whether or not the key is in the map.
+     *
+     * @param key Key
+     *
+     * @return True if the key is in the map
+     */
+    public boolean containsKey(final long key)
+    {
+        return find(key) != -1;
+    }
+
+    /**
+     * Sets the value for a key.
+     *
+     * @param key Key
+     * @param value Value
+     */
+    public void put(final long key, final int value)
+    {
+        putInternal(key, value, true);
+    }
+
+    /**
+     * Sets the value for a key only if the key isn't already in the map.
+     *
+     * @param key Key
+     * @param value Value
+     *
+     * @return True if the value was set
+     */
+    public boolean putIfAbsent(final long key, final int value)
+    {
+        return putInternal(key, value, false);
+    }
+
+    /**
+     * Sets the value for a key.
+     *
+     * @param key Key
+     * @param value Value
+     * @param replace Replace an existing value
+     *
+     * @return True if the value was set
+     */
+    private boolean putInternal(final long key, final int value, final boolean replace)
+    {
+        int mask = _keys.length - 1;
+        int i = slot(key);
+
+        while (_used[i])
+        {
+            if (_keys[i] == key)
+            {
+                if (replace)
+                {
+                    _values[i] = value;
+                }
+
+                return replace;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        _used[i] = true;
+        _keys[i] = key;
+        _values[i] = value;
+        _size++;
+
+        if (_size * LOAD_FACTOR_DENOMINATOR > _keys.length * LOAD_FACTOR_NUMERATOR)
+        {
+            rehash(_keys.length << 1);
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key Key
+     *
+     * @return Previous value, or NOT_FOUND if the key wasn't in the map
+     */
+    public int remove(final long key)
+    {
+        int i = find(key);
+        if (i == -1)
+        {
+            return NOT_FOUND;
+        }
+
+        int oldValue = _values[i];
+        int mask = _keys.length - 1;
+
+        _used[i] = false;
+        _size--;
+
+        // back-shift the following cluster so lookups don't stop at the new hole
+        int j = (i + 1) & mask;
+        while (_used[j])
+        {
+            int home = slot(_keys[j]);
+
+            // move the entry into the hole if its home slot isn't in (i, j]
+            if ((j > i && (home <= i || home > j))
+                || (j < i && (home <= i && home > j)))
+            {
+                _keys[i] = _keys[j];
+                _values[i] = _values[j];
+                _used[i] = true;
+                _used[j] = false;
+                i = j;
+            }
+
+            j = (j + 1) & mask;
+        }
+
+        return oldValue;
+    }
+
+    /**
+     * Rebuilds the tables at a new capacity.
+     *
+     * @param capacity New capacity
+     */
+    private void rehash(final int capacity)
+    {
+        long[] oldKeys = _keys;
+        int[] oldValues = _values;
+        boolean[] oldUsed = _used;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldUsed[i])
+            {
+                putInternal(oldKeys[i], oldValues[i], true);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return Number of entries
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear()
+    {
+        Arrays.fill(_used, false);
+        _size = 0;
+    }
+
+    /**
+     * Removes all entries, sizing the tables for the expected number of entries.
+     *
+     * @param expectedSize Expected number of entries
+     */
+    public void clear(final int expectedSize)
+    {
+        int capacity = capacityFor(expectedSize);
+        if (capacity != _keys.length)
+        {
+            allocate(capacity);
+        }
+        else
+        {
+            clear();
+        }
+    }
+}
@@ -35,4 +35,19 @@ public final class ProjectManager
     {
         saveToCache();
     }
+
+    @Override
+    protected void addedHook(final TodoistProject obj)
+    {
+        // NOP
+    }
+
+    @Override
+    protected void removedHook(final TodoistProject obj)
+    {
+        // a replaced project starts with a new Task Manager
+        ServiceLocator.taskIndex().removeProject(obj.getId());
+        ServiceLocator.searchIndex().removeProject(obj.getId());
+        ServiceLocator.prefetcher().forget(obj.getTaskManager());
+    }
 }
@@ -9,6 +9,23 @@ public final class TaskManager
     extends TodoistObjectManagerBase<TodoistItem>
     implements ITaskManager
 {
+    /**
+     * Indexes to keep up to date with this manager's tasks.
+     */
+    private final ITaskIndex[] _indexes;
+
+    /**
+     * TaskManager constructor.
+     *
+     * @param indexes Indexes to keep up to date with this manager's tasks
+     */
+    public TaskManager(final ITaskIndex... indexes)
+    {
+        super();
+
+        _indexes = indexes;
+    }
+
     /**
      * Complete items.
      *
@@ -16,11 +33,7 @@ public final class TaskManager
      */
     public void completeItems(final ArrayList<Long> itemIds)
     {
-        for (int i = 0; i < itemIds.size(); i++)
-        {
-            TodoistItem item = get(itemIds.get(i));
-            item.setCheckedState(true);
-        }
+        setChecked(itemIds, true);
     }
 
     /**
@@ -30,10 +43,32 @@ public final class TaskManager
      */
     public void uncompleteItems(final ArrayList<Long> itemIds)
     {
+        setChecked(itemIds, false);
+    }
+
+    /**
+     * Replaces items with checked (or un-checked) copies, so the change is published as a new snapshot.
+     *
+     * @param itemIds Items to change (items that aren't loaded are skipped)
+     * @param checked True to check the items
+     */
+    private void setChecked(final ArrayList<Long> itemIds, final boolean checked)
+    {
+        ArrayList<TodoistItem> items = new ArrayList<TodoistItem>(itemIds.size());
         for (int i = 0; i < itemIds.size(); i++)
         {
             TodoistItem item = get(itemIds.get(i));
-            item.setCheckedState(false);
+            if (item != null)
+            {
+                TodoistItem copy = new TodoistItem(item);
+                copy.setCheckedState(checked);
+                items.add(copy);
+            }
+        }
+
+        if (!items.isEmpty())
+        {
+            update(items);
         }
     }
 
@@ -42,4 +77,22 @@ public final class TaskManager
     {
         // NOP
     }
+
+    @Override
+    protected void addedHook(final TodoistItem obj)
+    {
+        for (int i = 0; i < _indexes.length; i++)
+        {
+            _indexes[i].add(obj);
+        }
+    }
+
+    @Override
+    protected void removedHook(final TodoistItem obj)
+    {
+        for (int i = 0; i < _indexes.length; i++)
+        {
+            _indexes[i].remove(obj);
+        }
+    }
 }
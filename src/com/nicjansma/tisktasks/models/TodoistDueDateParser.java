@@ -0,0 +1,493 @@
+package com.nicjansma.tisktasks.models;
+
+import java.util.TimeZone;
+
+import com.nicjansma.tisktasks.ServiceLocator;
+
+/**
+ * Parses Todoist due dates, eg. "Fri Oct 16 23:59:59 2026" or "Fri 16 Oct 2026 23:59:59 +0000", into epoch
+ * milliseconds.
+ *
+ * Reads the date in one pass over its characters, without allocating, where Date.parse() goes through a
+ * locale-sensitive Calendar for every date.  Dates without a zone are in the device's time zone, as with
+ * Date.parse().  Anything else it doesn't recognize is left to Date.parse().
+ *
+ * The device time zone and the user's time zone offset are captured once per batch of decoded tasks, rather
+ * than looked up for every task.
+ */
+public final class TodoistDueDateParser
+{
+    //
+    // Constants
+    //
+    /**
+     * Returned when the date isn't recognized.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    /**
+     * Length of abbreviated month and day names.
+     */
+    private static final int NAME_LENGTH = 3;
+
+    /**
+     * Bits per character of a name key.
+     */
+    private static final int KEY_CHAR_BITS = 8;
+
+    /**
+     * Sets an ASCII letter to lower case.
+     */
+    private static final int LOWER_CASE_BIT = 0x20;
+
+    /**
+     * Keys of the three-letter month names, in order.
+     */
+    private static final int[] MONTHS = nameKeys("janfebmaraprmayjunjulaugsepoctnovdec");
+
+    /**
+     * Keys of the three-letter day names.
+     */
+    private static final int[] DAYS = nameKeys("sunmontuewedthufrisat");
+
+    /**
+     * Keys of the UTC zone names.
+     */
+    private static final int[] ZONES = nameKeys("gmtutc");
+
+    /**
+     * Radix of numbers.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * Parts of a time after the hour: minutes and seconds.
+     */
+    private static final int TIME_PARTS = 2;
+
+    /**
+     * Digits in a year.
+     */
+    private static final int YEAR_DIGITS = 4;
+
+    /**
+     * Smallest year that isn't abbreviated.
+     */
+    private static final int MIN_YEAR = 100;
+
+    /**
+     * Days in the longest month.
+     */
+    private static final int MAX_DAY = 31;
+
+    /**
+     * Hours per day.
+     */
+    private static final int HOURS_PER_DAY = 24;
+
+    /**
+     * Minutes per hour, and seconds per minute.
+     */
+    private static final int SIXTY = 60;
+
+    /**
+     * Milliseconds per second.
+     */
+    private static final int MILLIS_PER_SECOND = 1000;
+
+    /**
+     * Milliseconds per minute.
+     */
+    private static final long MILLIS_PER_MINUTE = SIXTY * MILLIS_PER_SECOND;
+
+    /**
+     * Milliseconds per hour.
+     */
+    private static final long MILLIS_PER_HOUR = SIXTY * MILLIS_PER_MINUTE;
+
+    /**
+     * A zone offset "hhmm" is hours times this plus minutes.
+     */
+    private static final int ZONE_HOURS_FACTOR = 100;
+
+    /**
+     * Years in a Gregorian era (a full cycle of leap years).
+     */
+    private static final int YEARS_PER_ERA = 400;
+
+    /**
+     * Days in a Gregorian era.
+     */
+    private static final int DAYS_PER_ERA = 146097;
+
+    /**
+     * Days per (non-leap) year.
+     */
+    private static final int DAYS_PER_YEAR = 365;
+
+    /**
+     * Leap years are every 4 years...
+     */
+    private static final int LEAP_EVERY = 4;
+
+    /**
+     * ... except every 100 years, unless it's every 400 years.
+     */
+    private static final int NO_LEAP_EVERY = 100;
+
+    /**
+     * Months in a year.
+     */
+    private static final int MONTHS_PER_YEAR = 12;
+
+    /**
+     * Month (from 0) that years start on when counting from March, so leap days come last.
+     */
+    private static final int MARCH = 2;
+
+    /**
+     * Days in the 5 months from March to July (or August to December)...
+     */
+    private static final int DAYS_PER_5_MONTHS = 153;
+
+    /**
+     * ... so a month from March has 153 / 5 days, rounded to fit.
+     */
+    private static final int MONTHS_PER_GROUP = 5;
+
+    /**
+     * Days from 0000-03-01 to 1970-01-01.
+     */
+    private static final int DAYS_TO_EPOCH = 719468;
+
+    /**
+     * Parser of the current batch, or null.
+     *
+     * Each decode (a response, a cached object or a query's tasks) starts its own batch, so a batch never
+     * outlives a time zone change by more than one decode.
+     */
+    private static volatile TodoistDueDateParser _batch;
+
+    //
+    // Privates
+    //
+    /**
+     * Time zone of dates without a zone.
+     */
+    private final TimeZone _timeZone;
+
+    /**
+     * Whether or not the user's time zone offset has been looked up.
+     */
+    private boolean _userOffsetLoaded;
+
+    /**
+     * User's time zone offset (milliseconds).
+     */
+    private long _userOffset;
+
+    /**
+     * Constructor, looking up the user's time zone offset when it's first needed.
+     *
+     * @param timeZone Time zone of dates without a zone
+     */
+    private TodoistDueDateParser(final TimeZone timeZone)
+    {
+        _timeZone = timeZone;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param timeZone Time zone of dates without a zone
+     * @param userOffsetHours User's time zone offset (hours)
+     */
+    public TodoistDueDateParser(final TimeZone timeZone, final int userOffsetHours)
+    {
+        _timeZone = timeZone;
+        _userOffset = userOffsetHours * MILLIS_PER_HOUR;
+        _userOffsetLoaded = true;
+    }
+
+    /**
+     * Starts a batch of decoded tasks, capturing the time zones for the batch's due dates.
+     */
+    public static void beginBatch()
+    {
+        _batch = new TodoistDueDateParser(TimeZone.getDefault());
+    }
+
+    /**
+     * Gets the parser of the current batch, starting one if nothing has been decoded yet.
+     *
+     * @return Parser
+     */
+    public static TodoistDueDateParser batch()
+    {
+        TodoistDueDateParser batch = _batch;
+        if (batch == null)
+        {
+            beginBatch();
+            batch = _batch;
+        }
+
+        return batch;
+    }
+
+    /**
+     * Gets the user's time zone offset, looking it up the first time.
+     *
+     * @return Time zone offset (milliseconds), or 0 if there's no user
+     */
+    public synchronized long getUserOffset()
+    {
+        if (!_userOffsetLoaded)
+        {
+            _userOffset = lookUpUserOffset();
+            _userOffsetLoaded = true;
+        }
+
+        return _userOffset;
+    }
+
+    /**
+     * Looks up the current user's time zone offset, outside of any batch.
+     *
+     * @return Time zone offset (milliseconds), or 0 if there's no user
+     */
+    public static long lookUpUserOffset()
+    {
+        TodoistUser user = ServiceLocator.userManager().getCurrentUser();
+
+        return (user == null) ? 0 : user.getTimeZoneOffsetHours() * MILLIS_PER_HOUR;
+    }
+
+    /**
+     * Parses a due date.
+     *
+     * @param date Due date
+     *
+     * @return Epoch milliseconds, or NO_DATE if the date isn't recognized
+     */
+    public long parse(final String date)
+    {
+        int year = -1;
+        int month = -1;
+        int day = -1;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        boolean hasZone = false;
+        int zoneMinutes = 0;
+
+        int length = date.length();
+        int i = 0;
+        while (i < length)
+        {
+            char c = date.charAt(i);
+
+            if (c == ' ' || c == ',')
+            {
+                i++;
+            }
+            else if (Character.isLetter(c))
+            {
+                int start = i;
+                while (i < length && Character.isLetter(date.charAt(i)))
+                {
+                    i++;
+                }
+
+                int key = (i - start >= NAME_LENGTH) ? nameKey(date, start) : 0;
+
+                int index = indexOf(MONTHS, key);
+                if (index >= 0)
+                {
+                    month = index;
+                }
+                else if ((i - start == NAME_LENGTH && indexOf(ZONES, key) >= 0)
+                         || (i - start == 2 && date.regionMatches(true, start, "UT", 0, 2)))
+                {
+                    hasZone = true;
+                }
+                else if (indexOf(DAYS, key) < 0)
+                {
+                    return NO_DATE;
+                }
+            }
+            else if (c == '+' || c == '-')
+            {
+                int start = ++i;
+                int offset = 0;
+                while (i < length && Character.isDigit(date.charAt(i)))
+                {
+                    offset = offset * RADIX + (date.charAt(i++) - '0');
+                }
+
+                if (i - start != YEAR_DIGITS)
+                {
+                    return NO_DATE;
+                }
+
+                int minutes = (offset / ZONE_HOURS_FACTOR) * SIXTY + offset % ZONE_HOURS_FACTOR;
+                zoneMinutes = (c == '-') ? -minutes : minutes;
+                hasZone = true;
+            }
+            else if (Character.isDigit(c))
+            {
+                int start = i;
+                int value = 0;
+                while (i < length && Character.isDigit(date.charAt(i)))
+                {
+                    value = value * RADIX + (date.charAt(i++) - '0');
+                }
+
+                if (i < length && date.charAt(i) == ':')
+                {
+                    // hh:mm[:ss]
+                    hour = value;
+
+                    for (int part = 0; part < TIME_PARTS && i < length && date.charAt(i) == ':'; part++)
+                    {
+                        int partStart = ++i;
+                        int partValue = 0;
+                        while (i < length && Character.isDigit(date.charAt(i)))
+                        {
+                            partValue = partValue * RADIX + (date.charAt(i++) - '0');
+                        }
+
+                        if (i == partStart)
+                        {
+                            return NO_DATE;
+                        }
+
+                        if (part == 0)
+                        {
+                            minute = partValue;
+                        }
+                        else
+                        {
+                            second = partValue;
+                        }
+                    }
+                }
+                else if (i - start == YEAR_DIGITS || value > MAX_DAY)
+                {
+                    year = value;
+                }
+                else if (day < 0)
+                {
+                    day = value;
+                }
+                else
+                {
+                    return NO_DATE;
+                }
+            }
+            else
+            {
+                return NO_DATE;
+            }
+        }
+
+        if (year < MIN_YEAR || month < 0 || day < 1 || day > MAX_DAY
+            || hour >= HOURS_PER_DAY || minute >= SIXTY || second >= SIXTY)
+        {
+            return NO_DATE;
+        }
+
+        long local = ((daysFromEpoch(year, month, day) * HOURS_PER_DAY + hour) * SIXTY + minute) * MILLIS_PER_MINUTE
+                     + second * MILLIS_PER_SECOND;
+
+        if (hasZone)
+        {
+            return local - zoneMinutes * MILLIS_PER_MINUTE;
+        }
+
+        // the offset at the local time, found from the offset at a guess of it
+        int offset = _timeZone.getOffset(local - _timeZone.getRawOffset());
+        return local - _timeZone.getOffset(local - offset);
+    }
+
+    /**
+     * Gets the keys of three-letter names.
+     *
+     * @param names Three-letter names, in lower case
+     *
+     * @return Key of each name
+     */
+    private static int[] nameKeys(final String names)
+    {
+        int[] keys = new int[names.length() / NAME_LENGTH];
+        for (int i = 0; i < keys.length; i++)
+        {
+            keys[i] = nameKey(names, i * NAME_LENGTH);
+        }
+
+        return keys;
+    }
+
+    /**
+     * Gets the key of a name from its first three letters, ignoring case.
+     *
+     * @param text Text
+     * @param start Index of the name
+     *
+     * @return Key
+     */
+    private static int nameKey(final String text, final int start)
+    {
+        int key = 0;
+        for (int i = start; i < start + NAME_LENGTH; i++)
+        {
+            key = (key << KEY_CHAR_BITS) | (text.charAt(i) | LOWER_CASE_BIT);
+        }
+
+        return key;
+    }
+
+    /**
+     * Finds a key.
+     *
+     * @param keys Keys
+     * @param key Key to find, or 0 for none
+     *
+     * @return Index of the key, or -1 if it isn't there
+     */
+    private static int indexOf(final int[] keys, final int key)
+    {
+        for (int i = 0; key != 0 && i < keys.length; i++)
+        {
+            if (keys[i] == key)
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets the number of days from 1970-01-01 to a date in the proleptic Gregorian calendar.
+     *
+     * @param year Year
+     * @param month Month (from 0)
+     * @param day Day of the month
+     *
+     * @return Days (negative before 1970)
+     */
+    private static long daysFromEpoch(final int year, final int month, final int day)
+    {
+        // count years from March, so a leap day ends the year
+        int marchYear = (month < MARCH) ? year - 1 : year;
+        int era = ((marchYear >= 0) ? marchYear : marchYear - (YEARS_PER_ERA - 1)) / YEARS_PER_ERA;
+        int yearOfEra = marchYear - era * YEARS_PER_ERA;
+
+        int marchMonth = (month >= MARCH) ? month - MARCH : month + MONTHS_PER_YEAR - MARCH;
+        int dayOfYear = (DAYS_PER_5_MONTHS * marchMonth + 2) / MONTHS_PER_GROUP + day - 1;
+
+        int dayOfEra = yearOfEra * DAYS_PER_YEAR + yearOfEra / LEAP_EVERY - yearOfEra / NO_LEAP_EVERY + dayOfYear;
+
+        return (long) era * DAYS_PER_ERA + dayOfEra - DAYS_TO_EPOCH;
+    }
+}
@@ -0,0 +1,494 @@
+package com.nicjansma.tisktasks.models;
+
+import android.graphics.Color;
+import android.graphics.Typeface;
+import android.text.Spannable;
+import android.text.SpannableString;
+import android.text.style.BackgroundColorSpan;
+import android.text.style.StyleSpan;
+import android.text.style.UnderlineSpan;
+
+/**
+ * Task content with Todoist's formatting taken out, and the styles it asked for kept as spans.
+ *
+ * Formatting looks like:
+ *  %(b)bold% %(bold)bold%
+ *  %(i)italics%
+ *  %(hl)highlight%
+ *  %(ul)underline% %(u)underline%
+ *  %(bi)italics bold% %(ib)italics bold%
+ *
+ * The content is read in a single pass, without a regular expression.  Anything that isn't formatting
+ * (eg. "%nothing%" or "%()nothing%") is left as is.
+ */
+public final class TodoistFormattedContent
+{
+    //
+    // Constants
+    //
+    /**
+     * Bold style.
+     */
+    public static final int STYLE_BOLD = 1;
+
+    /**
+     * Italic style.
+     */
+    public static final int STYLE_ITALIC = 2;
+
+    /**
+     * Highlight style.
+     */
+    public static final int STYLE_HIGHLIGHT = 4;
+
+    /**
+     * Underline style.
+     */
+    public static final int STYLE_UNDERLINE = 8;
+
+    /**
+     * Highlight color (yellow).
+     */
+    public static final int HIGHLIGHT_COLOR = Color.rgb(0xff, 0xff, 0x66);
+
+    /**
+     * Ints per span: start, end and styles.
+     */
+    private static final int SPAN_FIELDS = 3;
+
+    /**
+     * Index of a span's styles.
+     */
+    private static final int SPAN_STYLES = 2;
+
+    //
+    // Privates
+    //
+    /**
+     * Text, without formatting.
+     */
+    private final String _text;
+
+    /**
+     * Spans, as start, end and styles, or null if there are none.
+     */
+    private final int[] _spans;
+
+    /**
+     * Number of spans.
+     */
+    private final int _spanCount;
+
+    /**
+     * Styled text, created when it's first needed.
+     */
+    private CharSequence _styledText;
+
+    /**
+     * Constructor.
+     *
+     * @param text Text, without formatting
+     * @param spans Spans, as start, end and styles
+     * @param spanCount Number of spans
+     */
+    private TodoistFormattedContent(final String text, final int[] spans, final int spanCount)
+    {
+        _text = text;
+        _spans = spans;
+        _spanCount = spanCount;
+    }
+
+    /**
+     * Formats task content.
+     *
+     * A leading asterisk (*), which makes a task uncompletable, is removed along with the formatting.
+     *
+     * @param content Task content
+     *
+     * @return Formatted content
+     */
+    public static TodoistFormattedContent parse(final String content)
+    {
+        int length = trimEnd(content, 0, content.length());
+        int i = trimStart(content, 0, length);
+
+        // strip leading *
+        if (i < length && content.charAt(i) == '*')
+        {
+            i = trimStart(content, i + 1, length);
+        }
+
+        int format = content.indexOf("%(", i);
+        if (format < 0 || format >= length)
+        {
+            return new TodoistFormattedContent(content.substring(i, length), null, 0);
+        }
+
+        // formatting only removes characters
+        char[] out = new char[length - i];
+        int count = 0;
+        int[] spans = null;
+        int spanCount = 0;
+
+        while (i < length)
+        {
+            // copy up to the next %
+            int percent = content.indexOf('%', i);
+            if (percent < 0 || percent >= length)
+            {
+                content.getChars(i, length, out, count);
+                count += length - i;
+                break;
+            }
+
+            content.getChars(i, percent, out, count);
+            count += percent - i;
+
+            int end = matchFormat(content, percent, length);
+            if (end < 0)
+            {
+                out[count++] = '%';
+                i = percent + 1;
+                continue;
+            }
+
+            // %(styles)text%
+            int stylesStart = percent + 2;
+            int stylesEnd = content.indexOf(')', stylesStart);
+
+            int start = count;
+            content.getChars(stylesEnd + 1, end, out, count);
+            count = start + end - (stylesEnd + 1);
+
+            if (spans == null)
+            {
+                spans = new int[SPAN_FIELDS * 2];
+            }
+            else if ((spanCount + 1) * SPAN_FIELDS > spans.length)
+            {
+                int[] grown = new int[spans.length * 2];
+                System.arraycopy(spans, 0, grown, 0, spans.length);
+                spans = grown;
+            }
+
+            spans[spanCount * SPAN_FIELDS] = start;
+            spans[spanCount * SPAN_FIELDS + 1] = count;
+            spans[spanCount * SPAN_FIELDS + SPAN_STYLES] = styles(content, stylesStart, stylesEnd);
+            spanCount++;
+
+            i = end + 1;
+        }
+
+        return trimmed(out, count, spans, spanCount);
+    }
+
+    /**
+     * Skips leading whitespace, as String.trim() does.
+     *
+     * @param text Text
+     * @param start Index to start at
+     * @param end Index after the end
+     *
+     * @return Index of the first character that isn't whitespace, or end
+     */
+    private static int trimStart(final String text, final int start, final int end)
+    {
+        int i = start;
+        while (i < end && text.charAt(i) <= ' ')
+        {
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * Skips trailing whitespace, as String.trim() does.
+     *
+     * @param text Text
+     * @param start Index to stop at
+     * @param end Index after the end
+     *
+     * @return Index after the last character that isn't whitespace, or start
+     */
+    private static int trimEnd(final String text, final int start, final int end)
+    {
+        int i = end;
+        while (i > start && text.charAt(i - 1) <= ' ')
+        {
+            i--;
+        }
+
+        return i;
+    }
+
+    /**
+     * Matches formatting, "%(letters)text%", at an index.
+     *
+     * @param text Text
+     * @param start Index of the opening %
+     * @param length Index after the end of the text
+     *
+     * @return Index of the closing %, or -1 if there's no formatting at the index
+     */
+    private static int matchFormat(final String text, final int start, final int length)
+    {
+        int i = start + 1;
+        if (i >= length || text.charAt(i) != '(')
+        {
+            return -1;
+        }
+
+        // at least one letter
+        int lettersStart = ++i;
+        while (i < length && isAsciiLetter(text.charAt(i)))
+        {
+            i++;
+        }
+
+        if (i == lettersStart || i >= length || text.charAt(i) != ')')
+        {
+            return -1;
+        }
+
+        // at least one character of text
+        int textStart = ++i;
+        while (i < length && text.charAt(i) != '%')
+        {
+            i++;
+        }
+
+        if (i == textStart || i >= length)
+        {
+            return -1;
+        }
+
+        return i;
+    }
+
+    /**
+     * Determines if a character is an ASCII letter.
+     *
+     * @param c Character
+     *
+     * @return True if the character is a-z or A-Z
+     */
+    private static boolean isAsciiLetter(final char c)
+    {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * Gets the styles of formatting letters.
+     *
+     * @param text Text
+     * @param start Index of the first letter
+     * @param end Index after the last letter
+     *
+     * @return Styles
+     */
+    private static int styles(final String text, final int start, final int end)
+    {
+        int length = end - start;
+
+        if (length == "hl".length() && text.regionMatches(true, start, "hl", 0, length))
+        {
+            return STYLE_HIGHLIGHT;
+        }
+
+        if (length == "ul".length() && text.regionMatches(true, start, "ul", 0, length))
+        {
+            return STYLE_UNDERLINE;
+        }
+
+        if (length == "bold".length() && text.regionMatches(true, start, "bold", 0, length))
+        {
+            return STYLE_BOLD;
+        }
+
+        // a combination of b, i and u
+        int styles = 0;
+        for (int i = start; i < end; i++)
+        {
+            switch (Character.toLowerCase(text.charAt(i)))
+            {
+                case 'b':
+                    styles |= STYLE_BOLD;
+                    break;
+
+                case 'i':
+                    styles |= STYLE_ITALIC;
+                    break;
+
+                case 'u':
+                    styles |= STYLE_UNDERLINE;
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return styles;
+    }
+
+    /**
+     * Trims formatted text, moving its spans to match.
+     *
+     * @param out Formatted text
+     * @param count Length of the formatted text
+     * @param spans Spans
+     * @param spanCount Number of spans
+     *
+     * @return Formatted content
+     */
+    private static TodoistFormattedContent trimmed(
+        final char[] out,
+        final int count,
+        final int[] spans,
+        final int spanCount)
+    {
+        int end = count;
+        while (end > 0 && out[end - 1] <= ' ')
+        {
+            end--;
+        }
+
+        int start = 0;
+        while (start < end && out[start] <= ' ')
+        {
+            start++;
+        }
+
+        int kept = 0;
+        for (int i = 0; i < spanCount; i++)
+        {
+            int spanStart = Math.max(spans[i * SPAN_FIELDS], start) - start;
+            int spanEnd = Math.min(spans[i * SPAN_FIELDS + 1], end) - start;
+
+            // styled whitespace that was trimmed away
+            if (spanStart < spanEnd)
+            {
+                spans[kept * SPAN_FIELDS] = spanStart;
+                spans[kept * SPAN_FIELDS + 1] = spanEnd;
+                spans[kept * SPAN_FIELDS + SPAN_STYLES] = spans[i * SPAN_FIELDS + SPAN_STYLES];
+                kept++;
+            }
+        }
+
+        return new TodoistFormattedContent(new String(out, start, end - start), spans, kept);
+    }
+
+    /**
+     * Gets the text, without formatting.
+     *
+     * @return Text
+     */
+    public String getText()
+    {
+        return _text;
+    }
+
+    /**
+     * Gets the number of styled spans.
+     *
+     * @return Number of spans
+     */
+    public int getSpanCount()
+    {
+        return _spanCount;
+    }
+
+    /**
+     * Gets the start of a span.
+     *
+     * @param span Span index
+     *
+     * @return Index of the span's first character in the text
+     */
+    public int getSpanStart(final int span)
+    {
+        return _spans[span * SPAN_FIELDS];
+    }
+
+    /**
+     * Gets the end of a span.
+     *
+     * @param span Span index
+     *
+     * @return Index after the span's last character in the text
+     */
+    public int getSpanEnd(final int span)
+    {
+        return _spans[span * SPAN_FIELDS + 1];
+    }
+
+    /**
+     * Gets the styles of a span.
+     *
+     * @param span Span index
+     *
+     * @return Styles (STYLE_ flags)
+     */
+    public int getSpanStyles(final int span)
+    {
+        return _spans[span * SPAN_FIELDS + SPAN_STYLES];
+    }
+
+    /**
+     * Gets the text with its styles, for a TextView.
+     *
+     * @return Styled text, or the plain text if it has no styles
+     */
+    public synchronized CharSequence getStyledText()
+    {
+        if (_styledText != null)
+        {
+            return _styledText;
+        }
+
+        if (_spanCount == 0)
+        {
+            _styledText = _text;
+            return _styledText;
+        }
+
+        SpannableString styled = new SpannableString(_text);
+        for (int i = 0; i < _spanCount; i++)
+        {
+            int start = getSpanStart(i);
+            int end = getSpanEnd(i);
+            int styles = getSpanStyles(i);
+
+            int typeface = Typeface.NORMAL;
+            if ((styles & STYLE_BOLD) != 0)
+            {
+                typeface |= Typeface.BOLD;
+            }
+
+            if ((styles & STYLE_ITALIC) != 0)
+            {
+                typeface |= Typeface.ITALIC;
+            }
+
+            if (typeface != Typeface.NORMAL)
+            {
+                styled.setSpan(new StyleSpan(typeface), start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+
+            if ((styles & STYLE_HIGHLIGHT) != 0)
+            {
+                styled.setSpan(new BackgroundColorSpan(HIGHLIGHT_COLOR),
+                               start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+
+            if ((styles & STYLE_UNDERLINE) != 0)
+            {
+                styled.setSpan(new UnderlineSpan(), start, end, Spannable.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+        }
+
+        _styledText = styled;
+        return _styledText;
+    }
+}
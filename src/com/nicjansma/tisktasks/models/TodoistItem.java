@@ -2,9 +2,8 @@ package com.nicjansma.tisktasks.models;
 
 import android.graphics.Color;
 
+import java.io.IOException;
 import java.util.Date;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.joda.time.DateTime;
 import org.json.JSONException;
@@ -48,15 +47,30 @@ public final class TodoistItem
     private String _content;
 
     /**
-     * Content for display (content with formatting stripped).
+     * Content for display (content with formatting parsed out), or null if it hasn't been parsed.
      */
-    private String _contentForDisplay;
+    private TodoistFormattedContent _formattedContent;
 
     /**
-     * Due date time.
+     * Due date (epoch milliseconds), or TodoistDueDateParser.NO_DATE.
+     */
+    private long _dueMillis = TodoistDueDateParser.NO_DATE;
+
+    /**
+     * Due date time, created from the due date when it's first needed.
      */
     private DateTime _dueDateTime;
 
+    /**
+     * Formatted due date, cached for the day it was formatted in.
+     */
+    private TodoistDueDate _formattedDueDate;
+
+    /**
+     * Day rollover generation the due date was formatted in.
+     */
+    private int _formattedDueDateGeneration;
+
     /**
      * Due date string.
      */
@@ -119,22 +133,46 @@ public final class TodoistItem
         _userId = userId;
         _projectId = projectId;
         _content = content;
-        _contentForDisplay = null;
+        _formattedContent = null;
+        _dueDateUserString = "";
         setDueDate(dueDateString);
         _inHistory = inHistory;
     }
 
+    /**
+     * Copy constructor.
+     *
+     * @param other Task to copy
+     */
+    public TodoistItem(final TodoistItem other)
+    {
+        super(other);
+
+        _userId = other._userId;
+        _projectId = other._projectId;
+        _content = other._content;
+        _formattedContent = other._formattedContent;
+        _dueMillis = other._dueMillis;
+        _dueDateTime = other._dueDateTime;
+        _dueDateString = other._dueDateString;
+        _dueDateUserString = other._dueDateUserString;
+        _inHistory = other._inHistory;
+        _priority = other._priority;
+        _checked = other._checked;
+    }
+
     @Override
     protected void initializeInternalTodoist(final JSONObject json)
     {
         _userId = json.optLong("user_id");
         _projectId = json.optLong("project_id");
         _content = json.optString("content");
-        _contentForDisplay = null;
+        _formattedContent = null;
         _inHistory = json.optInt("in_history", 0) == 1;
         _priority = json.optInt("priority");
         _checked = json.optInt("checked", 0) == 1;
         _dueDateUserString = json.optString("date_string");
+        _formattedDueDate = null;
 
         if (json.has("due_date") && !json.isNull("due_date"))
         {
@@ -142,6 +180,79 @@ public final class TodoistItem
         }
     }
 
+    @Override
+    protected void clearTodoist()
+    {
+        _userId = 0;
+        _projectId = 0;
+        _content = "";
+        _formattedContent = null;
+        _dueMillis = TodoistDueDateParser.NO_DATE;
+        _dueDateTime = null;
+        _formattedDueDate = null;
+        _dueDateString = null;
+        _inHistory = false;
+        _priority = 0;
+        _checked = false;
+        _dueDateUserString = "";
+    }
+
+    @Override
+    protected boolean readFieldTodoist(final String name, final JsonPullParser parser)
+        throws IOException, JSONException
+    {
+        if (name.equals("user_id"))
+        {
+            _userId = parser.nextLong(0);
+        }
+        else if (name.equals("project_id"))
+        {
+            _projectId = parser.nextLong(0);
+        }
+        else if (name.equals("content"))
+        {
+            _content = parser.nextString("");
+            _formattedContent = null;
+        }
+        else if (name.equals("in_history"))
+        {
+            _inHistory = parser.nextInt(0) == 1;
+        }
+        else if (name.equals("priority"))
+        {
+            _priority = parser.nextInt(0);
+        }
+        else if (name.equals("checked"))
+        {
+            _checked = parser.nextInt(0) == 1;
+        }
+        else if (name.equals("date_string"))
+        {
+            _dueDateUserString = parser.nextString("");
+            _formattedDueDate = null;
+        }
+        else if (name.equals("due_date") && parser.peek() != JsonPullParser.Token.NULL)
+        {
+            // parsed once the object ends, as whether it has a time depends on date_string
+            _dueDateString = parser.nextString("");
+        }
+        else
+        {
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    protected void afterReadTodoist()
+    {
+        String dueDateString = _dueDateString;
+        _dueDateString = null;
+
+        setDueDate(dueDateString);
+    }
+
     @Override
     protected JSONObject toJsonInternalTodoist(final JSONObject json)
     {
@@ -164,6 +275,36 @@ public final class TodoistItem
         return json;
     }
 
+    @Override
+    protected int contentHashTodoist(final int hash)
+    {
+        int result = combineHash(hash, _userId);
+        result = combineHash(result, _projectId);
+        result = combineHash(result, _content);
+        result = combineHash(result, _inHistory);
+        result = combineHash(result, _priority);
+        result = combineHash(result, _checked);
+        result = combineHash(result, _dueDateUserString);
+        result = combineHash(result, _dueDateString);
+
+        return result;
+    }
+
+    @Override
+    protected boolean sameContentTodoist(final TodoistObjectBase other)
+    {
+        TodoistItem task = (TodoistItem) other;
+
+        return task._userId == _userId
+               && task._projectId == _projectId
+               && sameString(task._content, _content)
+               && task._inHistory == _inHistory
+               && task._priority == _priority
+               && task._checked == _checked
+               && sameString(task._dueDateUserString, _dueDateUserString)
+               && sameString(task._dueDateString, _dueDateString);
+    }
+
     /**
      * Sets the due date.
      *
@@ -173,17 +314,25 @@ public final class TodoistItem
     {
         if (dueDateString != null && dueDateString.length() > 0)
         {
-            Date parsedDate = new Date(Date.parse(dueDateString));
-            _dueDateTime = new DateTime(parsedDate);
+            TodoistDueDateParser parser = TodoistDueDateParser.batch();
+
+            long millis = parser.parse(dueDateString);
+            if (millis == TodoistDueDateParser.NO_DATE)
+            {
+                // not Todoist's usual format
+                millis = Date.parse(dueDateString);
+            }
 
             if (hasTimeSpecified())
             {
                 // the due date is set to 11:59:59 on the date of, unless the time is set as well.
                 // In that case, we need to apply the TZ offset
-                int offsetHours = ServiceLocator.userManager().getCurrentUser().getTimeZoneOffsetHours();
-                _dueDateTime = _dueDateTime.plusHours(offsetHours);
+                millis += parser.getUserOffset();
             }
 
+            _dueMillis = millis;
+            _dueDateTime = null;
+            _formattedDueDate = null;
             _dueDateString = dueDateString;
         }
     }
@@ -211,13 +360,38 @@ public final class TodoistItem
     /**
      * Gets the due date.
      *
-     * @return Due date
+     * @return Due date, or null if there isn't one
      */
     public DateTime getDueDate()
     {
+        if (_dueDateTime == null && _dueMillis != TodoistDueDateParser.NO_DATE)
+        {
+            _dueDateTime = new DateTime(_dueMillis);
+        }
+
         return _dueDateTime;
     }
 
+    /**
+     * Gets the due date, without creating a DateTime.
+     *
+     * @return Due date (epoch milliseconds), or TodoistDueDateParser.NO_DATE if there isn't one
+     */
+    public long getDueMillis()
+    {
+        return _dueMillis;
+    }
+
+    /**
+     * Determines if the task has a due date.
+     *
+     * @return True if the task has a due date
+     */
+    public boolean hasDueDate()
+    {
+        return _dueMillis != TodoistDueDateParser.NO_DATE;
+    }
+
     /**
      * Gets the due date string.
      *
@@ -241,11 +415,25 @@ public final class TodoistItem
     /**
      * Gets a formatted date.
      *
+     * The label and color depend on today's date, so they're formatted once per day and cached until the day
+     * rolls over.
+     *
      * @return The formatted date
      */
     public TodoistDueDate getFormattedDueDate()
     {
-        return new TodoistDueDate(_dueDateTime, hasTimeSpecified());
+        int generation = ServiceLocator.dayRollover().getGeneration();
+
+        TodoistDueDate formatted = _formattedDueDate;
+        if (formatted == null || _formattedDueDateGeneration != generation)
+        {
+            formatted = new TodoistDueDate(getDueDate(), hasTimeSpecified());
+
+            _formattedDueDate = formatted;
+            _formattedDueDateGeneration = generation;
+        }
+
+        return formatted;
     }
 
     /**
@@ -316,51 +504,42 @@ public final class TodoistItem
     }
 
     /**
-     * Gets the simplified name of a task.
-     *
-     * For example, if the task starts with a asterisk (*), it is removed.
+     * Gets the task's content with its formatting parsed out.
      *
-     * @return Simplified name of a task
+     * @return Formatted content
      */
-    public String getContentForDisplay()
+    public TodoistFormattedContent getFormattedContent()
     {
-        if (_contentForDisplay != null)
+        TodoistFormattedContent formatted = _formattedContent;
+        if (formatted == null)
         {
-            return _contentForDisplay;
+            formatted = TodoistFormattedContent.parse(_content);
+            _formattedContent = formatted;
         }
 
-        _contentForDisplay = _content.trim();
-
-        // strip leading *
-        if (_contentForDisplay.startsWith("*"))
-        {
-            _contentForDisplay = _contentForDisplay.substring(1).trim();
-        }
-
-        // look for and strip formatting
-        if (_contentForDisplay.contains("%("))
-        {
-            //
-            // Formatting:
-            //  %(b)bold% %(bold)bold%
-            //  %(i)italics%
-            //  %(hl)highlight%
-            //  %(ul)underline%
-            //  %(bi)italics bold% %(ib)italics bold%
-            //  %(u)underline%
-            //  %nothing%
-            //  %()nothing%
-            //
-
-            // use a regular expression to remove formatting tokens
-            Pattern pattern = Pattern.compile("%\\([a-zA-Z]+\\)([^%]+)%");
-            Matcher matcher = pattern.matcher(_contentForDisplay);
-            _contentForDisplay = matcher.replaceAll("$1");
-        }
+        return formatted;
+    }
 
-        _contentForDisplay = _contentForDisplay.trim();
+    /**
+     * Gets the simplified name of a task.
+     *
+     * For example, if the task starts with a asterisk (*), it is removed, as is Todoist's formatting.
+     *
+     * @return Simplified name of a task
+     */
+    public String getContentForDisplay()
+    {
+        return getFormattedContent().getText();
+    }
 
-        return _contentForDisplay;
+    /**
+     * Gets the simplified name of a task, styled as its formatting asks.
+     *
+     * @return Styled name of a task
+     */
+    public CharSequence getStyledContentForDisplay()
+    {
+        return getFormattedContent().getStyledText();
     }
 
     /**
@@ -1,5 +1,6 @@
 package com.nicjansma.tisktasks.models;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 import org.json.JSONException;
@@ -12,6 +13,7 @@ import com.nicjansma.library.net.CacheableJsonObjectBase;
  */
 public abstract class TodoistObjectBase
     extends CacheableJsonObjectBase
+    implements IJsonPullDecodable
 {
     //
     // Constants
@@ -26,6 +28,16 @@ public abstract class TodoistObjectBase
      */
     public static final int INDENT_PIXELS = 32;
 
+    /**
+     * Multiplier for combining content hashes.
+     */
+    private static final int HASH_PRIME = 31;
+
+    /**
+     * Shift for folding long values into content hashes.
+     */
+    private static final int HASH_LONG_SHIFT = 32;
+
     //
     // Extension methods
     //
@@ -36,6 +48,32 @@ public abstract class TodoistObjectBase
      */
     protected abstract void initializeInternalTodoist(JSONObject json);
 
+    /**
+     * Resets this object's fields to the defaults of a JSONObject that doesn't have them.
+     */
+    protected abstract void clearTodoist();
+
+    /**
+     * Initializes one of this object's fields from a JSON stream.
+     *
+     * @param name Field name
+     * @param parser Parser, positioned before the field's value
+     *
+     * @return True if the value was consumed, false if the field is unknown
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    protected abstract boolean readFieldTodoist(String name, JsonPullParser parser)
+        throws IOException, JSONException;
+
+    /**
+     * Finishes initializing this object from a JSON stream, once all of its fields have been read.
+     *
+     * Fields can come in any order, so anything that depends on more than one field is worked out here.
+     */
+    protected abstract void afterReadTodoist();
+
     /**
      * Serializes this object to a JSONObject.
      *
@@ -52,6 +90,24 @@ public abstract class TodoistObjectBase
      */
     public abstract String getText();
 
+    /**
+     * Combines this object's content into a hash.
+     *
+     * @param hash Hash of the base object's content
+     *
+     * @return Updated hash
+     */
+    protected abstract int contentHashTodoist(int hash);
+
+    /**
+     * Determines whether another object of the same class has the same content as this one.
+     *
+     * @param other Other object, of this object's class
+     *
+     * @return True if the content is the same
+     */
+    protected abstract boolean sameContentTodoist(TodoistObjectBase other);
+
     //
     // Privates
     //
@@ -86,7 +142,7 @@ public abstract class TodoistObjectBase
     private TodoistObjectBase _parent;
 
     /**
-     * Array of children.
+     * Array of direct children, in list order.
      */
     private ArrayList<TodoistObjectBase> _children = new ArrayList<TodoistObjectBase>();
 
@@ -115,6 +171,21 @@ public abstract class TodoistObjectBase
         _itemOrder = itemOrder;
     }
 
+    /**
+     * Copy constructor.
+     *
+     * Copies the object's content, but not its place in a hierarchy.
+     *
+     * @param other Object to copy
+     */
+    protected TodoistObjectBase(final TodoistObjectBase other)
+    {
+        _id = other._id;
+        _collapsed = other._collapsed;
+        _indent = other._indent;
+        _itemOrder = other._itemOrder;
+    }
+
     @Override
     protected final void initializeInternal(final JSONObject json)
     {
@@ -131,6 +202,53 @@ public abstract class TodoistObjectBase
         initializeInternalTodoist(json);
     }
 
+    @Override
+    public final void initialize(final JsonPullParser parser)
+        throws IOException, JSONException
+    {
+        _id = 0;
+        _collapsed = false;
+        setIndent(0);
+        _itemOrder = 0;
+        _isParent = false;
+        _parent = null;
+
+        clearTodoist();
+
+        parser.beginObject();
+
+        while (parser.hasNext())
+        {
+            String name = parser.nextName();
+
+            if (name.equals("id"))
+            {
+                _id = parser.nextLong(0);
+            }
+            else if (name.equals("collapsed"))
+            {
+                _collapsed = parser.nextInt(0) == 1;
+            }
+            else if (name.equals("indent"))
+            {
+                // fix-up indent
+                setIndent(parser.nextInt(0));
+            }
+            else if (name.equals("item_order"))
+            {
+                _itemOrder = parser.nextInt(0);
+            }
+            else if (!readFieldTodoist(name, parser))
+            {
+                parser.skipValue();
+            }
+        }
+
+        parser.endObject();
+
+        afterReadTodoist();
+    }
+
     @Override
     protected final JSONObject toJsonInternal(final JSONObject json)
     {
@@ -149,6 +267,95 @@ public abstract class TodoistObjectBase
         return toJsonInternalTodoist(json);
     }
 
+    /**
+     * Gets a hash of the object's content, for detecting changes between imports.
+     *
+     * Computed from the same fields that are serialized.
+     *
+     * @return Content hash
+     */
+    public final int getContentHash()
+    {
+        int hash = combineHash(0, _id);
+        hash = combineHash(hash, _collapsed);
+        hash = combineHash(hash, _indent);
+        hash = combineHash(hash, _itemOrder);
+
+        return contentHashTodoist(hash);
+    }
+
+    /**
+     * Determines whether another object has the same content as this one.
+     *
+     * Compares the fields the content hash is computed from, to confirm a hash match.
+     *
+     * @param other Other object, or null
+     *
+     * @return True if the content is the same
+     */
+    public final boolean sameContent(final TodoistObjectBase other)
+    {
+        return other != null
+               && other.getClass() == getClass()
+               && other._id == _id
+               && other._collapsed == _collapsed
+               && other._indent == _indent
+               && other._itemOrder == _itemOrder
+               && sameContentTodoist(other);
+    }
+
+    /**
+     * Compares two strings, either of which may be null.
+     *
+     * @param a First string, or null
+     * @param b Second string, or null
+     *
+     * @return True if both are null or they're equal
+     */
+    protected static boolean sameString(final String a, final String b)
+    {
+        return (a == null) ? (b == null) : a.equals(b);
+    }
+
+    /**
+     * Combines a value into a content hash.
+     *
+     * @param hash Current hash
+     * @param value Value
+     *
+     * @return Updated hash
+     */
+    protected static int combineHash(final int hash, final long value)
+    {
+        return hash * HASH_PRIME + (int) (value ^ (value >>> HASH_LONG_SHIFT));
+    }
+
+    /**
+     * Combines a value into a content hash.
+     *
+     * @param hash Current hash
+     * @param value Value
+     *
+     * @return Updated hash
+     */
+    protected static int combineHash(final int hash, final boolean value)
+    {
+        return hash * HASH_PRIME + (value ? 1 : 0);
+    }
+
+    /**
+     * Combines a value into a content hash.
+     *
+     * @param hash Current hash
+     * @param value Value, or null
+     *
+     * @return Updated hash
+     */
+    protected static int combineHash(final int hash, final String value)
+    {
+        return hash * HASH_PRIME + (value != null ? value.hashCode() : 0);
+    }
+
     /**
      * Gets the object's ID.
      *
@@ -334,7 +541,8 @@ public abstract class TodoistObjectBase
      */
     public final void clearChildren()
     {
-        _children = new ArrayList<TodoistObjectBase>();
+        _children.clear();
+        _isParent = false;
     }
 
     /**
@@ -345,6 +553,60 @@ public abstract class TodoistObjectBase
     public final void addChild(final TodoistObjectBase child)
     {
         _children.add(child);
+        _isParent = true;
+    }
+
+    /**
+     * Inserts a direct child object at the specified position in the children list.
+     *
+     * @param index Position in the children list
+     * @param child Child object
+     */
+    final void insertChild(final int index, final TodoistObjectBase child)
+    {
+        _children.add(index, child);
+        _isParent = true;
+    }
+
+    /**
+     * Removes a direct child object.
+     *
+     * @param child Child object
+     */
+    final void removeChild(final TodoistObjectBase child)
+    {
+        for (int i = _children.size() - 1; i >= 0; i--)
+        {
+            if (_children.get(i) == child)
+            {
+                _children.remove(i);
+                break;
+            }
+        }
+
+        _isParent = _children.size() > 0;
+    }
+
+    /**
+     * Gets the number of direct children.
+     *
+     * @return Number of direct children
+     */
+    final int getChildCount()
+    {
+        return _children.size();
+    }
+
+    /**
+     * Gets a direct child.
+     *
+     * @param index Position in the children list
+     *
+     * @return Child object
+     */
+    final TodoistObjectBase getChild(final int index)
+    {
+        return _children.get(index);
     }
 
     /**
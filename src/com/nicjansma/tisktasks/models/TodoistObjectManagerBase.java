@@ -1,10 +1,16 @@
 package com.nicjansma.tisktasks.models;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Base object manager.
  *
+ * Changes are made to a private working array, under the manager's lock.  After each change (or batch of
+ * changes), the working array is published as an immutable snapshot for readers on other threads.  The
+ * next change copies the array before modifying it, so published snapshots never change.
+ *
  * @param <T> Object type
  */
 public abstract class TodoistObjectManagerBase<T extends TodoistObjectBase>
@@ -15,17 +21,87 @@ public abstract class TodoistObjectManagerBase<T extends TodoistObjectBase>
     //
     /**
      * Called after a change is made (importArray, add, updateOrders, update, delete, appendArray).
+     *
+     * Within a batch, called once when the batch is committed.
      */
     protected abstract void postChangeHook();
 
+    /**
+     * Called when an object is added to the array (including the new object of a replacement).
+     *
+     * Called immediately, even within a batch.
+     *
+     * @param obj Object
+     */
+    protected abstract void addedHook(T obj);
+
+    /**
+     * Called when an object is removed from the array (including the old object of a replacement).
+     *
+     * Called immediately, even within a batch.
+     *
+     * @param obj Object
+     */
+    protected abstract void removedHook(T obj);
+
     //
     // Privates
     //
     /**
-     * The array of objects.
+     * The working array of objects.
      */
     private ArrayList<T> _objects = new ArrayList<T>();
 
+    /**
+     * The array of objects backing the published snapshot.
+     */
+    private ArrayList<T> _publishedObjects = _objects;
+
+    /**
+     * The published snapshot.
+     */
+    private volatile List<T> _snapshot = Collections.unmodifiableList(_objects);
+
+    /**
+     * The published snapshot of visible objects (those not under a collapsed parent).
+     */
+    private volatile List<T> _visibleSnapshot = _snapshot;
+
+    /**
+     * Whether or not the visible objects need to be rebuilt on the next publish.
+     */
+    private boolean _visibleDirty;
+
+    /**
+     * Object ID to its index in the array of objects.
+     */
+    private final LongIntHashMap _indexes = new LongIntHashMap();
+
+    /**
+     * Number of open batches.
+     */
+    private int _batchDepth;
+
+    /**
+     * Whether or not a change was made during the current batch.
+     */
+    private boolean _batchChanged;
+
+    /**
+     * First position whose hierarchy needs updating.
+     */
+    private int _dirtyFrom;
+
+    /**
+     * Position after the last position whose hierarchy needs updating.
+     */
+    private int _dirtyTo;
+
+    /**
+     * Lowest indent of any object removed or replaced within the dirty range.
+     */
+    private int _dirtyMinIndent = Integer.MAX_VALUE;
+
     @Override
     public final ArrayList<T> getArray()
     {
@@ -33,96 +109,564 @@ public abstract class TodoistObjectManagerBase<T extends TodoistObjectBase>
     }
 
     @Override
-    public final void clearArray()
+    public final List<T> getSnapshot()
     {
-        _objects.clear();
+        return _snapshot;
+    }
+
+    /**
+     * Gets the working array of objects for a change, copying it first if it has been published.
+     *
+     * @return Working array of objects
+     */
+    private ArrayList<T> mutableObjects()
+    {
+        if (_objects == _publishedObjects)
+        {
+            _objects = new ArrayList<T>(_publishedObjects);
+        }
+
+        return _objects;
     }
 
     @Override
-    public final void importArray(final ArrayList<T> objects)
+    public final List<T> getVisibleSnapshot()
     {
-        _objects = objects;
-        updateHierarchy();
+        return _visibleSnapshot;
+    }
 
-        postChangeHook();
+    /**
+     * Publishes the working array of objects as the current snapshot.
+     */
+    private void publish()
+    {
+        if (_objects != _publishedObjects || _visibleDirty)
+        {
+            _publishedObjects = _objects;
+            _snapshot = Collections.unmodifiableList(_objects);
+
+            ArrayList<T> visible = new ArrayList<T>(_objects.size());
+            addVisible(visible, 0, _objects.size());
+            _visibleSnapshot = Collections.unmodifiableList(visible);
+
+            _visibleDirty = false;
+        }
+    }
+
+    /**
+     * Adds the visible objects within a range of the working array.
+     *
+     * Descendants of collapsed objects are skipped.
+     *
+     * @param visible Visible objects to add to
+     * @param from First position
+     * @param to Position after the last position
+     */
+    private void addVisible(final ArrayList<T> visible, final int from, final int to)
+    {
+        int i = from;
+        while (i < to)
+        {
+            T obj = _objects.get(i);
+            visible.add(obj);
+            i++;
+
+            if (obj.isCollapsed())
+            {
+                while (i < to && _objects.get(i).getIndent() > obj.getIndent())
+                {
+                    i++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public final synchronized void setCollapsed(final T obj, final boolean collapsed)
+    {
+        if (obj.isCollapsed() == collapsed)
+        {
+            return;
+        }
+
+        obj.setCollapsed(collapsed);
+
+        int pos = getIndex(obj.getId());
+        if (pos == -1)
+        {
+            return;
+        }
+
+        List<T> visible = _visibleSnapshot;
+        int visiblePos = (_batchDepth == 0) ? findVisible(visible, pos) : -1;
+        if (visiblePos == -1)
+        {
+            // in a batch, or under a collapsed parent: rebuild when published
+            _visibleDirty = true;
+            if (_batchDepth == 0)
+            {
+                publish();
+            }
+
+            return;
+        }
+
+        // splice the object's descendants in or out after it
+        int rest = visiblePos + 1;
+        while (rest < visible.size() && visible.get(rest).getIndent() > obj.getIndent())
+        {
+            rest++;
+        }
+
+        ArrayList<T> newVisible = new ArrayList<T>(collapsed ? visible.size() : _objects.size());
+        newVisible.addAll(visible.subList(0, visiblePos + 1));
+
+        if (!collapsed)
+        {
+            int end = pos + 1;
+            while (end < _objects.size() && _objects.get(end).getIndent() > obj.getIndent())
+            {
+                end++;
+            }
+
+            addVisible(newVisible, pos + 1, end);
+        }
+
+        newVisible.addAll(visible.subList(rest, visible.size()));
+
+        _visibleSnapshot = Collections.unmodifiableList(newVisible);
+    }
+
+    /**
+     * Finds an object in the visible objects.
+     *
+     * @param visible Visible objects, in the same order as the working array
+     * @param pos Object's position in the working array
+     *
+     * @return Position in the visible objects, or -1 if it isn't visible
+     */
+    private int findVisible(final List<T> visible, final int pos)
+    {
+        int low = 0;
+        int high = visible.size() - 1;
+
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            int midPos = getIndex(visible.get(mid).getId());
+
+            if (midPos < pos)
+            {
+                low = mid + 1;
+            }
+            else if (midPos > pos)
+            {
+                high = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+
+        return -1;
     }
 
     @Override
-    public final void appendArray(final ArrayList<T> objects)
+    public final synchronized void clearArray()
     {
-        _objects.addAll(objects);
-        updateHierarchy();
+        for (int i = 0; i < _objects.size(); i++)
+        {
+            removedHook(_objects.get(i));
+        }
+
+        _objects = new ArrayList<T>();
+        _indexes.clear();
+        clearDirty();
+
+        if (_batchDepth == 0)
+        {
+            publish();
+        }
+    }
+
+    @Override
+    public final synchronized boolean importArray(final ArrayList<T> objects)
+    {
+        LongIntHashMap newIndexes = new LongIntHashMap(objects.size());
+        for (int j = 0; j < objects.size(); j++)
+        {
+            newIndexes.putIfAbsent(objects.get(j).getId(), j);
+        }
+
+        // walk both arrays, keeping unchanged objects
+        ArrayList<T> merged = new ArrayList<T>(objects.size());
+        int first = -1;
+        int last = 0;
+        int minIndent = Integer.MAX_VALUE;
+
+        int i = 0;
+        int j = 0;
+        while (i < _objects.size() || j < objects.size())
+        {
+            T oldObj = (i < _objects.size()) ? _objects.get(i) : null;
+            T newObj = (j < objects.size()) ? objects.get(j) : null;
+            int pos = merged.size();
+
+            if (oldObj != null && newObj != null && oldObj.getId() == newObj.getId())
+            {
+                i++;
+                j++;
+
+                // a hash match is confirmed, so a collision can't hide a change
+                if (oldObj.getContentHash() == newObj.getContentHash() && oldObj.sameContent(newObj))
+                {
+                    merged.add(oldObj);
+                    continue;
+                }
+
+                unlinkFromParent(oldObj);
+                minIndent = Math.min(minIndent, oldObj.getIndent());
+                merged.add(newObj);
+                removedHook(oldObj);
+                addedHook(newObj);
+            }
+            else if (oldObj != null
+                     && (newObj == null
+                         || !newIndexes.containsKey(oldObj.getId())
+                         || _indexes.containsKey(newObj.getId())))
+            {
+                // removed, or moved (moved objects are inserted again at their new position)
+                i++;
+
+                _indexes.remove(oldObj.getId());
+                unlinkFromParent(oldObj);
+                minIndent = Math.min(minIndent, oldObj.getIndent());
+                removedHook(oldObj);
+            }
+            else
+            {
+                j++;
+
+                merged.add(newObj);
+                addedHook(newObj);
+            }
+
+            if (first == -1)
+            {
+                first = pos;
+            }
+
+            last = merged.size();
+        }
+
+        // nothing changed
+        if (first == -1)
+        {
+            return false;
+        }
+
+        _objects = merged;
+        _indexes.clear(_objects.size());
+        reindexFrom(0);
+
+        // positions of an earlier change in this batch may have moved, so re-link to the end
+        boolean wasDirty = _dirtyFrom < _dirtyTo;
+        markDirty(first, wasDirty ? _objects.size() : Math.max(last, first + 1), minIndent);
+        changed();
+
+        return true;
+    }
+
+    @Override
+    public final synchronized void appendArray(final ArrayList<T> objects)
+    {
+        int start = _objects.size();
+        mutableObjects().addAll(objects);
+        reindexFrom(start);
+
+        for (int i = 0; i < objects.size(); i++)
+        {
+            addedHook(objects.get(i));
+        }
+
+        markDirty(start, _objects.size(), Integer.MAX_VALUE);
+        changed();
+    }
+
+    @Override
+    public final synchronized void beginBatch()
+    {
+        _batchDepth++;
+    }
+
+    @Override
+    public final synchronized void commitBatch()
+    {
+        if (_batchDepth == 0)
+        {
+            throw new IllegalStateException("commitBatch() without beginBatch()");
+        }
+
+        _batchDepth--;
+
+        if (_batchDepth == 0 && _batchChanged)
+        {
+            _batchChanged = false;
+            changed();
+        }
+        else if (_batchDepth == 0)
+        {
+            publish();
+        }
+    }
+
+    /**
+     * Updates the hierarchy and runs the post-change hook, unless a batch is open.
+     */
+    private void changed()
+    {
+        if (_batchDepth > 0)
+        {
+            _batchChanged = true;
+            return;
+        }
+
+        if (_dirtyFrom < _dirtyTo)
+        {
+            updateHierarchy(_dirtyFrom, _dirtyTo, _dirtyMinIndent);
+        }
+
+        clearDirty();
+
+        publish();
 
         postChangeHook();
     }
 
+    /**
+     * Marks a range of positions as needing a hierarchy update.
+     *
+     * @param from First position that changed
+     * @param to Position after the last position that changed
+     * @param minIndent Lowest indent of any object removed or replaced within the range
+     */
+    private void markDirty(final int from, final int to, final int minIndent)
+    {
+        if (_dirtyFrom >= _dirtyTo)
+        {
+            _dirtyFrom = from;
+            _dirtyTo = to;
+        }
+        else
+        {
+            _dirtyFrom = Math.min(_dirtyFrom, from);
+            _dirtyTo = Math.max(_dirtyTo, to);
+        }
+
+        _dirtyMinIndent = Math.min(_dirtyMinIndent, minIndent);
+    }
+
+    /**
+     * Shifts the dirty range after objects were inserted or removed.
+     *
+     * @param at Position of the insert or removal
+     * @param count Number of objects inserted (positive) or removed (negative)
+     */
+    private void shiftDirty(final int at, final int count)
+    {
+        if (_dirtyFrom >= _dirtyTo)
+        {
+            return;
+        }
+
+        _dirtyFrom = shiftPosition(_dirtyFrom, at, count);
+        _dirtyTo = shiftPosition(_dirtyTo, at, count);
+    }
+
+    /**
+     * Shifts a position after objects were inserted or removed.
+     *
+     * @param pos Position
+     * @param at Position of the insert or removal
+     * @param count Number of objects inserted (positive) or removed (negative)
+     *
+     * @return Shifted position
+     */
+    private static int shiftPosition(final int pos, final int at, final int count)
+    {
+        if (count > 0)
+        {
+            return (pos > at) ? pos + count : pos;
+        }
+
+        // positions within the removed range collapse to its start
+        return (pos >= at - count) ? pos + count : Math.min(pos, at);
+    }
+
+    /**
+     * Clears the dirty range.
+     */
+    private void clearDirty()
+    {
+        _dirtyFrom = 0;
+        _dirtyTo = 0;
+        _dirtyMinIndent = Integer.MAX_VALUE;
+    }
+
     /**
      * Updates the hierarchy (parents, children, etc) after nodes in the tree change.
+     *
+     * Only the changed range is re-linked.  Objects before the range must already be linked.
+     * The range is extended over any following objects whose parent could have changed, which
+     * stops at the first object whose indent is at or below every indent within the range.
+     *
+     * @param from First position that changed
+     * @param to Position after the last position that changed
+     * @param minIndent Lowest indent of any object removed or replaced within the range
      */
-    private void updateHierarchy()
+    private void updateHierarchy(final int from, final int to, final int minIndent)
     {
-        // clear parents list
-        for (int i = 0; i < _objects.size(); i++)
+        int size = _objects.size();
+        if (from >= size)
         {
-            _objects.get(i).setParent(null);
+            return;
         }
 
-        // determine which have "children"
-        for (int i = 0; i < _objects.size(); i++)
+        // find the end of the affected range
+        int indent = minIndent;
+        int end = Math.min(Math.max(to, from + 1), size);
+
+        for (int i = from; i < end; i++)
+        {
+            indent = Math.min(indent, _objects.get(i).getIndent());
+        }
+
+        while (end < size && _objects.get(end).getIndent() > indent)
+        {
+            end++;
+        }
+
+        // unlink the range
+        for (int i = from; i < end; i++)
         {
             T obj = _objects.get(i);
 
-            //
-            // determine if this is a parent
-            //
-            if (i + 1 < _objects.size()
-                && _objects.get(i + 1).getIndent() > obj.getIndent())
+            TodoistObjectBase parent = obj.getParent();
+            if (parent != null)
             {
-                obj.setIsParent(true);
-
-                // set all children
-                for (int j = i + 1; j < _objects.size(); j++)
+                int parentIdx = getIndex(parent.getId());
+                if (parentIdx != -1 && parentIdx < from && _objects.get(parentIdx) == parent)
                 {
-                    if (_objects.get(j).getIndent() > obj.getIndent())
-                    {
-                        _objects.get(j).setParent(obj);
-                        obj.addChild(_objects.get(j));
-                    }
-                    else
-                    {
-                        break;
-                    }
+                    parent.removeChild(obj);
                 }
             }
+
+            obj.setParent(null);
+            obj.clearChildren();
+        }
+
+        // re-link the range: the parent is the closest previous object with a lower indent
+        for (int i = from; i < end; i++)
+        {
+            T obj = _objects.get(i);
+
+            TodoistObjectBase parent = (i > 0) ? _objects.get(i - 1) : null;
+            while (parent != null && parent.getIndent() >= obj.getIndent())
+            {
+                parent = parent.getParent();
+            }
+
+            if (parent != null)
+            {
+                obj.setParent(parent);
+                insertChildInOrder(parent, obj, i);
+            }
+        }
+    }
+
+    /**
+     * Inserts a child into its parent's children list, keeping list order.
+     *
+     * @param parent Parent object
+     * @param child Child object
+     * @param childIdx Child's position in the array of objects
+     */
+    private void insertChildInOrder(final TodoistObjectBase parent, final TodoistObjectBase child, final int childIdx)
+    {
+        int low = 0;
+        int high = parent.getChildCount();
+
+        // children are nearly always appended, so check the end first
+        if (high > 0 && getIndex(parent.getChild(high - 1).getId()) < childIdx)
+        {
+            low = high;
+        }
+
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (getIndex(parent.getChild(mid).getId()) < childIdx)
+            {
+                low = mid + 1;
+            }
             else
             {
-                obj.setIsParent(false);
+                high = mid;
             }
         }
+
+        parent.insertChild(low, child);
     }
 
     /**
-     * Gets the indent from an object ID.
+     * Removes an object from its parent's children list.
      *
-     * @param id Object ID
+     * @param obj Object
+     */
+    private static void unlinkFromParent(final TodoistObjectBase obj)
+    {
+        if (obj.getParent() != null)
+        {
+            obj.getParent().removeChild(obj);
+        }
+    }
+
+    /**
+     * Updates the ID index for all objects at or after the specified position.
      *
-     * @return Index of the object, -1 if the object doesn't exist
+     * If an ID appears more than once, the first position wins.
+     *
+     * @param start First position to index
      */
-    private int getIndex(final long id)
+    private void reindexFrom(final int start)
     {
-        for (int i = 0; i < _objects.size(); i++)
+        for (int i = start; i < _objects.size(); i++)
         {
-            if (_objects.get(i).getId() == id)
+            long id = _objects.get(i).getId();
+
+            int existing = _indexes.get(id);
+            if (existing == LongIntHashMap.NOT_FOUND || existing >= start)
             {
-                return i;
+                _indexes.put(id, i);
             }
         }
+    }
 
-        return -1;
+    /**
+     * Gets the index from an object ID.
+     *
+     * @param id Object ID
+     *
+     * @return Index of the object, -1 if the object doesn't exist
+     */
+    private int getIndex(final long id)
+    {
+        return _indexes.get(id);
     }
 
     @Override
-    public final T get(final long id)
+    public final synchronized T get(final long id)
     {
         int i = getIndex(id);
         if (i != -1)
@@ -134,58 +678,89 @@ public abstract class TodoistObjectManagerBase<T extends TodoistObjectBase>
     }
 
     @Override
-    public final void update(final T obj)
+    public final synchronized void update(final T obj)
     {
-        int i = getIndex(obj.getId());
-        if (i != -1)
-        {
-            _objects.set(i, obj);
-        }
-
-        updateHierarchy();
+        replace(obj);
 
-        postChangeHook();
+        changed();
     }
 
     @Override
-    public final void update(final ArrayList<T> objs)
+    public final synchronized void update(final ArrayList<T> objs)
     {
         for (int i = 0; i < objs.size(); i++)
         {
-            update(objs.get(i));
+            replace(objs.get(i));
         }
 
-        postChangeHook();
+        changed();
+    }
+
+    /**
+     * Replaces the object with the same ID, if it exists.
+     *
+     * @param obj New object
+     */
+    private void replace(final T obj)
+    {
+        int i = getIndex(obj.getId());
+        if (i == -1)
+        {
+            return;
+        }
+
+        T old = _objects.get(i);
+
+        unlinkFromParent(old);
+        mutableObjects().set(i, obj);
+
+        removedHook(old);
+        addedHook(obj);
+
+        // the old object's descendants are covered by its indent
+        markDirty(i, i + 1, old.getIndent());
     }
 
     @Override
-    public final void delete(final T obj)
+    public final synchronized void delete(final T obj)
     {
-        ArrayList<Long> childrenIds = obj.getAllChildrenIds(null);
+        int first = getIndex(obj.getId());
+        if (first == -1)
+        {
+            return;
+        }
 
-        int idx = getIndex(obj.getId());
-        if (idx != -1)
+        // the object's descendants directly follow it
+        int indent = _objects.get(first).getIndent();
+        int end = first + 1;
+        while (end < _objects.size() && _objects.get(end).getIndent() > indent)
         {
-            _objects.remove(idx);
+            end++;
         }
 
-        // remove all sub-objects
-        for (int i = 0; i < childrenIds.size(); i++)
+        for (int i = first; i < end; i++)
         {
-            idx = getIndex(childrenIds.get(i));
-            if (idx != -1)
+            T current = _objects.get(i);
+
+            if (getIndex(current.getId()) == i)
             {
-                _objects.remove(idx);
+                _indexes.remove(current.getId());
             }
+
+            unlinkFromParent(current);
+            removedHook(current);
         }
 
-        updateHierarchy();
+        mutableObjects().subList(first, end).clear();
+        reindexFrom(first);
 
-        postChangeHook();
+        // removing a whole subtree doesn't change the parents of any other object
+        shiftDirty(first, first - end);
+        changed();
     }
 
     @Override
-    public final void add(final T obj, final T nearObj, final Boolean before)
+    public final synchronized void add(final T obj, final T nearObj, final Boolean before)
     {
         int i = _objects.size() - 1;
 
@@ -210,18 +785,20 @@ public abstract class TodoistObjectManagerBase<T extends TodoistObjectBase>
             i = 0;
         }
 
-        _objects.add(i, obj);
+        mutableObjects().add(i, obj);
+        reindexFrom(i);
+        addedHook(obj);
 
         // orders aren't updated here
         // call updateOrders and send results to API
 
-        updateHierarchy();
-
-        postChangeHook();
+        shiftDirty(i, 1);
+        markDirty(i, i + 1, Integer.MAX_VALUE);
+        changed();
     }
 
     @Override
-    public final void updateOrders()
+    public final synchronized void updateOrders()
     {
         for (int i = 0; i < _objects.size(); i++)
         {
@@ -229,11 +806,11 @@ public abstract class TodoistObjectManagerBase<T extends TodoistObjectBase>
             _objects.get(i).setItemOrder(i + 1);
         }
 
-        postChangeHook();
+        changed();
     }
 
     @Override
-    public final ArrayList<Long> getOrders()
+    public final synchronized ArrayList<Long> getOrders()
     {
         ArrayList<Long> orders = new ArrayList<Long>();
 
@@ -246,13 +823,13 @@ public abstract class TodoistObjectManagerBase<T extends TodoistObjectBase>
     }
 
     @Override
-    public final int getCount()
+    public final synchronized int getCount()
     {
         return _objects.size();
     }
 
     @Override
-    public final T getLast()
+    public final synchronized T getLast()
     {
         if (_objects.size() == 0)
         {
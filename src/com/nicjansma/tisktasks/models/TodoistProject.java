@@ -2,9 +2,13 @@ package com.nicjansma.tisktasks.models;
 
 import android.graphics.Color;
 
+import java.io.IOException;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.nicjansma.tisktasks.ServiceLocator;
+
 /**
  * Todoist project.
  */
@@ -86,6 +90,49 @@ public final class TodoistProject
         _cacheCount = json.optInt("cache_count", 0);
     }
 
+    @Override
+    protected void clearTodoist()
+    {
+        _userId = 0;
+        _name = "Unknown";
+        _color = TodoistColor.DEFAULT_COLOR;
+        _cacheCount = 0;
+    }
+
+    @Override
+    protected void afterReadTodoist()
+    {
+        // NOP
+    }
+
+    @Override
+    protected boolean readFieldTodoist(final String name, final JsonPullParser parser)
+        throws IOException, JSONException
+    {
+        if (name.equals("user_id"))
+        {
+            _userId = parser.nextLong(0);
+        }
+        else if (name.equals("name"))
+        {
+            _name = parser.nextString("Unknown");
+        }
+        else if (name.equals("color"))
+        {
+            _color = parser.nextString(TodoistColor.DEFAULT_COLOR);
+        }
+        else if (name.equals("cache_count"))
+        {
+            _cacheCount = parser.nextInt(0);
+        }
+        else
+        {
+            return false;
+        }
+
+        return true;
+    }
+
     @Override
     protected JSONObject toJsonInternalTodoist(final JSONObject json)
     {
@@ -104,6 +151,28 @@ public final class TodoistProject
         return json;
     }
 
+    @Override
+    protected int contentHashTodoist(final int hash)
+    {
+        int result = combineHash(hash, _userId);
+        result = combineHash(result, _name);
+        result = combineHash(result, _color);
+        result = combineHash(result, _cacheCount);
+
+        return result;
+    }
+
+    @Override
+    protected boolean sameContentTodoist(final TodoistObjectBase other)
+    {
+        TodoistProject project = (TodoistProject) other;
+
+        return project._userId == _userId
+               && sameString(project._name, _name)
+               && sameString(project._color, _color)
+               && project._cacheCount == _cacheCount;
+    }
+
     /**
      * Gets the User ID.
      *
@@ -245,13 +314,15 @@ public final class TodoistProject
     /**
      * Gets the Project's Task Manager.
      *
+     * Synchronized, as projects are prefetched in the background.
+     *
      * @return Task Manager
      */
-    public ITaskManager getTaskManager()
+    public synchronized ITaskManager getTaskManager()
     {
         if (_taskManager == null)
         {
-            _taskManager = new TaskManager();
+            _taskManager = new TaskManager(ServiceLocator.taskIndex(), ServiceLocator.searchIndex());
         }
 
         return _taskManager;
@@ -262,7 +333,7 @@ public final class TodoistProject
      *
      * @param taskManager Task Manager
      */
-    public void setTaskManager(final ITaskManager taskManager)
+    public synchronized void setTaskManager(final ITaskManager taskManager)
     {
         _taskManager = taskManager;
     }
@@ -0,0 +1,183 @@
+package com.nicjansma.tisktasks.models;
+
+import java.util.ArrayList;
+
+import org.joda.time.DateMidnight;
+import org.joda.time.DateTime;
+
+/**
+ * Evaluates start page queries locally, against already-loaded tasks.
+ *
+ * Understands the sanitized forms of TodoistUser.getStartPageQueries(): "od" (overdue), ISO dates
+ * ("tod", "tom" and "N days"), "pN" (priority) and "no date".  Anything else has to go to the server.
+ */
+public final class TodoistQueryEvaluator
+{
+    //
+    // Constants
+    //
+    /**
+     * Overdue query.
+     */
+    public static final String QUERY_OVERDUE = "od";
+
+    /**
+     * Overdue query (long form).
+     */
+    public static final String QUERY_OVERDUE_LONG = "overdue";
+
+    /**
+     * No due date query.
+     */
+    public static final String QUERY_NO_DATE = "no date";
+
+    /**
+     * Priority query prefix.
+     */
+    public static final String QUERY_PRIORITY_PREFIX = "p";
+
+    //
+    // Privates
+    //
+    /**
+     * Task index.
+     */
+    private final TodoistTaskIndex _index;
+
+    /**
+     * Constructor.
+     *
+     * @param index Task index
+     */
+    public TodoistQueryEvaluator(final TodoistTaskIndex index)
+    {
+        _index = index;
+    }
+
+    /**
+     * Evaluates queries.
+     *
+     * @param queries Sanitized queries
+     * @param now Current time
+     *
+     * @return Query results, or null if any query can't be evaluated locally
+     */
+    public ArrayList<TodoistQueryResult> evaluate(final ArrayList<String> queries, final DateTime now)
+    {
+        ArrayList<TodoistQueryResult> results = new ArrayList<TodoistQueryResult>(queries.size());
+
+        for (int i = 0; i < queries.size(); i++)
+        {
+            TodoistQueryResult result = evaluate(queries.get(i), now);
+            if (result == null)
+            {
+                return null;
+            }
+
+            results.add(result);
+        }
+
+        return results;
+    }
+
+    /**
+     * Evaluates a query.
+     *
+     * @param query Sanitized query
+     * @param now Current time
+     *
+     * @return Query result, or null if the query can't be evaluated locally
+     */
+    public TodoistQueryResult evaluate(final String query, final DateTime now)
+    {
+        if (query == null || query.length() == 0)
+        {
+            return null;
+        }
+
+        if (query.equals(QUERY_OVERDUE) || query.equals(QUERY_OVERDUE_LONG))
+        {
+            return new TodoistQueryResult(TodoistQueryType.overdue,
+                                          query,
+                                          uncompleted(_index.getDueBetween(Long.MIN_VALUE, now.getMillis())));
+        }
+
+        if (query.equals(QUERY_NO_DATE))
+        {
+            return new TodoistQueryResult(TodoistQueryType.date, query, uncompleted(_index.getNoDueDate()));
+        }
+
+        int priority = parsePriority(query);
+        if (priority != -1)
+        {
+            return new TodoistQueryResult(TodoistQueryType.priority, query, uncompleted(_index.getPriority(priority)));
+        }
+
+        if (Character.isDigit(query.charAt(0)))
+        {
+            DateMidnight day;
+            try
+            {
+                day = new DateTime(query).toDateMidnight();
+            }
+            catch (final IllegalArgumentException e)
+            {
+                return null;
+            }
+
+            return new TodoistQueryResult(TodoistQueryType.date,
+                                          query,
+                                          uncompleted(_index.getDueBetween(day.getMillis(),
+                                                                           day.plusDays(1).getMillis())));
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes completed tasks, which the index doesn't track.
+     *
+     * @param tasks Tasks
+     *
+     * @return Tasks that aren't checked or in the history
+     */
+    private static ArrayList<TodoistItem> uncompleted(final ArrayList<TodoistItem> tasks)
+    {
+        ArrayList<TodoistItem> uncompleted = new ArrayList<TodoistItem>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            TodoistItem task = tasks.get(i);
+            if (!task.isChecked() && !task.isInHistory())
+            {
+                uncompleted.add(task);
+            }
+        }
+
+        return uncompleted;
+    }
+
+    /**
+     * Parses a priority query.
+     *
+     * Query priorities are as shown to the user (p1 is the highest), which is the reverse of task priorities.
+     *
+     * @param query Query
+     *
+     * @return Task priority, or -1 if this isn't a priority query
+     */
+    private static int parsePriority(final String query)
+    {
+        if (query.length() != 2 || !query.startsWith(QUERY_PRIORITY_PREFIX) || !Character.isDigit(query.charAt(1)))
+        {
+            return -1;
+        }
+
+        int queryPriority = query.charAt(1) - '0';
+        if (queryPriority < TodoistPriority.LOWEST || queryPriority > TodoistPriority.HIGHEST)
+        {
+            return -1;
+        }
+
+        return TodoistPriority.HIGHEST + TodoistPriority.LOWEST - queryPriority;
+    }
+}
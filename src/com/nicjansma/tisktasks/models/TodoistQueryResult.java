@@ -1,7 +1,10 @@
 package com.nicjansma.tisktasks.models;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -13,6 +16,7 @@ import com.nicjansma.library.net.JsonUtils;
  */
 public final class TodoistQueryResult
     extends CacheableJsonObjectBase
+    implements IJsonPullDecodable
 {
     //
     // Privates
@@ -45,6 +49,36 @@ public final class TodoistQueryResult
         super();
     }
 
+    /**
+     * Constructor for a result evaluated locally.
+     *
+     * The tasks are copied, as the result's task manager links its tasks into its own hierarchy.
+     *
+     * @param queryType Query type
+     * @param queryString Query string
+     * @param tasks Tasks matching the query
+     */
+    public TodoistQueryResult(
+        final TodoistQueryType queryType,
+        final String queryString,
+        final ArrayList<TodoistItem> tasks)
+    {
+        super();
+
+        _queryType = queryType;
+        _queryTypeString = queryType.toString();
+        _queryString = queryString;
+
+        ArrayList<TodoistItem> copies = new ArrayList<TodoistItem>(tasks.size());
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            copies.add(new TodoistItem(tasks.get(i)));
+        }
+
+        _taskManager = new TaskManager();
+        _taskManager.importArray(copies);
+    }
+
     @Override
     public void initializeInternal(final JSONObject json)
     {
@@ -54,17 +88,126 @@ public final class TodoistQueryResult
 
         _taskManager = new TaskManager();
 
-        String jsonTaskString = json.optString("data");
+        // the tasks' due dates share one look-up of the time zones
+        TodoistDueDateParser.beginBatch();
+
+        // import the tasks straight from the array, without converting it back to a string first
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
 
-        // convert to array, import into task manager
-        if (jsonTaskString != null && jsonTaskString.length() != 0)
+        JSONArray jsonTasks = json.optJSONArray("data");
+        if (jsonTasks != null)
         {
-            ArrayList<TodoistItem> tasks = JsonUtils.convertToArrayList(jsonTaskString, TodoistItem.class);
-            if (tasks != null)
+            for (int i = 0; i < jsonTasks.length(); i++)
             {
-                _taskManager.importArray(tasks);
+                JSONObject jsonTask = jsonTasks.optJSONObject(i);
+                if (jsonTask == null)
+                {
+                    continue;
+                }
+
+                TodoistItem task = new TodoistItem();
+                if (task.initialize(jsonTask))
+                {
+                    tasks.add(task);
+                }
             }
         }
+        else
+        {
+            // tasks that are already JSON text are streamed, rather than parsed into a tree
+            String jsonTaskString = json.optString("data");
+            if (jsonTaskString != null && jsonTaskString.length() != 0)
+            {
+                try
+                {
+                    readTasks(new JsonPullParser(new StringReader(jsonTaskString)), tasks);
+                }
+                catch (final IOException e)
+                {
+                    e.printStackTrace();
+                }
+                catch (final JSONException e)
+                {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        _taskManager.importArray(tasks);
+    }
+
+    /**
+     * Reads an array of tasks from a JSON stream.
+     *
+     * @param parser Parser, positioned before the array
+     * @param tasks Tasks to add to
+     *
+     * @throws IOException If the stream couldn't be read
+     * @throws JSONException If the JSON is malformed
+     */
+    private static void readTasks(final JsonPullParser parser, final ArrayList<TodoistItem> tasks)
+        throws IOException, JSONException
+    {
+        parser.beginArray();
+
+        while (parser.hasNext())
+        {
+            if (parser.peek() != JsonPullParser.Token.BEGIN_OBJECT)
+            {
+                parser.skipValue();
+                continue;
+            }
+
+            TodoistItem task = new TodoistItem();
+            task.initialize(parser);
+            tasks.add(task);
+        }
+
+        parser.endArray();
+    }
+
+    @Override
+    public void initialize(final JsonPullParser parser)
+        throws IOException, JSONException
+    {
+        _queryTypeString = "";
+        _queryString = "";
+
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+
+        // the tasks' due dates share one look-up of the time zones
+        TodoistDueDateParser.beginBatch();
+
+        parser.beginObject();
+
+        while (parser.hasNext())
+        {
+            String name = parser.nextName();
+
+            if (name.equals("type"))
+            {
+                _queryTypeString = parser.nextString("");
+            }
+            else if (name.equals("query"))
+            {
+                _queryString = parser.nextString("");
+            }
+            else if (name.equals("data") && parser.peek() == JsonPullParser.Token.BEGIN_ARRAY)
+            {
+                readTasks(parser, tasks);
+            }
+            else
+            {
+                parser.skipValue();
+            }
+        }
+
+        parser.endObject();
+
+        _queryType = TodoistQueryType.get(_queryTypeString);
+
+        _taskManager = new TaskManager();
+        _taskManager.importArray(tasks);
     }
 
     @Override
@@ -113,4 +256,14 @@ public final class TodoistQueryResult
     {
         return _queryType;
     }
+
+    /**
+     * Gets the query type string.
+     *
+     * @return Query type string, as sent by Todoist
+     */
+    public String getQueryTypeString()
+    {
+        return _queryTypeString;
+    }
 }
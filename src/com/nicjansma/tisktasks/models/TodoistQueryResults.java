@@ -33,14 +33,31 @@ public final class TodoistQueryResults extends CacheableJsonObjectArrayBase<Todo
     }
 
     /**
-     * Appends queries to the results.
+     * Gets the tasks of all the queries, in order.
+     *
+     * A task that matches more than one query is only listed under the first, so each task in the task manager
+     * (and each row of the start page) has its own ID.
+     *
+     * @return Tasks
      */
-    private void appendQueries()
+    private ArrayList<TodoistItem> getAllTasks()
     {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        LongIntHashMap seen = new LongIntHashMap();
+
         for (int i = 0; i < getArray().size(); i++)
         {
-            _taskManager.appendArray(getArray().get(i).getTaskManager().getArray());
+            ArrayList<TodoistItem> queryTasks = getArray().get(i).getTaskManager().getArray();
+            for (int j = 0; j < queryTasks.size(); j++)
+            {
+                if (seen.putIfAbsent(queryTasks.get(j).getId(), tasks.size()))
+                {
+                    tasks.add(queryTasks.get(j));
+                }
+            }
         }
+
+        return tasks;
     }
 
     /**
@@ -48,12 +65,12 @@ public final class TodoistQueryResults extends CacheableJsonObjectArrayBase<Todo
      *
      * @return Task manager.
      */
-    public ITaskManager getTaskManager()
+    public synchronized ITaskManager getTaskManager()
     {
         if (_taskManager == null)
         {
             _taskManager = new TaskManager();
-            appendQueries();
+            _taskManager.appendArray(getAllTasks());
         }
 
         return _taskManager;
@@ -68,12 +85,17 @@ public final class TodoistQueryResults extends CacheableJsonObjectArrayBase<Todo
     /**
      * Imports new queries.
      *
+     * Local results are imported on the UI thread and server results on the loader threads, so the results and
+     * their task manager are updated together.
+     *
      * @param array New results to import.
+     *
+     * @return True if any tasks were inserted, removed or changed
      */
-    public void importNewQueries(final ArrayList<TodoistQueryResult> array)
+    public synchronized boolean importNewQueries(final ArrayList<TodoistQueryResult> array)
     {
         setArray(array);
-        _taskManager.clearArray();
-        appendQueries();
+
+        return getTaskManager().importArray(getAllTasks());
     }
 }
@@ -0,0 +1,476 @@
+package com.nicjansma.tisktasks.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.nicjansma.library.net.CacheableJsonObjectBase;
+
+/**
+ * Full-text index of task content, across all projects.
+ *
+ * Each word of a task's display content maps to the IDs of the tasks that contain it.  Words are kept
+ * sorted, so a prefix matches a contiguous range of words.
+ *
+ * The index is cached, so tasks of projects that haven't been opened yet can still be found.  A project's
+ * cached tasks are dropped as soon as any of its loaded tasks are added.
+ */
+public final class TodoistSearchIndex
+    extends CacheableJsonObjectBase
+    implements ITaskIndex
+{
+    //
+    // Privates
+    //
+    /**
+     * Word to the IDs of the tasks that contain it.
+     */
+    private final TreeMap<String, TreeSet<Long>> _postings = new TreeMap<String, TreeSet<Long>>();
+
+    /**
+     * Task ID to its entry.
+     */
+    private final HashMap<Long, Entry> _entries = new HashMap<Long, Entry>();
+
+    /**
+     * Project ID to the IDs of its tasks that were loaded from the cache.
+     */
+    private final HashMap<Long, ArrayList<Long>> _cachedProjects = new HashMap<Long, ArrayList<Long>>();
+
+    /**
+     * Whether or not the index has changed since it was cached.
+     */
+    private boolean _dirty;
+
+    /**
+     * An indexed task.
+     */
+    private static final class Entry
+    {
+        /**
+         * Task, or null if loaded from the cache.
+         */
+        private final TodoistItem _task;
+
+        /**
+         * Project ID.
+         */
+        private final long _projectId;
+
+        /**
+         * Display content.
+         */
+        private final String _content;
+
+        /**
+         * Words of the content.
+         */
+        private final ArrayList<String> _words;
+
+        /**
+         * Constructor.
+         *
+         * @param task Task, or null if loaded from the cache
+         * @param projectId Project ID
+         * @param content Display content
+         * @param words Words of the content
+         */
+        private Entry(
+            final TodoistItem task,
+            final long projectId,
+            final String content,
+            final ArrayList<String> words)
+        {
+            _task = task;
+            _projectId = projectId;
+            _content = content;
+            _words = words;
+        }
+    }
+
+    /**
+     * Splits text into lower-case words.
+     *
+     * @param text Text
+     *
+     * @return Distinct words, in order
+     */
+    public static ArrayList<String> tokenize(final String text)
+    {
+        ArrayList<String> words = new ArrayList<String>();
+        String lower = text.toLowerCase();
+
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++)
+        {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+
+            if (wordChar && start == -1)
+            {
+                start = i;
+            }
+            else if (!wordChar && start != -1)
+            {
+                String word = lower.substring(start, i);
+                if (!words.contains(word))
+                {
+                    words.add(word);
+                }
+
+                start = -1;
+            }
+        }
+
+        return words;
+    }
+
+    /**
+     * Adds an entry to the postings.
+     *
+     * @param id Task ID
+     * @param entry Entry
+     */
+    private void addEntry(final Long id, final Entry entry)
+    {
+        _entries.put(id, entry);
+
+        for (int i = 0; i < entry._words.size(); i++)
+        {
+            TreeSet<Long> ids = _postings.get(entry._words.get(i));
+            if (ids == null)
+            {
+                ids = new TreeSet<Long>();
+                _postings.put(entry._words.get(i), ids);
+            }
+
+            ids.add(id);
+        }
+    }
+
+    /**
+     * Removes an entry from the postings.
+     *
+     * @param id Task ID
+     */
+    private void removeEntry(final Long id)
+    {
+        Entry entry = _entries.remove(id);
+        if (entry == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i < entry._words.size(); i++)
+        {
+            TreeSet<Long> ids = _postings.get(entry._words.get(i));
+            ids.remove(id);
+
+            if (ids.isEmpty())
+            {
+                _postings.remove(entry._words.get(i));
+            }
+        }
+    }
+
+    /**
+     * Removes a project's cached tasks.
+     *
+     * @param projectId Project ID
+     */
+    private void removeCachedProject(final long projectId)
+    {
+        ArrayList<Long> ids = _cachedProjects.remove(projectId);
+        if (ids == null)
+        {
+            return;
+        }
+
+        for (int i = 0; i < ids.size(); i++)
+        {
+            Entry entry = _entries.get(ids.get(i));
+            if (entry != null && entry._task == null)
+            {
+                removeEntry(ids.get(i));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void add(final TodoistItem task)
+    {
+        removeCachedProject(task.getProjectId());
+
+        Long id = task.getId();
+        removeEntry(id);
+
+        String content = task.getContentForDisplay();
+        addEntry(id, new Entry(task, task.getProjectId(), content, tokenize(content)));
+
+        _dirty = true;
+    }
+
+    @Override
+    public synchronized void remove(final TodoistItem task)
+    {
+        Long id = task.getId();
+
+        Entry entry = _entries.get(id);
+        if (entry == null || entry._task != task)
+        {
+            return;
+        }
+
+        removeEntry(id);
+
+        _dirty = true;
+    }
+
+    @Override
+    public synchronized void removeProject(final long projectId)
+    {
+        removeCachedProject(projectId);
+
+        ArrayList<Long> ids = new ArrayList<Long>();
+        for (Map.Entry<Long, Entry> entry : _entries.entrySet())
+        {
+            if (entry.getValue()._projectId == projectId)
+            {
+                ids.add(entry.getKey());
+            }
+        }
+
+        for (int i = 0; i < ids.size(); i++)
+        {
+            removeEntry(ids.get(i));
+        }
+
+        _dirty = _dirty || ids.size() > 0;
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        _postings.clear();
+        _entries.clear();
+        _cachedProjects.clear();
+
+        _dirty = true;
+    }
+
+    /**
+     * Finds the tasks containing words that start with each word of a query.
+     *
+     * @param query Query
+     *
+     * @return IDs of the matching tasks, in ascending order
+     */
+    public synchronized ArrayList<Long> search(final String query)
+    {
+        ArrayList<String> prefixes = tokenize(query);
+        if (prefixes.size() == 0)
+        {
+            return new ArrayList<Long>();
+        }
+
+        TreeSet<Long> matches = null;
+        for (int i = 0; i < prefixes.size(); i++)
+        {
+            String prefix = prefixes.get(i);
+
+            TreeSet<Long> prefixMatches = new TreeSet<Long>();
+            SortedMap<String, TreeSet<Long>> words = _postings.subMap(prefix, prefix + Character.MAX_VALUE);
+            for (TreeSet<Long> ids : words.values())
+            {
+                prefixMatches.addAll(ids);
+            }
+
+            if (matches == null)
+            {
+                matches = prefixMatches;
+            }
+            else
+            {
+                matches.retainAll(prefixMatches);
+            }
+
+            if (matches.isEmpty())
+            {
+                break;
+            }
+        }
+
+        return new ArrayList<Long>(matches);
+    }
+
+    /**
+     * Gets a task's display content.
+     *
+     * @param id Task ID
+     *
+     * @return Display content, or null if the task isn't indexed
+     */
+    public synchronized String getContent(final long id)
+    {
+        Entry entry = _entries.get(id);
+        return (entry == null) ? null : entry._content;
+    }
+
+    /**
+     * Gets a task's project ID.
+     *
+     * @param id Task ID
+     *
+     * @return Project ID, or -1 if the task isn't indexed
+     */
+    public synchronized long getProjectId(final long id)
+    {
+        Entry entry = _entries.get(id);
+        return (entry == null) ? -1 : entry._projectId;
+    }
+
+    /**
+     * Gets the number of indexed tasks.
+     *
+     * @return Number of tasks
+     */
+    public synchronized int getCount()
+    {
+        return _entries.size();
+    }
+
+    /**
+     * Determines whether or not the index has changed since it was cached.
+     *
+     * @return True if the index should be cached again
+     */
+    public synchronized boolean isDirty()
+    {
+        return _dirty;
+    }
+
+    @Override
+    protected synchronized void initializeInternal(final JSONObject json)
+    {
+        _postings.clear();
+        _entries.clear();
+        _cachedProjects.clear();
+
+        JSONArray tasks = json.optJSONArray("tasks");
+        JSONObject postings = json.optJSONObject("postings");
+        if (tasks == null || postings == null)
+        {
+            return;
+        }
+
+        // the words of each task come from the postings, so nothing is tokenized again
+        HashMap<Long, ArrayList<String>> words = new HashMap<Long, ArrayList<String>>();
+
+        Iterator<?> keys = postings.keys();
+        while (keys.hasNext())
+        {
+            String word = (String) keys.next();
+            JSONArray ids = postings.optJSONArray(word);
+            if (ids == null)
+            {
+                continue;
+            }
+
+            TreeSet<Long> wordIds = new TreeSet<Long>();
+            for (int i = 0; i < ids.length(); i++)
+            {
+                Long id = ids.optLong(i);
+                wordIds.add(id);
+
+                ArrayList<String> taskWords = words.get(id);
+                if (taskWords == null)
+                {
+                    taskWords = new ArrayList<String>();
+                    words.put(id, taskWords);
+                }
+
+                taskWords.add(word);
+            }
+
+            _postings.put(word, wordIds);
+        }
+
+        for (int i = 0; i < tasks.length(); i++)
+        {
+            JSONObject task = tasks.optJSONObject(i);
+            if (task == null)
+            {
+                continue;
+            }
+
+            Long id = task.optLong("id");
+            long projectId = task.optLong("project_id");
+
+            ArrayList<String> taskWords = words.get(id);
+            if (taskWords == null)
+            {
+                taskWords = new ArrayList<String>();
+            }
+
+            _entries.put(id, new Entry(null, projectId, task.optString("content"), taskWords));
+
+            ArrayList<Long> projectIds = _cachedProjects.get(projectId);
+            if (projectIds == null)
+            {
+                projectIds = new ArrayList<Long>();
+                _cachedProjects.put(projectId, projectIds);
+            }
+
+            projectIds.add(id);
+        }
+
+        _dirty = false;
+    }
+
+    @Override
+    protected synchronized JSONObject toJsonInternal(final JSONObject json)
+    {
+        try
+        {
+            JSONArray tasks = new JSONArray();
+            for (Map.Entry<Long, Entry> entry : _entries.entrySet())
+            {
+                JSONObject task = new JSONObject();
+                task.put("id", entry.getKey().longValue());
+                task.put("project_id", entry.getValue()._projectId);
+                task.put("content", entry.getValue()._content);
+                tasks.put(task);
+            }
+
+            JSONObject postings = new JSONObject();
+            for (Map.Entry<String, TreeSet<Long>> posting : _postings.entrySet())
+            {
+                JSONArray ids = new JSONArray();
+                for (Long id : posting.getValue())
+                {
+                    ids.put(id.longValue());
+                }
+
+                postings.put(posting.getKey(), ids);
+            }
+
+            json.put("tasks", tasks);
+            json.put("postings", postings);
+        }
+        catch (final JSONException e)
+        {
+            e.printStackTrace();
+        }
+
+        _dirty = false;
+
+        return json;
+    }
+}
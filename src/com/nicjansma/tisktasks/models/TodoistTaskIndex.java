@@ -0,0 +1,359 @@
+package com.nicjansma.tisktasks.models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TreeMap;
+
+/**
+ * Index of tasks by due date, priority and project, for answering queries locally.
+ *
+ * Tasks are added and removed one at a time as task managers change, and each index is a sorted map, so
+ * updates and range lookups take logarithmic time (plus the size of the result).  Tasks with the same key
+ * are ordered by ID.
+ *
+ * An index is keyed on what a task looked like when it was added: tasks are immutable apart from their
+ * checked state and order, so callers filter on those themselves.
+ */
+public final class TodoistTaskIndex
+    implements ITaskIndex
+{
+    //
+    // Privates
+    //
+    /**
+     * Task ID to the indexed task.
+     */
+    private final HashMap<Long, TodoistItem> _tasks = new HashMap<Long, TodoistItem>();
+
+    /**
+     * Tasks with a due date, by due date.
+     */
+    private final TreeMap<DueKey, TodoistItem> _dueTasks = new TreeMap<DueKey, TodoistItem>();
+
+    /**
+     * Tasks without a due date, by ID.
+     */
+    private final TreeMap<Long, TodoistItem> _noDueDateTasks = new TreeMap<Long, TodoistItem>();
+
+    /**
+     * Tasks by priority (index 0 is TodoistPriority.LOWEST), by ID.
+     */
+    private final ArrayList<TreeMap<Long, TodoistItem>> _priorityTasks = new ArrayList<TreeMap<Long, TodoistItem>>();
+
+    /**
+     * Project ID to its tasks, by ID.
+     */
+    private final HashMap<Long, TreeMap<Long, TodoistItem>> _projectTasks
+        = new HashMap<Long, TreeMap<Long, TodoistItem>>();
+
+    /**
+     * Due date index key.
+     */
+    private static final class DueKey
+        implements Comparable<DueKey>
+    {
+        /**
+         * Due date (epoch milliseconds).
+         */
+        private final long _millis;
+
+        /**
+         * Task ID.
+         */
+        private final long _id;
+
+        /**
+         * Constructor.
+         *
+         * @param millis Due date (epoch milliseconds)
+         * @param id Task ID
+         */
+        private DueKey(final long millis, final long id)
+        {
+            _millis = millis;
+            _id = id;
+        }
+
+        @Override
+        public int compareTo(final DueKey other)
+        {
+            if (_millis != other._millis)
+            {
+                return (_millis < other._millis) ? -1 : 1;
+            }
+
+            return (_id < other._id) ? -1 : ((_id == other._id) ? 0 : 1);
+        }
+
+        @Override
+        public boolean equals(final Object other)
+        {
+            return other instanceof DueKey && compareTo((DueKey) other) == 0;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (int) (_millis ^ _id);
+        }
+    }
+
+    /**
+     * Constructor.
+     */
+    public TodoistTaskIndex()
+    {
+        for (int priority = TodoistPriority.LOWEST; priority <= TodoistPriority.HIGHEST; priority++)
+        {
+            _priorityTasks.add(new TreeMap<Long, TodoistItem>());
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param tasks Tasks to index
+     */
+    public TodoistTaskIndex(final ArrayList<TodoistItem> tasks)
+    {
+        this();
+
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            add(tasks.get(i));
+        }
+    }
+
+    /**
+     * Gets the priority bucket of a task.
+     *
+     * @param task Task
+     *
+     * @return Tasks of the same priority
+     */
+    private TreeMap<Long, TodoistItem> priorityTasks(final TodoistItem task)
+    {
+        int priority = Math.max(TodoistPriority.LOWEST, Math.min(TodoistPriority.HIGHEST, task.getPriority()));
+        return _priorityTasks.get(priority - TodoistPriority.LOWEST);
+    }
+
+    @Override
+    public synchronized void add(final TodoistItem task)
+    {
+        TodoistItem existing = _tasks.get(task.getId());
+        if (existing != null)
+        {
+            remove(existing);
+        }
+
+        Long id = task.getId();
+        _tasks.put(id, task);
+
+        if (task.hasDueDate())
+        {
+            _dueTasks.put(new DueKey(task.getDueMillis(), id), task);
+        }
+        else
+        {
+            _noDueDateTasks.put(id, task);
+        }
+
+        priorityTasks(task).put(id, task);
+
+        TreeMap<Long, TodoistItem> projectTasks = _projectTasks.get(task.getProjectId());
+        if (projectTasks == null)
+        {
+            projectTasks = new TreeMap<Long, TodoistItem>();
+            _projectTasks.put(task.getProjectId(), projectTasks);
+        }
+
+        projectTasks.put(id, task);
+    }
+
+    @Override
+    public synchronized void remove(final TodoistItem task)
+    {
+        Long id = task.getId();
+        if (_tasks.get(id) != task)
+        {
+            return;
+        }
+
+        _tasks.remove(id);
+
+        if (task.hasDueDate())
+        {
+            _dueTasks.remove(new DueKey(task.getDueMillis(), id));
+        }
+        else
+        {
+            _noDueDateTasks.remove(id);
+        }
+
+        priorityTasks(task).remove(id);
+
+        TreeMap<Long, TodoistItem> projectTasks = _projectTasks.get(task.getProjectId());
+        projectTasks.remove(id);
+        if (projectTasks.isEmpty())
+        {
+            _projectTasks.remove(task.getProjectId());
+        }
+    }
+
+    @Override
+    public synchronized void removeProject(final long projectId)
+    {
+        TreeMap<Long, TodoistItem> projectTasks = _projectTasks.get(projectId);
+        if (projectTasks == null)
+        {
+            return;
+        }
+
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>(projectTasks.values());
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            remove(tasks.get(i));
+        }
+    }
+
+    @Override
+    public synchronized void clear()
+    {
+        _tasks.clear();
+        _dueTasks.clear();
+        _noDueDateTasks.clear();
+        _projectTasks.clear();
+
+        for (int i = 0; i < _priorityTasks.size(); i++)
+        {
+            _priorityTasks.get(i).clear();
+        }
+    }
+
+    /**
+     * Gets the tasks due within a range of time.
+     *
+     * @param fromMillis Start of the range (epoch milliseconds, inclusive)
+     * @param toMillis End of the range (epoch milliseconds, exclusive)
+     *
+     * @return Tasks, by due date
+     */
+    public synchronized ArrayList<TodoistItem> getDueBetween(final long fromMillis, final long toMillis)
+    {
+        if (fromMillis >= toMillis)
+        {
+            return new ArrayList<TodoistItem>();
+        }
+
+        return new ArrayList<TodoistItem>(_dueTasks.subMap(new DueKey(fromMillis, Long.MIN_VALUE),
+                                                           new DueKey(toMillis, Long.MIN_VALUE)).values());
+    }
+
+    /**
+     * Gets the tasks without a due date.
+     *
+     * @return Tasks, by ID
+     */
+    public synchronized ArrayList<TodoistItem> getNoDueDate()
+    {
+        return new ArrayList<TodoistItem>(_noDueDateTasks.values());
+    }
+
+    /**
+     * Gets the tasks of a priority.
+     *
+     * @param priority Priority (TodoistPriority.LOWEST to TodoistPriority.HIGHEST)
+     *
+     * @return Tasks, by ID
+     */
+    public synchronized ArrayList<TodoistItem> getPriority(final int priority)
+    {
+        if (priority < TodoistPriority.LOWEST || priority > TodoistPriority.HIGHEST)
+        {
+            return new ArrayList<TodoistItem>();
+        }
+
+        return new ArrayList<TodoistItem>(_priorityTasks.get(priority - TodoistPriority.LOWEST).values());
+    }
+
+    /**
+     * Gets the tasks of at least a priority.
+     *
+     * @param priority Lowest priority
+     *
+     * @return Tasks, highest priority first, then by ID
+     */
+    public synchronized ArrayList<TodoistItem> getPriorityAtLeast(final int priority)
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+
+        for (int i = TodoistPriority.HIGHEST; i >= Math.max(priority, TodoistPriority.LOWEST); i--)
+        {
+            tasks.addAll(_priorityTasks.get(i - TodoistPriority.LOWEST).values());
+        }
+
+        return tasks;
+    }
+
+    /**
+     * Gets the tasks of a project.
+     *
+     * @param projectId Project ID
+     *
+     * @return Tasks, by ID
+     */
+    public synchronized ArrayList<TodoistItem> getProject(final long projectId)
+    {
+        TreeMap<Long, TodoistItem> projectTasks = _projectTasks.get(projectId);
+        if (projectTasks == null)
+        {
+            return new ArrayList<TodoistItem>();
+        }
+
+        return new ArrayList<TodoistItem>(projectTasks.values());
+    }
+
+    /**
+     * Determines whether or not any of a project's tasks are indexed.
+     *
+     * @param projectId Project ID
+     *
+     * @return True if the project has indexed tasks
+     */
+    public synchronized boolean hasProject(final long projectId)
+    {
+        return _projectTasks.containsKey(projectId);
+    }
+
+    /**
+     * Gets a task.
+     *
+     * @param taskId Task ID
+     *
+     * @return Task, or null if it isn't indexed
+     */
+    public synchronized TodoistItem get(final long taskId)
+    {
+        return _tasks.get(taskId);
+    }
+
+    /**
+     * Gets all indexed tasks.
+     *
+     * @return Tasks, in no particular order
+     */
+    public synchronized ArrayList<TodoistItem> getAll()
+    {
+        return new ArrayList<TodoistItem>(_tasks.values());
+    }
+
+    /**
+     * Gets the number of indexed tasks.
+     *
+     * @return Number of tasks
+     */
+    public synchronized int getCount()
+    {
+        return _tasks.size();
+    }
+}
@@ -11,7 +11,7 @@ import com.nicjansma.tisktasks.models.TodoistProject;
  * Project List adapter.
  */
 public final class ProjectListAdapter
-    extends TodoistListAdapterBase<TodoistProject, ProjectListRow>
+    extends TodoistListAdapterBase<TodoistProject, ProjectRowModel, ProjectListRow>
 {
     /**
      * Constructor.
@@ -29,4 +29,10 @@ public final class ProjectListAdapter
     {
         return new ProjectListRow(context, inflater, R.layout.project_list_row);
     }
+
+    @Override
+    protected ProjectRowModel newRowModel(final TodoistProject project, final float density)
+    {
+        return new ProjectRowModel(project, density);
+    }
 }
\ No newline at end of file
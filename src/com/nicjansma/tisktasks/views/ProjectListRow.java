@@ -17,7 +17,7 @@ import com.nicjansma.tisktasks.models.TodoistProject;
  */
 @SuppressLint("ViewConstructor")
 public final class ProjectListRow
-    extends TodoistListRowBase<TodoistProject>
+    extends TodoistListRowBase<TodoistProject, ProjectRowModel>
 {
     //
     // UI
@@ -41,7 +41,7 @@ public final class ProjectListRow
      */
     public ProjectListRow(final Context context, final LayoutInflater inflater, final int resLayout)
     {
-        super(context, inflater, resLayout, true);
+        super(context, inflater, resLayout);
 
         _taskCount = (TextView) getView().findViewById(R.id.project_task_count);
         _projectName = (TextView) getView().findViewById(R.id.project_name);
@@ -54,18 +54,18 @@ public final class ProjectListRow
     }
 
     @Override
-    public void updateInternal(final TodoistProject project)
+    public void updateInternal(final ProjectRowModel model)
     {
         //
         // Task Count
         //
-        _taskCount.setText(String.valueOf(project.getCacheCount()));
-        _taskCount.setBackgroundColor(project.getColor());
+        _taskCount.setText(model.getTaskCount());
+        _taskCount.setBackgroundColor(model.getColor());
 
         //
         // name
         //
-        _projectName.setText(project.getName());
+        _projectName.setText(model.getName());
     }
 
     @Override
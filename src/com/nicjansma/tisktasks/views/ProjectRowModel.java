@@ -0,0 +1,73 @@
+package com.nicjansma.tisktasks.views;
+
+import com.nicjansma.tisktasks.models.TodoistProject;
+
+/**
+ * Immutable model of a project row.
+ */
+public final class ProjectRowModel
+    extends TodoistRowModel<TodoistProject>
+{
+    //
+    // Privates
+    //
+    /**
+     * Task count.
+     */
+    private final String _taskCount;
+
+    /**
+     * Project color.
+     */
+    private final int _color;
+
+    /**
+     * Project name.
+     */
+    private final String _name;
+
+    /**
+     * Constructor.
+     *
+     * @param project Project
+     * @param density Display density
+     */
+    public ProjectRowModel(final TodoistProject project, final float density)
+    {
+        super(project, true, density);
+
+        _taskCount = String.valueOf(project.getCacheCount());
+        _color = project.getColor();
+        _name = project.getName();
+    }
+
+    /**
+     * Gets the task count.
+     *
+     * @return Task count
+     */
+    public String getTaskCount()
+    {
+        return _taskCount;
+    }
+
+    /**
+     * Gets the project color.
+     *
+     * @return Color
+     */
+    public int getColor()
+    {
+        return _color;
+    }
+
+    /**
+     * Gets the project name.
+     *
+     * @return Project name
+     */
+    public String getName()
+    {
+        return _name;
+    }
+}
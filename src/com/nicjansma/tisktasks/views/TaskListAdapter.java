@@ -11,7 +11,7 @@ import com.nicjansma.tisktasks.models.TodoistItem;
  * Task List adapter.
  */
 public final class TaskListAdapter
-    extends TodoistListAdapterBase<TodoistItem, TaskListRow>
+    extends TodoistListAdapterBase<TodoistItem, TaskRowModel, TaskListRow>
 {
     //
     // Privates
@@ -40,6 +40,12 @@ public final class TaskListAdapter
     @Override
     protected TaskListRow newRowInstance(final Activity context, final LayoutInflater inflater)
     {
-        return new TaskListRow(context, inflater, R.layout.task_list_row, _indent);
+        return new TaskListRow(context, inflater, R.layout.task_list_row);
+    }
+
+    @Override
+    protected TaskRowModel newRowModel(final TodoistItem task, final float density)
+    {
+        return new TaskRowModel(task, _indent, density);
     }
 }
@@ -2,7 +2,6 @@ package com.nicjansma.tisktasks.views;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.CheckBox;
@@ -10,7 +9,6 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import com.nicjansma.tisktasks.R;
-import com.nicjansma.tisktasks.models.TodoistDueDate;
 import com.nicjansma.tisktasks.models.TodoistItem;
 
 /**
@@ -18,7 +16,7 @@ import com.nicjansma.tisktasks.models.TodoistItem;
  */
 @SuppressLint("ViewConstructor")
 public final class TaskListRow
-    extends TodoistListRowBase<TodoistItem>
+    extends TodoistListRowBase<TodoistItem, TaskRowModel>
 {
     //
     // UI
@@ -49,15 +47,13 @@ public final class TaskListRow
      * @param context Activity context
      * @param inflater Cached Layout Inflater
      * @param resLayout Layout Resource ID
-     * @param indent Whether to indent tasks
      */
     public TaskListRow(
         final Context context,
         final LayoutInflater inflater,
-        final int resLayout,
-        final boolean indent)
+        final int resLayout)
     {
-        super(context, inflater, resLayout, indent);
+        super(context, inflater, resLayout);
 
         _taskCompleteCheckBox = (CheckBox) getView().findViewById(R.id.task_complete);
         _taskCompleteCheckBox.setOnClickListener(getCheckboxOnClickListener());
@@ -68,15 +64,15 @@ public final class TaskListRow
     }
 
     @Override
-    public void updateInternal(final TodoistItem task)
+    public void updateInternal(final TaskRowModel model)
     {
         //
         // checkbox
         //
-        if (task.showCheckBox())
+        if (model.showCheckBox())
         {
             _taskCompleteCheckBox.setVisibility(View.VISIBLE);
-            _taskCompleteCheckBox.setChecked(task.isChecked());
+            _taskCompleteCheckBox.setChecked(model.isChecked());
         }
         else
         {
@@ -86,36 +82,28 @@ public final class TaskListRow
         //
         // name
         //
-        _taskName.setText(task.getContentForDisplay());
-        _taskName.setTextColor(task.getColor());
+        _taskName.setText(model.getText());
+        _taskName.setTextColor(model.getTextColor());
 
         //
         // recurring image
         //
-        _taskRecurringImage.setVisibility(task.isRecurring() ? View.VISIBLE : View.GONE);
+        _taskRecurringImage.setVisibility(model.isRecurring() ? View.VISIBLE : View.GONE);
 
         //
         // date
         //
-        TodoistDueDate dueDate = task.getFormattedDueDate();
-        if (dueDate.getString().equals(""))
+        if (model.getDueLabel().length() == 0)
         {
             _taskDate.setVisibility(View.GONE);
         }
         else
         {
             _taskDate.setVisibility(View.VISIBLE);
-            _taskDate.setText(dueDate.getString());
+            _taskDate.setText(model.getDueLabel());
 
             // box color
-            if (dueDate.getColor() != TodoistDueDate.COLOR_NONE)
-            {
-                _taskDate.setBackgroundColor(dueDate.getColor());
-            }
-            else
-            {
-                _taskDate.setBackgroundColor(Color.WHITE);
-            }
+            _taskDate.setBackgroundColor(model.getDueColor());
         }
     }
 
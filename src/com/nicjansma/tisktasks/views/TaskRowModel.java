@@ -0,0 +1,143 @@
+package com.nicjansma.tisktasks.views;
+
+import android.graphics.Color;
+
+import com.nicjansma.tisktasks.models.TodoistDueDate;
+import com.nicjansma.tisktasks.models.TodoistItem;
+
+/**
+ * Immutable model of a task row.
+ */
+public final class TaskRowModel
+    extends TodoistRowModel<TodoistItem>
+{
+    //
+    // Privates
+    //
+    /**
+     * Whether or not to show the checkbox.
+     */
+    private final boolean _showCheckBox;
+
+    /**
+     * Whether or not the task is checked.
+     */
+    private final boolean _checked;
+
+    /**
+     * Task name, styled.
+     */
+    private final CharSequence _text;
+
+    /**
+     * Task name color.
+     */
+    private final int _textColor;
+
+    /**
+     * Whether or not the task is recurring.
+     */
+    private final boolean _recurring;
+
+    /**
+     * Due date label, or "" if there's no due date.
+     */
+    private final String _dueLabel;
+
+    /**
+     * Due date background color.
+     */
+    private final int _dueColor;
+
+    /**
+     * Constructor.
+     *
+     * @param task Task
+     * @param indent Whether or not to indent tasks
+     * @param density Display density
+     */
+    public TaskRowModel(final TodoistItem task, final boolean indent, final float density)
+    {
+        super(task, indent, density);
+
+        _showCheckBox = task.showCheckBox();
+        _checked = task.isChecked();
+        _text = task.getStyledContentForDisplay();
+        _textColor = task.getColor();
+        _recurring = task.isRecurring();
+
+        TodoistDueDate dueDate = task.getFormattedDueDate();
+        _dueLabel = dueDate.getString();
+        _dueColor = (dueDate.getColor() != TodoistDueDate.COLOR_NONE) ? dueDate.getColor() : Color.WHITE;
+    }
+
+    /**
+     * Determines if the checkbox is shown.
+     *
+     * @return True if the checkbox is shown
+     */
+    public boolean showCheckBox()
+    {
+        return _showCheckBox;
+    }
+
+    /**
+     * Determines if the task is checked.
+     *
+     * @return True if the task is checked
+     */
+    public boolean isChecked()
+    {
+        return _checked;
+    }
+
+    /**
+     * Gets the task name.
+     *
+     * @return Task name, styled
+     */
+    public CharSequence getText()
+    {
+        return _text;
+    }
+
+    /**
+     * Gets the task name color.
+     *
+     * @return Color
+     */
+    public int getTextColor()
+    {
+        return _textColor;
+    }
+
+    /**
+     * Determines if the task is recurring.
+     *
+     * @return True if the task is recurring
+     */
+    public boolean isRecurring()
+    {
+        return _recurring;
+    }
+
+    /**
+     * Gets the due date label.
+     *
+     * @return Due date label, or "" if there's no due date
+     */
+    public String getDueLabel()
+    {
+        return _dueLabel;
+    }
+
+    /**
+     * Gets the due date background color.
+     *
+     * @return Color
+     */
+    public int getDueColor()
+    {
+        return _dueColor;
+    }
+}
@@ -5,17 +5,34 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.BaseAdapter;
+import android.widget.ListView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import com.nicjansma.tisktasks.models.ITodoistBaseObjectManager;
+import com.nicjansma.tisktasks.models.LongIntHashMap;
 import com.nicjansma.tisktasks.models.TodoistObjectBase;
 
 /**
  * List adapter base class.
  *
+ * Rows are bound from immutable row models.  Loader threads can build the models with prepare() right after
+ * a load, so the next notifyDataSetChanged() picks them up and binding a row is a field copy.  Models that
+ * weren't prepared are built as their rows are bound.
+ *
+ * Item IDs are the objects' IDs, so the list view keeps its rows and state across refreshes, and a single
+ * object's row can be redrawn with notifyObjectChanged() without rebinding the rest of the list.
+ *
  * @param <T> Todoist object type
+ * @param <M> Row model type
  * @param <S> TodoistListRow object type
  */
-public abstract class TodoistListAdapterBase<T extends TodoistObjectBase, S extends TodoistListRowBase<T>>
+public abstract class TodoistListAdapterBase<
+    T extends TodoistObjectBase,
+    M extends TodoistRowModel<T>,
+    S extends TodoistListRowBase<T, M>>
     extends BaseAdapter
 {
     //
@@ -26,6 +43,39 @@ public abstract class TodoistListAdapterBase<T extends TodoistObjectBase, S exte
      */
     private ITodoistBaseObjectManager<T> _objectManager;
 
+    /**
+     * Snapshot of the visible objects being displayed.
+     *
+     * Only refreshed by notifyDataSetChanged(), so the list view never sees the count change without
+     * a notification.
+     */
+    private List<T> _objects;
+
+    /**
+     * Positions of the objects, by ID, or null if they haven't been looked up since the last refresh.
+     */
+    private LongIntHashMap _positions;
+
+    /**
+     * Row models of the objects, by position, or null where they haven't been built.
+     */
+    private ArrayList<M> _models;
+
+    /**
+     * Snapshot the prepared row models were built from, or null if none are prepared.
+     */
+    private List<T> _preparedObjects;
+
+    /**
+     * Row models built by prepare(), waiting for notifyDataSetChanged().
+     */
+    private ArrayList<M> _preparedModels;
+
+    /**
+     * Display density, for indents.
+     */
+    private final float _density;
+
     /**
      * Activity context.
      */
@@ -49,6 +99,18 @@ public abstract class TodoistListAdapterBase<T extends TodoistObjectBase, S exte
      */
     protected abstract S newRowInstance(final Activity context, final LayoutInflater inflater);
 
+    /**
+     * Creates the row model of an object.
+     *
+     * Called on loader threads as well as the UI thread.
+     *
+     * @param obj Object
+     * @param density Display density
+     *
+     * @return Row model
+     */
+    protected abstract M newRowModel(final T obj, final float density);
+
     /**
      * Constructor.
      *
@@ -59,53 +121,211 @@ public abstract class TodoistListAdapterBase<T extends TodoistObjectBase, S exte
     {
         _context = context;
         _objectManager = todoistManager;
+        _objects = snapshot();
+        _models = emptyModels(_objects.size());
+        _density = context.getResources().getDisplayMetrics().density;
 
         _inflater = LayoutInflater.from(context);
     }
 
-    @Override
-    public final int getCount()
+    /**
+     * Gets the object manager's current snapshot of visible objects.
+     *
+     * @return Snapshot of the visible objects
+     */
+    private List<T> snapshot()
     {
         if (_objectManager == null)
         {
-            return 0;
+            return Collections.emptyList();
         }
 
-        return _objectManager.getCount();
+        return _objectManager.getVisibleSnapshot();
+    }
+
+    /**
+     * Creates a list of row models that haven't been built.
+     *
+     * @param count Number of rows
+     *
+     * @return Row models, all null
+     */
+    private ArrayList<M> emptyModels(final int count)
+    {
+        return new ArrayList<M>(Collections.<M>nCopies(count, null));
+    }
+
+    /**
+     * Builds the row models of the object manager's current snapshot, for the next notifyDataSetChanged().
+     *
+     * Safe to call from a loader thread, after it changes the objects and before it asks for the list to be
+     * refreshed.
+     */
+    public final void prepare()
+    {
+        List<T> objects = snapshot();
+
+        ArrayList<M> models = new ArrayList<M>(objects.size());
+        for (int i = 0; i < objects.size(); i++)
+        {
+            models.add(newRowModel(objects.get(i), _density));
+        }
+
+        synchronized (this)
+        {
+            _preparedObjects = objects;
+            _preparedModels = models;
+        }
     }
 
     @Override
-    public final Object getItem(final int position)
+    public final void notifyDataSetChanged()
     {
-        if (_objectManager == null)
+        _objects = snapshot();
+
+        synchronized (this)
         {
-            return null;
+            // prepared models are only current if nothing changed the list since
+            if (_preparedObjects == _objects)
+            {
+                _models = _preparedModels;
+            }
+            else
+            {
+                _models = emptyModels(_objects.size());
+            }
+
+            _preparedObjects = null;
+            _preparedModels = null;
+        }
+
+        _positions = null;
+
+        super.notifyDataSetChanged();
+    }
+
+    /**
+     * Redraws the row of an object that changed, without rebinding the rest of the list.
+     *
+     * Only works if the list still has the same objects: if it doesn't (eg. the object was deleted, or a parent
+     * was collapsed), the caller has to refresh the whole list.
+     *
+     * @param listView List view showing this adapter
+     * @param obj Object that changed
+     *
+     * @return True if the row was redrawn (or isn't shown), false if the whole list has to be refreshed
+     */
+    @SuppressWarnings("unchecked")
+    public final boolean notifyObjectChanged(final ListView listView, final T obj)
+    {
+        if (snapshot() != _objects)
+        {
+            return false;
         }
 
-        return _objectManager.getArray().get(position);
+        int position = getPosition(obj.getId());
+        if (position == LongIntHashMap.NOT_FOUND)
+        {
+            // hidden, so there's nothing to redraw
+            return true;
+        }
+
+        M model = newRowModel(_objects.get(position), _density);
+        _models.set(position, model);
+
+        // only rows on screen have a view
+        int child = position + listView.getHeaderViewsCount() - listView.getFirstVisiblePosition();
+        if (child >= 0 && child < listView.getChildCount())
+        {
+            View view = listView.getChildAt(child);
+            if (view instanceof TodoistListRowBase)
+            {
+                ((S) view).update(model);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the position of an object.
+     *
+     * @param id Object ID
+     *
+     * @return Position, or LongIntHashMap.NOT_FOUND if the object isn't shown
+     */
+    private int getPosition(final long id)
+    {
+        if (_positions == null)
+        {
+            _positions = new LongIntHashMap(_objects.size());
+            for (int i = 0; i < _objects.size(); i++)
+            {
+                _positions.put(_objects.get(i).getId(), i);
+            }
+        }
+
+        return _positions.get(id);
+    }
+
+    /**
+     * Gets the row model at a position, building it if it hasn't been.
+     *
+     * @param position Position
+     *
+     * @return Row model
+     */
+    private M getModel(final int position)
+    {
+        M model = _models.get(position);
+        if (model == null)
+        {
+            model = newRowModel(_objects.get(position), _density);
+            _models.set(position, model);
+        }
+
+        return model;
+    }
+
+    @Override
+    public final int getCount()
+    {
+        return _objects.size();
+    }
+
+    @Override
+    public final Object getItem(final int position)
+    {
+        return _objects.get(position);
     }
 
     @Override
     public final long getItemId(final int position)
     {
-        return position;
+        return _objects.get(position).getId();
+    }
+
+    @Override
+    public final boolean hasStableIds()
+    {
+        return true;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public final View getView(final int position, final View convertView, final ViewGroup parent)
     {
-        TodoistListRowBase<T> row = null;
+        S row = null;
         if (convertView == null)
         {
             row = newRowInstance(_context, _inflater);
         }
         else
         {
-            row = (TodoistListRowBase<T>) convertView;
+            row = (S) convertView;
         }
 
-        row.update(_objectManager.getArray().get(position));
+        row.update(getModel(position));
 
         return row;
     }
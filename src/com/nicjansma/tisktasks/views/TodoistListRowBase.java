@@ -15,8 +15,9 @@ import com.nicjansma.tisktasks.models.TodoistObjectBase;
  * List row base class.
  *
  * @param <T> Todoist object type
+ * @param <M> Row model type
  */
-public abstract class TodoistListRowBase<T extends TodoistObjectBase>
+public abstract class TodoistListRowBase<T extends TodoistObjectBase, M extends TodoistRowModel<T>>
     extends LinearLayout
 {
     //
@@ -30,11 +31,11 @@ public abstract class TodoistListRowBase<T extends TodoistObjectBase>
     public abstract String getText();
 
     /**
-     * Called by the base class to update its view with a new object.
+     * Called by the base class to update its view with a new row model.
      *
-     * @param obj New object
+     * @param model New row model
      */
-    public abstract void updateInternal(T obj);
+    public abstract void updateInternal(M model);
 
     //
     // UI
@@ -60,9 +61,19 @@ public abstract class TodoistListRowBase<T extends TodoistObjectBase>
     private final TodoistListActivityBase<T> _baseListActivity;
 
     /**
-     * Whether or not to indent objects.
+     * Layout of the row's view, for its indent.
      */
-    private final boolean _indent;
+    private final LayoutParams _layout = new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
+
+    /**
+     * Indent shown (pixels), or -1 before the first update.
+     */
+    private int _indentPixels = -1;
+
+    /**
+     * Expand image shown, or TodoistRowModel.NO_EXPAND_IMAGE.
+     */
+    private int _expandImageShown = TodoistRowModel.NO_EXPAND_IMAGE;
 
     /**
      * Constructor.
@@ -70,14 +81,12 @@ public abstract class TodoistListRowBase<T extends TodoistObjectBase>
      * @param context Activity context
      * @param inflater Cached inflater
      * @param resLayout Resource layout ID
-     * @param indent Whether to not to indent objects.
      */
     @SuppressWarnings("unchecked")
     public TodoistListRowBase(
         final Context context,
         final LayoutInflater inflater,
-        final int resLayout,
-        final boolean indent)
+        final int resLayout)
     {
         super(context);
 
@@ -90,8 +99,7 @@ public abstract class TodoistListRowBase<T extends TodoistObjectBase>
 
         _expandImage = (ImageView) _view.findViewById(R.id.expand_image);
         _expandImage.setOnClickListener(_onClickListenerExpand);
-
-        _indent = indent;
+        _expandImage.setVisibility(View.GONE);
 
         addView(_view);
     }
@@ -173,60 +181,42 @@ public abstract class TodoistListRowBase<T extends TodoistObjectBase>
     }
 
     /**
-     * Updates a row with the new object.
+     * Updates a row with a new row model.
+     *
+     * Views are only changed where the model differs from what the row shows.
      *
-     * @param obj New object to show on the row
+     * @param model New row model to show
      */
-    public final void update(final T obj)
+    public final void update(final M model)
     {
-        _obj = obj;
+        _obj = model.getObj();
 
         // margin
-        LayoutParams layout = new LayoutParams(LayoutParams.WRAP_CONTENT, LayoutParams.WRAP_CONTENT);
-        layout.setMargins(_indent ? _obj.getIndentInPixels(_baseListActivity.getResources().getDisplayMetrics().density) : 0, 0, 0, 0);
-
-        if (_obj.isAnyParentCollapsed())
+        if (model.getIndentPixels() != _indentPixels)
         {
-            layout.height = 0;
-            layout.width = 0;
-            _view.setLayoutParams(layout);
-        }
-
-        updateExpandImage();
+            _indentPixels = model.getIndentPixels();
+            _layout.setMargins(_indentPixels, 0, 0, 0);
 
-        updateViewLayout(_view, layout);
-
-        updateInternal(obj);
-    }
+            updateViewLayout(_view, _layout);
+        }
 
-    /**
-     * Updates the expanded/collapsed image for a row.
-     */
-    private void updateExpandImage()
-    {
-        //
-        // image
-        //
-        if (_indent && _obj.isParent())
+        // expanded/collapsed image
+        if (model.getExpandImage() != _expandImageShown)
         {
-            int resIdImage;
+            _expandImageShown = model.getExpandImage();
 
-            if (_obj.isCollapsed())
+            if (_expandImageShown == TodoistRowModel.NO_EXPAND_IMAGE)
             {
-                resIdImage = R.drawable.arrow_up;
+                _expandImage.setVisibility(View.GONE);
             }
             else
             {
-                resIdImage = R.drawable.arrow_down;
+                _expandImage.setVisibility(View.VISIBLE);
+                _expandImage.setImageResource(_expandImageShown);
             }
-
-            _expandImage.setVisibility(View.VISIBLE);
-            _expandImage.setImageResource(resIdImage);
-        }
-        else
-        {
-            _expandImage.setVisibility(View.GONE);
         }
+
+        updateInternal(model);
     }
 
     /**
@@ -0,0 +1,92 @@
+package com.nicjansma.tisktasks.views;
+
+import com.nicjansma.tisktasks.R;
+import com.nicjansma.tisktasks.models.TodoistObjectBase;
+
+/**
+ * Immutable model of a list row: everything the row shows, computed before it's bound.
+ *
+ * Models are built on the loader threads right after a load, so binding a row only copies fields to its views.
+ *
+ * @param <T> Todoist object type
+ */
+public abstract class TodoistRowModel<T extends TodoistObjectBase>
+{
+    //
+    // Constants
+    //
+    /**
+     * Expand image when there's none to show.
+     */
+    public static final int NO_EXPAND_IMAGE = 0;
+
+    //
+    // Privates
+    //
+    /**
+     * Todoist object.
+     */
+    private final T _obj;
+
+    /**
+     * Indent (pixels).
+     */
+    private final int _indentPixels;
+
+    /**
+     * Expand/collapse image resource ID, or NO_EXPAND_IMAGE.
+     */
+    private final int _expandImage;
+
+    /**
+     * Constructor.
+     *
+     * @param obj Todoist object
+     * @param indent Whether or not to indent objects
+     * @param density Display density
+     */
+    protected TodoistRowModel(final T obj, final boolean indent, final float density)
+    {
+        _obj = obj;
+        _indentPixels = indent ? obj.getIndentInPixels(density) : 0;
+
+        if (indent && obj.isParent())
+        {
+            _expandImage = obj.isCollapsed() ? R.drawable.arrow_up : R.drawable.arrow_down;
+        }
+        else
+        {
+            _expandImage = NO_EXPAND_IMAGE;
+        }
+    }
+
+    /**
+     * Gets the Todoist object.
+     *
+     * @return Todoist object
+     */
+    public final T getObj()
+    {
+        return _obj;
+    }
+
+    /**
+     * Gets the indent.
+     *
+     * @return Indent (pixels)
+     */
+    public final int getIndentPixels()
+    {
+        return _indentPixels;
+    }
+
+    /**
+     * Gets the expand/collapse image.
+     *
+     * @return Image resource ID, or NO_EXPAND_IMAGE if it's hidden
+     */
+    public final int getExpandImage()
+    {
+        return _expandImage;
+    }
+}
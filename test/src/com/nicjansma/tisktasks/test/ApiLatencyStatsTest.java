@@ -0,0 +1,234 @@
+package com.nicjansma.tisktasks.test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.ITiskTasksAnalyticsTracker;
+import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.api.ApiLatencyStats;
+import com.nicjansma.tisktasks.api.IHttpTransport;
+import com.nicjansma.tisktasks.api.IResponseDecoder;
+import com.nicjansma.tisktasks.api.LatencyHistogram;
+import com.nicjansma.tisktasks.api.TodoistApi;
+import com.nicjansma.tisktasks.api.TodoistApiResultArray;
+import com.nicjansma.tisktasks.api.TodoistHttpResponse;
+
+/**
+ * API latency histogram tests.
+ */
+public final class ApiLatencyStatsTest extends TestCase
+{
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    /**
+     * Microseconds per millisecond.
+     */
+    private static final long MICROS_PER_MILLI = 1000;
+
+    /**
+     * Simulated time until the response starts (milliseconds).
+     */
+    private static final int WAIT_TIME = 40;
+
+    /**
+     * Simulated time to read the response body (milliseconds).
+     */
+    private static final int READ_TIME = 20;
+
+    /**
+     * User timings reported to the tracker, as "name label=milliseconds".
+     */
+    private final ArrayList<String> _timings = new ArrayList<String>();
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        InvocationHandler handler = new InvocationHandler()
+        {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args)
+                throws Throwable
+            {
+                if (method.getName().equals("trackUserTiming"))
+                {
+                    _timings.add(args[2] + " " + args[3] + "=" + args[1]);
+                }
+
+                return null;
+            }
+        };
+
+        ServiceLocator.setTracker((ITiskTasksAnalyticsTracker) Proxy.newProxyInstance(
+            ITiskTasksAnalyticsTracker.class.getClassLoader(),
+            new Class<?>[] { ITiskTasksAnalyticsTracker.class },
+            handler));
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        ServiceLocator.setTracker(null);
+
+        super.tearDown();
+    }
+
+    /**
+     * Sleeps, ignoring interrupts.
+     *
+     * @param millis Milliseconds
+     */
+    private static void sleep(final long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Percentiles are within a bucket (25%) of the true value.
+     */
+    public void testPercentiles()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+
+        // 1ms to 1000ms
+        for (int i = 1; i <= 1000; i++)
+        {
+            histogram.record(i * NANOS_PER_MILLI);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000 * MICROS_PER_MILLI, histogram.getMax());
+
+        long[] percents = { 50, 95, 99 };
+        for (int i = 0; i < percents.length; i++)
+        {
+            long expected = percents[i] * 10 * MICROS_PER_MILLI;
+            long actual = histogram.getPercentile(percents[i]);
+
+            assertTrue("p" + percents[i] + "=" + actual, actual >= expected && actual <= expected * 5 / 4);
+        }
+
+        assertEquals(1000 * MICROS_PER_MILLI, histogram.getPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    /**
+     * A call's time is split into waiting on the network, reading the body and decoding it.
+     */
+    public void testPhases()
+    {
+        IHttpTransport transport = new IHttpTransport()
+        {
+            @Override
+            public TodoistHttpResponse get(final String url)
+            {
+                return get(url, null);
+            }
+
+            @Override
+            public TodoistHttpResponse get(final String url, final IResponseDecoder decoder)
+            {
+                sleep(WAIT_TIME);
+
+                Reader slowBody = new StringReader("[\"UTC\", \"Europe/Paris\"]")
+                {
+                    @Override
+                    public int read(final char[] buffer, final int offset, final int length)
+                        throws IOException
+                    {
+                        sleep(READ_TIME / 2);
+                        return super.read(buffer, offset, length);
+                    }
+                };
+
+                try
+                {
+                    return new TodoistHttpResponse(HttpURLConnection.HTTP_OK, decoder.decode(slowBody));
+                }
+                catch (final IOException e)
+                {
+                    return new TodoistHttpResponse(TodoistHttpResponse.CONNECTION_FAILURE, "");
+                }
+            }
+
+            @Override
+            public TodoistHttpResponse post(final String url, final String form, final IResponseDecoder decoder)
+            {
+                return get(url, decoder);
+            }
+        };
+
+        ApiLatencyStats stats = new ApiLatencyStats(0);
+        TodoistApi api = new TodoistApi(transport, stats);
+
+        TodoistApiResultArray<String> timezones = api.getTimezones();
+        assertTrue(timezones.successful());
+        assertEquals(2, timezones.getArray().size());
+
+        assertEquals(1, stats.getCount("getTimezones"));
+
+        long wait = stats.getPercentile("getTimezones", ApiLatencyStats.Phase.WAIT, 50);
+        long read = stats.getPercentile("getTimezones", ApiLatencyStats.Phase.READ, 50);
+        long total = stats.getPercentile("getTimezones", ApiLatencyStats.Phase.TOTAL, 50);
+
+        assertTrue("wait=" + wait,
+                   wait >= WAIT_TIME * MICROS_PER_MILLI && wait < (WAIT_TIME + READ_TIME) * MICROS_PER_MILLI);
+        assertTrue("read=" + read,
+                   read >= READ_TIME * MICROS_PER_MILLI && read < WAIT_TIME * MICROS_PER_MILLI);
+        assertTrue("total=" + total,
+                   total >= (WAIT_TIME + READ_TIME) * MICROS_PER_MILLI);
+
+        assertTrue(stats.dump().contains("getTimezones WAIT: n=1 p50="));
+    }
+
+    /**
+     * Percentiles are reported to the tracker after each batch of calls, and start over.
+     */
+    public void testBatchedReports()
+    {
+        final int batch = 3;
+        ApiLatencyStats stats = new ApiLatencyStats(batch);
+
+        for (int i = 0; i < batch - 1; i++)
+        {
+            stats.record("getProjects", ApiLatencyStats.Phase.WAIT, 2 * NANOS_PER_MILLI);
+            stats.record("getProjects", ApiLatencyStats.Phase.TOTAL, 3 * NANOS_PER_MILLI);
+        }
+
+        assertTrue(_timings.isEmpty());
+
+        stats.record("getProjects", ApiLatencyStats.Phase.TOTAL, 3 * NANOS_PER_MILLI);
+
+        // p50, p95 and p99 of each phase
+        assertEquals(6, _timings.size());
+        assertEquals("getProjects TOTAL p99=3", _timings.get(5));
+        assertTrue(_timings.contains("getProjects WAIT p50=2"));
+
+        assertEquals(0, stats.getCount("getProjects"));
+        assertEquals("", stats.dump());
+    }
+}
@@ -0,0 +1,248 @@
+package com.nicjansma.tisktasks.test;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.api.BatchingTodoistApi;
+import com.nicjansma.tisktasks.api.ITodoistApi;
+import com.nicjansma.tisktasks.api.TodoistApiResultArray;
+import com.nicjansma.tisktasks.api.TodoistApiResultSimple;
+import com.nicjansma.tisktasks.models.TodoistItem;
+
+/**
+ * Write-behind batching API tests.
+ */
+public final class BatchingTodoistApiTest extends TestCase
+{
+    /**
+     * Batching window (milliseconds), long enough for every caller to queue up.
+     */
+    private static final int WINDOW = 250;
+
+    /**
+     * Decorated API.
+     */
+    private final RecordingTodoistApi _api = new RecordingTodoistApi();
+
+    /**
+     * A mutation a caller makes.
+     */
+    private interface Mutation
+    {
+        /**
+         * Makes the mutation.
+         *
+         * @param api API
+         *
+         * @return Result
+         */
+        Object run(ITodoistApi api);
+    }
+
+    /**
+     * Makes mutations from many threads, each starting a little after the last.
+     *
+     * @param api API
+     * @param mutations Mutations
+     *
+     * @return Result (or exception) of each caller
+     *
+     * @throws InterruptedException If interrupted
+     */
+    private static Object[] callConcurrently(final ITodoistApi api, final Mutation[] mutations)
+        throws InterruptedException
+    {
+        final Object[] results = new Object[mutations.length];
+        Thread[] threads = new Thread[mutations.length];
+
+        for (int i = 0; i < mutations.length; i++)
+        {
+            final int caller = i;
+            threads[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        results[caller] = mutations[caller].run(api);
+                    }
+                    catch (final RuntimeException e)
+                    {
+                        results[caller] = e;
+                    }
+                }
+            };
+
+            threads[i].start();
+
+            // queue in order
+            Thread.sleep(WINDOW / (mutations.length * 4));
+        }
+
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i].join();
+        }
+
+        return results;
+    }
+
+    /**
+     * Creates a mutation completing an item.
+     *
+     * @param itemId Item ID
+     *
+     * @return Mutation
+     */
+    private static Mutation complete(final long itemId)
+    {
+        return new Mutation()
+        {
+            @Override
+            public Object run(final ITodoistApi api)
+            {
+                return api.completeItem(itemId, true);
+            }
+        };
+    }
+
+    /**
+     * Creates a mutation un-completing an item.
+     *
+     * @param itemId Item ID
+     *
+     * @return Mutation
+     */
+    private static Mutation uncomplete(final long itemId)
+    {
+        return new Mutation()
+        {
+            @Override
+            public Object run(final ITodoistApi api)
+            {
+                return api.uncompleteItem(itemId);
+            }
+        };
+    }
+
+    /**
+     * Creates a mutation updating the recurring dates of items.
+     *
+     * @param itemIds Item IDs
+     *
+     * @return Mutation
+     */
+    private static Mutation updateRecurringDate(final long... itemIds)
+    {
+        return new Mutation()
+        {
+            @Override
+            public Object run(final ITodoistApi api)
+            {
+                ArrayList<Long> items = new ArrayList<Long>();
+                for (int i = 0; i < itemIds.length; i++)
+                {
+                    items.add(itemIds[i]);
+                }
+
+                return api.updateRecurringDate(items);
+            }
+        };
+    }
+
+    /**
+     * Completes within the window are sent as one call, and every caller gets its result.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testCompletesShareOneCall()
+        throws InterruptedException
+    {
+        BatchingTodoistApi api = new BatchingTodoistApi(_api, WINDOW);
+
+        Object[] results = callConcurrently(api,
+                                            new Mutation[] { complete(1), complete(2), complete(1), complete(3) });
+
+        ArrayList<String> calls = _api.getCalls();
+        assertEquals(1, calls.size());
+        assertEquals("completeItems [1, 2, 3]", calls.get(0));
+
+        for (int i = 0; i < results.length; i++)
+        {
+            assertTrue(((TodoistApiResultSimple) results[i]).successful());
+        }
+    }
+
+    /**
+     * Different kinds of mutations are sent separately, in the order they were made.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testOrderIsKept()
+        throws InterruptedException
+    {
+        BatchingTodoistApi api = new BatchingTodoistApi(_api, WINDOW);
+
+        callConcurrently(api, new Mutation[] { complete(1), complete(2), uncomplete(1), complete(3) });
+
+        ArrayList<String> calls = _api.getCalls();
+        assertEquals(3, calls.size());
+        assertEquals("completeItems [1, 2]", calls.get(0));
+        assertEquals("uncompleteItems [1]", calls.get(1));
+        assertEquals("completeItems [3]", calls.get(2));
+    }
+
+    /**
+     * Each caller gets only its own updated recurring tasks.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testRecurringDateResultsAreSplit()
+        throws InterruptedException
+    {
+        BatchingTodoistApi api = new BatchingTodoistApi(_api, WINDOW);
+
+        Object[] results = callConcurrently(api,
+                                            new Mutation[] { updateRecurringDate(1, 2), updateRecurringDate(3) });
+
+        ArrayList<String> calls = _api.getCalls();
+        assertEquals(1, calls.size());
+        assertEquals("updateRecurringDate [1, 2, 3]", calls.get(0));
+
+        @SuppressWarnings("unchecked")
+        ArrayList<TodoistItem> first = ((TodoistApiResultArray<TodoistItem>) results[0]).getArray();
+        @SuppressWarnings("unchecked")
+        ArrayList<TodoistItem> second = ((TodoistApiResultArray<TodoistItem>) results[1]).getArray();
+
+        assertTrue(((TodoistApiResultArray<?>) results[0]).successful());
+        assertEquals(2, first.size());
+        assertEquals(1, first.get(0).getId());
+        assertEquals(2, first.get(1).getId());
+        assertEquals(1, second.size());
+        assertEquals(3, second.get(0).getId());
+    }
+
+    /**
+     * Every caller in a failed batch gets its exception.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testFailureIsShared()
+        throws InterruptedException
+    {
+        _api.setFail(true);
+
+        BatchingTodoistApi api = new BatchingTodoistApi(_api, WINDOW);
+
+        Object[] results = callConcurrently(api, new Mutation[] { complete(1), complete(2) });
+
+        ArrayList<String> calls = _api.getCalls();
+        assertEquals(1, calls.size());
+        for (int i = 0; i < results.length; i++)
+        {
+            assertTrue(results[i] instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.nicjansma.tisktasks.test;
+
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.api.CoalescingTodoistApi;
+import com.nicjansma.tisktasks.api.ITodoistApi;
+import com.nicjansma.tisktasks.api.TodoistApiResultArray;
+
+/**
+ * Single-flight API tests.
+ */
+public final class CoalescingTodoistApiTest extends TestCase
+{
+    /**
+     * Number of concurrent callers.
+     */
+    private static final int CALLERS = 5;
+
+    /**
+     * Released to let decorated API calls return.
+     */
+    private final CountDownLatch _release = new CountDownLatch(1);
+
+    /**
+     * Decorated API, whose calls block until released.
+     */
+    private final RecordingTodoistApi _api = new RecordingTodoistApi();
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        _api.setGate(_release);
+    }
+
+    /**
+     * Calls getUncompletedItems() from many threads at once.
+     *
+     * @param api API
+     * @param projectIds Project ID of each caller
+     *
+     * @return Result (or exception) of each caller
+     *
+     * @throws InterruptedException If interrupted
+     */
+    private Object[] callConcurrently(final ITodoistApi api, final long[] projectIds)
+        throws InterruptedException
+    {
+        final Object[] results = new Object[projectIds.length];
+        Thread[] threads = new Thread[projectIds.length];
+
+        for (int i = 0; i < projectIds.length; i++)
+        {
+            final int caller = i;
+            threads[i] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        results[caller] = api.getUncompletedItems(projectIds[caller]);
+                    }
+                    catch (final RuntimeException e)
+                    {
+                        results[caller] = e;
+                    }
+                }
+            };
+
+            threads[i].start();
+        }
+
+        // wait until every caller is blocked, either in the decorated API or on another caller's call
+        for (int i = 0; i < threads.length; i++)
+        {
+            while (threads[i].getState() != Thread.State.WAITING)
+            {
+                Thread.sleep(1);
+            }
+        }
+
+        _release.countDown();
+
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i].join();
+        }
+
+        return results;
+    }
+
+    /**
+     * Concurrent identical reads share one call and one result.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testConcurrentReadsShareOneCall()
+        throws InterruptedException
+    {
+        CoalescingTodoistApi api = new CoalescingTodoistApi(_api);
+
+        long[] projectIds = new long[CALLERS];
+        for (int i = 0; i < CALLERS; i++)
+        {
+            projectIds[i] = 1;
+        }
+
+        Object[] results = callConcurrently(api, projectIds);
+
+        assertEquals(1, _api.getCallCount("getUncompletedItems"));
+        assertEquals(0, api.getInFlightCount());
+
+        for (int i = 0; i < CALLERS; i++)
+        {
+            assertTrue(results[i] instanceof TodoistApiResultArray);
+            assertSame(results[0], results[i]);
+        }
+    }
+
+    /**
+     * Reads with different arguments aren't shared.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testDifferentArgumentsAreSeparate()
+        throws InterruptedException
+    {
+        CoalescingTodoistApi api = new CoalescingTodoistApi(_api);
+
+        Object[] results = callConcurrently(api, new long[] { 1, 2, 1, 2 });
+
+        assertEquals(2, _api.getCallCount("getUncompletedItems"));
+        assertSame(results[0], results[2]);
+        assertSame(results[1], results[3]);
+        assertNotSame(results[0], results[1]);
+    }
+
+    /**
+     * Reads that don't overlap each make their own call.
+     */
+    public void testSequentialReadsAreNotCached()
+    {
+        _release.countDown();
+
+        CoalescingTodoistApi api = new CoalescingTodoistApi(_api);
+
+        assertNotSame(api.getProjects(), api.getProjects());
+        assertEquals(2, _api.getCallCount("getProjects"));
+    }
+
+    /**
+     * Every waiter gets the exception of a failed call.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testFailureIsShared()
+        throws InterruptedException
+    {
+        _api.setFail(true);
+
+        CoalescingTodoistApi api = new CoalescingTodoistApi(_api);
+
+        Object[] results = callConcurrently(api, new long[] { 1, 1, 1 });
+
+        assertEquals(1, _api.getCallCount("getUncompletedItems"));
+        for (int i = 0; i < results.length; i++)
+        {
+            assertTrue(results[i] instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.nicjansma.tisktasks.test;
+
+import org.joda.time.DateTime;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.models.DayRollover;
+import com.nicjansma.tisktasks.models.TodoistItem;
+
+/**
+ * Day rollover tests.
+ */
+public final class DayRolloverTest extends TestCase
+{
+    /**
+     * Milliseconds per hour.
+     */
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+
+    /**
+     * Number of times the listener ran.
+     */
+    private int _rollovers;
+
+    /**
+     * Counts rollovers.
+     */
+    private final Runnable _listener = new Runnable()
+    {
+        @Override
+        public void run()
+        {
+            _rollovers++;
+        }
+    };
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        ServiceLocator.setDayRollover(null);
+
+        super.tearDown();
+    }
+
+    /**
+     * Gets the time on a day.
+     *
+     * @param day Day of October 2026
+     * @param hour Hour
+     *
+     * @return Epoch milliseconds
+     */
+    private static long time(final int day, final int hour)
+    {
+        return new DateTime(2026, 10, day, hour, 0, 0, 0).getMillis();
+    }
+
+    /**
+     * Listeners run once when the day changes, but not on the first check.
+     */
+    public void testRollsOverAtMidnight()
+    {
+        DayRollover rollover = new DayRollover(null);
+        rollover.addListener(_listener);
+
+        assertFalse(rollover.check(time(16, 9), 0));
+        int generation = rollover.getGeneration();
+
+        assertFalse(rollover.check(time(16, 23), 0));
+        assertEquals(0, _rollovers);
+        assertEquals(generation, rollover.getGeneration());
+
+        assertTrue(rollover.check(time(17, 0), 0));
+        assertFalse(rollover.check(time(17, 1), 0));
+        assertEquals(1, _rollovers);
+        assertEquals(generation + 1, rollover.getGeneration());
+
+        rollover.removeListener(_listener);
+        assertTrue(rollover.check(time(18, 9), 0));
+        assertEquals(1, _rollovers);
+    }
+
+    /**
+     * The day is the user's day.
+     */
+    public void testUserOffset()
+    {
+        DayRollover rollover = new DayRollover(null);
+        rollover.addListener(_listener);
+
+        rollover.check(time(16, 20), 0);
+
+        // the user's time zone changed: 20:00 is already tomorrow 5 hours ahead
+        rollover.invalidate();
+        assertTrue(rollover.check(time(16, 20), 5 * HOUR_MILLIS));
+        assertEquals(1, _rollovers);
+    }
+
+    /**
+     * Invalidating changes the generation, but only a new day runs the listeners.
+     */
+    public void testInvalidate()
+    {
+        DayRollover rollover = new DayRollover(null);
+        rollover.addListener(_listener);
+
+        rollover.check(time(16, 9), 0);
+        int generation = rollover.getGeneration();
+
+        rollover.invalidate();
+        assertEquals(generation + 1, rollover.getGeneration());
+
+        assertFalse(rollover.check(time(16, 9), 0));
+        assertEquals(0, _rollovers);
+    }
+
+    /**
+     * Tasks format their due dates once per day.
+     */
+    public void testDueDateIsCachedForTheDay()
+    {
+        DayRollover rollover = new DayRollover(null);
+        rollover.check(time(16, 9), 0);
+        ServiceLocator.setDayRollover(rollover);
+
+        TodoistItem task = new TodoistItem(1, 1, 1, "Task", "", false, false, 1, 1);
+
+        assertSame(task.getFormattedDueDate(), task.getFormattedDueDate());
+
+        Object formatted = task.getFormattedDueDate();
+        rollover.check(time(17, 9), 0);
+
+        assertNotSame(formatted, task.getFormattedDueDate());
+    }
+}
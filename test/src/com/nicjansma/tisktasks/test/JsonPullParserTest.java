@@ -0,0 +1,232 @@
+package com.nicjansma.tisktasks.test;
+
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.nicjansma.library.net.JsonUtils;
+import com.nicjansma.tisktasks.IUserManager;
+import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.api.JsonArrayDecoder;
+import com.nicjansma.tisktasks.models.TodoistDueDateParser;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistProject;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+import com.nicjansma.tisktasks.models.TodoistQueryType;
+import com.nicjansma.tisktasks.models.TodoistUser;
+
+/**
+ * Streaming JSON decoding tests.
+ */
+public final class JsonPullParserTest extends TestCase
+{
+    /**
+     * Number of tasks in a large array.
+     */
+    private static final int LARGE = 2000;
+
+    /**
+     * Tasks, with escapes, nulls, missing and unknown fields.
+     */
+    private static final String TASKS = "[\n"
+        + "  {\"id\": 1, \"user_id\": 7, \"project_id\": 2, \"content\": \"Buy \\\"milk\\\" \\u2713\\n\","
+        + " \"priority\": 4, \"indent\": 2, \"item_order\": 3, \"checked\": 0, \"in_history\": 1,"
+        + " \"collapsed\": 1, \"date_string\": \"tomorrow\", \"due_date\": \"Fri Oct 16 23:59:59 2026\","
+        + " \"labels\": [1, {\"nested\": [true, null]}], \"chains\": null, \"score\": -1.5e3},\n"
+        + "  {\"id\": \"2\", \"project_id\": 2, \"content\": \"*Header\", \"due_date\": null},\n"
+        + "  {}\n"
+        + "]";
+
+    /**
+     * Tasks decoded from a stream match tasks decoded from JSONObjects.
+     *
+     * @throws Exception On errors
+     */
+    public void testTasksMatchJsonObjects()
+        throws Exception
+    {
+        JsonArrayDecoder<TodoistItem> decoder = new JsonArrayDecoder<TodoistItem>(TodoistItem.class);
+        assertNull(decoder.decode(new StringReader(TASKS)));
+
+        ArrayList<TodoistItem> streamed = decoder.getArray();
+
+        JSONArray json = new JSONArray(TASKS);
+        assertEquals(json.length(), streamed.size());
+
+        for (int i = 0; i < json.length(); i++)
+        {
+            TodoistItem expected = new TodoistItem();
+            expected.initialize(json.getJSONObject(i));
+
+            assertEquals(expected.getId(), streamed.get(i).getId());
+            assertEquals(expected.getContent(), streamed.get(i).getContent());
+            assertEquals(expected.getContentHash(), streamed.get(i).getContentHash());
+        }
+
+        TodoistItem task = streamed.get(0);
+        assertEquals("Buy \"milk\" \u2713\n", task.getContent());
+        assertEquals(2, task.getProjectId());
+        assertEquals(2, task.getIndent());
+        assertNotNull(task.getDueDate());
+
+        assertEquals(2, streamed.get(1).getId());
+        assertNull(streamed.get(1).getDueDate());
+    }
+
+    /**
+     * A timed task's due date gets the user's time zone offset, even if due_date comes before date_string.
+     *
+     * @throws Exception On errors
+     */
+    public void testDueDateBeforeDateString()
+        throws Exception
+    {
+        final TodoistUser user = new TodoistUser();
+        user.initialize(new JSONObject().put("tz_offset", "[\"-05:00\", -5, 0, 0]"));
+
+        ServiceLocator.setUserManager((IUserManager) Proxy.newProxyInstance(
+            IUserManager.class.getClassLoader(),
+            new Class<?>[] { IUserManager.class },
+            new InvocationHandler()
+            {
+                @Override
+                public Object invoke(final Object proxy, final Method method, final Object[] args)
+                {
+                    return method.getName().equals("getCurrentUser") ? user : null;
+                }
+            }));
+
+        try
+        {
+            String task = "{\"id\": 1, \"due_date\": \"Fri Oct 16 17:00:00 2026\","
+                          + " \"date_string\": \"16 Oct @ 5pm\"}";
+
+            JsonArrayDecoder<TodoistItem> decoder = new JsonArrayDecoder<TodoistItem>(TodoistItem.class);
+            assertNull(decoder.decode(new StringReader("[" + task + "]")));
+            TodoistItem streamed = decoder.getArray().get(0);
+
+            TodoistDueDateParser.beginBatch();
+            TodoistItem expected = new TodoistItem();
+            expected.initialize(new JSONObject(task));
+
+            TodoistDueDateParser parser = TodoistDueDateParser.batch();
+            assertEquals(-5 * 60 * 60 * 1000L, parser.getUserOffset());
+            assertEquals(parser.parse("Fri Oct 16 17:00:00 2026") + parser.getUserOffset(), expected.getDueMillis());
+            assertEquals(expected.getDueMillis(), streamed.getDueMillis());
+            assertEquals(expected.getContentHash(), streamed.getContentHash());
+        }
+        finally
+        {
+            ServiceLocator.setUserManager(null);
+            TodoistDueDateParser.beginBatch();
+        }
+    }
+
+    /**
+     * A body many times the parser's buffer decodes the same as JSONObjects.
+     *
+     * @throws Exception On errors
+     */
+    public void testLargeArray()
+        throws Exception
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        for (int i = 0; i < LARGE; i++)
+        {
+            tasks.add(new TodoistItem(i + 1, 1, 1, "Task \"" + i + "\" \\ \u00e9", "", false, false, 1, i + 1));
+        }
+
+        JSONArray json = JsonUtils.convertObjectArrayToJsonArray(tasks);
+
+        JsonArrayDecoder<TodoistItem> decoder = new JsonArrayDecoder<TodoistItem>(TodoistItem.class);
+        assertNull(decoder.decode(new StringReader(json.toString())));
+        assertEquals(LARGE, decoder.getArray().size());
+
+        for (int i = 0; i < LARGE; i++)
+        {
+            TodoistItem expected = new TodoistItem();
+            expected.initialize(json.getJSONObject(i));
+
+            assertEquals(tasks.get(i).getContent(), decoder.getArray().get(i).getContent());
+            assertEquals(expected.getContentHash(), decoder.getArray().get(i).getContentHash());
+        }
+    }
+
+    /**
+     * Projects decode with their defaults.
+     *
+     * @throws Exception On errors
+     */
+    public void testProjects()
+        throws Exception
+    {
+        JsonArrayDecoder<TodoistProject> decoder = new JsonArrayDecoder<TodoistProject>(TodoistProject.class);
+        assertNull(decoder.decode(new StringReader("[{\"id\":5,\"name\":\"Work\",\"cache_count\":3},{\"id\":6}]")));
+
+        assertEquals(2, decoder.getArray().size());
+        assertEquals("Work", decoder.getArray().get(0).getName());
+        assertEquals("Unknown", decoder.getArray().get(1).getName());
+    }
+
+    /**
+     * Query results decode their tasks in the same pass.
+     *
+     * @throws Exception On errors
+     */
+    public void testQueryResults()
+        throws Exception
+    {
+        String json = "[{\"type\": \"priority\", \"query\": \"p1\", \"data\": " + TASKS + "},"
+            + " {\"query\": \"overdue\", \"type\": \"overdue\", \"data\": []}]";
+
+        JsonArrayDecoder<TodoistQueryResult> decoder
+            = new JsonArrayDecoder<TodoistQueryResult>(TodoistQueryResult.class);
+        assertNull(decoder.decode(new StringReader(json)));
+
+        ArrayList<TodoistQueryResult> results = decoder.getArray();
+        assertEquals(2, results.size());
+        assertEquals(TodoistQueryType.priority, results.get(0).getQueryType());
+        assertEquals("p1", results.get(0).getQueryString());
+        assertEquals(3, results.get(0).getTaskManager().getCount());
+        assertEquals("*Header", results.get(0).getTaskManager().get(2).getContent());
+        assertEquals(0, results.get(1).getTaskManager().getCount());
+
+        // a cached result, with its tasks as text, is streamed too
+        TodoistQueryResult cached = new TodoistQueryResult();
+        cached.initialize(results.get(0).toJson().put("data", TASKS));
+        assertEquals(3, cached.getTaskManager().getCount());
+    }
+
+    /**
+     * Bodies that aren't arrays are returned as errors, and malformed arrays aren't decoded.
+     *
+     * @throws Exception On errors
+     */
+    public void testErrors()
+        throws Exception
+    {
+        JsonArrayDecoder<TodoistItem> decoder = new JsonArrayDecoder<TodoistItem>(TodoistItem.class);
+
+        assertEquals("ERROR_PROJECT_NOT_FOUND", decoder.decode(new StringReader("\"ERROR_PROJECT_NOT_FOUND\"")));
+        assertNull(decoder.getArray());
+
+        assertEquals("LOGIN_ERROR", decoder.decode(new StringReader("LOGIN_ERROR")));
+        assertNull(decoder.getArray());
+
+        assertNotNull(decoder.decode(new StringReader("[{\"id\": 1}, {\"id\": 2")));
+        assertNull(decoder.getArray());
+
+        assertNotNull(decoder.decode(new StringReader("[{\"id\" 1}]")));
+        assertNull(decoder.getArray());
+
+        assertNull(decoder.decode(new StringReader("[]")));
+        assertEquals(0, decoder.getArray().size());
+    }
+}
@@ -0,0 +1,250 @@
+package com.nicjansma.tisktasks.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.api.JournalingTodoistApi;
+import com.nicjansma.tisktasks.api.MutationJournal;
+import com.nicjansma.tisktasks.api.TodoistApiResultObject;
+import com.nicjansma.tisktasks.api.TodoistHttpResponse;
+import com.nicjansma.tisktasks.api.TodoistMutation;
+import com.nicjansma.tisktasks.models.TodoistItem;
+
+/**
+ * Offline mutation journal tests.
+ */
+public final class MutationJournalTest extends TestCase
+{
+    /**
+     * Journal file.
+     */
+    private File _file;
+
+    /**
+     * Decorated API.
+     */
+    private final RecordingTodoistApi _api = new RecordingTodoistApi();
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        _file = File.createTempFile("journal", null);
+        _file.delete();
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        _file.delete();
+        new File(_file.getPath() + ".ids").delete();
+
+        super.tearDown();
+    }
+
+    /**
+     * Creates a list of IDs.
+     *
+     * @param ids IDs
+     *
+     * @return List of IDs
+     */
+    private static ArrayList<Long> ids(final long... ids)
+    {
+        ArrayList<Long> list = new ArrayList<Long>();
+        for (int i = 0; i < ids.length; i++)
+        {
+            list.add(ids[i]);
+        }
+
+        return list;
+    }
+
+    /**
+     * Journaled mutations survive reloading, and a partly written last line is skipped.
+     *
+     * @throws IOException On file errors
+     */
+    public void testReload()
+        throws IOException
+    {
+        MutationJournal journal = new MutationJournal(_file);
+        journal.append(TodoistMutation.completeItems(ids(1, 2), true));
+        journal.append(TodoistMutation.updateItem(3, "Buy \"milk\"\n", null, 4, null, null, 1));
+
+        FileOutputStream out = new FileOutputStream(_file, true);
+        out.write("{\"kind\": \"DELETE_IT".getBytes("UTF-8"));
+        out.close();
+
+        journal = new MutationJournal(_file);
+        assertEquals(2, journal.size());
+
+        TodoistMutation complete = journal.getMutations().get(0);
+        assertEquals(TodoistMutation.Kind.COMPLETE_ITEMS, complete.getKind());
+        assertEquals(ids(1, 2), complete.getIds());
+
+        TodoistMutation update = journal.getMutations().get(1);
+        assertEquals(3, update.getObjectId());
+        assertEquals("Buy \"milk\"\n", update.getText());
+        assertNull(update.getDateString());
+        assertEquals(Integer.valueOf(4), update.getPriority());
+        assertNull(update.getIndent());
+        assertEquals(Integer.valueOf(1), update.getCollapsed());
+
+        journal.removeFirst();
+        assertEquals(1, new MutationJournal(_file).size());
+
+        journal.clear();
+        assertEquals(0, new MutationJournal(_file).size());
+    }
+
+    /**
+     * Compaction drops and merges mutations without changing the outcome.
+     */
+    public void testCompaction()
+    {
+        ArrayList<TodoistMutation> mutations = new ArrayList<TodoistMutation>();
+
+        // runs are merged
+        mutations.add(TodoistMutation.completeItems(ids(1), true));
+        mutations.add(TodoistMutation.completeItems(ids(2, 1), true));
+
+        // updates are merged into the last one
+        mutations.add(TodoistMutation.updateItem(3, "old", "today", null, null, null, null));
+        mutations.add(TodoistMutation.updateItem(4, "other", null, null, null, null, null));
+        mutations.add(TodoistMutation.updateItem(3, "new", null, null, 2, null, null));
+
+        // earlier orders are superseded
+        mutations.add(TodoistMutation.updateOrders(9, ids(3, 4)));
+
+        // a task added and deleted offline is never sent
+        mutations.add(TodoistMutation.addItem(-1, 9, "temp", "", 1));
+        mutations.add(TodoistMutation.updateItem(-1, "temp!", null, null, null, null, null));
+        mutations.add(TodoistMutation.updateOrders(9, ids(4, 3, -1)));
+
+        // changes to a deleted task are dropped
+        mutations.add(TodoistMutation.uncompleteItems(ids(5, 6)));
+        mutations.add(TodoistMutation.deleteItems(ids(-1, 5)));
+
+        ArrayList<TodoistMutation> compacted = TodoistMutation.compact(mutations);
+
+        assertEquals(6, compacted.size());
+
+        assertEquals(TodoistMutation.Kind.COMPLETE_ITEMS, compacted.get(0).getKind());
+        assertEquals(ids(1, 2), compacted.get(0).getIds());
+
+        assertEquals(4, compacted.get(1).getObjectId());
+
+        assertEquals(3, compacted.get(2).getObjectId());
+        assertEquals("new", compacted.get(2).getText());
+        assertEquals("today", compacted.get(2).getDateString());
+        assertEquals(Integer.valueOf(2), compacted.get(2).getIndent());
+
+        assertEquals(TodoistMutation.Kind.UPDATE_ORDERS, compacted.get(3).getKind());
+        assertEquals(ids(4, 3, -1), compacted.get(3).getIds());
+
+        assertEquals(TodoistMutation.Kind.UNCOMPLETE_ITEMS, compacted.get(4).getKind());
+        assertEquals(ids(6), compacted.get(4).getIds());
+
+        assertEquals(TodoistMutation.Kind.DELETE_ITEMS, compacted.get(5).getKind());
+        assertEquals(ids(5), compacted.get(5).getIds());
+
+        // the originals aren't changed
+        assertEquals(ids(5, 6), mutations.get(9).getIds());
+    }
+
+    /**
+     * Changes made offline are applied optimistically, journaled, and replayed in order once online.
+     */
+    public void testOfflineReplay()
+    {
+        JournalingTodoistApi api = new JournalingTodoistApi(_api, new MutationJournal(_file));
+
+        // online, changes are sent right away
+        _api.setOnline();
+        assertEquals(HttpURLConnection.HTTP_OK, api.completeItem(1, true).getResponse().getHttpCode());
+        assertEquals(1, _api.getCalls().size());
+        assertEquals(0, api.getPendingCount());
+
+        // offline, they succeed and are journaled
+        _api.setOffline(TodoistHttpResponse.NOT_SENT);
+        TodoistApiResultObject<TodoistItem> added = api.addItem(9, "Buy milk", "", 1);
+        assertTrue(added.successful());
+        assertEquals(HttpURLConnection.HTTP_ACCEPTED, added.getResponse().getHttpCode());
+
+        long tempId = added.getObject().getId();
+        assertTrue(tempId < 0);
+        assertEquals(9, added.getObject().getProjectId());
+        assertEquals("Buy milk", added.getObject().getContent());
+
+        TodoistApiResultObject<TodoistItem> updated = api.updateItem(tempId, null, null, null, 2, 5, null);
+        assertTrue(updated.successful());
+        assertEquals(2, updated.getObject().getIndent());
+
+        assertTrue(api.updateOrders(9, ids(tempId, 2)).successful());
+        assertTrue(api.deleteItem(2).successful());
+        assertFalse(api.replay());
+
+        // the journal is durable
+        assertEquals(4, new MutationJournal(_file).size());
+
+        // back online, the journal is replayed in order with the added task's real ID
+        _api.setOnline();
+        api.getUncompletedItems(9);
+
+        assertEquals(0, api.getPendingCount());
+        assertEquals(0, new MutationJournal(_file).size());
+
+        assertEquals(6, _api.getCalls().size());
+        assertEquals("addItem 9", _api.getCalls().get(1));
+        assertEquals("updateItem " + RecordingTodoistApi.ADDED_ID, _api.getCalls().get(2));
+        assertEquals("updateOrders 9", _api.getCalls().get(3));
+        assertEquals("deleteItems [2]", _api.getCalls().get(4));
+        assertEquals("getUncompletedItems 9", _api.getCalls().get(5));
+
+        // changes to the task by its temporary ID go to its real ID, even after a restart
+        api.completeItem(tempId, true);
+        assertEquals("completeItems [" + RecordingTodoistApi.ADDED_ID + "]", _api.getCalls().get(6));
+
+        api = new JournalingTodoistApi(_api, new MutationJournal(_file));
+        api.uncompleteItem(tempId);
+        assertEquals("uncompleteItems [" + RecordingTodoistApi.ADDED_ID + "]", _api.getCalls().get(7));
+
+        // changes to a task that was never added fail
+        TodoistApiResultObject<TodoistItem> missing = api.updateItem(tempId - 1, "Gone", null, null, null, null, null);
+        assertFalse(missing.successful());
+        assertEquals(8, _api.getCalls().size());
+    }
+
+    /**
+     * Changes that may have reached Todoist are only journaled if sending them again is harmless.
+     */
+    public void testNoResponse()
+    {
+        JournalingTodoistApi api = new JournalingTodoistApi(_api, new MutationJournal(_file));
+
+        _api.setOffline(TodoistHttpResponse.CONNECTION_FAILURE);
+
+        // an add could be applied twice, so it fails
+        TodoistApiResultObject<TodoistItem> added = api.addItem(9, "Buy milk", "", 1);
+        assertFalse(added.successful());
+        assertTrue(added.hadConnectionFailure());
+        assertEquals(0, api.getPendingCount());
+
+        // a complete can be sent again
+        assertTrue(api.completeItem(1, true).successful());
+        assertEquals(1, api.getPendingCount());
+
+        _api.setOnline();
+        assertTrue(api.replay());
+        assertEquals("completeItems [1]", _api.getCalls().get(0));
+    }
+}
@@ -0,0 +1,238 @@
+package com.nicjansma.tisktasks.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.api.ProjectPrefetcher;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
+import com.nicjansma.tisktasks.models.TaskManager;
+import com.nicjansma.tisktasks.models.TodoistProject;
+
+/**
+ * Project task list prefetch tests.
+ */
+public final class ProjectPrefetcherTest extends TestCase
+{
+    /**
+     * Longest wait for prefetches (milliseconds).
+     */
+    private static final int TIMEOUT = 5000;
+
+    /**
+     * How long each fetch takes (milliseconds).
+     */
+    private static final int FETCH_TIME = 30;
+
+    /**
+     * Runs callbacks on the calling thread.
+     */
+    private static final Executor DIRECT = new Executor()
+    {
+        @Override
+        public void execute(final Runnable command)
+        {
+            command.run();
+        }
+    };
+
+    /**
+     * API, whose getUncompletedItems returns one task per project, slowly.
+     */
+    private final RecordingTodoistApi _api = new RecordingTodoistApi();
+
+    /**
+     * Executor.
+     */
+    private TodoistExecutor _executor;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        _executor = new TodoistExecutor(TodoistExecutor.DEFAULT_THREADS, DIRECT);
+        _api.setLatency(FETCH_TIME);
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        _executor.shutdown();
+
+        super.tearDown();
+    }
+
+    /**
+     * Gets the projects fetched.
+     *
+     * @return Project IDs, in order
+     */
+    private ArrayList<Long> fetched()
+    {
+        ArrayList<String> calls = _api.getCalls();
+        ArrayList<Long> fetched = new ArrayList<Long>();
+        for (int i = 0; i < calls.size(); i++)
+        {
+            fetched.add(Long.parseLong(calls.get(i).substring("getUncompletedItems ".length())));
+        }
+
+        return fetched;
+    }
+
+    /**
+     * Creates projects, each with its own task manager.
+     *
+     * @param taskCounts Number of tasks of each project
+     *
+     * @return Projects, with IDs from 1
+     */
+    private static ArrayList<TodoistProject> projects(final int... taskCounts)
+    {
+        ArrayList<TodoistProject> projects = new ArrayList<TodoistProject>();
+        for (int i = 0; i < taskCounts.length; i++)
+        {
+            TodoistProject project = new TodoistProject(i + 1, 1, "Project", "0", 1, taskCounts[i], false, i + 1);
+            project.setTaskManager(new TaskManager());
+            projects.add(project);
+        }
+
+        return projects;
+    }
+
+    /**
+     * Sorts fetched projects.
+     *
+     * @param fetched Projects fetched
+     *
+     * @return Sorted projects, eg. "[1, 2]"
+     */
+    private static String sorted(final ArrayList<Long> fetched)
+    {
+        ArrayList<Long> sorted = new ArrayList<Long>(fetched);
+        Collections.sort(sorted);
+        return sorted.toString();
+    }
+
+    /**
+     * Waits for the prefetches to finish.
+     *
+     * @param prefetcher Prefetcher
+     *
+     * @throws InterruptedException If interrupted
+     */
+    private static void await(final ProjectPrefetcher prefetcher)
+        throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (prefetcher.getPendingCount() > 0 && System.currentTimeMillis() < end)
+        {
+            Thread.sleep(FETCH_TIME / 3);
+        }
+
+        assertEquals(0, prefetcher.getPendingCount());
+    }
+
+    /**
+     * The top projects are warmed, a few at a time, and are fresh afterwards.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testTopProjectsAreWarmed()
+        throws InterruptedException
+    {
+        final int top = 3;
+        ProjectPrefetcher prefetcher = new ProjectPrefetcher(_api, _executor, top, 2, Long.MAX_VALUE);
+
+        ArrayList<TodoistProject> projects = projects(1, 1, 1, 1, 1);
+        prefetcher.prefetch(projects);
+        await(prefetcher);
+
+        // two at a time, so in either order
+        assertEquals("[1, 2, 3]", sorted(fetched()));
+        assertTrue("max running " + _api.getMaxRunning(), _api.getMaxRunning() <= 2);
+
+        assertEquals(1, projects.get(0).getTaskManager().getCount());
+        assertTrue(prefetcher.isFresh(projects.get(0).getTaskManager()));
+        assertFalse(prefetcher.isFresh(projects.get(3).getTaskManager()));
+
+        // fresh projects aren't fetched again
+        prefetcher.prefetch(projects);
+        await(prefetcher);
+
+        assertEquals("[1, 2, 3, 4, 5]", sorted(fetched()));
+    }
+
+    /**
+     * A project replaced by a newer copy has a new, empty Task Manager, so it isn't fresh and is warmed again.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testReplacedProjectIsNotFresh()
+        throws InterruptedException
+    {
+        ProjectPrefetcher prefetcher = new ProjectPrefetcher(_api, _executor, 1, 1, Long.MAX_VALUE);
+
+        ArrayList<TodoistProject> projects = projects(1);
+        prefetcher.prefetch(projects);
+        await(prefetcher);
+
+        assertTrue(prefetcher.isFresh(projects.get(0).getTaskManager()));
+
+        // same ID, new task count
+        ArrayList<TodoistProject> replaced = projects(2);
+        assertFalse(prefetcher.isFresh(replaced.get(0).getTaskManager()));
+
+        prefetcher.forget(projects.get(0).getTaskManager());
+        assertFalse(prefetcher.isFresh(projects.get(0).getTaskManager()));
+
+        prefetcher.prefetch(replaced);
+        await(prefetcher);
+
+        assertEquals("[1, 1]", fetched().toString());
+        assertEquals(1, replaced.get(0).getTaskManager().getCount());
+        assertTrue(prefetcher.isFresh(replaced.get(0).getTaskManager()));
+    }
+
+    /**
+     * Projects opened most are warmed first, and empty projects aren't warmed.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testMostOpenedFirst()
+        throws InterruptedException
+    {
+        ProjectPrefetcher prefetcher = new ProjectPrefetcher(_api, _executor, 2, 1, Long.MAX_VALUE);
+
+        prefetcher.recordOpen(4);
+        prefetcher.recordOpen(4);
+        prefetcher.recordOpen(3);
+
+        prefetcher.prefetch(projects(1, 1, 0, 1));
+        await(prefetcher);
+
+        // project 3 is empty
+        assertEquals("[4, 1]", fetched().toString());
+    }
+
+    /**
+     * Projects too big for the byte budget are skipped, but smaller ones still fit.
+     *
+     * @throws InterruptedException If interrupted
+     */
+    public void testByteBudget()
+        throws InterruptedException
+    {
+        long budget = 10 * ProjectPrefetcher.ESTIMATED_TASK_BYTES;
+        ProjectPrefetcher prefetcher = new ProjectPrefetcher(_api, _executor, 10, 1, budget);
+
+        prefetcher.prefetch(projects(6, 8, 4, 1));
+        await(prefetcher);
+
+        assertEquals("[1, 3]", fetched().toString());
+    }
+}
@@ -0,0 +1,187 @@
+package com.nicjansma.tisktasks.test;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.api.JsonArrayDecoder;
+import com.nicjansma.tisktasks.api.QueryCountDecoder;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+
+/**
+ * Count-only query decoding benchmark, against decoding the full results.
+ */
+public final class QueryCountBenchmarkTest extends TestCase
+{
+    /**
+     * Class tag (for debugging).
+     */
+    private static final String TAG = QueryCountBenchmarkTest.class.getSimpleName();
+
+    /**
+     * Number of query results.
+     */
+    private static final int QUERIES = 8;
+
+    /**
+     * Number of tasks per result.
+     */
+    private static final int TASKS = 1000;
+
+    /**
+     * Number of timed runs (best is kept).
+     */
+    private static final int RUNS = 10;
+
+    /**
+     * Builds a query response body, with a shallow hierarchy of tasks in each result.
+     *
+     * @return Response body
+     */
+    private static String buildBody()
+    {
+        StringBuilder body = new StringBuilder("[");
+
+        for (int q = 0; q < QUERIES; q++)
+        {
+            body.append(q == 0 ? "" : ",")
+                .append("{\"type\": \"priority\", \"query\": \"p").append(q).append("\", \"data\": [");
+
+            for (int i = 0; i < TASKS; i++)
+            {
+                body.append(i == 0 ? "" : ",")
+                    .append("{\"id\": ").append(q * TASKS + i + 1)
+                    .append(", \"user_id\": 1, \"project_id\": ").append(q + 1)
+                    .append(", \"content\": \"Task ").append(i).append(" with %(b)bold% text\"")
+                    .append(", \"date_string\": \"\", \"due_date\": null, \"in_history\": 0, \"collapsed\": 0")
+                    .append(", \"priority\": ").append(i % 4 + 1)
+                    .append(", \"indent\": ").append(i % 3 + 1)
+                    .append(", \"item_order\": ").append(i + 1)
+                    .append(", \"checked\": 0, \"labels\": [1, 2]}");
+            }
+
+            body.append("]}");
+        }
+
+        return body.append("]").toString();
+    }
+
+    /**
+     * Times counting the tasks of each result by decoding every result.
+     *
+     * @param body Response body
+     * @param counts Counts to fill in
+     *
+     * @return Best time in nanoseconds
+     *
+     * @throws IOException On read errors
+     */
+    private static long timeFullDecode(final String body, final ArrayList<Long> counts)
+        throws IOException
+    {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++)
+        {
+            counts.clear();
+
+            long start = System.nanoTime();
+
+            JsonArrayDecoder<TodoistQueryResult> decoder
+                = new JsonArrayDecoder<TodoistQueryResult>(TodoistQueryResult.class);
+            assertNull(decoder.decode(new StringReader(body)));
+
+            for (int i = 0; i < decoder.getArray().size(); i++)
+            {
+                counts.add(Long.valueOf(decoder.getArray().get(i).getTaskManager().getCount()));
+            }
+
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        return best;
+    }
+
+    /**
+     * Times counting the tasks of each result without decoding them.
+     *
+     * @param body Response body
+     * @param counts Counts to fill in
+     *
+     * @return Best time in nanoseconds
+     *
+     * @throws IOException On read errors
+     */
+    private static long timeCountOnly(final String body, final ArrayList<Long> counts)
+        throws IOException
+    {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++)
+        {
+            counts.clear();
+
+            long start = System.nanoTime();
+
+            QueryCountDecoder decoder = new QueryCountDecoder();
+            assertNull(decoder.decode(new StringReader(body)));
+            counts.addAll(decoder.getCounts());
+
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        return best;
+    }
+
+    /**
+     * Counting gives the same counts as decoding. Both are timed on large results, and since timings vary with the
+     * device's load, the speed-up is logged rather than asserted.
+     *
+     * @throws IOException On read errors
+     */
+    @LargeTest
+    public void testCountOnlyBenchmark()
+        throws IOException
+    {
+        String body = buildBody();
+
+        ArrayList<Long> decoded = new ArrayList<Long>();
+        ArrayList<Long> counted = new ArrayList<Long>();
+
+        // warm up both paths, then time them
+        timeFullDecode(body, decoded);
+        timeCountOnly(body, counted);
+
+        long full = timeFullDecode(body, decoded);
+        long count = timeCountOnly(body, counted);
+
+        assertEquals(decoded, counted);
+        assertEquals(QUERIES, counted.size());
+        assertEquals(Long.valueOf(TASKS), counted.get(0));
+
+        double speedup = (double) full / Math.max(count, 1);
+        Log.i(TAG, QUERIES + "x" + TASKS + " tasks: decode=" + full + "ns count=" + count + "ns speedup=" + speedup);
+    }
+
+    /**
+     * Non-task values in a result's data are skipped, brackets in strings don't end a task, and an error string
+     * isn't counted.
+     *
+     * @throws IOException On read errors
+     */
+    public void testCounts()
+        throws IOException
+    {
+        QueryCountDecoder decoder = new QueryCountDecoder();
+        assertNull(decoder.decode(new StringReader(
+            "[{\"type\": \"date\", \"data\": [{\"id\": 1, \"content\": \"a \\\"]}\\\" b\"}, null, "
+            + "{\"id\": 2, \"labels\": [{}]}]}, {\"data\": []}]")));
+        assertEquals("[2, 0]", decoder.getCounts().toString());
+
+        assertEquals("ERROR", decoder.decode(new StringReader("\"ERROR\"")));
+        assertNull(decoder.getCounts());
+    }
+}
@@ -0,0 +1,483 @@
+package com.nicjansma.tisktasks.test;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import com.nicjansma.tisktasks.api.ITodoistApi;
+import com.nicjansma.tisktasks.api.TodoistApiResultArray;
+import com.nicjansma.tisktasks.api.TodoistApiResultObject;
+import com.nicjansma.tisktasks.api.TodoistApiResultSimple;
+import com.nicjansma.tisktasks.api.TodoistHttpResponse;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistProject;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+import com.nicjansma.tisktasks.models.TodoistUser;
+
+/**
+ * Fake Todoist API that records its calls, for testing the API decorators and the prefetcher.
+ *
+ * Calls are recorded as "method firstArgument", and succeed with made-up results: a task for each item ID,
+ * one task for each project, and ADDED_ID for an added task.  Calls can be made to fail, to block until
+ * released, to take a while, or to fail without being recorded, as if offline.
+ */
+public final class RecordingTodoistApi
+    implements ITodoistApi
+{
+    /**
+     * Real ID of added tasks.
+     */
+    public static final long ADDED_ID = 1000;
+
+    /**
+     * Calls, as "method firstArgument".
+     */
+    private final ArrayList<String> _calls = new ArrayList<String>();
+
+    /**
+     * Calls running now.
+     */
+    private int _running;
+
+    /**
+     * Most calls that ran at once.
+     */
+    private int _maxRunning;
+
+    /**
+     * Whether or not calls throw.
+     */
+    private volatile boolean _fail;
+
+    /**
+     * HTTP code of calls while offline, or null if online.
+     */
+    private volatile Integer _offlineCode;
+
+    /**
+     * Latch calls wait on before returning, or null.
+     */
+    private volatile CountDownLatch _gate;
+
+    /**
+     * How long each call takes (milliseconds).
+     */
+    private volatile int _latency;
+
+    /**
+     * Sets whether or not calls throw an IllegalStateException (after they're recorded).
+     *
+     * @param fail True to fail
+     */
+    public void setFail(final boolean fail)
+    {
+        _fail = fail;
+    }
+
+    /**
+     * Takes the API offline: calls aren't recorded, and fail with an HTTP code.
+     *
+     * @param httpCode HTTP code, eg. TodoistHttpResponse.NOT_SENT
+     */
+    public void setOffline(final int httpCode)
+    {
+        _offlineCode = httpCode;
+    }
+
+    /**
+     * Brings the API back online.
+     */
+    public void setOnline()
+    {
+        _offlineCode = null;
+    }
+
+    /**
+     * Makes calls wait for a latch before returning.
+     *
+     * @param gate Latch
+     */
+    public void setGate(final CountDownLatch gate)
+    {
+        _gate = gate;
+    }
+
+    /**
+     * Makes each call take a while.
+     *
+     * @param latency Time (milliseconds)
+     */
+    public void setLatency(final int latency)
+    {
+        _latency = latency;
+    }
+
+    /**
+     * Gets the calls so far.
+     *
+     * @return Calls, in order, as "method firstArgument"
+     */
+    public ArrayList<String> getCalls()
+    {
+        synchronized (_calls)
+        {
+            return new ArrayList<String>(_calls);
+        }
+    }
+
+    /**
+     * Gets the number of calls of a method.
+     *
+     * @param methodName Method name
+     *
+     * @return Number of calls
+     */
+    public int getCallCount(final String methodName)
+    {
+        int count = 0;
+
+        synchronized (_calls)
+        {
+            for (int i = 0; i < _calls.size(); i++)
+            {
+                if (_calls.get(i).startsWith(methodName + " "))
+                {
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the most calls that ran at once.
+     *
+     * @return Number of calls
+     */
+    public int getMaxRunning()
+    {
+        synchronized (_calls)
+        {
+            return _maxRunning;
+        }
+    }
+
+    /**
+     * Makes a call.
+     *
+     * @param methodName Method name
+     * @param arg First argument
+     *
+     * @return Response: "ok", or the offline failure
+     */
+    private TodoistHttpResponse call(final String methodName, final Object arg)
+    {
+        Integer offlineCode = _offlineCode;
+        if (offlineCode != null)
+        {
+            return new TodoistHttpResponse(offlineCode, "");
+        }
+
+        synchronized (_calls)
+        {
+            _calls.add(methodName + " " + arg);
+            _running++;
+            _maxRunning = Math.max(_maxRunning, _running);
+        }
+
+        try
+        {
+            CountDownLatch gate = _gate;
+            if (gate != null)
+            {
+                gate.await();
+            }
+
+            if (_latency > 0)
+            {
+                Thread.sleep(_latency);
+            }
+        }
+        catch (final InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            synchronized (_calls)
+            {
+                _running--;
+            }
+        }
+
+        if (_fail)
+        {
+            throw new IllegalStateException("failed");
+        }
+
+        return new TodoistHttpResponse(HttpURLConnection.HTTP_OK, "ok");
+    }
+
+    /**
+     * Makes a call that returns "ok".
+     *
+     * @param methodName Method name
+     * @param arg First argument
+     *
+     * @return Result
+     */
+    private TodoistApiResultSimple simple(final String methodName, final Object arg)
+    {
+        return new TodoistApiResultSimple(call(methodName, arg));
+    }
+
+    /**
+     * Makes a call that returns an array.
+     *
+     * @param <T> Object type
+     * @param methodName Method name
+     * @param arg First argument
+     * @param array Array, if the call succeeds
+     *
+     * @return Result
+     */
+    private <T> TodoistApiResultArray<T> array(final String methodName, final Object arg, final ArrayList<T> array)
+    {
+        TodoistHttpResponse response = call(methodName, arg);
+        return new TodoistApiResultArray<T>(response, response.successful() ? array : null);
+    }
+
+    /**
+     * Makes a call that returns an object.
+     *
+     * @param <T> Object type
+     * @param methodName Method name
+     * @param arg First argument
+     * @param obj Object, if the call succeeds
+     *
+     * @return Result
+     */
+    private <T> TodoistApiResultObject<T> object(final String methodName, final Object arg, final T obj)
+    {
+        TodoistHttpResponse response = call(methodName, arg);
+        return new TodoistApiResultObject<T>(response, response.successful() ? obj : null);
+    }
+
+    /**
+     * Creates a task.
+     *
+     * @param id Task ID
+     * @param projectId Project ID
+     * @param content Content
+     *
+     * @return Task
+     */
+    private static TodoistItem task(final long id, final long projectId, final String content)
+    {
+        return new TodoistItem(id, 1, projectId, content, "", false, false, 1, 1);
+    }
+
+    /**
+     * Creates a task for each item ID.
+     *
+     * @param items Item IDs
+     *
+     * @return Tasks
+     */
+    private static ArrayList<TodoistItem> tasks(final ArrayList<Long> items)
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        for (int i = 0; i < items.size(); i++)
+        {
+            tasks.add(task(items.get(i), 1, "Task"));
+        }
+
+        return tasks;
+    }
+
+    @Override
+    public void setToken(final String token)
+    {
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> login(final String email, final String password)
+    {
+        return object("login", email, new TodoistUser());
+    }
+
+    @Override
+    public TodoistApiResultArray<String> getTimezones()
+    {
+        return array("getTimezones", "", new ArrayList<String>());
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> register(
+        final String email,
+        final String fullName,
+        final String password,
+        final String timeZone)
+    {
+        return object("register", email, new TodoistUser());
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistUser> updateUser(
+        final String email,
+        final String fullName,
+        final String password,
+        final String timeZone)
+    {
+        return object("updateUser", email, new TodoistUser());
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistProject> getProjects()
+    {
+        return array("getProjects", "", new ArrayList<TodoistProject>());
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> getProject(final long projectId)
+    {
+        return object("getProject", projectId, new TodoistProject(projectId, 1, "Project", "0", 1, 0, false, 1));
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> addProject(
+        final String name,
+        final int color,
+        final int indent,
+        final int order)
+    {
+        return object("addProject", name, new TodoistProject(ADDED_ID, 1, name, "0", indent, 0, false, order));
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistProject> updateProject(
+        final long projectId,
+        final String name,
+        final Integer color,
+        final Integer indent)
+    {
+        return object("updateProject", projectId, new TodoistProject(projectId, 1, name, "0", 1, 0, false, 1));
+    }
+
+    @Override
+    public TodoistApiResultSimple updateProjectOrders(final ArrayList<Long> orders)
+    {
+        return simple("updateProjectOrders", orders);
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteProject(final long projectId)
+    {
+        return simple("deleteProject", projectId);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getUncompletedItems(final long projectId)
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        tasks.add(task(projectId * 100, projectId, "Task"));
+
+        return array("getUncompletedItems", projectId, tasks);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getCompletedItems(final long projectId)
+    {
+        return array("getCompletedItems", projectId, new ArrayList<TodoistItem>());
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> getItemsById(final ArrayList<Long> items)
+    {
+        return array("getItemsById", items, tasks(items));
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistItem> addItem(
+         final long projectId,
+         final String content,
+         final String dateString,
+         final int priority)
+    {
+        return object("addItem", projectId, task(ADDED_ID, projectId, content));
+    }
+
+    @Override
+    public TodoistApiResultObject<TodoistItem> updateItem(
+        final long itemId,
+        final String content,
+        final String dateString,
+        final Integer priority,
+        final Integer indent,
+        final Integer itemOrder,
+        final Integer collapsed)
+    {
+        return object("updateItem", itemId, task(itemId, 1, (content == null) ? "" : content));
+    }
+
+    @Override
+    public TodoistApiResultSimple updateOrders(final long projectId, final ArrayList<Long> orders)
+    {
+        return simple("updateOrders", projectId);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistItem> updateRecurringDate(final ArrayList<Long> items)
+    {
+        return array("updateRecurringDate", items, tasks(items));
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteItem(final long itemId)
+    {
+        return simple("deleteItem", itemId);
+    }
+
+    @Override
+    public TodoistApiResultSimple deleteItems(final ArrayList<Long> items)
+    {
+        return simple("deleteItems", items);
+    }
+
+    @Override
+    public TodoistApiResultSimple completeItem(final long itemId, final boolean inHistory)
+    {
+        return simple("completeItem", itemId);
+    }
+
+    @Override
+    public TodoistApiResultSimple completeItems(final ArrayList<Long> items, final boolean inHistory)
+    {
+        return simple("completeItems", items);
+    }
+
+    @Override
+    public TodoistApiResultSimple uncompleteItem(final long itemId)
+    {
+        return simple("uncompleteItem", itemId);
+    }
+
+    @Override
+    public TodoistApiResultSimple uncompleteItems(final ArrayList<Long> items)
+    {
+        return simple("uncompleteItems", items);
+    }
+
+    @Override
+    public TodoistApiResultArray<TodoistQueryResult> query(final ArrayList<String> queries)
+    {
+        return array("query", queries, new ArrayList<TodoistQueryResult>());
+    }
+
+    @Override
+    public TodoistApiResultArray<Long> queryCount(final ArrayList<String> queries)
+    {
+        return array("queryCount", queries, new ArrayList<Long>());
+    }
+}
@@ -0,0 +1,195 @@
+package com.nicjansma.tisktasks.test;
+
+import android.test.AndroidTestCase;
+
+import java.util.ArrayList;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.nicjansma.tisktasks.SqliteCacheManager;
+import com.nicjansma.tisktasks.models.TodoistColor;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistProject;
+import com.nicjansma.tisktasks.models.TodoistProjects;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+import com.nicjansma.tisktasks.models.TodoistQueryResults;
+import com.nicjansma.tisktasks.models.TodoistQueryType;
+import com.nicjansma.tisktasks.models.TodoistUser;
+
+/**
+ * SQLite cache tests.
+ */
+public final class SqliteCacheManagerTest extends AndroidTestCase
+{
+    /**
+     * Cache, in memory.
+     */
+    private SqliteCacheManager _cache;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        _cache = new SqliteCacheManager(getContext(), null);
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        _cache.close();
+
+        super.tearDown();
+    }
+
+    /**
+     * Creates a project.
+     *
+     * @param id Project ID
+     * @param name Project name
+     *
+     * @return Project
+     */
+    private static TodoistProject createProject(final long id, final String name)
+    {
+        return new TodoistProject(id, 1, name, TodoistColor.DEFAULT_COLOR, 1, 0, false, (int) id);
+    }
+
+    /**
+     * Gets the names of projects.
+     *
+     * @param projects Projects
+     *
+     * @return Project names
+     */
+    private static ArrayList<String> names(final TodoistProjects projects)
+    {
+        ArrayList<String> names = new ArrayList<String>();
+        for (int i = 0; i < projects.getArray().size(); i++)
+        {
+            names.add(projects.getArray().get(i).getName());
+        }
+
+        return names;
+    }
+
+    /**
+     * Saved projects come back in order, with changes, moves and deletes applied.
+     */
+    public void testProjects()
+    {
+        assertNull(_cache.getProjectsCache());
+
+        ArrayList<TodoistProject> projects = new ArrayList<TodoistProject>();
+        projects.add(createProject(1, "Inbox"));
+        projects.add(createProject(2, "Work"));
+        projects.add(createProject(3, "Home"));
+        _cache.setProjectCache(new TodoistProjects(projects));
+
+        ArrayList<String> expected = new ArrayList<String>();
+        expected.add("Inbox");
+        expected.add("Work");
+        expected.add("Home");
+        assertEquals(expected, names(_cache.getProjectsCache()));
+
+        // rename one, move one and delete one
+        projects = new ArrayList<TodoistProject>();
+        projects.add(createProject(3, "Home"));
+        projects.add(createProject(1, "Inbox!"));
+        _cache.setProjectCache(new TodoistProjects(projects));
+
+        expected.clear();
+        expected.add("Home");
+        expected.add("Inbox!");
+        assertEquals(expected, names(_cache.getProjectsCache()));
+
+        _cache.clearAll();
+        assertNull(_cache.getProjectsCache());
+    }
+
+    /**
+     * A change whose content hash collides with the saved row's is still written.
+     */
+    public void testProjectHashCollision()
+    {
+        // "Aa" and "BB" have the same String hash code
+        ArrayList<TodoistProject> projects = new ArrayList<TodoistProject>();
+        projects.add(createProject(1, "Aa"));
+        _cache.setProjectCache(new TodoistProjects(projects));
+
+        projects.set(0, createProject(1, "BB"));
+        assertEquals(createProject(1, "Aa").getContentHash(), projects.get(0).getContentHash());
+        _cache.setProjectCache(new TodoistProjects(projects));
+
+        assertEquals("BB", _cache.getProjectsCache().getArray().get(0).getName());
+    }
+
+    /**
+     * A logged-in user's objects move over from an older cache, which is then cleared.
+     *
+     * @throws JSONException On JSON errors
+     */
+    public void testImportFrom()
+        throws JSONException
+    {
+        SqliteCacheManager oldCache = new SqliteCacheManager(getContext(), null);
+        try
+        {
+            // nothing to move without a user
+            ArrayList<TodoistProject> projects = new ArrayList<TodoistProject>();
+            projects.add(createProject(1, "Inbox"));
+            oldCache.setProjectCache(new TodoistProjects(projects));
+
+            _cache.importFrom(oldCache);
+            assertNull(_cache.getProjectsCache());
+
+            TodoistUser user = new TodoistUser();
+            user.initialize(new JSONObject("{\"id\": 7, \"email\": \"user@example.com\"}"));
+            oldCache.setCurrentUser(user);
+
+            _cache.importFrom(oldCache);
+            assertEquals(7, _cache.getCurrentUser().getId());
+            assertEquals("Inbox", _cache.getProjectsCache().getArray().get(0).getName());
+
+            assertNull(oldCache.getCurrentUser());
+            assertNull(oldCache.getProjectsCache());
+        }
+        finally
+        {
+            oldCache.close();
+        }
+    }
+
+    /**
+     * Saved start page results come back with their tasks.
+     */
+    public void testStartPageQueries()
+    {
+        assertNull(_cache.getStartPageQueries());
+
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        tasks.add(new TodoistItem(1, 1, 1, "Task 1", "", false, false, 1, 1));
+        tasks.add(new TodoistItem(2, 1, 1, "Task 2", "", false, false, 1, 2));
+
+        ArrayList<TodoistQueryResult> results = new ArrayList<TodoistQueryResult>();
+        results.add(new TodoistQueryResult(TodoistQueryType.priority, "p1", tasks));
+        results.add(new TodoistQueryResult(TodoistQueryType.overdue, "od", new ArrayList<TodoistItem>()));
+        _cache.setStartPageQueries(new TodoistQueryResults(results));
+
+        TodoistQueryResults cached = _cache.getStartPageQueries();
+        assertEquals(2, cached.getArray().size());
+        assertEquals("p1", cached.getArray().get(0).getQueryString());
+        assertEquals(TodoistQueryType.priority, cached.getArray().get(0).getQueryType());
+        assertEquals(2, cached.getArray().get(0).getTaskManager().getCount());
+        assertEquals("Task 2", cached.getArray().get(0).getTaskManager().get(2).getContent());
+        assertEquals(0, cached.getArray().get(1).getTaskManager().getCount());
+
+        // fewer queries remove the old ones
+        results.remove(1);
+        _cache.setStartPageQueries(new TodoistQueryResults(results));
+        assertEquals(1, _cache.getStartPageQueries().getArray().size());
+    }
+}
@@ -0,0 +1,160 @@
+package com.nicjansma.tisktasks.test;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.models.TaskManager;
+import com.nicjansma.tisktasks.models.TodoistItem;
+
+/**
+ * Task Manager lookup and bulk update benchmarks.
+ */
+public final class TaskManagerBenchmarkTest extends TestCase
+{
+    /**
+     * Class tag (for debugging).
+     */
+    private static final String TAG = TaskManagerBenchmarkTest.class.getSimpleName();
+
+    /**
+     * Small project size.
+     */
+    private static final int SMALL = 1250;
+
+    /**
+     * Large project size (4x small).
+     */
+    private static final int LARGE = SMALL * 4;
+
+    /**
+     * Number of timed runs (best is kept).
+     */
+    private static final int RUNS = 5;
+
+    /**
+     * Builds a list of tasks with a shallow hierarchy.
+     *
+     * @param count Number of tasks
+     *
+     * @return Tasks
+     */
+    private static ArrayList<TodoistItem> buildTasks(final int count)
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            tasks.add(new TodoistItem(i + 1, 1, 1, "Task " + i, "", false, false, (i % 3) + 1, i + 1));
+        }
+
+        return tasks;
+    }
+
+    /**
+     * Times looking up every task by ID.
+     *
+     * @param count Number of tasks
+     *
+     * @return Best time in nanoseconds
+     */
+    private static long timeLookups(final int count)
+    {
+        TaskManager taskManager = new TaskManager();
+        taskManager.importArray(buildTasks(count));
+
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++)
+        {
+            long start = System.nanoTime();
+
+            for (int i = 1; i <= count; i++)
+            {
+                assertNotNull(taskManager.get(i));
+            }
+
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        return best;
+    }
+
+    /**
+     * Times updating every task at once.
+     *
+     * @param count Number of tasks
+     *
+     * @return Best time in nanoseconds
+     */
+    private static long timeBulkUpdate(final int count)
+    {
+        TaskManager taskManager = new TaskManager();
+        taskManager.importArray(buildTasks(count));
+
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++)
+        {
+            ArrayList<TodoistItem> updated = buildTasks(count);
+
+            long start = System.nanoTime();
+            taskManager.update(updated);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        assertEquals(count, taskManager.getCount());
+
+        return best;
+    }
+
+    /**
+     * Times lookups by ID at both sizes. They should scale linearly, a ratio near 4 rather than the 16 of a quadratic
+     * implementation. Timings vary with the device's load, so they're logged rather than asserted.
+     */
+    @LargeTest
+    public void testLookupScaling()
+    {
+        long small = timeLookups(SMALL);
+        long large = timeLookups(LARGE);
+
+        double ratio = (double) large / Math.max(small, 1);
+        Log.i(TAG, "get(): " + SMALL + "=" + small + "ns " + LARGE + "=" + large + "ns ratio=" + ratio);
+    }
+
+    /**
+     * Times bulk updates at both sizes. Like lookups, they should scale linearly, and the ratio is only logged.
+     */
+    @LargeTest
+    public void testBulkUpdateScaling()
+    {
+        long small = timeBulkUpdate(SMALL);
+        long large = timeBulkUpdate(LARGE);
+
+        double ratio = (double) large / Math.max(small, 1);
+        Log.i(TAG, "update(): " + SMALL + "=" + small + "ns " + LARGE + "=" + large + "ns ratio=" + ratio);
+    }
+
+    /**
+     * Deleting a parent removes it and its children and keeps the index in sync.
+     */
+    public void testDeleteKeepsIndex()
+    {
+        TaskManager taskManager = new TaskManager();
+        taskManager.importArray(buildTasks(SMALL));
+
+        // task 1 has an indent of 1, followed by its children 2 and 3
+        taskManager.delete(taskManager.get(1));
+
+        assertNull(taskManager.get(1));
+        assertNull(taskManager.get(2));
+        assertNull(taskManager.get(3));
+        assertEquals(SMALL - 3, taskManager.getCount());
+
+        for (int i = 4; i <= SMALL; i++)
+        {
+            assertEquals(i, taskManager.get(i).getId());
+        }
+    }
+}
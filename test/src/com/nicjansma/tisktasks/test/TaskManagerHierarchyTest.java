@@ -0,0 +1,370 @@
+package com.nicjansma.tisktasks.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.models.TaskManager;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistObjectBase;
+import com.nicjansma.tisktasks.models.TodoistObjectManagerBase;
+
+/**
+ * Object manager hierarchy, batch, snapshot and visibility tests.
+ */
+public final class TaskManagerHierarchyTest extends TestCase
+{
+    /**
+     * Number of tasks.
+     */
+    private static final int COUNT = 200;
+
+    /**
+     * Number of random changes.
+     */
+    private static final int CHANGES = 500;
+
+    /**
+     * Number of random batches.
+     */
+    private static final int BATCHES = 100;
+
+    /**
+     * Maximum number of changes in a batch.
+     */
+    private static final int MAX_BATCH_SIZE = 20;
+
+    /**
+     * Maximum indent.
+     */
+    private static final int MAX_INDENT = 4;
+
+    /**
+     * Random seed.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Creates a task.
+     *
+     * @param id Task ID
+     * @param indent Indent
+     *
+     * @return Task
+     */
+    private static TodoistItem createTask(final long id, final int indent)
+    {
+        return new TodoistItem(id, 1, 1, "Task " + id, "", false, false, indent, (int) id);
+    }
+
+    /**
+     * Checks every task's parent and children against a full scan of the list.
+     *
+     * @param taskManager Task manager
+     */
+    static void assertHierarchy(final TodoistObjectManagerBase<TodoistItem> taskManager)
+    {
+        ArrayList<TodoistItem> tasks = taskManager.getArray();
+
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            TodoistItem task = tasks.get(i);
+
+            // the parent is the closest previous task with a lower indent
+            TodoistObjectBase parent = null;
+            for (int j = i - 1; j >= 0; j--)
+            {
+                if (tasks.get(j).getIndent() < task.getIndent())
+                {
+                    parent = tasks.get(j);
+                    break;
+                }
+            }
+
+            assertSame("parent of " + task.getId(), parent, task.getParent());
+
+            // descendants directly follow the task
+            int end = i + 1;
+            while (end < tasks.size() && tasks.get(end).getIndent() > task.getIndent())
+            {
+                end++;
+            }
+
+            ArrayList<Long> childrenIds = task.getAllChildrenIds(null);
+            assertEquals("descendants of " + task.getId(), end - i - 1, childrenIds.size());
+
+            for (int j = i + 1; j < end; j++)
+            {
+                assertEquals("descendant of " + task.getId(), tasks.get(j).getId(),
+                        childrenIds.get(j - i - 1).longValue());
+            }
+
+            assertEquals("isParent of " + task.getId(), end > i + 1, task.isParent());
+        }
+    }
+
+    /**
+     * Task manager that counts post-change hook calls.
+     */
+    private static final class CountingTaskManager
+        extends TodoistObjectManagerBase<TodoistItem>
+    {
+        /**
+         * Number of post-change hook calls.
+         */
+        private int _changes;
+
+        @Override
+        protected void postChangeHook()
+        {
+            _changes++;
+        }
+
+        @Override
+        protected void addedHook(final TodoistItem obj)
+        {
+            // NOP
+        }
+
+        @Override
+        protected void removedHook(final TodoistItem obj)
+        {
+            // NOP
+        }
+
+        /**
+         * Gets the number of post-change hook calls.
+         *
+         * @return Number of post-change hook calls
+         */
+        public int getChanges()
+        {
+            return _changes;
+        }
+    }
+
+    /**
+     * Creates a task manager with random tasks.
+     *
+     * @param random Random number generator
+     *
+     * @return Task manager
+     */
+    private static CountingTaskManager createTaskManager(final Random random)
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        for (int i = 0; i < COUNT; i++)
+        {
+            tasks.add(createTask(i + 1, random.nextInt(MAX_INDENT) + 1));
+        }
+
+        CountingTaskManager taskManager = new CountingTaskManager();
+        taskManager.importArray(tasks);
+
+        return taskManager;
+    }
+
+    /**
+     * Makes a random add, indent change or delete.
+     *
+     * @param taskManager Task manager
+     * @param random Random number generator
+     * @param id ID for a new task
+     */
+    private static void randomChange(final CountingTaskManager taskManager, final Random random, final long id)
+    {
+        int size = taskManager.getCount();
+        int op = random.nextInt(3);
+
+        if (op == 0 || size == 0)
+        {
+            TodoistItem near = (size == 0) ? null : taskManager.getArray().get(random.nextInt(size));
+            taskManager.add(createTask(id, random.nextInt(MAX_INDENT) + 1), near, random.nextBoolean());
+        }
+        else if (op == 1)
+        {
+            TodoistItem task = taskManager.getArray().get(random.nextInt(size));
+            taskManager.update(createTask(task.getId(), random.nextInt(MAX_INDENT) + 1));
+        }
+        else
+        {
+            taskManager.delete(taskManager.getArray().get(random.nextInt(size)));
+        }
+    }
+
+    /**
+     * Random adds, indent changes and deletes keep the hierarchy consistent.
+     */
+    public void testRandomChanges()
+    {
+        Random random = new Random(SEED);
+
+        CountingTaskManager taskManager = createTaskManager(random);
+        assertHierarchy(taskManager);
+
+        for (int i = 0; i < CHANGES; i++)
+        {
+            randomChange(taskManager, random, COUNT + i + 1);
+            assertHierarchy(taskManager);
+        }
+    }
+
+    /**
+     * Random changes within batches keep the hierarchy consistent and run the post-change hook once per batch.
+     */
+    public void testRandomBatches()
+    {
+        Random random = new Random(SEED);
+
+        CountingTaskManager taskManager = createTaskManager(random);
+
+        long nextId = COUNT + 1;
+        for (int i = 0; i < BATCHES; i++)
+        {
+            int changes = taskManager.getChanges();
+
+            taskManager.beginBatch();
+
+            int batchSize = random.nextInt(MAX_BATCH_SIZE) + 1;
+            for (int j = 0; j < batchSize; j++)
+            {
+                randomChange(taskManager, random, nextId++);
+            }
+
+            taskManager.updateOrders();
+
+            assertEquals(changes, taskManager.getChanges());
+
+            taskManager.commitBatch();
+
+            assertEquals(changes + 1, taskManager.getChanges());
+            assertHierarchy(taskManager);
+        }
+    }
+
+    /**
+     * Published snapshots don't change, and batches are published when committed.
+     */
+    public void testSnapshots()
+    {
+        Random random = new Random(SEED);
+
+        CountingTaskManager taskManager = createTaskManager(random);
+
+        List<TodoistItem> before = taskManager.getSnapshot();
+        assertEquals(COUNT, before.size());
+
+        TodoistItem first = before.get(0);
+        taskManager.delete(first);
+
+        List<TodoistItem> afterDelete = taskManager.getSnapshot();
+        assertEquals(COUNT, before.size());
+        assertSame(first, before.get(0));
+        assertEquals(taskManager.getCount(), afterDelete.size());
+
+        taskManager.beginBatch();
+        randomChange(taskManager, random, COUNT + 1);
+        randomChange(taskManager, random, COUNT + 2);
+        assertSame(afterDelete, taskManager.getSnapshot());
+        taskManager.commitBatch();
+
+        List<TodoistItem> afterBatch = taskManager.getSnapshot();
+        assertEquals(taskManager.getArray(), afterBatch);
+
+        try
+        {
+            afterBatch.clear();
+            fail("snapshot was modifiable");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Completing and un-completing items publishes checked copies, leaving earlier snapshots alone, and skips
+     * items that aren't loaded.
+     */
+    public void testCompleteItems()
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        tasks.add(createTask(1, 1));
+        tasks.add(createTask(2, 2));
+        tasks.add(createTask(3, 1));
+
+        TaskManager taskManager = new TaskManager();
+        taskManager.importArray(tasks);
+
+        List<TodoistItem> before = taskManager.getSnapshot();
+
+        ArrayList<Long> ids = new ArrayList<Long>();
+        ids.add(1L);
+        ids.add(2L);
+        ids.add(99L);
+        taskManager.completeItems(ids);
+
+        List<TodoistItem> after = taskManager.getSnapshot();
+        assertFalse(before.get(0).isChecked());
+        assertTrue(after.get(0).isChecked());
+        assertTrue(after.get(1).isChecked());
+        assertFalse(after.get(2).isChecked());
+        assertSame(after.get(0), after.get(1).getParent());
+
+        taskManager.uncompleteItems(ids);
+
+        assertTrue(after.get(0).isChecked());
+        assertFalse(taskManager.get(1).isChecked());
+        assertFalse(taskManager.get(2).isChecked());
+    }
+
+    /**
+     * Checks the visible snapshot against each task's parents.
+     *
+     * @param taskManager Task manager
+     */
+    private static void assertVisible(final TodoistObjectManagerBase<TodoistItem> taskManager)
+    {
+        List<TodoistItem> tasks = taskManager.getSnapshot();
+
+        ArrayList<TodoistItem> expected = new ArrayList<TodoistItem>();
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            if (!tasks.get(i).isAnyParentCollapsed())
+            {
+                expected.add(tasks.get(i));
+            }
+        }
+
+        assertEquals(expected, taskManager.getVisibleSnapshot());
+    }
+
+    /**
+     * Random expands, collapses and changes keep the visible snapshot consistent.
+     */
+    public void testRandomCollapses()
+    {
+        Random random = new Random(SEED);
+
+        CountingTaskManager taskManager = createTaskManager(random);
+        assertVisible(taskManager);
+
+        for (int i = 0; i < CHANGES; i++)
+        {
+            if (random.nextInt(4) == 0)
+            {
+                randomChange(taskManager, random, COUNT + i + 1);
+            }
+            else
+            {
+                List<TodoistItem> tasks = taskManager.getSnapshot();
+                TodoistItem task = tasks.get(random.nextInt(tasks.size()));
+                taskManager.setCollapsed(task, !task.isCollapsed());
+            }
+
+            assertVisible(taskManager);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.nicjansma.tisktasks.test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.models.TaskManager;
+import com.nicjansma.tisktasks.models.TodoistItem;
+
+/**
+ * Task Manager diff-based import tests.
+ */
+public final class TaskManagerImportTest extends TestCase
+{
+    /**
+     * Number of tasks.
+     */
+    private static final int COUNT = 100;
+
+    /**
+     * Number of random imports.
+     */
+    private static final int IMPORTS = 200;
+
+    /**
+     * Maximum indent.
+     */
+    private static final int MAX_INDENT = 4;
+
+    /**
+     * One in this many tasks is removed, changed, moved or added by each import.
+     */
+    private static final int CHANGE_ODDS = 10;
+
+    /**
+     * Random seed.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Creates a task.
+     *
+     * @param id Task ID
+     * @param content Task content
+     * @param indent Indent
+     *
+     * @return Task
+     */
+    private static TodoistItem createTask(final long id, final String content, final int indent)
+    {
+        return new TodoistItem(id, 1, 1, content, "", false, false, indent, (int) id);
+    }
+
+    /**
+     * Copies tasks, as if they were loaded again.
+     *
+     * @param tasks Tasks
+     *
+     * @return New task instances with the same content
+     */
+    private static ArrayList<TodoistItem> copy(final ArrayList<TodoistItem> tasks)
+    {
+        ArrayList<TodoistItem> copies = new ArrayList<TodoistItem>();
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            TodoistItem task = tasks.get(i);
+            copies.add(createTask(task.getId(), task.getContent(), task.getIndent()));
+        }
+
+        return copies;
+    }
+
+    /**
+     * Gets the IDs of tasks.
+     *
+     * @param tasks Tasks
+     *
+     * @return Task IDs
+     */
+    private static ArrayList<Long> ids(final ArrayList<TodoistItem> tasks)
+    {
+        ArrayList<Long> ids = new ArrayList<Long>();
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            ids.add(tasks.get(i).getId());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Determines whether or not two lists have the same tasks, in the same order, with the same content.
+     *
+     * @param before Tasks
+     * @param after Other tasks
+     *
+     * @return True if nothing changed
+     */
+    private static boolean sameTasks(final ArrayList<TodoistItem> before, final ArrayList<TodoistItem> after)
+    {
+        if (before.size() != after.size())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < before.size(); i++)
+        {
+            if (before.get(i).getId() != after.get(i).getId()
+                || before.get(i).getContentHash() != after.get(i).getContentHash())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Importing the same tasks again changes nothing.
+     */
+    public void testImportUnchanged()
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        for (int i = 0; i < COUNT; i++)
+        {
+            tasks.add(createTask(i + 1, "Task " + i, (i % 3) + 1));
+        }
+
+        TaskManager taskManager = new TaskManager();
+        assertTrue(taskManager.importArray(tasks));
+
+        TodoistItem first = taskManager.get(1);
+
+        assertFalse(taskManager.importArray(copy(tasks)));
+        assertSame(first, taskManager.get(1));
+        assertSame(tasks.get(0), taskManager.getSnapshot().get(0));
+    }
+
+    /**
+     * A change whose content hash collides with the old content's is still imported.
+     */
+    public void testImportHashCollision()
+    {
+        // "Aa" and "BB" have the same String hash code
+        TodoistItem before = createTask(1, "Aa", 1);
+        TodoistItem after = createTask(1, "BB", 1);
+        assertEquals(before.getContentHash(), after.getContentHash());
+
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        tasks.add(before);
+
+        TaskManager taskManager = new TaskManager();
+        taskManager.importArray(tasks);
+
+        tasks.set(0, after);
+        assertTrue(taskManager.importArray(tasks));
+        assertSame(after, taskManager.get(1));
+    }
+
+    /**
+     * Random imports give the new tasks, and report whether or not anything changed.
+     */
+    public void testRandomImports()
+    {
+        Random random = new Random(SEED);
+
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        for (int i = 0; i < COUNT; i++)
+        {
+            tasks.add(createTask(i + 1, "Task " + i, random.nextInt(MAX_INDENT) + 1));
+        }
+
+        TaskManager taskManager = new TaskManager();
+        taskManager.importArray(tasks);
+
+        long nextId = COUNT + 1;
+        for (int n = 0; n < IMPORTS; n++)
+        {
+            ArrayList<TodoistItem> before = new ArrayList<TodoistItem>(taskManager.getSnapshot());
+
+            // build a new version of the tasks
+            ArrayList<TodoistItem> next = copy(before);
+            ArrayList<TodoistItem> moved = new ArrayList<TodoistItem>();
+            for (int i = next.size() - 1; i >= 0; i--)
+            {
+                int change = random.nextInt(CHANGE_ODDS * 4);
+                if (change == 0)
+                {
+                    next.remove(i);
+                }
+                else if (change == 1)
+                {
+                    TodoistItem task = next.get(i);
+                    next.set(i, createTask(task.getId(), task.getContent() + "!", random.nextInt(MAX_INDENT) + 1));
+                }
+                else if (change == 2)
+                {
+                    moved.add(next.remove(i));
+                }
+                else if (change == 3)
+                {
+                    next.add(i, createTask(nextId, "Task " + nextId, random.nextInt(MAX_INDENT) + 1));
+                    nextId++;
+                }
+            }
+
+            for (int i = 0; i < moved.size(); i++)
+            {
+                next.add(random.nextInt(next.size() + 1), moved.get(i));
+            }
+
+            boolean changed = taskManager.importArray(next);
+
+            assertEquals(ids(next), ids(taskManager.getArray()));
+
+            for (int i = 0; i < taskManager.getCount(); i++)
+            {
+                assertEquals(next.get(i).getContentHash(), taskManager.getArray().get(i).getContentHash());
+            }
+
+            TaskManagerHierarchyTest.assertHierarchy(taskManager);
+
+            assertEquals(!sameTasks(before, next), changed);
+        }
+    }
+}
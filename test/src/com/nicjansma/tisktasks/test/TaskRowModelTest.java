@@ -0,0 +1,75 @@
+package com.nicjansma.tisktasks.test;
+
+import android.graphics.Color;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.models.DayRollover;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistObjectBase;
+import com.nicjansma.tisktasks.views.TaskRowModel;
+import com.nicjansma.tisktasks.views.TodoistRowModel;
+
+/**
+ * Task row model tests.
+ */
+public final class TaskRowModelTest extends TestCase
+{
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        ServiceLocator.setDayRollover(new DayRollover(null));
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        ServiceLocator.setDayRollover(null);
+
+        super.tearDown();
+    }
+
+    /**
+     * The model holds what the row shows, as of when it was built.
+     */
+    public void testCapturesTask()
+    {
+        TodoistItem task = new TodoistItem(1, 1, 1, "* Buy %(b)milk%", "", false, false, 3, 1);
+
+        TaskRowModel model = new TaskRowModel(task, true, 2.0f);
+
+        assertSame(task, model.getObj());
+        assertFalse(model.showCheckBox());
+        assertEquals("Buy milk", model.getText().toString());
+        assertEquals(task.getColor(), model.getTextColor());
+        assertFalse(model.isRecurring());
+        assertEquals("", model.getDueLabel());
+        assertEquals(Color.WHITE, model.getDueColor());
+
+        assertEquals(2 * 2 * TodoistObjectBase.INDENT_PIXELS, model.getIndentPixels());
+        assertEquals(TodoistRowModel.NO_EXPAND_IMAGE, model.getExpandImage());
+
+        // changes after the model was built show in the next one
+        task.setCheckedState(true);
+        assertFalse(model.isChecked());
+        assertTrue(new TaskRowModel(task, true, 2.0f).isChecked());
+    }
+
+    /**
+     * Rows that aren't indented have no indent or expand image.
+     */
+    public void testNotIndented()
+    {
+        TodoistItem task = new TodoistItem(1, 1, 1, "Task", "", false, false, 3, 1);
+        task.setIsParent(true);
+
+        assertEquals(TodoistRowModel.NO_EXPAND_IMAGE, new TaskRowModel(task, false, 1.0f).getExpandImage());
+        assertEquals(0, new TaskRowModel(task, false, 1.0f).getIndentPixels());
+        assertTrue(new TaskRowModel(task, true, 1.0f).getExpandImage() != TodoistRowModel.NO_EXPAND_IMAGE);
+    }
+}
@@ -10,6 +10,8 @@ import org.json.JSONObject;
 
 import com.nicjansma.library.net.MockHttpFetcher;
 import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.api.HttpUtilsTransport;
+import com.nicjansma.tisktasks.api.TodoistApi;
 import com.nicjansma.tisktasks.models.TodoistUser;
 import com.robotium.solo.Solo;
 
@@ -115,6 +117,7 @@ public abstract class TiskTasksActivityTestBase<T extends Activity>
         // ensure no real HTTP requests get out
         _fetcher = new com.nicjansma.library.net.MockHttpFetcher();
         com.nicjansma.library.net.HttpUtils.setHttpFetcher(_fetcher);
+        ServiceLocator.setTodoistApi(new TodoistApi(new HttpUtilsTransport()));
     }
 
     /**
@@ -0,0 +1,266 @@
+package com.nicjansma.tisktasks.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.ITiskTasksAnalyticsTracker;
+import com.nicjansma.tisktasks.ServiceLocator;
+import com.nicjansma.tisktasks.api.ApiLatencyStats;
+import com.nicjansma.tisktasks.api.IHttpTransport;
+import com.nicjansma.tisktasks.api.IResponseDecoder;
+import com.nicjansma.tisktasks.api.TodoistApi;
+import com.nicjansma.tisktasks.api.TodoistApiResultArray;
+import com.nicjansma.tisktasks.api.TodoistApiResultSimple;
+import com.nicjansma.tisktasks.api.TodoistHttpResponse;
+import com.nicjansma.tisktasks.models.TodoistItem;
+
+/**
+ * Long ID list tests: arguments are posted, and lists are split into chunks sent one after another.
+ */
+public final class TodoistApiChunkingTest extends TestCase
+{
+    /**
+     * Requests sent, as "GET url" or "POST url form".
+     */
+    private final ArrayList<String> _requests = new ArrayList<String>();
+
+    /**
+     * ID list that fails, or null.
+     */
+    private volatile String _failIds;
+
+    /**
+     * Transport that answers getItemsById with its IDs as tasks, and anything else with "ok".
+     */
+    private final IHttpTransport _transport = new IHttpTransport()
+    {
+        @Override
+        public TodoistHttpResponse get(final String url)
+        {
+            return get(url, null);
+        }
+
+        @Override
+        public TodoistHttpResponse get(final String url, final IResponseDecoder decoder)
+        {
+            return respond("GET " + url, url.substring(url.indexOf('?') + 1), decoder);
+        }
+
+        @Override
+        public TodoistHttpResponse post(final String url, final String form, final IResponseDecoder decoder)
+        {
+            return respond("POST " + url + " " + form, form, decoder);
+        }
+    };
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        InvocationHandler handler = new InvocationHandler()
+        {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args)
+                throws Throwable
+            {
+                return null;
+            }
+        };
+
+        ServiceLocator.setTracker((ITiskTasksAnalyticsTracker) Proxy.newProxyInstance(
+            ITiskTasksAnalyticsTracker.class.getClassLoader(),
+            new Class<?>[] { ITiskTasksAnalyticsTracker.class },
+            handler));
+    }
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        ServiceLocator.setTracker(null);
+
+        super.tearDown();
+    }
+
+    /**
+     * Records a request, and answers it.
+     *
+     * @param request Request
+     * @param args Encoded arguments
+     * @param decoder Decoder
+     *
+     * @return Response
+     */
+    private TodoistHttpResponse respond(final String request, final String args, final IResponseDecoder decoder)
+    {
+        synchronized (_requests)
+        {
+            _requests.add(request);
+        }
+
+        int start = args.indexOf("ids=") + "ids=".length();
+        int end = args.indexOf('&', start);
+        String ids = args.substring(start, (end == -1) ? args.length() : end);
+
+        if (ids.equals(_failIds))
+        {
+            return new TodoistHttpResponse(HttpURLConnection.HTTP_INTERNAL_ERROR, "");
+        }
+
+        String body = "ok";
+        if (request.contains("getItemsById"))
+        {
+            StringBuilder tasks = new StringBuilder("[");
+            String[] values = ids.substring(1, ids.length() - 1).split(",");
+            for (int i = 0; i < values.length; i++)
+            {
+                tasks.append(i == 0 ? "" : ",")
+                    .append("{\"id\": ").append(values[i]).append(", \"project_id\": 1, \"content\": \"Task\"")
+                    .append(", \"indent\": 1, \"item_order\": ").append(i + 1).append("}");
+            }
+
+            body = tasks.append("]").toString();
+        }
+
+        try
+        {
+            String rest = decoder.decode(new StringReader(body));
+            return new TodoistHttpResponse(HttpURLConnection.HTTP_OK, (rest == null) ? "" : rest);
+        }
+        catch (final IOException e)
+        {
+            return new TodoistHttpResponse(TodoistHttpResponse.CONNECTION_FAILURE, "");
+        }
+    }
+
+    /**
+     * Creates an API with a token.
+     *
+     * @return API
+     */
+    private TodoistApi createApi()
+    {
+        TodoistApi api = new TodoistApi(_transport, new ApiLatencyStats(0));
+        api.setToken("abc");
+        return api;
+    }
+
+    /**
+     * Creates a list of IDs.
+     *
+     * @param count Number of IDs
+     *
+     * @return IDs, from 1
+     */
+    private static ArrayList<Long> ids(final int count)
+    {
+        ArrayList<Long> ids = new ArrayList<Long>();
+        for (int i = 1; i <= count; i++)
+        {
+            ids.add(Long.valueOf(i));
+        }
+
+        return ids;
+    }
+
+    /**
+     * Short ID lists are sent in the URL, in one call.
+     */
+    public void testShortListIsGot()
+    {
+        TodoistApiResultSimple result = createApi().completeItems(ids(3), true);
+
+        assertTrue(result.successful());
+        assertEquals(1, _requests.size());
+        assertTrue(_requests.get(0), _requests.get(0).startsWith("GET http://todoist.com/API/completeItems?"));
+        assertTrue(_requests.get(0), _requests.get(0).contains("token=abc"));
+        assertTrue(_requests.get(0), _requests.get(0).contains("ids=[1,2,3]"));
+    }
+
+    /**
+     * Long argument lists are posted, with the token, and the URL has no query.
+     */
+    public void testLongArgsArePosted()
+    {
+        ArrayList<Long> orders = ids(TodoistApi.MAX_URL_ARGS_LENGTH / 2);
+
+        createApi().updateOrders(1, orders);
+
+        assertEquals(1, _requests.size());
+        assertTrue(_requests.get(0), _requests.get(0).startsWith("POST http://todoist.com/API/updateOrders "));
+        assertTrue(_requests.get(0), _requests.get(0).contains("token=abc"));
+        assertTrue(_requests.get(0), _requests.get(0).contains("item_id_list=[1,2,3,"));
+    }
+
+    /**
+     * Long ID lists are split into chunks, and their tasks come back in order.
+     */
+    public void testChunksAreMerged()
+    {
+        int count = TodoistApi.MAX_IDS_PER_CALL * 2 + 1;
+
+        TodoistApiResultArray<TodoistItem> result = createApi().getItemsById(ids(count));
+
+        assertTrue(result.successful());
+        assertEquals(3, _requests.size());
+        assertEquals(count, result.getArray().size());
+
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals(i + 1, result.getArray().get(i).getId());
+        }
+
+        assertTrue(_requests.get(0), _requests.get(0).contains("ids=[1,2,3,"));
+        assertTrue(_requests.get(2), _requests.get(2).contains("ids=[401]"));
+        assertFalse(result.wasPartlyApplied());
+    }
+
+    /**
+     * A chunk that fails fails the whole call, stops the later chunks, and reports the earlier chunks as applied.
+     */
+    public void testFailedChunk()
+    {
+        int size = TodoistApi.MAX_IDS_PER_CALL;
+
+        StringBuilder failIds = new StringBuilder("[");
+        for (int i = size + 1; i <= size * 2; i++)
+        {
+            failIds.append(i == size + 1 ? "" : ",").append(i);
+        }
+
+        _failIds = failIds.append("]").toString();
+
+        TodoistApiResultSimple result = createApi().deleteItems(ids(size * 2 + 1));
+
+        assertFalse(result.successful());
+        assertEquals(HttpURLConnection.HTTP_INTERNAL_ERROR, result.getResponse().getHttpCode());
+        assertEquals(2, _requests.size());
+
+        assertTrue(result.wasPartlyApplied());
+        assertEquals(ids(size), result.getAppliedIds());
+    }
+
+    /**
+     * A first chunk that fails applies nothing.
+     */
+    public void testFailedFirstChunk()
+    {
+        _failIds = "[1]";
+
+        TodoistApiResultArray<TodoistItem> result = createApi().updateRecurringDate(ids(1));
+
+        assertFalse(result.successful());
+        assertEquals(1, _requests.size());
+        assertFalse(result.wasPartlyApplied());
+        assertTrue(result.getAppliedIds().isEmpty());
+    }
+}
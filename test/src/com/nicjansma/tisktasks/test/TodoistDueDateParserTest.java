@@ -0,0 +1,221 @@
+package com.nicjansma.tisktasks.test;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import junit.framework.TestCase;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.nicjansma.tisktasks.models.TodoistDueDateParser;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+
+/**
+ * Due date parser tests, and a benchmark against Date.parse().
+ */
+public final class TodoistDueDateParserTest extends TestCase
+{
+    /**
+     * Class tag (for debugging).
+     */
+    private static final String TAG = TodoistDueDateParserTest.class.getSimpleName();
+
+    /**
+     * Number of dates.
+     */
+    private static final int DATES = 20000;
+
+    /**
+     * Number of timed runs (best is kept).
+     */
+    private static final int RUNS = 10;
+
+    /**
+     * Milliseconds per hour.
+     */
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+
+    /**
+     * Earliest date (2000-01-01).
+     */
+    private static final long START_MILLIS = 946684800000L;
+
+    /**
+     * Span of the dates (about 50 years, in hours).
+     */
+    private static final int HOURS = 50 * 365 * 24;
+
+    /**
+     * Creates due dates in Todoist's formats, from noon to midnight so none fall in a daylight savings change.
+     *
+     * @return Due dates
+     */
+    @SuppressWarnings("deprecation")
+    private static String[] createDates()
+    {
+        SimpleDateFormat local = new SimpleDateFormat("EEE MMM dd HH:mm:ss yyyy", Locale.US);
+        SimpleDateFormat zoned = new SimpleDateFormat("EEE dd MMM yyyy HH:mm:ss Z", Locale.US);
+
+        Random random = new Random(1);
+
+        String[] dates = new String[DATES];
+        for (int i = 0; i < DATES; i++)
+        {
+            long millis = START_MILLIS + random.nextInt(HOURS) * HOUR_MILLIS + random.nextInt((int) HOUR_MILLIS);
+            Date date = new Date(millis);
+
+            // keep to the afternoon
+            if (date.getHours() < 12)
+            {
+                date = new Date(millis + 12 * HOUR_MILLIS);
+            }
+
+            dates[i] = ((i % 2) == 0) ? local.format(date) : zoned.format(date);
+        }
+
+        return dates;
+    }
+
+    /**
+     * Dates are parsed as Date.parse() would.
+     */
+    @SuppressWarnings("deprecation")
+    public void testMatchesDateParse()
+    {
+        TodoistDueDateParser parser = new TodoistDueDateParser(TimeZone.getDefault(), 0);
+
+        String[] dates = createDates();
+        for (int i = 0; i < dates.length; i++)
+        {
+            assertEquals(dates[i], Date.parse(dates[i]), parser.parse(dates[i]));
+        }
+
+        assertEquals(Date.parse("Fri Oct 16 23:59:59 2026"), parser.parse("Fri Oct 16 23:59:59 2026"));
+        assertEquals(Date.parse("Fri 16 Oct 2026 23:59 GMT"), parser.parse("Fri 16 Oct 2026 23:59 GMT"));
+        assertEquals(Date.parse("Oct 16 2026 23:59:59 -0530"), parser.parse("Oct 16 2026 23:59:59 -0530"));
+        assertEquals(Date.parse("Feb 29 2024 12:00:00 UTC"), parser.parse("Feb 29 2024 12:00:00 UTC"));
+    }
+
+    /**
+     * Dates that aren't in Todoist's formats are left to Date.parse().
+     */
+    public void testUnrecognized()
+    {
+        TodoistDueDateParser parser = new TodoistDueDateParser(TimeZone.getDefault(), 0);
+
+        assertEquals(TodoistDueDateParser.NO_DATE, parser.parse("tomorrow"));
+        assertEquals(TodoistDueDateParser.NO_DATE, parser.parse("2026-10-16"));
+        assertEquals(TodoistDueDateParser.NO_DATE, parser.parse("Oct 16 23:59:59"));
+        assertEquals(TodoistDueDateParser.NO_DATE, parser.parse("Oct 16 26 23:59:59"));
+        assertEquals(TodoistDueDateParser.NO_DATE, parser.parse("Oct 16 2026 25:00:00"));
+    }
+
+    /**
+     * The user's time zone offset is captured with the parser.
+     */
+    public void testUserOffset()
+    {
+        assertEquals(-5 * HOUR_MILLIS, new TodoistDueDateParser(TimeZone.getDefault(), -5).getUserOffset());
+    }
+
+    /**
+     * Decoding a query's tasks starts a batch, so their due dates follow a time zone change.
+     *
+     * @throws JSONException If the JSON is malformed
+     */
+    public void testDecodeUsesCurrentTimeZone()
+        throws JSONException
+    {
+        String json = "{\"type\": \"date\", \"query\": \"today\", \"data\": [{\"id\": 1, \"project_id\": 1,"
+                      + " \"content\": \"Task\", \"indent\": 1, \"item_order\": 1,"
+                      + " \"due_date\": \"Fri Oct 16 23:59:59 2026\"}]}";
+
+        TimeZone original = TimeZone.getDefault();
+        try
+        {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            long utc = dueMillis(json);
+
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT-05:00"));
+            long behind = dueMillis(json);
+
+            assertEquals(5 * HOUR_MILLIS, behind - utc);
+        }
+        finally
+        {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    /**
+     * Decodes a query result, and gets its task's due date.
+     *
+     * @param json Query result JSON
+     *
+     * @return Due date (epoch milliseconds)
+     *
+     * @throws JSONException If the JSON is malformed
+     */
+    private static long dueMillis(final String json)
+        throws JSONException
+    {
+        TodoistQueryResult result = new TodoistQueryResult();
+        assertTrue(result.initialize(new JSONObject(json)));
+
+        return result.getTaskManager().getSnapshot().get(0).getDueMillis();
+    }
+
+    /**
+     * Times the parser against Date.parse().
+     *
+     * Timings vary with the device's load, so they're logged rather than asserted.
+     */
+    @LargeTest
+    @SuppressWarnings("deprecation")
+    public void testBenchmarkAgainstDateParse()
+    {
+        String[] dates = createDates();
+        TodoistDueDateParser parser = new TodoistDueDateParser(TimeZone.getDefault(), 0);
+
+        long dateParse = Long.MAX_VALUE;
+        long fast = Long.MAX_VALUE;
+        long sum = 0;
+
+        // the first run warms up both
+        for (int run = 0; run <= RUNS; run++)
+        {
+            long start = System.nanoTime();
+            for (int i = 0; i < dates.length; i++)
+            {
+                sum += Date.parse(dates[i]);
+            }
+
+            long middle = System.nanoTime();
+            for (int i = 0; i < dates.length; i++)
+            {
+                sum -= parser.parse(dates[i]);
+            }
+
+            long end = System.nanoTime();
+
+            if (run > 0)
+            {
+                dateParse = Math.min(dateParse, middle - start);
+                fast = Math.min(fast, end - middle);
+            }
+        }
+
+        assertEquals(0, sum);
+
+        double speedup = (double) dateParse / Math.max(fast, 1);
+        Log.i(TAG, DATES + " dates: Date.parse=" + (dateParse / DATES) + "ns/date"
+                   + " parser=" + (fast / DATES) + "ns/date speedup=" + speedup);
+    }
+}
@@ -0,0 +1,275 @@
+package com.nicjansma.tisktasks.test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.api.ITodoistApiCallback;
+import com.nicjansma.tisktasks.api.TodoistExecutor;
+
+/**
+ * Shared API executor tests.
+ */
+public final class TodoistExecutorTest extends TestCase
+{
+    /**
+     * Longest wait for work (seconds).
+     */
+    private static final int TIMEOUT = 5;
+
+    /**
+     * How long each bounded request runs (milliseconds).
+     */
+    private static final int WORK_TIME = 50;
+
+    /**
+     * Runs callbacks on the calling thread.
+     */
+    private static final Executor DIRECT = new Executor()
+    {
+        @Override
+        public void execute(final Runnable command)
+        {
+            command.run();
+        }
+    };
+
+    /**
+     * Executor under test.
+     */
+    private TodoistExecutor _executor;
+
+    @Override
+    protected void tearDown()
+        throws Exception
+    {
+        if (_executor != null)
+        {
+            _executor.shutdown();
+        }
+
+        super.tearDown();
+    }
+
+    /**
+     * Creates work that blocks until released.
+     *
+     * @param started Counted down when the work starts
+     * @param release Awaited by the work
+     *
+     * @return Work
+     */
+    private static Runnable blocking(final CountDownLatch started, final CountDownLatch release)
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                started.countDown();
+
+                try
+                {
+                    release.await();
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates work that records its name.
+     *
+     * @param ran Names of the work that ran
+     * @param name Name
+     *
+     * @return Work
+     */
+    private static Runnable recording(final ArrayList<String> ran, final String name)
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                synchronized (ran)
+                {
+                    ran.add(name);
+                }
+            }
+        };
+    }
+
+    /**
+     * Queued work runs by priority, and in order within a priority.
+     *
+     * @throws Exception On failure
+     */
+    public void testPriorityOrder()
+        throws Exception
+    {
+        _executor = new TodoistExecutor(1, DIRECT);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        _executor.submit(this, TodoistExecutor.Priority.USER, blocking(started, release));
+        assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+
+        ArrayList<String> ran = new ArrayList<String>();
+        FutureTask<Void> last = _executor.submit(this, TodoistExecutor.Priority.BACKGROUND,
+                                                 recording(ran, "background"));
+        _executor.submit(this, TodoistExecutor.Priority.LOAD, recording(ran, "load 1"));
+        _executor.submit(this, TodoistExecutor.Priority.USER, recording(ran, "user"));
+        _executor.submit(this, TodoistExecutor.Priority.LOAD, recording(ran, "load 2"));
+
+        release.countDown();
+        last.get(TIMEOUT, TimeUnit.SECONDS);
+
+        assertEquals("[user, load 1, load 2, background]", ran.toString());
+    }
+
+    /**
+     * No more than the executor's threads run at once.
+     *
+     * @throws Exception On failure
+     */
+    public void testConcurrencyIsBounded()
+        throws Exception
+    {
+        final int threads = 2;
+        final int requests = 8;
+
+        _executor = new TodoistExecutor(threads, DIRECT);
+
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        ArrayList<FutureTask<Void>> futures = new ArrayList<FutureTask<Void>>();
+        for (int i = 0; i < requests; i++)
+        {
+            futures.add(_executor.submit(this, TodoistExecutor.Priority.LOAD, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    int now = running.incrementAndGet();
+                    synchronized (maxRunning)
+                    {
+                        maxRunning.set(Math.max(maxRunning.get(), now));
+                    }
+
+                    try
+                    {
+                        Thread.sleep(WORK_TIME);
+                    }
+                    catch (final InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+
+                    running.decrementAndGet();
+                }
+            }));
+        }
+
+        for (int i = 0; i < futures.size(); i++)
+        {
+            futures.get(i).get(TIMEOUT, TimeUnit.SECONDS);
+        }
+
+        assertEquals(threads, maxRunning.get());
+        assertEquals(0, _executor.getPendingCount(this));
+    }
+
+    /**
+     * Cancelling an owner's work interrupts its running work, drops its queued work and callbacks, and leaves
+     * other owners' work alone.
+     *
+     * @throws Exception On failure
+     */
+    public void testCancelAllByOwner()
+        throws Exception
+    {
+        _executor = new TodoistExecutor(1, DIRECT);
+
+        final Object owner = new Object();
+        final Object other = new Object();
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        FutureTask<Void> running = _executor.submit(owner, TodoistExecutor.Priority.USER, new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                started.countDown();
+
+                try
+                {
+                    new CountDownLatch(1).await();
+                }
+                catch (final InterruptedException e)
+                {
+                    interrupted.countDown();
+                }
+            }
+        });
+        assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+
+        final ArrayList<String> results = new ArrayList<String>();
+        final CountDownLatch delivered = new CountDownLatch(1);
+        ITodoistApiCallback<String> callback = new ITodoistApiCallback<String>()
+        {
+            @Override
+            public void onResult(final String result)
+            {
+                synchronized (results)
+                {
+                    results.add(result);
+                }
+
+                delivered.countDown();
+            }
+        };
+
+        FutureTask<String> queued = _executor.submit(owner, TodoistExecutor.Priority.USER, new Callable<String>()
+        {
+            @Override
+            public String call()
+            {
+                return "owner";
+            }
+        }, callback);
+
+        FutureTask<String> kept = _executor.submit(other, TodoistExecutor.Priority.LOAD, new Callable<String>()
+        {
+            @Override
+            public String call()
+            {
+                return "other";
+            }
+        }, callback);
+
+        assertEquals(2, _executor.getPendingCount(owner));
+
+        _executor.cancelAll(owner);
+
+        assertTrue(interrupted.await(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(running.isCancelled());
+        assertTrue(queued.isCancelled());
+        assertEquals(0, _executor.getPendingCount(owner));
+
+        assertEquals("other", kept.get(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(delivered.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("[other]", results.toString());
+    }
+}
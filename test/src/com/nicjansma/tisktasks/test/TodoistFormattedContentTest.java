@@ -0,0 +1,188 @@
+package com.nicjansma.tisktasks.test;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.models.TodoistFormattedContent;
+
+/**
+ * Task content formatting tests, and a benchmark against the regular expression it replaced.
+ */
+public final class TodoistFormattedContentTest extends TestCase
+{
+    /**
+     * Class tag (for debugging).
+     */
+    private static final String TAG = TodoistFormattedContentTest.class.getSimpleName();
+
+    /**
+     * Number of contents.
+     */
+    private static final int CONTENTS = 20000;
+
+    /**
+     * Number of timed runs (best is kept).
+     */
+    private static final int RUNS = 10;
+
+    /**
+     * Pieces of task content, formatted and not.
+     */
+    private static final String[] PIECES = {
+        "Call ", "mom", " about ", "%(b)the trip%", "%(i)soon% ", "%(hl)important%", " 50% off ", "%nothing%",
+        "%()nothing%", "%(bi)both%", " (see notes) ", "%(ul)under%", "%(u)line% ", "%(bold)  spaced  %", "% ",
+    };
+
+    /**
+     * Formats content the way it was before, with a regular expression compiled for each task.
+     *
+     * @param content Task content
+     *
+     * @return Display text
+     */
+    private static String formatWithRegex(final String content)
+    {
+        String text = content.trim();
+        if (text.startsWith("*"))
+        {
+            text = text.substring(1).trim();
+        }
+
+        if (text.contains("%("))
+        {
+            Pattern pattern = Pattern.compile("%\\([a-zA-Z]+\\)([^%]+)%");
+            text = pattern.matcher(text).replaceAll("$1");
+        }
+
+        return text.trim();
+    }
+
+    /**
+     * Creates task contents from random pieces.
+     *
+     * @return Contents
+     */
+    private static String[] createContents()
+    {
+        Random random = new Random(1);
+
+        String[] contents = new String[CONTENTS];
+        for (int i = 0; i < CONTENTS; i++)
+        {
+            StringBuilder content = new StringBuilder((i % 2 == 0) ? "* " : "");
+
+            int pieces = 1 + random.nextInt(PIECES.length / 2);
+            for (int j = 0; j < pieces; j++)
+            {
+                content.append(PIECES[random.nextInt(PIECES.length)]);
+            }
+
+            contents[i] = content.toString();
+        }
+
+        return contents;
+    }
+
+    /**
+     * Text is the same as the regular expression's.
+     */
+    public void testMatchesRegex()
+    {
+        String[] contents = createContents();
+        for (int i = 0; i < contents.length; i++)
+        {
+            String expected = formatWithRegex(contents[i]);
+            assertEquals(contents[i], expected, TodoistFormattedContent.parse(contents[i]).getText());
+        }
+    }
+
+    /**
+     * Formatting becomes spans over the text it styled.
+     */
+    public void testSpans()
+    {
+        TodoistFormattedContent formatted = TodoistFormattedContent.parse("* Buy %(b)milk% and %(ib)eggs% %(hl)now%");
+
+        assertEquals("Buy milk and eggs now", formatted.getText());
+        assertEquals(3, formatted.getSpanCount());
+
+        assertEquals("milk", formatted.getText().substring(formatted.getSpanStart(0), formatted.getSpanEnd(0)));
+        assertEquals(TodoistFormattedContent.STYLE_BOLD, formatted.getSpanStyles(0));
+
+        assertEquals("eggs", formatted.getText().substring(formatted.getSpanStart(1), formatted.getSpanEnd(1)));
+        assertEquals(TodoistFormattedContent.STYLE_BOLD | TodoistFormattedContent.STYLE_ITALIC,
+                     formatted.getSpanStyles(1));
+
+        assertEquals("now", formatted.getText().substring(formatted.getSpanStart(2), formatted.getSpanEnd(2)));
+        assertEquals(TodoistFormattedContent.STYLE_HIGHLIGHT, formatted.getSpanStyles(2));
+    }
+
+    /**
+     * Spans move with trimmed whitespace, and text that isn't formatting is left alone.
+     */
+    public void testTrimmedAndUnformatted()
+    {
+        TodoistFormattedContent formatted = TodoistFormattedContent.parse("%(u)  under  % %(x) %");
+
+        assertEquals("under", formatted.getText());
+        assertEquals(1, formatted.getSpanCount());
+        assertEquals(0, formatted.getSpanStart(0));
+        assertEquals("under".length(), formatted.getSpanEnd(0));
+        assertEquals(TodoistFormattedContent.STYLE_UNDERLINE, formatted.getSpanStyles(0));
+
+        formatted = TodoistFormattedContent.parse("50% off %()nothing% %(b)%");
+        assertEquals("50% off %()nothing% %(b)%", formatted.getText());
+        assertEquals(0, formatted.getSpanCount());
+        assertSame(formatted.getText(), formatted.getStyledText());
+    }
+
+    /**
+     * Times the formatter against the regular expression.
+     *
+     * Timings vary with the device's load, so they're logged rather than asserted.
+     */
+    @LargeTest
+    public void testBenchmarkAgainstRegex()
+    {
+        String[] contents = createContents();
+
+        long regex = Long.MAX_VALUE;
+        long fast = Long.MAX_VALUE;
+        long sum = 0;
+
+        // the first run warms up both
+        for (int run = 0; run <= RUNS; run++)
+        {
+            long start = System.nanoTime();
+            for (int i = 0; i < contents.length; i++)
+            {
+                sum += formatWithRegex(contents[i]).length();
+            }
+
+            long middle = System.nanoTime();
+            for (int i = 0; i < contents.length; i++)
+            {
+                sum -= TodoistFormattedContent.parse(contents[i]).getText().length();
+            }
+
+            long end = System.nanoTime();
+
+            if (run > 0)
+            {
+                regex = Math.min(regex, middle - start);
+                fast = Math.min(fast, end - middle);
+            }
+        }
+
+        assertEquals(0, sum);
+
+        double speedup = (double) regex / Math.max(fast, 1);
+        Log.i(TAG, CONTENTS + " contents: regex=" + (regex / CONTENTS) + "ns/content"
+                   + " formatter=" + (fast / CONTENTS) + "ns/content speedup=" + speedup);
+    }
+}
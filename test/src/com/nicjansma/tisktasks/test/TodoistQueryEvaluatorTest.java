@@ -0,0 +1,207 @@
+package com.nicjansma.tisktasks.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.joda.time.DateTime;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistQueryEvaluator;
+import com.nicjansma.tisktasks.models.TodoistQueryResult;
+import com.nicjansma.tisktasks.models.TodoistQueryResults;
+import com.nicjansma.tisktasks.models.TodoistTaskIndex;
+
+/**
+ * Local start page query tests.
+ */
+public final class TodoistQueryEvaluatorTest extends TestCase
+{
+    /**
+     * Creates a task.
+     *
+     * @param id Task ID
+     * @param priority Priority
+     * @param dueDate Due date string, or null
+     *
+     * @return Task
+     *
+     * @throws JSONException On a bad task
+     */
+    private static TodoistItem createTask(final long id, final int priority, final String dueDate)
+        throws JSONException
+    {
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("content", "Task " + id);
+        json.put("priority", priority);
+        json.put("indent", 1);
+        json.put("item_order", (int) id);
+        json.put("date_string", dueDate == null ? "" : "someday");
+        if (dueDate != null)
+        {
+            json.put("due_date", dueDate);
+        }
+
+        TodoistItem task = new TodoistItem();
+        task.initialize(json);
+        return task;
+    }
+
+    /**
+     * Gets the IDs of a query's tasks.
+     *
+     * @param result Query result
+     *
+     * @return Task IDs
+     */
+    private static ArrayList<Long> ids(final TodoistQueryResult result)
+    {
+        return ids(result.getTaskManager().getSnapshot());
+    }
+
+    /**
+     * Gets the IDs of tasks.
+     *
+     * @param tasks Tasks
+     *
+     * @return Task IDs
+     */
+    private static ArrayList<Long> ids(final List<TodoistItem> tasks)
+    {
+        ArrayList<Long> ids = new ArrayList<Long>();
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            ids.add(tasks.get(i).getId());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Creates an evaluator over a few tasks.
+     *
+     * @return Evaluator
+     *
+     * @throws JSONException On a bad task
+     */
+    private static TodoistQueryEvaluator createEvaluator()
+        throws JSONException
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        tasks.add(createTask(1, 4, "Fri Oct 16 23:59:59 2026"));
+        tasks.add(createTask(2, 1, "Sat Oct 17 23:59:59 2026"));
+        tasks.add(createTask(3, 4, null));
+        tasks.add(createTask(4, 2, "Sun Oct 18 23:59:59 2026"));
+        tasks.add(createTask(5, 1, "Thu Oct 15 23:59:59 2026"));
+        tasks.add(createTask(6, 1, "Sat Oct 17 23:59:59 2026"));
+
+        return new TodoistQueryEvaluator(new TodoistTaskIndex(tasks));
+    }
+
+    /**
+     * Overdue, date, priority and no date queries find the same tasks the server would.
+     *
+     * @throws JSONException On a bad task
+     */
+    public void testQueries()
+        throws JSONException
+    {
+        TodoistQueryEvaluator evaluator = createEvaluator();
+        DateTime now = new DateTime(2026, 10, 17, 12, 0, 0, 0);
+
+        ArrayList<Long> expected = new ArrayList<Long>();
+        expected.add(5L);
+        expected.add(1L);
+        assertEquals(expected, ids(evaluator.evaluate("overdue", now)));
+        assertEquals(expected, ids(evaluator.evaluate("od", now)));
+
+        expected.clear();
+        expected.add(2L);
+        expected.add(6L);
+        assertEquals(expected, ids(evaluator.evaluate("2026-10-17T00:00", now)));
+
+        expected.clear();
+        expected.add(4L);
+        assertEquals(expected, ids(evaluator.evaluate("2026-10-18T00:00", now)));
+
+        // p1 is the most urgent, which is task priority 4
+        expected.clear();
+        expected.add(1L);
+        expected.add(3L);
+        assertEquals(expected, ids(evaluator.evaluate("p1", now)));
+
+        expected.clear();
+        expected.add(4L);
+        assertEquals(expected, ids(evaluator.evaluate("p3", now)));
+
+        expected.clear();
+        expected.add(3L);
+        assertEquals(expected, ids(evaluator.evaluate("no date", now)));
+    }
+
+    /**
+     * A task that matches more than one start page query is only listed once, under the first.
+     *
+     * @throws JSONException On a bad task
+     */
+    public void testOverlappingQueriesListedOnce()
+        throws JSONException
+    {
+        TodoistQueryEvaluator evaluator = createEvaluator();
+        DateTime now = new DateTime(2026, 10, 17, 12, 0, 0, 0);
+
+        ArrayList<TodoistQueryResult> results = new ArrayList<TodoistQueryResult>();
+        results.add(evaluator.evaluate("overdue", now));
+        results.add(evaluator.evaluate("p1", now));
+        results.add(evaluator.evaluate("no date", now));
+
+        TodoistQueryResults queryResults = new TodoistQueryResults(results);
+
+        ArrayList<Long> expected = new ArrayList<Long>();
+        expected.add(5L);
+        expected.add(1L);
+        expected.add(3L);
+        assertEquals(expected, ids(queryResults.getTaskManager().getSnapshot()));
+
+        // and the same after importing the queries again, in another order
+        results = new ArrayList<TodoistQueryResult>();
+        results.add(evaluator.evaluate("p1", now));
+        results.add(evaluator.evaluate("overdue", now));
+
+        queryResults.importNewQueries(results);
+
+        expected.clear();
+        expected.add(1L);
+        expected.add(3L);
+        expected.add(5L);
+        assertEquals(expected, ids(queryResults.getTaskManager().getSnapshot()));
+    }
+
+    /**
+     * Queries that can't be answered locally fall back to the server.
+     *
+     * @throws JSONException On a bad task
+     */
+    public void testUnsupportedQueries()
+        throws JSONException
+    {
+        TodoistQueryEvaluator evaluator = createEvaluator();
+        DateTime now = new DateTime(2026, 10, 17, 12, 0, 0, 0);
+
+        assertNull(evaluator.evaluate("p5", now));
+        assertNull(evaluator.evaluate("@home", now));
+        assertNull(evaluator.evaluate("2026-99-99", now));
+
+        ArrayList<String> queries = new ArrayList<String>();
+        queries.add("od");
+        queries.add("@home");
+        assertNull(evaluator.evaluate(queries, now));
+
+        queries.remove(1);
+        assertEquals(1, evaluator.evaluate(queries, now).size());
+    }
+}
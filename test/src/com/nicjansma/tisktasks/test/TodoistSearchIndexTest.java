@@ -0,0 +1,148 @@
+package com.nicjansma.tisktasks.test;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.models.TaskManager;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistSearchIndex;
+
+/**
+ * Task search index tests.
+ */
+public final class TodoistSearchIndexTest extends TestCase
+{
+    /**
+     * Creates a task.
+     *
+     * @param id Task ID
+     * @param projectId Project ID
+     * @param content Task content
+     *
+     * @return Task
+     */
+    private static TodoistItem createTask(final long id, final long projectId, final String content)
+    {
+        return new TodoistItem(id, 1, projectId, content, "", false, false, 1, (int) id);
+    }
+
+    /**
+     * Creates a list of IDs.
+     *
+     * @param ids IDs
+     *
+     * @return List of IDs
+     */
+    private static ArrayList<Long> ids(final long... ids)
+    {
+        ArrayList<Long> list = new ArrayList<Long>();
+        for (int i = 0; i < ids.length; i++)
+        {
+            list.add(ids[i]);
+        }
+
+        return list;
+    }
+
+    /**
+     * Creates a task manager for a project with a few tasks.
+     *
+     * @param searchIndex Search index
+     *
+     * @return Task manager
+     */
+    private static TaskManager createTaskManager(final TodoistSearchIndex searchIndex)
+    {
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        tasks.add(createTask(1, 1, "Buy milk"));
+        tasks.add(createTask(2, 1, "*Call the bank"));
+        tasks.add(createTask(3, 1, "Buy %(b)bread% and MILK"));
+        tasks.add(createTask(4, 1, "Book flights"));
+
+        TaskManager taskManager = new TaskManager(searchIndex);
+        taskManager.importArray(tasks);
+        return taskManager;
+    }
+
+    /**
+     * Words match by prefix, ignoring case and formatting, and every word of a query has to match.
+     */
+    public void testPrefixSearch()
+    {
+        TodoistSearchIndex searchIndex = new TodoistSearchIndex();
+        createTaskManager(searchIndex);
+
+        assertEquals(ids(1, 3), searchIndex.search("buy"));
+        assertEquals(ids(1, 2, 3, 4), searchIndex.search("b"));
+        assertEquals(ids(1, 3), searchIndex.search("MIL"));
+        assertEquals(ids(3), searchIndex.search("bu bre"));
+        assertEquals(ids(2), searchIndex.search("call"));
+        assertEquals(ids(), searchIndex.search("bread milk car"));
+        assertEquals(ids(), searchIndex.search("  "));
+        assertEquals("Call the bank", searchIndex.getContent(2));
+    }
+
+    /**
+     * Adds, updates and deletes are reflected in the next search.
+     */
+    public void testIncrementalUpdates()
+    {
+        TodoistSearchIndex searchIndex = new TodoistSearchIndex();
+        TaskManager taskManager = createTaskManager(searchIndex);
+
+        taskManager.update(createTask(1, 1, "Buy eggs"));
+        assertEquals(ids(3), searchIndex.search("milk"));
+        assertEquals(ids(1), searchIndex.search("egg"));
+
+        taskManager.delete(taskManager.get(3));
+        assertEquals(ids(), searchIndex.search("milk"));
+        assertEquals(ids(1), searchIndex.search("buy"));
+
+        taskManager.add(createTask(5, 1, "Buy a car"), null, false);
+        assertEquals(ids(1, 5), searchIndex.search("buy"));
+
+        taskManager.clearArray();
+        assertEquals(0, searchIndex.getCount());
+        assertEquals(ids(), searchIndex.search("b"));
+    }
+
+    /**
+     * A cached index finds the same tasks, and a project's cached tasks are replaced when it's loaded.
+     */
+    public void testCache()
+    {
+        TodoistSearchIndex searchIndex = new TodoistSearchIndex();
+        createTaskManager(searchIndex);
+
+        TaskManager otherProject = new TaskManager(searchIndex);
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        tasks.add(createTask(10, 2, "Buy stamps"));
+        otherProject.importArray(tasks);
+
+        assertTrue(searchIndex.isDirty());
+
+        TodoistSearchIndex cached = new TodoistSearchIndex();
+        cached.initialize(searchIndex.toJson());
+
+        assertFalse(searchIndex.isDirty());
+        assertFalse(cached.isDirty());
+        assertEquals(5, cached.getCount());
+        assertEquals(ids(1, 3, 10), cached.search("buy"));
+        assertEquals(2, cached.getProjectId(10));
+        assertEquals("Buy bread and MILK", cached.getContent(3));
+
+        // loading the first project again drops its cached tasks that are gone
+        TaskManager reloaded = new TaskManager(cached);
+        tasks = new ArrayList<TodoistItem>();
+        tasks.add(createTask(1, 1, "Buy milk"));
+        reloaded.importArray(tasks);
+
+        assertEquals(ids(1, 10), cached.search("buy"));
+        assertEquals(ids(), cached.search("book"));
+        assertTrue(cached.isDirty());
+
+        cached.removeProject(2);
+        assertEquals(ids(1), cached.search("buy"));
+    }
+}
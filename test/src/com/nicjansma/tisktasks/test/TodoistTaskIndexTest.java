@@ -0,0 +1,301 @@
+package com.nicjansma.tisktasks.test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.nicjansma.tisktasks.models.TaskManager;
+import com.nicjansma.tisktasks.models.TodoistItem;
+import com.nicjansma.tisktasks.models.TodoistPriority;
+import com.nicjansma.tisktasks.models.TodoistTaskIndex;
+
+/**
+ * Task index tests.
+ */
+public final class TodoistTaskIndexTest extends TestCase
+{
+    /**
+     * Number of projects.
+     */
+    private static final int PROJECTS = 3;
+
+    /**
+     * Number of tasks per project.
+     */
+    private static final int COUNT = 50;
+
+    /**
+     * Number of random changes.
+     */
+    private static final int CHANGES = 300;
+
+    /**
+     * Number of days due dates are spread over.
+     */
+    private static final int DAYS = 20;
+
+    /**
+     * Milliseconds per day.
+     */
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    /**
+     * First due date.
+     */
+    private static final long START_MILLIS = 1790000000000L;
+
+    /**
+     * Random seed.
+     */
+    private static final long SEED = 42;
+
+    /**
+     * Todoist due date format.
+     */
+    private final SimpleDateFormat _dueDateFormat = new SimpleDateFormat("EEE MMM dd HH:mm:ss yyyy", Locale.US);
+
+    /**
+     * Creates a task.
+     *
+     * @param id Task ID
+     * @param projectId Project ID
+     * @param random Random number generator
+     *
+     * @return Task with a random priority and due date
+     *
+     * @throws JSONException On a bad task
+     */
+    private TodoistItem createTask(final long id, final long projectId, final Random random)
+        throws JSONException
+    {
+        JSONObject json = new JSONObject();
+        json.put("id", id);
+        json.put("project_id", projectId);
+        json.put("content", "Task " + id);
+        json.put("priority", random.nextInt(TodoistPriority.HIGHEST) + 1);
+        json.put("indent", 1);
+        json.put("item_order", (int) id);
+
+        // one in four tasks has no due date
+        if (random.nextInt(4) == 0)
+        {
+            json.put("date_string", "");
+        }
+        else
+        {
+            json.put("date_string", "someday");
+            json.put("due_date", _dueDateFormat.format(new Date(START_MILLIS + random.nextInt(DAYS) * DAY_MILLIS)));
+        }
+
+        TodoistItem task = new TodoistItem();
+        task.initialize(json);
+        return task;
+    }
+
+    /**
+     * Gets the IDs of tasks.
+     *
+     * @param tasks Tasks
+     *
+     * @return Task IDs
+     */
+    private static ArrayList<Long> ids(final ArrayList<TodoistItem> tasks)
+    {
+        ArrayList<Long> ids = new ArrayList<Long>();
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            ids.add(tasks.get(i).getId());
+        }
+
+        return ids;
+    }
+
+    /**
+     * Checks the index against a scan of the task managers.
+     *
+     * @param index Task index
+     * @param taskManagers Task managers
+     * @param random Random number generator
+     */
+    private static void assertIndex(
+        final TodoistTaskIndex index,
+        final ArrayList<TaskManager> taskManagers,
+        final Random random)
+    {
+        ArrayList<TodoistItem> all = new ArrayList<TodoistItem>();
+        for (int i = 0; i < taskManagers.size(); i++)
+        {
+            all.addAll(taskManagers.get(i).getSnapshot());
+        }
+
+        assertEquals(all.size(), index.getCount());
+
+        long from = START_MILLIS + (random.nextInt(DAYS) - 1) * DAY_MILLIS;
+        long to = from + random.nextInt(DAYS) * DAY_MILLIS;
+        int priority = random.nextInt(TodoistPriority.HIGHEST) + 1;
+        long projectId = random.nextInt(PROJECTS) + 1;
+
+        ArrayList<TodoistItem> due = new ArrayList<TodoistItem>();
+        ArrayList<TodoistItem> noDueDate = new ArrayList<TodoistItem>();
+        ArrayList<TodoistItem> atLeast = new ArrayList<TodoistItem>();
+        ArrayList<TodoistItem> project = new ArrayList<TodoistItem>();
+        for (int i = 0; i < all.size(); i++)
+        {
+            TodoistItem task = all.get(i);
+
+            if (task.getDueDate() == null)
+            {
+                noDueDate.add(task);
+            }
+            else if (task.getDueDate().getMillis() >= from && task.getDueDate().getMillis() < to)
+            {
+                due.add(task);
+            }
+
+            if (task.getPriority() >= priority)
+            {
+                atLeast.add(task);
+            }
+
+            if (task.getProjectId() == projectId)
+            {
+                project.add(task);
+            }
+        }
+
+        // by due date, then by ID
+        ArrayList<TodoistItem> dueResult = index.getDueBetween(from, to);
+        for (int i = 1; i < dueResult.size(); i++)
+        {
+            long previous = dueResult.get(i - 1).getDueDate().getMillis();
+            long current = dueResult.get(i).getDueDate().getMillis();
+            assertTrue(previous < current || (previous == current
+                                              && dueResult.get(i - 1).getId() < dueResult.get(i).getId()));
+        }
+
+        assertEquals(sortedIds(due), sortedIds(dueResult));
+        assertEquals(sortedIds(noDueDate), ids(index.getNoDueDate()));
+        assertEquals(sortedIds(atLeast), sortedIds(index.getPriorityAtLeast(priority)));
+        assertEquals(sortedIds(project), ids(index.getProject(projectId)));
+    }
+
+    /**
+     * Gets the sorted IDs of tasks.
+     *
+     * @param tasks Tasks
+     *
+     * @return Sorted task IDs
+     */
+    private static ArrayList<Long> sortedIds(final ArrayList<TodoistItem> tasks)
+    {
+        ArrayList<Long> ids = ids(tasks);
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Random adds, updates, deletes and imports keep the index in step with the task managers.
+     *
+     * @throws JSONException On a bad task
+     */
+    public void testRandomChanges()
+        throws JSONException
+    {
+        Random random = new Random(SEED);
+        TodoistTaskIndex index = new TodoistTaskIndex();
+
+        ArrayList<TaskManager> taskManagers = new ArrayList<TaskManager>();
+        long nextId = 1;
+        for (int p = 1; p <= PROJECTS; p++)
+        {
+            ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+            for (int i = 0; i < COUNT; i++)
+            {
+                tasks.add(createTask(nextId++, p, random));
+            }
+
+            TaskManager taskManager = new TaskManager(index);
+            taskManager.importArray(tasks);
+            taskManagers.add(taskManager);
+        }
+
+        assertIndex(index, taskManagers, random);
+
+        for (int n = 0; n < CHANGES; n++)
+        {
+            int p = random.nextInt(PROJECTS);
+            TaskManager taskManager = taskManagers.get(p);
+            int size = taskManager.getCount();
+            int op = random.nextInt(4);
+
+            if (op == 0 || size == 0)
+            {
+                taskManager.add(createTask(nextId++, p + 1, random), taskManager.getLast(), false);
+            }
+            else if (op == 1)
+            {
+                TodoistItem task = taskManager.getArray().get(random.nextInt(size));
+                taskManager.update(createTask(task.getId(), p + 1, random));
+            }
+            else if (op == 2)
+            {
+                taskManager.delete(taskManager.getArray().get(random.nextInt(size)));
+            }
+            else
+            {
+                ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>(taskManager.getSnapshot());
+                tasks.remove(random.nextInt(size));
+                tasks.add(createTask(nextId++, p + 1, random));
+                taskManager.importArray(tasks);
+            }
+
+            assertIndex(index, taskManagers, random);
+        }
+
+        taskManagers.get(0).clearArray();
+        assertIndex(index, taskManagers, random);
+
+        index.removeProject(2);
+        assertEquals(0, index.getProject(2).size());
+        assertFalse(index.hasProject(2));
+    }
+
+    /**
+     * A task moved between managers stays indexed, whichever order the managers change in.
+     *
+     * @throws JSONException On a bad task
+     */
+    public void testMoveBetweenManagers()
+        throws JSONException
+    {
+        Random random = new Random(SEED);
+        TodoistTaskIndex index = new TodoistTaskIndex();
+
+        TodoistItem task = createTask(1, 1, random);
+
+        TaskManager first = new TaskManager(index);
+        ArrayList<TodoistItem> tasks = new ArrayList<TodoistItem>();
+        tasks.add(task);
+        first.importArray(tasks);
+
+        // added to the new project before it's removed from the old one
+        TaskManager second = new TaskManager(index);
+        tasks = new ArrayList<TodoistItem>();
+        tasks.add(createTask(1, 2, random));
+        second.importArray(tasks);
+
+        first.clearArray();
+
+        assertEquals(1, index.getCount());
+        assertFalse(index.hasProject(1));
+        assertEquals(1, index.getProject(2).size());
+    }
+}
@@ -0,0 +1,443 @@
+package com.nicjansma.tisktasks.test;
+
+import android.test.suitebuilder.annotation.LargeTest;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase;
+
+import com.nicjansma.tisktasks.api.TodoistHttpResponse;
+import com.nicjansma.tisktasks.api.UrlConnectionTransport;
+
+/**
+ * HTTP transport tests, against a local stub server.
+ */
+public final class UrlConnectionTransportTest extends TestCase
+{
+    /**
+     * Class tag (for debugging).
+     */
+    private static final String TAG = UrlConnectionTransportTest.class.getSimpleName();
+
+    /**
+     * Response body.
+     */
+    private static final String BODY = "[{\"id\":1,\"content\":\"Buy milk \\u2713\"}]";
+
+    /**
+     * Simulated handshake time of each new connection (milliseconds).
+     */
+    private static final int HANDSHAKE_TIME = 25;
+
+    /**
+     * Number of calls per run.
+     */
+    private static final int CALLS = 10;
+
+    /**
+     * Short timeout (milliseconds).
+     */
+    private static final int SHORT_TIMEOUT = 250;
+
+    /**
+     * Local HTTP/1.1 server that answers every request with BODY.
+     *
+     * Each new connection waits HANDSHAKE_TIME before its first response, like a TCP and TLS handshake to a
+     * remote server would.
+     */
+    private static final class StubServer
+        extends Thread
+    {
+        /**
+         * Server socket.
+         */
+        private final ServerSocket _serverSocket;
+
+        /**
+         * Whether or not to answer requests at all.
+         */
+        private final boolean _respond;
+
+        /**
+         * Number of connections accepted.
+         */
+        private volatile int _connections;
+
+        /**
+         * Whether or not the last request accepted gzip.
+         */
+        private volatile boolean _acceptedGzip;
+
+        /**
+         * Method and body of the last request, eg. "POST a=1&b=2".
+         */
+        private volatile String _lastRequest;
+
+        /**
+         * Constructor.
+         *
+         * @param respond Whether or not to answer requests at all
+         *
+         * @throws IOException If the server couldn't listen
+         */
+        private StubServer(final boolean respond)
+            throws IOException
+        {
+            _serverSocket = new ServerSocket(0, 0, InetAddress.getByName("127.0.0.1"));
+            _respond = respond;
+
+            setDaemon(true);
+            start();
+        }
+
+        /**
+         * Gets the URL of the server.
+         *
+         * @return URL
+         */
+        private String getUrl()
+        {
+            return "http://127.0.0.1:" + _serverSocket.getLocalPort() + "/API/getUncompletedItems";
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (true)
+                {
+                    final Socket socket = _serverSocket.accept();
+                    _connections++;
+
+                    Thread connection = new Thread()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            serve(socket);
+                        }
+                    };
+
+                    connection.setDaemon(true);
+                    connection.start();
+                }
+            }
+            catch (final IOException e)
+            {
+                // closed
+                return;
+            }
+        }
+
+        /**
+         * Serves the requests of a connection.
+         *
+         * @param socket Socket
+         */
+        private void serve(final Socket socket)
+        {
+            try
+            {
+                socket.setTcpNoDelay(true);
+
+                InputStream in = socket.getInputStream();
+                OutputStream out = socket.getOutputStream();
+
+                Thread.sleep(HANDSHAKE_TIME);
+
+                String request = readHeaders(in);
+                while (request != null)
+                {
+                    if (!_respond)
+                    {
+                        // never answer, just wait for the client to give up
+                        request = readHeaders(in);
+                        continue;
+                    }
+
+                    String lowerRequest = request.toLowerCase();
+                    _acceptedGzip = lowerRequest.contains("accept-encoding: gzip");
+                    _lastRequest = request.substring(0, request.indexOf(' ')) + " " + readBody(in, lowerRequest);
+                    boolean close = lowerRequest.contains("connection: close");
+
+                    byte[] body = BODY.getBytes("UTF-8");
+                    if (_acceptedGzip)
+                    {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+                        gzip.write(body);
+                        gzip.close();
+                        body = bytes.toByteArray();
+                    }
+
+                    String headers = "HTTP/1.1 200 OK\r\n"
+                        + "Content-Type: application/json; charset=utf-8\r\n"
+                        + (_acceptedGzip ? "Content-Encoding: gzip\r\n" : "")
+                        + (close ? "Connection: close\r\n" : "")
+                        + "Content-Length: " + body.length + "\r\n\r\n";
+
+                    // one write, so Nagle's algorithm doesn't hold back the body
+                    ByteArrayOutputStream response = new ByteArrayOutputStream();
+                    response.write(headers.getBytes("US-ASCII"));
+                    response.write(body);
+                    out.write(response.toByteArray());
+                    out.flush();
+
+                    request = close ? null : readHeaders(in);
+                }
+
+                socket.close();
+            }
+            catch (final IOException e)
+            {
+                // client went away
+                return;
+            }
+            catch (final InterruptedException e)
+            {
+                // shutting down
+                return;
+            }
+        }
+
+        /**
+         * Reads the headers of a request.
+         *
+         * @param in Input stream
+         *
+         * @return Headers, or null at the end of the stream
+         *
+         * @throws IOException If the request couldn't be read
+         */
+        private static String readHeaders(final InputStream in)
+            throws IOException
+        {
+            StringBuilder headers = new StringBuilder();
+
+            int c = in.read();
+            while (c != -1)
+            {
+                headers.append((char) c);
+
+                if (headers.length() >= 4 && headers.lastIndexOf("\r\n\r\n") == headers.length() - 4)
+                {
+                    return headers.toString();
+                }
+
+                c = in.read();
+            }
+
+            return null;
+        }
+
+        /**
+         * Reads the body of a request.
+         *
+         * @param in Input stream
+         * @param lowerHeaders Headers of the request, in lower case
+         *
+         * @return Body, or "" if there isn't one
+         *
+         * @throws IOException If the body couldn't be read
+         */
+        private static String readBody(final InputStream in, final String lowerHeaders)
+            throws IOException
+        {
+            int start = lowerHeaders.indexOf("content-length: ");
+            if (start == -1)
+            {
+                return "";
+            }
+
+            start += "content-length: ".length();
+            byte[] body = new byte[Integer.parseInt(lowerHeaders.substring(start, lowerHeaders.indexOf('\r', start)))];
+
+            int read = 0;
+            while (read < body.length)
+            {
+                int count = in.read(body, read, body.length - read);
+                if (count == -1)
+                {
+                    throw new IOException("Body ended early");
+                }
+
+                read += count;
+            }
+
+            return new String(body, "UTF-8");
+        }
+
+        /**
+         * Stops the server.
+         *
+         * @throws IOException If the server couldn't be closed
+         */
+        private void close()
+            throws IOException
+        {
+            _serverSocket.close();
+        }
+    }
+
+    /**
+     * Times a run of calls.
+     *
+     * @param transport Transport
+     * @param server Server
+     *
+     * @return Time in nanoseconds
+     */
+    private static long timeCalls(final UrlConnectionTransport transport, final StubServer server)
+    {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < CALLS; i++)
+        {
+            TodoistHttpResponse response = transport.get(server.getUrl());
+
+            assertEquals(200, response.getHttpCode());
+            assertEquals(BODY, response.getBody());
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Responses are requested gzipped and are decompressed.
+     *
+     * @throws IOException On server errors
+     */
+    public void testGzip()
+        throws IOException
+    {
+        StubServer server = new StubServer(true);
+        try
+        {
+            TodoistHttpResponse response = new UrlConnectionTransport().get(server.getUrl());
+
+            assertTrue(server._acceptedGzip);
+            assertTrue(response.successful());
+            assertEquals(BODY, response.getBody());
+        }
+        finally
+        {
+            server.close();
+        }
+    }
+
+    /**
+     * Kept-alive connections are reused, so calls after the first skip the handshake. Timings vary with the device's
+     * load, so they're logged, and only the connection counts are asserted.
+     *
+     * @throws IOException On server errors
+     */
+    @LargeTest
+    public void testKeepAliveLatency()
+        throws IOException
+    {
+        StubServer keepAliveServer = new StubServer(true);
+        StubServer closeServer = new StubServer(true);
+        try
+        {
+            long keepAlive = timeCalls(new UrlConnectionTransport(SHORT_TIMEOUT * 4, SHORT_TIMEOUT * 4, true),
+                                       keepAliveServer);
+            long close = timeCalls(new UrlConnectionTransport(SHORT_TIMEOUT * 4, SHORT_TIMEOUT * 4, false),
+                                   closeServer);
+
+            Log.i(TAG, CALLS + " calls: keep-alive=" + (keepAlive / CALLS) + "ns/call"
+                       + " close=" + (close / CALLS) + "ns/call");
+
+            assertEquals(1, keepAliveServer._connections);
+            assertEquals(CALLS, closeServer._connections);
+        }
+        finally
+        {
+            keepAliveServer.close();
+            closeServer.close();
+        }
+    }
+
+    /**
+     * A server that never answers fails the call once the read timeout is up.
+     *
+     * @throws IOException On server errors
+     */
+    public void testReadTimeout()
+        throws IOException
+    {
+        StubServer server = new StubServer(false);
+        try
+        {
+            long start = System.currentTimeMillis();
+            TodoistHttpResponse response
+                = new UrlConnectionTransport(SHORT_TIMEOUT, SHORT_TIMEOUT, true).get(server.getUrl());
+
+            assertEquals(TodoistHttpResponse.CONNECTION_FAILURE, response.getHttpCode());
+            assertFalse(response.successful());
+            assertTrue(System.currentTimeMillis() - start < SHORT_TIMEOUT * 8);
+        }
+        finally
+        {
+            server.close();
+        }
+    }
+
+    /**
+     * A call that can't connect never left the device, so it's told apart from one that timed out.
+     *
+     * @throws IOException On socket errors
+     */
+    public void testConnectFailureNotSent()
+        throws IOException
+    {
+        // nothing listens on a port once it's closed
+        ServerSocket socket = new ServerSocket(0);
+        int port = socket.getLocalPort();
+        socket.close();
+
+        TodoistHttpResponse response = new UrlConnectionTransport(SHORT_TIMEOUT, SHORT_TIMEOUT, true)
+            .get("http://127.0.0.1:" + port + "/");
+
+        assertEquals(TodoistHttpResponse.NOT_SENT, response.getHttpCode());
+        assertFalse(response.successful());
+    }
+
+    /**
+     * Forms are posted in the request body, on the same kept-alive connection as gets.
+     *
+     * @throws IOException On server errors
+     */
+    public void testPost()
+        throws IOException
+    {
+        StubServer server = new StubServer(true);
+        try
+        {
+            UrlConnectionTransport transport = new UrlConnectionTransport();
+
+            TodoistHttpResponse response = transport.post(server.getUrl(), "token=abc&ids=%5B1%2C2%5D", null);
+            assertTrue(response.successful());
+            assertEquals(BODY, response.getBody());
+            assertEquals("POST token=abc&ids=%5B1%2C2%5D", server._lastRequest);
+
+            response = transport.get(server.getUrl());
+            assertTrue(response.successful());
+            assertEquals("GET ", server._lastRequest);
+
+            assertEquals(1, server._connections);
+        }
+        finally
+        {
+            server.close();
+        }
+    }
+}